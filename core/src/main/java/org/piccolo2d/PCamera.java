@@ -48,6 +48,7 @@ import org.piccolo2d.util.PBounds;
 import org.piccolo2d.util.PDebug;
 import org.piccolo2d.util.PDimension;
 import org.piccolo2d.util.PObjectOutputStream;
+import org.piccolo2d.util.POcclusionCuller;
 import org.piccolo2d.util.PPaintContext;
 import org.piccolo2d.util.PPickPath;
 import org.piccolo2d.util.PUtil;
@@ -133,9 +134,15 @@ public class PCamera extends PNode {
     /** Constraints to apply to the viewing area. */
     private int viewConstraint;
 
+    /** View transform before the current change, used to detect scrolling. */
+    private transient PAffineTransform previousViewTransform;
+
     /** Temporary bounds used as an optimization during repaint. */
     private static final PBounds TEMP_REPAINT_RECT = new PBounds();
 
+    /** Culler of occluded nodes of the viewed layers, if occlusion culling. */
+    private transient POcclusionCuller occlusionCuller;
+
 
     /**
      * Create a new camera with an empy list of layers.
@@ -332,6 +339,50 @@ public class PCamera extends PNode {
         return result;
     }
 
+    /**
+     * Return true if this camera skips painting the nodes of its layers hidden
+     * behind opaque nodes painted after them. Defaults to <code>false</code>.
+     * 
+     * @since 4.0
+     * @return true if this camera skips painting occluded nodes
+     */
+    public boolean isOcclusionCulling() {
+        return occlusionCuller != null;
+    }
+
+    /**
+     * Set to <code>true</code> to skip painting the nodes of the layers viewed
+     * by this camera that are hidden behind opaque nodes painted after them.
+     * Before each paint of its view, this camera runs an occlusion culling pass
+     * over the nodes of its layers within the area being repainted, see
+     * {@link POcclusionCuller}.
+     * 
+     * @since 4.0
+     * @param occlusionCulling true to skip painting occluded nodes
+     */
+    public void setOcclusionCulling(final boolean occlusionCulling) {
+        if (occlusionCulling == isOcclusionCulling()) {
+            return;
+        }
+        if (occlusionCulling) {
+            occlusionCuller = new POcclusionCuller();
+        }
+        else {
+            occlusionCuller = null;
+        }
+    }
+
+    /**
+     * Return the occlusion culler of this camera, or <code>null</code> if this
+     * camera does not cull occluded nodes.
+     * 
+     * @since 4.0
+     * @return the occlusion culler of this camera, or <code>null</code>
+     */
+    public POcclusionCuller getOcclusionCuller() {
+        return occlusionCuller;
+    }
+
     /**
      * Paint this camera and then paint this camera's view through its view
      * transform.
@@ -344,7 +395,18 @@ public class PCamera extends PNode {
         paintContext.pushClip(getBoundsReference());
         paintContext.pushTransform(viewTransform);
 
-        paintCameraView(paintContext);
+        if (occlusionCuller != null) {
+            occlusionCuller.cull(layers, paintContext);
+            try {
+                paintCameraView(paintContext);
+            }
+            finally {
+                occlusionCuller.reset();
+            }
+        }
+        else {
+            paintCameraView(paintContext);
+        }
         paintDebugInfo(paintContext);
 
         paintContext.popTransform(viewTransform);
@@ -573,10 +635,9 @@ public class PCamera extends PNode {
      * @param y scale about point, y coordinate
      */
     public void scaleViewAboutPoint(final double scale, final double x, final double y) {
+        final PAffineTransform oldViewTransform = saveViewTransform();
         viewTransform.scaleAboutPoint(scale, x, y);
-        applyViewConstraints();
-        invalidatePaint();
-        firePropertyChange(PROPERTY_CODE_VIEW_TRANSFORM, PROPERTY_VIEW_TRANSFORM, null, viewTransform);
+        viewTransformChanged(oldViewTransform);
     }
 
     /**
@@ -597,10 +658,9 @@ public class PCamera extends PNode {
      * @param dy translate delta y
      */
     public void translateView(final double dx, final double dy) {
+        final PAffineTransform oldViewTransform = saveViewTransform();
         viewTransform.translate(dx, dy);
-        applyViewConstraints();
-        invalidatePaint();
-        firePropertyChange(PROPERTY_CODE_VIEW_TRANSFORM, PROPERTY_VIEW_TRANSFORM, null, viewTransform);
+        viewTransformChanged(oldViewTransform);
     }
 
     /**
@@ -625,10 +685,9 @@ public class PCamera extends PNode {
      * @param y offset y
      */
     public void setViewOffset(final double x, final double y) {
+        final PAffineTransform oldViewTransform = saveViewTransform();
         viewTransform.setOffset(x, y);
-        applyViewConstraints();
-        invalidatePaint();
-        firePropertyChange(PROPERTY_CODE_VIEW_TRANSFORM, PROPERTY_VIEW_TRANSFORM, null, viewTransform);
+        viewTransformChanged(oldViewTransform);
     }
 
     /**
@@ -661,10 +720,72 @@ public class PCamera extends PNode {
      *    viewed by this camera
      */
     public void setViewTransform(final AffineTransform viewTransform) {
+        final PAffineTransform oldViewTransform = saveViewTransform();
         this.viewTransform.setTransform(viewTransform);
+        viewTransformChanged(oldViewTransform);
+    }
+
+    /**
+     * Save a copy of the view transform before it is changed.
+     *
+     * @return the saved copy of the view transform
+     */
+    private PAffineTransform saveViewTransform() {
+        if (previousViewTransform == null) {
+            previousViewTransform = new PAffineTransform();
+        }
+        previousViewTransform.setTransform(viewTransform);
+        return previousViewTransform;
+    }
+
+    /**
+     * Apply the view constraints after a change of the view transform, then
+     * scroll the component or invalidate the paint of this camera and notify
+     * listeners.
+     *
+     * @param oldViewTransform view transform before the change
+     */
+    private void viewTransformChanged(final AffineTransform oldViewTransform) {
         applyViewConstraints();
-        invalidatePaint();
-        firePropertyChange(PROPERTY_CODE_VIEW_TRANSFORM, PROPERTY_VIEW_TRANSFORM, null, this.viewTransform);
+        if (!scrollComponent(oldViewTransform)) {
+            invalidatePaint();
+        }
+        firePropertyChange(PROPERTY_CODE_VIEW_TRANSFORM, PROPERTY_VIEW_TRANSFORM, null, viewTransform);
+    }
+
+    /**
+     * If the view transform changed only in translation, ask the canvas for
+     * this camera to scroll its previous frame instead of repainting this
+     * camera. This is only possible for a camera directly below the root
+     * which is translated at most.
+     *
+     * @param oldViewTransform view transform before the change
+     * @return true if the canvas scrolled its previous frame
+     */
+    private boolean scrollComponent(final AffineTransform oldViewTransform) {
+        if (!(component instanceof PCanvas) || !(getParent() instanceof PRoot)) {
+            return false;
+        }
+        if (oldViewTransform.getScaleX() != viewTransform.getScaleX()
+                || oldViewTransform.getShearY() != viewTransform.getShearY()
+                || oldViewTransform.getShearX() != viewTransform.getShearX()
+                || oldViewTransform.getScaleY() != viewTransform.getScaleY()) {
+            return false;
+        }
+        // a camera paint other than a color does not scroll with the view
+        if (getPaint() != null && !(getPaint() instanceof Color)) {
+            return false;
+        }
+        final PAffineTransform cameraTransform = getTransformReference(false);
+        if (cameraTransform != null && (cameraTransform.getType() & ~AffineTransform.TYPE_TRANSLATION) != 0) {
+            return false;
+        }
+        final double dx = viewTransform.getTranslateX() - oldViewTransform.getTranslateX();
+        final double dy = viewTransform.getTranslateY() - oldViewTransform.getTranslateY();
+        if (dx == 0.0d && dy == 0.0d) {
+            return false;
+        }
+        return ((PCanvas) component).scrollView(this, dx, dy);
     }
 
     /**
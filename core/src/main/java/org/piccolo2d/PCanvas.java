@@ -28,13 +28,18 @@
  */
 package org.piccolo2d;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Cursor;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.KeyEventPostProcessor;
 import java.awt.KeyboardFocusManager;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.HierarchyEvent;
 import java.awt.event.HierarchyListener;
@@ -45,6 +50,11 @@ import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
 import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseWheelListener;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.swing.FocusManager;
 import javax.swing.JComponent;
@@ -54,6 +64,7 @@ import javax.swing.Timer;
 import org.piccolo2d.event.PInputEventListener;
 import org.piccolo2d.event.PPanEventHandler;
 import org.piccolo2d.event.PZoomEventHandler;
+import org.piccolo2d.util.PAdaptiveQualityController;
 import org.piccolo2d.util.PBounds;
 import org.piccolo2d.util.PDebug;
 import org.piccolo2d.util.PPaintContext;
@@ -85,6 +96,35 @@ public class PCanvas extends JComponent implements PComponent {
      */
     public static final String PROPERTY_INTERACTING = "INTERACTING_CHANGED_NOTIFICATION";
 
+    /**
+     * Scroll mode in which every change of the camera view repaints the
+     * camera. This is the default scroll mode.
+     *
+     * @since 4.0
+     */
+    public static final int SIMPLE_SCROLL_MODE = 0;
+
+    /**
+     * Scroll mode in which the last frame is retained in an image, and camera
+     * view changes which only translate the view are painted by copying the
+     * retained frame and rendering just the newly exposed strips.
+     *
+     * @since 4.0
+     */
+    public static final int BLIT_SCROLL_MODE = 1;
+
+    /** Maximum distance of a scroll delta from whole device pixels. */
+    private static final double SCROLL_TOLERANCE = 1.0E-6;
+
+    /** Maximum number of damaged regions tracked before merging them. */
+    private static final int MAX_DAMAGE_REGIONS = 16;
+
+    /** Size of the tiles rendered by progressive refinement, in pixels of this canvas. */
+    private static final int REFINEMENT_TILE_SIZE = 128;
+
+    /** Time spent rendering tiles per turn of progressive refinement, in milliseconds. */
+    private static final int REFINEMENT_TIME_SLICE = 10;
+
     /** The camera though which this Canvas is viewing. */
     private PCamera camera;
 
@@ -122,6 +162,60 @@ public class PCanvas extends JComponent implements PComponent {
     /** Used to track whether the last paint operation was during an animation. */
     private boolean animatingOnLastPaint;
 
+    /** Controller degrading render quality to hold a target frame time, if any. */
+    private PAdaptiveQualityController adaptiveQualityController;
+
+    /** Timer restoring full quality once no frame has been painted for a while. */
+    private transient Timer restoreQualityTimer;
+
+    /** True while the frame restoring full quality is pending. */
+    private boolean restoringQuality;
+
+    /** Scroll mode, one of {@link #SIMPLE_SCROLL_MODE} or {@link #BLIT_SCROLL_MODE}. */
+    private int scrollMode = SIMPLE_SCROLL_MODE;
+
+    /** True if frames are rendered into a retained buffer. */
+    private boolean retainedBuffering;
+
+    /** Retained last frame, in device pixels. */
+    private transient BufferedImage retainedBuffer;
+
+    /** Device scale of the retained last frame. */
+    private double retainedBufferScale;
+
+    /** Pending scroll of the retained last frame, in device pixels. */
+    private int pendingScrollX;
+
+    /** Pending scroll of the retained last frame, in device pixels. */
+    private int pendingScrollY;
+
+    /** Damaged regions of the retained last frame, in component coordinates. */
+    private final List/*<PBounds>*/ damage = new ArrayList();
+
+    /** Area rendered into the retained buffer for the last frame. */
+    private double redrawArea;
+
+    /** Total area rendered into the retained buffer. */
+    private double totalRedrawArea;
+
+    /** Number of frames painted through the retained buffer. */
+    private long redrawFrameCount;
+
+    /** True if normal quality frames are rendered progressively. */
+    private boolean progressiveRefinement;
+
+    /** Region still to be rendered at normal quality, in component coordinates. */
+    private final PBounds refinementRegion = new PBounds();
+
+    /** Index of the next tile of the refinement region to render. */
+    private int refinementTile;
+
+    /** Region rendered at normal quality but not yet copied to the screen. */
+    private final PBounds refinedRegion = new PBounds();
+
+    /** Timer rendering the refinement region a slice at a time. */
+    private transient Timer refinementTimer;
+
     /** The mouse listener that is registered for large scale mouse events. */
     private transient MouseListener mouseListener;
 
@@ -261,6 +355,7 @@ public class PCanvas extends JComponent implements PComponent {
         }
 
         camera = newCamera;
+        retainedBuffer = null;
 
         if (camera != null) {
             camera.setComponent(this);
@@ -356,9 +451,12 @@ public class PCanvas extends JComponent implements PComponent {
                 nextRenderQuality = animatingRenderQuality;
             }
             if (nextRenderQuality > interactingRenderQuality) {
-                repaint();
+                repaintAtNormalQuality(null);
             }
         }
+        else if (refinementTimer != null) {
+            refinementTimer.stop();
+        }
 
         final boolean newInteracting = getInteracting();
 
@@ -546,6 +644,356 @@ public class PCanvas extends JComponent implements PComponent {
         repaint((int) bounds.x, (int) bounds.y, (int) bounds.width, (int) bounds.height);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * If frames are retained, the region is also recorded as damaged so that
+     * only damaged regions are rendered into the retained frame.
+     * </p>
+     */
+    public void repaint(final long tm, final int x, final int y, final int width, final int height) {
+        if (retainedBuffer != null) {
+            addDamage(new PBounds(x, y, width, height));
+        }
+        super.repaint(tm, x, y, width, height);
+    }
+
+    /**
+     * Return true if frames are rendered into a retained buffer which
+     * persists across frames. Defaults to false. Frames are always retained
+     * in {@link #BLIT_SCROLL_MODE}.
+     *
+     * @since 4.0
+     * @return true if frames are rendered into a retained buffer
+     */
+    public boolean isRetainedBuffering() {
+        return retainedBuffering;
+    }
+
+    /**
+     * Set to true to render frames into a retained buffer the size of this
+     * canvas which persists across frames. Only the regions damaged since the
+     * last frame are rendered into the buffer, which is then copied to the
+     * screen. This avoids rendering the union of all damaged regions, and
+     * avoids flicker when Swing double buffering is disabled.
+     *
+     * @since 4.0
+     * @param retainedBuffering true to render frames into a retained buffer
+     */
+    public void setRetainedBuffering(final boolean retainedBuffering) {
+        if (this.retainedBuffering != retainedBuffering) {
+            this.retainedBuffering = retainedBuffering;
+            retainedBuffer = null;
+            repaint();
+        }
+    }
+
+    /**
+     * Return true if frames at normal quality following interaction or
+     * animation are rendered progressively. Defaults to false.
+     *
+     * @since 4.0
+     * @return true if frames at normal quality following interaction or
+     *         animation are rendered progressively
+     */
+    public boolean isProgressiveRefinement() {
+        return progressiveRefinement;
+    }
+
+    /**
+     * Set to true to render frames at normal quality following interaction or
+     * animation progressively. Instead of rendering the whole frame at once,
+     * which can block the event dispatch thread for a long time on heavy
+     * scenes, the low quality frame stays on screen and is replaced tile by
+     * tile, a time slice per turn of the event dispatch thread. Refinement
+     * pauses while interacting or animating. Frames are rendered into a
+     * retained buffer, as with {@link #setRetainedBuffering(boolean)}.
+     *
+     * @since 4.0
+     * @param progressiveRefinement true to render frames at normal quality
+     *            following interaction or animation progressively
+     */
+    public void setProgressiveRefinement(final boolean progressiveRefinement) {
+        if (this.progressiveRefinement != progressiveRefinement) {
+            this.progressiveRefinement = progressiveRefinement;
+            if (refinementTimer != null) {
+                refinementTimer.stop();
+                refinementTimer = null;
+            }
+            refinementRegion.reset();
+            retainedBuffer = null;
+            repaint();
+        }
+    }
+
+    /**
+     * Return true if a region remains to be rendered at normal quality by
+     * progressive refinement.
+     *
+     * @since 4.0
+     * @return true if a region remains to be rendered at normal quality
+     */
+    public boolean isRefining() {
+        return !refinementRegion.isEmpty();
+    }
+
+    /**
+     * Repaint the specified region at normal quality, progressively if
+     * progressive refinement is on.
+     *
+     * @param region region to repaint, in component coordinates, or
+     *            <code>null</code> to repaint this whole canvas
+     */
+    private void repaintAtNormalQuality(final PBounds region) {
+        if (!progressiveRefinement || retainedBuffer == null) {
+            if (region == null) {
+                repaint();
+            }
+            else {
+                repaint(region);
+            }
+            return;
+        }
+
+        final PBounds canvasBounds = new PBounds(0, 0, getWidth(), getHeight());
+        if (region == null) {
+            refinementRegion.add(canvasBounds);
+        }
+        else if (region.intersects(canvasBounds)) {
+            region.expandNearestIntegerDimensions();
+            refinementRegion.add(region.createIntersection(canvasBounds));
+        }
+        if (refinementRegion.isEmpty()) {
+            return;
+        }
+        refinementTile = 0;
+
+        if (refinementTimer == null) {
+            refinementTimer = createTimer(0, new ActionListener() {
+                public void actionPerformed(final ActionEvent event) {
+                    if (getInteracting() || getAnimating() || !refineSlice()) {
+                        refinementTimer.stop();
+                    }
+                }
+            });
+        }
+        refinementTimer.restart();
+    }
+
+    /**
+     * Render tiles of the refinement region into the retained frame at
+     * normal quality for one time slice, and request copying them to the
+     * screen.
+     *
+     * @return true if a region remains to be rendered at normal quality
+     */
+    boolean refineSlice() {
+        if (retainedBuffer == null) {
+            refinementRegion.reset();
+            return false;
+        }
+        if (refinementRegion.isEmpty()) {
+            return false;
+        }
+
+        final double frameRedrawArea = redrawArea;
+        redrawArea = 0.0d;
+        final int columns = (int) Math.ceil(refinementRegion.getWidth() / REFINEMENT_TILE_SIZE);
+        final int tiles = columns * (int) Math.ceil(refinementRegion.getHeight() / REFINEMENT_TILE_SIZE);
+        final long deadline = System.currentTimeMillis() + REFINEMENT_TIME_SLICE;
+        final PBounds refined = new PBounds();
+        do {
+            final double x = refinementRegion.getX() + refinementTile % columns * REFINEMENT_TILE_SIZE;
+            final double y = refinementRegion.getY() + refinementTile / columns * REFINEMENT_TILE_SIZE;
+            final PBounds tile = new PBounds(x, y, Math.min(REFINEMENT_TILE_SIZE, refinementRegion.getMaxX() - x),
+                    Math.min(REFINEMENT_TILE_SIZE, refinementRegion.getMaxY() - y));
+            renderRetained(tile);
+            refined.add(tile);
+            refinementTile++;
+        } while (refinementTile < tiles && System.currentTimeMillis() < deadline);
+        totalRedrawArea += redrawArea;
+        redrawArea = frameRedrawArea;
+
+        if (refinementTile >= tiles) {
+            refinementRegion.reset();
+        }
+        refinedRegion.add(refined);
+        refined.expandNearestIntegerDimensions();
+        super.repaint(0, (int) refined.x, (int) refined.y, (int) refined.width, (int) refined.height);
+        return !refinementRegion.isEmpty();
+    }
+
+    /**
+     * Return the area, in square pixels of this canvas, rendered into the
+     * retained buffer for the last frame painted. Overlapping damaged
+     * regions are counted once for each region.
+     *
+     * @since 4.0
+     * @return the area rendered for the last frame
+     */
+    public double getRedrawArea() {
+        return redrawArea;
+    }
+
+    /**
+     * Return the total area, in square pixels of this canvas, rendered into
+     * the retained buffer since the redraw statistics were last reset.
+     *
+     * @since 4.0
+     * @return the total area rendered
+     */
+    public double getTotalRedrawArea() {
+        return totalRedrawArea;
+    }
+
+    /**
+     * Return the number of frames painted through the retained buffer since
+     * the redraw statistics were last reset.
+     *
+     * @since 4.0
+     * @return the number of frames painted through the retained buffer
+     */
+    public long getRedrawFrameCount() {
+        return redrawFrameCount;
+    }
+
+    /**
+     * Reset the redraw statistics.
+     *
+     * @since 4.0
+     */
+    public void resetRedrawStatistics() {
+        redrawArea = 0.0d;
+        totalRedrawArea = 0.0d;
+        redrawFrameCount = 0;
+    }
+
+    /**
+     * Return the scroll mode of this canvas. Defaults to
+     * {@link #SIMPLE_SCROLL_MODE}.
+     *
+     * @since 4.0
+     * @return the scroll mode of this canvas
+     */
+    public int getScrollMode() {
+        return scrollMode;
+    }
+
+    /**
+     * Set the scroll mode of this canvas to <code>scrollMode</code>. In
+     * {@link #BLIT_SCROLL_MODE} the last frame is retained in an image the
+     * size of this canvas, and changes of the camera view which only
+     * translate the view by whole device pixels are painted by copying the
+     * retained frame and rendering just the newly exposed strips. If the
+     * scene changed since the last frame was painted, the whole camera is
+     * repainted as in {@link #SIMPLE_SCROLL_MODE}.
+     *
+     * @since 4.0
+     * @param scrollMode scroll mode, one of {@link #SIMPLE_SCROLL_MODE} or
+     *            {@link #BLIT_SCROLL_MODE}
+     */
+    public void setScrollMode(final int scrollMode) {
+        if (scrollMode != SIMPLE_SCROLL_MODE && scrollMode != BLIT_SCROLL_MODE) {
+            throw new IllegalArgumentException("scrollMode must be SIMPLE_SCROLL_MODE or BLIT_SCROLL_MODE, was "
+                    + scrollMode);
+        }
+        if (this.scrollMode != scrollMode) {
+            this.scrollMode = scrollMode;
+            retainedBuffer = null;
+            repaint();
+        }
+    }
+
+    /**
+     * Scroll the retained last frame after the view of the specified camera
+     * was translated by <code>[dx, dy]</code>, if possible, and request
+     * rendering the newly exposed strips.
+     *
+     * @param scrolledCamera camera whose view was translated
+     * @param dx view translation delta x, in camera coordinates
+     * @param dy view translation delta y, in camera coordinates
+     * @return true if the retained last frame will be scrolled, false if the
+     *         camera has to be repainted instead
+     */
+    boolean scrollView(final PCamera scrolledCamera, final double dx, final double dy) {
+        if (scrollMode != BLIT_SCROLL_MODE || retainedBuffer == null || scrolledCamera != camera) {
+            return false;
+        }
+        // regions damaged before the first scroll since the last frame
+        if (pendingScrollX == 0 && pendingScrollY == 0 && !damage.isEmpty()) {
+            return false;
+        }
+        final double deviceDx = dx * retainedBufferScale;
+        final double deviceDy = dy * retainedBufferScale;
+        final int scrollX = (int) Math.round(deviceDx);
+        final int scrollY = (int) Math.round(deviceDy);
+        if (Math.abs(deviceDx - scrollX) > SCROLL_TOLERANCE || Math.abs(deviceDy - scrollY) > SCROLL_TOLERANCE) {
+            return false;
+        }
+        if (Math.abs(pendingScrollX + scrollX) >= retainedBuffer.getWidth()
+                || Math.abs(pendingScrollY + scrollY) >= retainedBuffer.getHeight()) {
+            return false;
+        }
+        pendingScrollX += scrollX;
+        pendingScrollY += scrollY;
+
+        // regions still to be rendered after a previous scroll move along
+        for (int i = 0; i < damage.size(); i++) {
+            ((PBounds) damage.get(i)).moveBy(dx, dy);
+        }
+
+        final PBounds cameraBounds = camera.getBounds();
+        camera.localToParent(cameraBounds);
+        if (dx > 0) {
+            addDamage(new PBounds(cameraBounds.x, cameraBounds.y, dx, cameraBounds.height));
+        }
+        else if (dx < 0) {
+            addDamage(new PBounds(cameraBounds.getMaxX() + dx, cameraBounds.y, -dx, cameraBounds.height));
+        }
+        if (dy > 0) {
+            addDamage(new PBounds(cameraBounds.x, cameraBounds.y, cameraBounds.width, dy));
+        }
+        else if (dy < 0) {
+            addDamage(new PBounds(cameraBounds.x, cameraBounds.getMaxY() + dy, cameraBounds.width, -dy));
+        }
+
+        // children of the camera do not move with the view
+        final int count = camera.getChildrenCount();
+        for (int i = 0; i < count; i++) {
+            final PBounds childBounds = camera.getChild(i).getFullBounds();
+            camera.localToParent(childBounds);
+            addDamage(childBounds);
+            addDamage(new PBounds(childBounds).moveBy(dx, dy));
+        }
+
+        // the rest of the camera is copied from the scrolled frame, not damaged
+        cameraBounds.expandNearestIntegerDimensions();
+        super.repaint(0, (int) cameraBounds.x, (int) cameraBounds.y, (int) cameraBounds.width,
+                (int) cameraBounds.height);
+        return true;
+    }
+
+    /**
+     * Add the specified region to the damaged regions of the retained last
+     * frame, merging all regions once there are too many.
+     *
+     * @param bounds region to add, in component coordinates
+     */
+    private void addDamage(final PBounds bounds) {
+        bounds.expandNearestIntegerDimensions();
+        bounds.inset(-1, -1);
+        if (damage.size() < MAX_DAMAGE_REGIONS) {
+            damage.add(bounds);
+        }
+        else {
+            ((PBounds) damage.get(0)).add(bounds);
+            for (int i = damage.size() - 1; i > 0; i--) {
+                ((PBounds) damage.get(0)).add((PBounds) damage.remove(i));
+            }
+        }
+    }
+
     private PBounds repaintBounds = new PBounds();
 
     /**
@@ -553,9 +1001,59 @@ public class PCanvas extends JComponent implements PComponent {
      */
     public void paintComponent(final Graphics g) {
         PDebug.startProcessingOutput();
+        final long startTime = System.nanoTime();
 
         final Graphics2D g2 = (Graphics2D) g.create();
 
+        if (getAnimating()) {
+            repaintBounds.add(g2.getClipBounds());
+        }
+
+        if ((retainedBuffering || progressiveRefinement || scrollMode == BLIT_SCROLL_MODE) && !isPaintingForPrint()
+                && canRetain(g2)) {
+            paintRetained(g2);
+        }
+        else {
+            retainedBuffer = null;
+            paintCamera(g2);
+        }
+
+        pendingScrollX = 0;
+        pendingScrollY = 0;
+        damage.clear();
+        refinedRegion.reset();
+
+        // if switched state from animating to not animating invalidate the
+        // repaint bounds so that it will be drawn with the default instead of
+        // animating render quality.
+        if (!getAnimating() && animatingOnLastPaint) {
+            repaintAtNormalQuality(new PBounds(repaintBounds));
+            repaintBounds.reset();
+        }
+
+        animatingOnLastPaint = getAnimating();
+
+        if (adaptiveQualityController != null && !isPaintingForPrint()) {
+            if (restoringQuality) {
+                restoringQuality = false;
+            }
+            else {
+                adaptiveQualityController.frameRendered((System.nanoTime() - startTime) / 1000000.0d);
+            }
+            if (adaptiveQualityController.getLevel() > PAdaptiveQualityController.FULL_QUALITY) {
+                scheduleQualityRestore();
+            }
+        }
+
+        PDebug.endProcessingOutput(g2);
+    }
+
+    /**
+     * Paint the camera of this canvas into the specified graphics.
+     *
+     * @param g2 graphics to paint into
+     */
+    private void paintCamera(final Graphics2D g2) {
         // support for non-opaque canvases
         // see
         // http://groups.google.com/group/piccolo2d-dev/browse_thread/thread/134e2792d3a54cf
@@ -564,10 +1062,6 @@ public class PCanvas extends JComponent implements PComponent {
             g2.fillRect(0, 0, getWidth(), getHeight());
         }
 
-        if (getAnimating()) {
-            repaintBounds.add(g2.getClipBounds());
-        }
-
         // create new paint context and set render quality to lowest common
         // denominator render quality.
         final PPaintContext paintContext = new PPaintContext(g2);
@@ -582,20 +1076,142 @@ public class PCanvas extends JComponent implements PComponent {
         else {
             paintContext.setRenderQuality(normalRenderQuality);
         }
+        if (adaptiveQualityController != null) {
+            adaptiveQualityController.configure(paintContext);
+        }
 
         camera.fullPaint(paintContext);
+    }
 
-        // if switched state from animating to not animating invalidate the
-        // repaint bounds so that it will be drawn with the default instead of
-        // animating render quality.
-        if (!getAnimating() && animatingOnLastPaint) {
-            repaint(repaintBounds);
-            repaintBounds.reset();
+    /**
+     * Return true if frames painted into the specified graphics can be
+     * retained, which requires a device transform of at most a translation
+     * and a uniform scale.
+     *
+     * @param g2 graphics to paint into
+     * @return true if frames painted into the specified graphics can be
+     *         retained
+     */
+    private boolean canRetain(final Graphics2D g2) {
+        final AffineTransform deviceTransform = g2.getTransform();
+        final int retainableTypes = AffineTransform.TYPE_TRANSLATION | AffineTransform.TYPE_UNIFORM_SCALE;
+        return getWidth() > 0 && getHeight() > 0 && deviceTransform.getScaleX() > 0
+                && (deviceTransform.getType() & ~retainableTypes) == 0;
+    }
+
+    /**
+     * Update the retained frame, scrolling it if a scroll is pending and
+     * rendering only its damaged regions, and copy it into the specified
+     * graphics.
+     *
+     * @param g2 graphics to paint into
+     */
+    private void paintRetained(final Graphics2D g2) {
+        final double scale = g2.getTransform().getScaleX();
+        final int bufferWidth = (int) Math.ceil(getWidth() * scale);
+        final int bufferHeight = (int) Math.ceil(getHeight() * scale);
+
+        if (retainedBuffer == null || retainedBuffer.getWidth() != bufferWidth
+                || retainedBuffer.getHeight() != bufferHeight || retainedBufferScale != scale
+                || (retainedBuffer.getTransparency() == Transparency.OPAQUE) != isOpaque()) {
+            retainedBuffer = createRetainedBuffer(bufferWidth, bufferHeight);
+            retainedBufferScale = scale;
+            redrawArea = 0.0d;
+            renderRetained(new Rectangle(0, 0, getWidth(), getHeight()));
         }
+        else {
+            if (pendingScrollX != 0 || pendingScrollY != 0) {
+                final PBounds cameraBounds = camera.getBounds();
+                camera.localToParent(cameraBounds);
+                final Graphics2D bufferGraphics = retainedBuffer.createGraphics();
+                bufferGraphics.setClip(toDevice(cameraBounds));
+                bufferGraphics.copyArea(0, 0, bufferWidth, bufferHeight, pendingScrollX, pendingScrollY);
+                bufferGraphics.dispose();
+            }
 
-        animatingOnLastPaint = getAnimating();
+            redrawArea = 0.0d;
+            if (damage.isEmpty()) {
+                // not requested through repaint, for example exposed
+                final Rectangle clip = g2.getClipBounds();
+                if (clip == null) {
+                    renderRetained(new Rectangle(0, 0, getWidth(), getHeight()));
+                }
+                else if (!refinedRegion.contains(clip)) {
+                    // unless already rendered by progressive refinement
+                    renderRetained(clip);
+                }
+            }
+            else {
+                for (int i = 0; i < damage.size(); i++) {
+                    renderRetained((PBounds) damage.get(i));
+                }
+            }
+        }
+        totalRedrawArea += redrawArea;
+        redrawFrameCount++;
 
-        PDebug.endProcessingOutput(g2);
+        g2.drawImage(retainedBuffer, AffineTransform.getScaleInstance(1.0d / scale, 1.0d / scale), null);
+    }
+
+    /**
+     * Create a new image for retaining frames.
+     *
+     * @param width width in device pixels
+     * @param height height in device pixels
+     * @return a new image for retaining frames
+     */
+    private BufferedImage createRetainedBuffer(final int width, final int height) {
+        final GraphicsConfiguration graphicsConfiguration = getGraphicsConfiguration();
+        if (graphicsConfiguration != null) {
+            return graphicsConfiguration.createCompatibleImage(width, height, isOpaque() ? Transparency.OPAQUE
+                    : Transparency.TRANSLUCENT);
+        }
+        return new BufferedImage(width, height, isOpaque() ? BufferedImage.TYPE_INT_RGB
+                : BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+
+    /**
+     * Return the specified region, in component coordinates, expanded to
+     * whole device pixels of the retained frame.
+     *
+     * @param region region in component coordinates
+     * @return the specified region in device pixels
+     */
+    private Rectangle toDevice(final Rectangle2D region) {
+        final int x0 = (int) Math.floor(region.getMinX() * retainedBufferScale);
+        final int y0 = (int) Math.floor(region.getMinY() * retainedBufferScale);
+        final int x1 = (int) Math.ceil(region.getMaxX() * retainedBufferScale);
+        final int y1 = (int) Math.ceil(region.getMaxY() * retainedBufferScale);
+        return new Rectangle(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    /**
+     * Render the specified region of the camera into the retained frame.
+     *
+     * @param region region to render, in component coordinates
+     */
+    private void renderRetained(final Rectangle2D region) {
+        final Rectangle2D visibleRegion = region.createIntersection(new Rectangle(0, 0, getWidth(), getHeight()));
+        if (visibleRegion.isEmpty()) {
+            return;
+        }
+        redrawArea += visibleRegion.getWidth() * visibleRegion.getHeight();
+
+        final Graphics2D bufferGraphics = retainedBuffer.createGraphics();
+        try {
+            final Rectangle deviceRegion = toDevice(visibleRegion);
+            bufferGraphics.setClip(deviceRegion);
+            if (!isOpaque()) {
+                bufferGraphics.setComposite(AlphaComposite.Clear);
+                bufferGraphics.fill(deviceRegion);
+                bufferGraphics.setComposite(AlphaComposite.SrcOver);
+            }
+            bufferGraphics.scale(retainedBufferScale, retainedBufferScale);
+            paintCamera(bufferGraphics);
+        }
+        finally {
+            bufferGraphics.dispose();
+        }
     }
 
     /**
@@ -656,6 +1272,62 @@ public class PCanvas extends JComponent implements PComponent {
         return interactingRenderQuality;
     }
 
+    /**
+     * Returns the controller degrading render quality to hold a target frame
+     * time, if any.
+     * 
+     * @since 4.0
+     * @return the adaptive quality controller of this canvas, or
+     *         <code>null</code> if render quality does not adapt to frame time
+     */
+    public PAdaptiveQualityController getAdaptiveQualityController() {
+        return adaptiveQualityController;
+    }
+
+    /**
+     * Sets the controller degrading render quality to hold a target frame
+     * time. The controller measures the time taken by each frame and degrades
+     * render quality beyond the normal, animating and interacting render
+     * qualities. Once no frame has been painted for the idle delay of the
+     * controller, full quality is restored and this canvas repainted.
+     * 
+     * @since 4.0
+     * @param adaptiveQualityController adaptive quality controller, or
+     *            <code>null</code> to not adapt render quality to frame time
+     */
+    public void setAdaptiveQualityController(final PAdaptiveQualityController adaptiveQualityController) {
+        if (restoreQualityTimer != null) {
+            restoreQualityTimer.stop();
+            restoreQualityTimer = null;
+        }
+        restoringQuality = false;
+        this.adaptiveQualityController = adaptiveQualityController;
+        repaint();
+    }
+
+    /**
+     * Restart the timer restoring full quality once no frame has been painted
+     * for the idle delay of the adaptive quality controller.
+     */
+    private void scheduleQualityRestore() {
+        final int idleDelay = adaptiveQualityController.getIdleDelay();
+        if (restoreQualityTimer == null) {
+            restoreQualityTimer = createTimer(idleDelay, new ActionListener() {
+                public void actionPerformed(final ActionEvent event) {
+                    if (adaptiveQualityController != null
+                            && adaptiveQualityController.getLevel() > PAdaptiveQualityController.FULL_QUALITY) {
+                        adaptiveQualityController.reset();
+                        restoringQuality = true;
+                        repaintAtNormalQuality(null);
+                    }
+                }
+            });
+            restoreQualityTimer.setRepeats(false);
+        }
+        restoreQualityTimer.setInitialDelay(idleDelay);
+        restoreQualityTimer.restart();
+    }
+
     /**
      * Returns the input event listeners registered to receive input events.
      * 
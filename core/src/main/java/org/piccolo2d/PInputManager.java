@@ -35,6 +35,8 @@ import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
 import java.awt.geom.Point2D;
 
+import javax.swing.SwingUtilities;
+
 import org.piccolo2d.event.PBasicInputEventHandler;
 import org.piccolo2d.event.PInputEvent;
 import org.piccolo2d.event.PInputEventListener;
@@ -86,6 +88,24 @@ public class PInputManager extends PBasicInputEventHandler implements PRoot.Inpu
     /** Tracks the number mouse buttons currently pressed. */
     private int buttonsPressed;
 
+    /** Whether consecutive mouse moved and dragged events are coalesced. */
+    private boolean coalescingMouseMotion;
+
+    /** The latest mouse moved or dragged event waiting to be processed. */
+    private MouseEvent pendingMotion;
+
+    /** The type of the pending mouse moved or dragged event. */
+    private int pendingMotionType;
+
+    /** The camera the pending mouse moved or dragged event came from. */
+    private PCamera pendingMotionSource;
+
+    /** Whether processing of the pending motion event has been scheduled. */
+    private boolean pendingMotionScheduled;
+
+    /** Number of mouse moved and dragged events replaced by a later one. */
+    private int coalescedEventCount;
+
     /**
      * Creates a PInputManager and sets positions (last, current) to the origin
      * (0,0).
@@ -183,6 +203,58 @@ public class PInputManager extends PBasicInputEventHandler implements PRoot.Inpu
         return currentCanvasPosition;
     }
 
+    /**
+     * Return true if consecutive mouse moved and mouse dragged events are
+     * coalesced. Defaults to false.
+     * 
+     * @since 4.0
+     * @return true if consecutive mouse moved and mouse dragged events are
+     *         coalesced
+     */
+    public boolean isCoalescingMouseMotion() {
+        return coalescingMouseMotion;
+    }
+
+    /**
+     * Set to true to coalesce consecutive mouse moved and mouse dragged
+     * events. Instead of processing the inputs of the root once per event,
+     * only the latest of the motion events arriving before the event queue
+     * gets idle is processed, once. Any other event first processes the
+     * pending motion event, so mouse entered, exited, pressed and released
+     * events keep their order relative to mouse motion. Canvas deltas span
+     * all coalesced events.
+     * 
+     * @since 4.0
+     * @param coalescingMouseMotion true to coalesce consecutive mouse moved
+     *            and mouse dragged events
+     */
+    public void setCoalescingMouseMotion(final boolean coalescingMouseMotion) {
+        if (!coalescingMouseMotion) {
+            processPendingMotion();
+        }
+        this.coalescingMouseMotion = coalescingMouseMotion;
+    }
+
+    /**
+     * Return the number of mouse moved and mouse dragged events which have
+     * been replaced by a later motion event without being processed.
+     * 
+     * @since 4.0
+     * @return the number of coalesced mouse motion events
+     */
+    public int getCoalescedEventCount() {
+        return coalescedEventCount;
+    }
+
+    /**
+     * Reset the number of coalesced mouse motion events to zero.
+     * 
+     * @since 4.0
+     */
+    public void resetCoalescedEventCount() {
+        coalescedEventCount = 0;
+    }
+
     // ****************************************************************
     // Event Handling - Methods for handling events
     // 
@@ -353,6 +425,83 @@ public class PInputManager extends PBasicInputEventHandler implements PRoot.Inpu
      * @param camera camera from which the event was dispatched
      */
     public void processEventFromCamera(final InputEvent event, final int type, final PCamera camera) {
+        if (coalescingMouseMotion && isMouseMotion(event, type)) {
+            coalesceMotion((MouseEvent) event, type, camera);
+            return;
+        }
+        processPendingMotion();
+        processEventImmediately(event, type, camera);
+    }
+
+    /**
+     * Processes the mouse moved or mouse dragged event waiting to be
+     * processed, if any. Called before any other event is processed and once
+     * the event queue gets idle.
+     * 
+     * @since 4.0
+     */
+    public void processPendingMotion() {
+        if (pendingMotion != null) {
+            final MouseEvent motion = pendingMotion;
+            final PCamera source = pendingMotionSource;
+            pendingMotion = null;
+            pendingMotionSource = null;
+            processEventImmediately(motion, pendingMotionType, source);
+        }
+    }
+
+    /**
+     * Return true if the given event is a mouse moved or mouse dragged event.
+     * 
+     * @param event event to check
+     * @param type type of event
+     * @return true if the event is a mouse moved or mouse dragged event
+     */
+    private static boolean isMouseMotion(final InputEvent event, final int type) {
+        return event instanceof MouseEvent && (type == MouseEvent.MOUSE_MOVED || type == MouseEvent.MOUSE_DRAGGED);
+    }
+
+    /**
+     * Replaces the pending motion event with the given one if both are
+     * alike, and schedules processing the given event.
+     * 
+     * @param event mouse moved or mouse dragged event
+     * @param type type of event
+     * @param camera camera from which the event was dispatched
+     */
+    private void coalesceMotion(final MouseEvent event, final int type, final PCamera camera) {
+        if (pendingMotion != null) {
+            if (pendingMotionType == type && pendingMotionSource == camera
+                    && pendingMotion.getModifiersEx() == event.getModifiersEx()) {
+                coalescedEventCount++;
+            }
+            else {
+                processPendingMotion();
+            }
+        }
+        pendingMotion = event;
+        pendingMotionType = type;
+        pendingMotionSource = camera;
+
+        if (!pendingMotionScheduled) {
+            pendingMotionScheduled = true;
+            SwingUtilities.invokeLater(new Runnable() {
+                public void run() {
+                    pendingMotionScheduled = false;
+                    processPendingMotion();
+                }
+            });
+        }
+    }
+
+    /**
+     * Queues the given event and tells the root of the camera to process it.
+     * 
+     * @param event the event to be processed
+     * @param type type of event to be processed
+     * @param camera camera from which the event was dispatched
+     */
+    private void processEventImmediately(final InputEvent event, final int type, final PCamera camera) {
         // queue input
         nextInput = event;
         nextType = type;
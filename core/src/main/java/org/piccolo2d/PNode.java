@@ -62,7 +62,11 @@ import java.util.EventListener;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import javax.imageio.IIOImage;
+import javax.imageio.ImageWriter;
 import javax.swing.event.EventListenerList;
 import javax.swing.event.SwingPropertyChangeSupport;
 import javax.swing.text.MutableAttributeSet;
@@ -282,6 +286,15 @@ public class PNode implements Cloneable, Serializable, Printable {
     /** Is an optimization for use during repaints. */
     private static final PBounds TEMP_REPAINT_BOUNDS = new PBounds();
 
+    /**
+     * Minimum number of children with pending bounds computation for which
+     * parallel bounds validation computes them concurrently.
+     */
+    private static final int PARALLEL_BOUNDS_VALIDATION_THRESHOLD = 64;
+
+    /** Number of children whose pending bounds a single task computes. */
+    private static final int PARALLEL_BOUNDS_VALIDATION_BATCH = 16;
+
     /** The single scene graph delegate that receives low level node events. */
     public static PSceneGraphDelegate SCENE_GRAPH_DELEGATE = null;
 
@@ -356,8 +369,14 @@ public class PNode implements Cloneable, Serializable, Printable {
     /** Whether this node's child bounds need to be recomputed. */
     private boolean childBoundsInvalid;
 
+    /** Whether pending bounds of children are computed concurrently. */
+    private boolean parallelBoundsValidation;
+
     private boolean occluded;
 
+    /** Whether this node is hidden behind opaque nodes painted after it. */
+    private transient boolean culled;
+
     /** Stores the name associated to this node. */
     private String name;
 
@@ -386,6 +405,14 @@ public class PNode implements Cloneable, Serializable, Printable {
      */
     public static final int FILL_STRATEGY_EXACT_FIT = 4;
 
+    /**
+     * Default number of rows rendered at once by
+     * {@link #writeImage(ImageWriter, int, int, Paint)}.
+     *
+     * @since 4.0
+     */
+    public static final int DEFAULT_IMAGE_BAND_HEIGHT = 256;
+
     /**
      * Creates a new PNode with the given name.
      * 
@@ -1773,6 +1800,123 @@ public class PNode implements Cloneable, Serializable, Printable {
         return false;
     }
 
+    /**
+     * Return true if pending bounds computation of the children of this node
+     * is performed concurrently when validating bounds. Defaults to false.
+     * 
+     * @since 4.0
+     * @return true if pending bounds computation of the children of this node
+     *         is performed concurrently
+     */
+    public boolean getParallelBoundsValidation() {
+        return parallelBoundsValidation;
+    }
+
+    /**
+     * Set to true to perform pending bounds computation of the children of
+     * this node concurrently when validating bounds. When many children have
+     * pending bounds computation, see {@link #getBoundsComputationPending()},
+     * it is performed on the common fork join pool before the bounds of the
+     * children are validated one after another as usual, so full bounds are
+     * merged and property changes are fired on the validating thread.
+     * 
+     * @since 4.0
+     * @param parallelBoundsValidation true to perform pending bounds
+     *            computation of the children of this node concurrently
+     */
+    public void setParallelBoundsValidation(final boolean parallelBoundsValidation) {
+        this.parallelBoundsValidation = parallelBoundsValidation;
+    }
+
+    /**
+     * Return true if this node has bounds computation pending which
+     * {@link #computePendingBounds()} can perform ahead of bounds validation.
+     * The default behavior is to return false. Subclasses that defer
+     * expensive bounds computation until their bounds are validated may
+     * return true.
+     * 
+     * @since 4.0
+     * @return true if this node has bounds computation pending
+     */
+    protected boolean getBoundsComputationPending() {
+        return false;
+    }
+
+    /**
+     * Perform the pending bounds computation of this node, keeping the result
+     * for {@link #validateFullBounds()} to apply. This method may be called
+     * on a worker thread while the validating thread waits, so it must not
+     * change the bounds of this node, fire events, or touch any state other
+     * than the result it keeps. The default behavior is to do nothing.
+     * 
+     * @since 4.0
+     */
+    protected void computePendingBounds() {
+        // empty
+    }
+
+    /**
+     * Perform the pending bounds computation of the children of this node
+     * concurrently, if enough of them have bounds computation pending.
+     */
+    private void computePendingChildBounds() {
+        final List pending = new ArrayList();
+        final int count = getChildrenCount();
+        for (int i = 0; i < count; i++) {
+            final PNode each = (PNode) children.get(i);
+            if (each.getBoundsComputationPending()) {
+                pending.add(each);
+            }
+        }
+        if (pending.size() >= PARALLEL_BOUNDS_VALIDATION_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(new PendingBoundsComputation(pending, 0, pending.size()));
+        }
+    }
+
+    /**
+     * Fork join task performing the pending bounds computation of a range of
+     * nodes.
+     */
+    private static final class PendingBoundsComputation extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /** Nodes with pending bounds computation. */
+        private final List nodes;
+
+        /** Index of the first node of the range. */
+        private final int start;
+
+        /** Index after the last node of the range. */
+        private final int end;
+
+        /**
+         * Create a new task for the specified range of nodes.
+         * 
+         * @param nodes nodes with pending bounds computation
+         * @param start index of the first node of the range
+         * @param end index after the last node of the range
+         */
+        PendingBoundsComputation(final List nodes, final int start, final int end) {
+            this.nodes = nodes;
+            this.start = start;
+            this.end = end;
+        }
+
+        /** {@inheritDoc} */
+        protected void compute() {
+            if (end - start <= PARALLEL_BOUNDS_VALIDATION_BATCH) {
+                for (int i = start; i < end; i++) {
+                    ((PNode) nodes.get(i)).computePendingBounds();
+                }
+            }
+            else {
+                final int middle = (start + end) >>> 1;
+                invokeAll(new PendingBoundsComputation(nodes, start, middle), new PendingBoundsComputation(nodes,
+                        middle, end));
+            }
+        }
+    }
+
     /**
      * Return true if this node has a child with volatile bounds.
      * 
@@ -1934,6 +2078,9 @@ public class PNode implements Cloneable, Serializable, Printable {
             // 3. If the bounds of on of my decendents are invalidate then
             // validate the bounds of all of my children.
             if (childBoundsInvalid || childBoundsVolatile) {
+                if (parallelBoundsValidation) {
+                    computePendingChildBounds();
+                }
                 childBoundsVolatile = false;
                 final int count = getChildrenCount();
                 for (int i = 0; i < count; i++) {
@@ -2643,19 +2790,39 @@ public class PNode implements Cloneable, Serializable, Printable {
     }
 
     // ****************************************************************
-    // Occluding - Methods to support occluding optimisation. Not yet
-    // complete.
+    // Occluding - Methods to support occluding optimisation.
     // ****************************************************************
 
     /**
-     * Returns whether this node is Opaque.
+     * Returns whether this node is Opaque, that is whether painting it covers
+     * the specified boundary completely. The default implementation returns
+     * true if the paint of this node is opaque and its bounds contain the
+     * boundary; subclasses that do not fill their bounds with their paint
+     * should override it.
      * 
      * @param boundary boundary to check and see if this node covers completely.
      * 
      * @return true if opaque
      */
     public boolean isOpaque(final Rectangle2D boundary) {
-        return false;
+        return paint != null && paint.getTransparency() == Transparency.OPAQUE
+                && getBoundsReference().contains(boundary);
+    }
+
+    /**
+     * Returns the rectangle, in the local coordinates of this node, within
+     * which its descendants are painted without being clipped by this node, or
+     * null if this node does not clip its descendants. Occlusion culling only
+     * takes the parts of opaque descendants within this rectangle as
+     * occluders, so nodes clipping their descendants must override this method,
+     * returning an empty rectangle if no such rectangle is known.
+     * 
+     * @since 4.0
+     * @return the rectangle within which descendants are not clipped, or null
+     *         if they are not clipped
+     */
+    public Rectangle2D getUnclippedDescendantBounds() {
+        return null;
     }
 
     /**
@@ -2676,6 +2843,31 @@ public class PNode implements Cloneable, Serializable, Printable {
         this.occluded = occluded;
     }
 
+    /**
+     * Returns whether this node has been flagged as culled, that is hidden
+     * along with its descendants behind opaque nodes painted after it. Culled
+     * nodes and their descendants are not painted.
+     * 
+     * @since 4.0
+     * @see org.piccolo2d.util.POcclusionCuller
+     * @return true if culled
+     */
+    public boolean getCulled() {
+        return culled;
+    }
+
+    /**
+     * Flags this node as culled. This flag is set and cleared around each paint
+     * by cameras culling occluded nodes.
+     * 
+     * @since 4.0
+     * @see org.piccolo2d.util.POcclusionCuller
+     * @param culled new value for culled
+     */
+    public void setCulled(final boolean culled) {
+        this.culled = culled;
+    }
+
     // ****************************************************************
     // Painting - Methods for painting this node and its children
     // 
@@ -2801,24 +2993,33 @@ public class PNode implements Cloneable, Serializable, Printable {
      *            its children
      */
     public void fullPaint(final PPaintContext paintContext) {
-        if (getVisible() && fullIntersects(paintContext.getLocalClip())) {
-            paintContext.pushTransform(transform);
-            paintContext.pushTransparency(transparency);
+        final boolean outermost = paintContext.beginPaint();
+        try {
+            if (getVisible() && !culled && fullIntersects(paintContext.getLocalClip())
+                    && !paintContext.isBelowMinimumScreenSize(getFullBoundsReference())) {
+                paintContext.pushTransform(transform);
+                paintContext.pushTransparency(transparency);
 
-            if (!getOccluded()) {
-                paint(paintContext);
-            }
+                if (!getOccluded()) {
+                    paint(paintContext);
+                }
 
-            final int count = getChildrenCount();
-            for (int i = 0; i < count; i++) {
-                final PNode each = (PNode) children.get(i);
-                each.fullPaint(paintContext);
-            }
+                final int count = getChildrenCount();
+                for (int i = 0; i < count; i++) {
+                    final PNode each = (PNode) children.get(i);
+                    each.fullPaint(paintContext);
+                }
 
-            paintAfterChildren(paintContext);
+                paintAfterChildren(paintContext);
 
-            paintContext.popTransparency(transparency);
-            paintContext.popTransform(transform);
+                paintContext.popTransparency(transparency);
+                paintContext.popTransform(transform);
+            }
+        }
+        finally {
+            if (outermost) {
+                paintContext.endPaint();
+            }
         }
     }
 
@@ -2913,6 +3114,28 @@ public class PNode implements Cloneable, Serializable, Printable {
 
         final PBounds nodeBounds = getFullBounds();
         nodeBounds.expandNearestIntegerDimensions();
+        g2.transform(createImageTransform(nodeBounds, imageWidth, imageHeight, fillStrategy));
+
+        final PPaintContext pc = new PPaintContext(g2);
+        pc.setRenderQuality(PPaintContext.HIGH_QUALITY_RENDERING);
+        fullPaint(pc);
+        return image;
+    }
+
+    /**
+     * Return the transform mapping the specified node bounds onto an image of
+     * the specified size according to the specified fill strategy.
+     *
+     * @param nodeBounds full bounds of the node being rendered
+     * @param imageWidth width of the image
+     * @param imageHeight height of the image
+     * @param fillStrategy strategy to use regarding how node will cover the
+     *            image
+     * @return the transform mapping the node bounds onto the image
+     */
+    static AffineTransform createImageTransform(final PBounds nodeBounds, final int imageWidth,
+            final int imageHeight, final int fillStrategy) {
+        final AffineTransform transform = new AffineTransform();
 
         final double nodeWidth = nodeBounds.getWidth();
         final double nodeHeight = nodeBounds.getHeight();
@@ -2926,39 +3149,85 @@ public class PNode implements Cloneable, Serializable, Printable {
                 // bounds but aspect ration is retained
 
                 if (nodeRatio <= imageRatio) {
-                    scale = image.getHeight() / nodeHeight;
+                    scale = imageHeight / nodeHeight;
                 }
                 else {
-                    scale = image.getWidth() / nodeWidth;
+                    scale = imageWidth / nodeWidth;
                 }
-                g2.scale(scale, scale);
-                g2.translate(-nodeBounds.x, -nodeBounds.y);
+                transform.scale(scale, scale);
+                transform.translate(-nodeBounds.x, -nodeBounds.y);
                 break;
             case FILL_STRATEGY_ASPECT_COVER:
                 // scale the graphics so node completely covers the imageable
                 // area, but retains its aspect ratio.
                 if (nodeRatio <= imageRatio) {
-                    scale = image.getWidth() / nodeWidth;
+                    scale = imageWidth / nodeWidth;
                 }
                 else {
-                    scale = image.getHeight() / nodeHeight;
+                    scale = imageHeight / nodeHeight;
                 }
-                g2.scale(scale, scale);
+                transform.scale(scale, scale);
                 break;
             case FILL_STRATEGY_EXACT_FIT:
                 // scale the node so that it covers then entire image,
                 // distorting it if necessary.
-                g2.scale(image.getWidth() / nodeWidth, image.getHeight() / nodeHeight);
-                g2.translate(-nodeBounds.x, -nodeBounds.y);
+                transform.scale(imageWidth / nodeWidth, imageHeight / nodeHeight);
+                transform.translate(-nodeBounds.x, -nodeBounds.y);
                 break;
             default:
                 throw new IllegalArgumentException("Fill strategy provided is invalid");
         }
+        return transform;
+    }
 
-        final PPaintContext pc = new PPaintContext(g2);
-        pc.setRenderQuality(PPaintContext.HIGH_QUALITY_RENDERING);
-        fullPaint(pc);
-        return image;
+    /**
+     * Write a representation of this node and all of its children with the
+     * requested size to the specified image writer, rendering it in horizontal
+     * bands of at most <code>bandHeight</code> rows. Unlike
+     * <code>toImage</code> the full image is never held in memory, so memory
+     * use is bounded by the band size regardless of the output size. The
+     * output of the image writer must have been set by the caller.
+     *
+     * @since 4.0
+     * @param writer image writer to write the image to, must not be null and
+     *            must have its output set
+     * @param width pixel width of the resulting image
+     * @param height pixel height of the resulting image
+     * @param backgroundPaint paint to fill the image with before drawing this
+     *            node, may be null
+     * @param fillStrategy strategy to use regarding how node will cover the
+     *            image
+     * @param bandHeight maximum number of rows rendered at once
+     * @throws IOException if the image writer fails to write the image
+     */
+    public void writeImage(final ImageWriter writer, final int width, final int height, final Paint backgroundPaint,
+            final int fillStrategy, final int bandHeight) throws IOException {
+        if (writer == null) {
+            throw new IllegalArgumentException("writer must not be null");
+        }
+        final PNodeBandedImage image = new PNodeBandedImage(this, width, height, backgroundPaint, fillStrategy,
+                bandHeight);
+        writer.write(null, new IIOImage(image, null, null), writer.getDefaultWriteParam());
+    }
+
+    /**
+     * Write a representation of this node and all of its children with the
+     * requested size to the specified image writer, rendering it in horizontal
+     * bands of {@link #DEFAULT_IMAGE_BAND_HEIGHT} rows. The output of the
+     * image writer must have been set by the caller.
+     *
+     * @since 4.0
+     * @param writer image writer to write the image to, must not be null and
+     *            must have its output set
+     * @param width pixel width of the resulting image
+     * @param height pixel height of the resulting image
+     * @param backgroundPaint paint to fill the image with before drawing this
+     *            node, may be null
+     * @throws IOException if the image writer fails to write the image
+     */
+    public void writeImage(final ImageWriter writer, final int width, final int height, final Paint backgroundPaint)
+            throws IOException {
+        writeImage(writer, width, height, backgroundPaint, FILL_STRATEGY_ASPECT_FIT, DEFAULT_IMAGE_BAND_HEIGHT);
     }
 
     /**
@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Vector;
+
+import org.piccolo2d.util.PBounds;
+import org.piccolo2d.util.PPaintContext;
+
+
+/**
+ * Rendered image of a node which is rendered lazily, one horizontal band at a
+ * time, as its pixels are requested. Image writers pull pixels through
+ * {@link #getData(Rectangle)} in increasing row order, so each band is
+ * rendered once into a single reused band buffer and the full image is never
+ * held in memory.
+ *
+ * @since 4.0
+ */
+final class PNodeBandedImage implements RenderedImage {
+
+    /** Node rendered by this image. */
+    private final PNode node;
+
+    /** Width of this image. */
+    private final int width;
+
+    /** Height of this image. */
+    private final int height;
+
+    /** Background paint, may be null. */
+    private final Paint backgroundPaint;
+
+    /** Fill strategy used to map the node onto this image. */
+    private final int fillStrategy;
+
+    /** Number of rows per band. */
+    private final int bandHeight;
+
+    /** Full bounds of the node, computed once. */
+    private final PBounds nodeBounds;
+
+    /** Reused band buffer. */
+    private final BufferedImage band;
+
+    /** Index of the band currently held in the band buffer, or -1. */
+    private int currentBand = -1;
+
+
+    /**
+     * Create a new banded image of the specified node.
+     *
+     * @param node node to render
+     * @param width width of the image, must be at least one
+     * @param height height of the image, must be at least one
+     * @param backgroundPaint background paint, may be null
+     * @param fillStrategy fill strategy used to map the node onto the image
+     * @param bandHeight number of rows per band, must be at least one
+     */
+    PNodeBandedImage(final PNode node, final int width, final int height, final Paint backgroundPaint,
+            final int fillStrategy, final int bandHeight) {
+        if (width < 1) {
+            throw new IllegalArgumentException("width must be at least one, was " + width);
+        }
+        if (height < 1) {
+            throw new IllegalArgumentException("height must be at least one, was " + height);
+        }
+        if (bandHeight < 1) {
+            throw new IllegalArgumentException("bandHeight must be at least one, was " + bandHeight);
+        }
+        this.node = node;
+        this.width = width;
+        this.height = height;
+        this.backgroundPaint = backgroundPaint;
+        this.fillStrategy = fillStrategy;
+        this.bandHeight = Math.min(bandHeight, height);
+
+        nodeBounds = node.getFullBounds();
+        nodeBounds.expandNearestIntegerDimensions();
+
+        final int type;
+        if (backgroundPaint == null) {
+            type = BufferedImage.TYPE_INT_ARGB;
+        }
+        else {
+            type = BufferedImage.TYPE_INT_RGB;
+        }
+        band = new BufferedImage(width, this.bandHeight, type);
+    }
+
+
+    /**
+     * Render the band with the specified index into the band buffer, unless
+     * it is already held there.
+     *
+     * @param bandIndex index of the band to render
+     */
+    private void renderBand(final int bandIndex) {
+        if (bandIndex == currentBand) {
+            return;
+        }
+        final Graphics2D g2 = band.createGraphics();
+        try {
+            final int bandTop = bandIndex * bandHeight;
+            g2.translate(0, -bandTop);
+            if (backgroundPaint == null) {
+                g2.setComposite(AlphaComposite.Clear);
+                g2.fillRect(0, bandTop, width, bandHeight);
+                g2.setComposite(AlphaComposite.SrcOver);
+            }
+            else {
+                g2.setPaint(backgroundPaint);
+                g2.fillRect(0, bandTop, width, bandHeight);
+            }
+            g2.setClip(0, bandTop, width, bandHeight);
+            g2.transform(PNode.createImageTransform(nodeBounds, width, height, fillStrategy));
+
+            final PPaintContext pc = new PPaintContext(g2);
+            pc.setRenderQuality(PPaintContext.HIGH_QUALITY_RENDERING);
+            node.fullPaint(pc);
+        }
+        finally {
+            g2.dispose();
+        }
+        currentBand = bandIndex;
+    }
+
+    /**
+     * Return the number of rows in the band with the specified index.
+     *
+     * @param bandIndex band index
+     * @return the number of rows in the band
+     */
+    private int rowsInBand(final int bandIndex) {
+        return Math.min(bandHeight, height - bandIndex * bandHeight);
+    }
+
+    /** {@inheritDoc} */
+    public Raster getData(final Rectangle rect) {
+        final Rectangle region = rect.intersection(new Rectangle(0, 0, width, height));
+        if (region.isEmpty()) {
+            throw new IllegalArgumentException("rect " + rect + " does not intersect this image");
+        }
+        final WritableRaster result = Raster.createWritableRaster(band.getSampleModel().createCompatibleSampleModel(
+                region.width, region.height), region.getLocation());
+        copyRegion(region, result);
+        return result;
+    }
+
+    /**
+     * Copy the pixels of the specified region of this image into the
+     * specified raster, rendering the bands it spans in turn.
+     *
+     * @param region region to copy, in image coordinates
+     * @param raster raster to copy into, covering at least <code>region</code>
+     */
+    private void copyRegion(final Rectangle region, final WritableRaster raster) {
+        if (region.isEmpty()) {
+            return;
+        }
+        final int firstBand = region.y / bandHeight;
+        final int lastBand = (region.y + region.height - 1) / bandHeight;
+        for (int i = firstBand; i <= lastBand; i++) {
+            renderBand(i);
+            final int bandTop = i * bandHeight;
+            final int y0 = Math.max(region.y, bandTop);
+            final int y1 = Math.min(region.y + region.height, bandTop + rowsInBand(i));
+            final Raster source = band.getRaster().createChild(region.x, y0 - bandTop, region.width, y1 - y0,
+                    region.x, y0, null);
+            raster.setRect(source);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public Raster getData() {
+        return getData(new Rectangle(0, 0, width, height));
+    }
+
+    /** {@inheritDoc} */
+    public WritableRaster copyData(final WritableRaster raster) {
+        final WritableRaster result;
+        if (raster == null) {
+            result = (WritableRaster) getData();
+        }
+        else {
+            result = raster;
+            copyRegion(result.getBounds().intersection(new Rectangle(0, 0, width, height)), result);
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Tiles are bands of full width. The returned raster shares the band
+     * buffer and is only valid until another band is requested.
+     * </p>
+     */
+    public Raster getTile(final int tileX, final int tileY) {
+        if (tileX != 0 || tileY < 0 || tileY >= getNumYTiles()) {
+            throw new IllegalArgumentException("no such tile (" + tileX + ", " + tileY + ")");
+        }
+        renderBand(tileY);
+        return band.getRaster().createChild(0, 0, width, rowsInBand(tileY), 0, tileY * bandHeight, null);
+    }
+
+    /** {@inheritDoc} */
+    public ColorModel getColorModel() {
+        return band.getColorModel();
+    }
+
+    /** {@inheritDoc} */
+    public SampleModel getSampleModel() {
+        return band.getSampleModel().createCompatibleSampleModel(width, bandHeight);
+    }
+
+    /** {@inheritDoc} */
+    public int getWidth() {
+        return width;
+    }
+
+    /** {@inheritDoc} */
+    public int getHeight() {
+        return height;
+    }
+
+    /** {@inheritDoc} */
+    public int getMinX() {
+        return 0;
+    }
+
+    /** {@inheritDoc} */
+    public int getMinY() {
+        return 0;
+    }
+
+    /** {@inheritDoc} */
+    public int getNumXTiles() {
+        return 1;
+    }
+
+    /** {@inheritDoc} */
+    public int getNumYTiles() {
+        return (height + bandHeight - 1) / bandHeight;
+    }
+
+    /** {@inheritDoc} */
+    public int getMinTileX() {
+        return 0;
+    }
+
+    /** {@inheritDoc} */
+    public int getMinTileY() {
+        return 0;
+    }
+
+    /** {@inheritDoc} */
+    public int getTileWidth() {
+        return width;
+    }
+
+    /** {@inheritDoc} */
+    public int getTileHeight() {
+        return bandHeight;
+    }
+
+    /** {@inheritDoc} */
+    public int getTileGridXOffset() {
+        return 0;
+    }
+
+    /** {@inheritDoc} */
+    public int getTileGridYOffset() {
+        return 0;
+    }
+
+    /** {@inheritDoc} */
+    public Vector getSources() {
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    public Object getProperty(final String name) {
+        return Image.UndefinedProperty;
+    }
+
+    /** {@inheritDoc} */
+    public String[] getPropertyNames() {
+        return null;
+    }
+}
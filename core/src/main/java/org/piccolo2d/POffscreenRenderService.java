@@ -0,0 +1,567 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.piccolo2d.util.PBounds;
+import org.piccolo2d.util.PPaintContext;
+
+
+/**
+ * Headless render service that renders scene snapshots into pooled offscreen
+ * images on a bounded pool of worker threads.
+ * <p>
+ * Unlike {@link POffscreenCanvas}, which builds a new scene graph and is
+ * rendered by the caller, this service accepts {@link RenderJob}s describing
+ * a scene node, the view bounds to render and the size of the resulting
+ * image. Each job is rendered on one of the worker threads into a
+ * <code>BufferedImage</code> taken from a pool of reusable images of the
+ * requested size, handed to the job's {@link RenderCallback} and then returned
+ * to the pool. Callbacks must therefore copy or encode the image before they
+ * return and must not keep a reference to it.
+ * </p>
+ * <p>
+ * The scene of a render job is painted from a worker thread, so it must not
+ * be modified while the job is pending. Typically each job renders a scene
+ * that is owned by the job, or a scene that is no longer modified once it has
+ * been built.
+ * </p>
+ * <p>
+ * The service reports its queue depth and keeps a window of the most recent
+ * job latencies, measured from submission to completion of the callback, from
+ * which latency percentiles can be computed.
+ * </p>
+ *
+ * @since 4.0
+ */
+public class POffscreenRenderService {
+
+    /** Default number of latency samples used to compute percentiles. */
+    public static final int DEFAULT_LATENCY_WINDOW = 1024;
+
+    /** Default maximum number of pooled images per image size. */
+    public static final int DEFAULT_MAXIMUM_POOLED_IMAGES = 4;
+
+    /** Executor running render jobs. */
+    private final ThreadPoolExecutor executor;
+
+    /** Maximum number of pooled images kept per image size. */
+    private final int maximumPooledImages;
+
+    /** Pooled images keyed by image size. */
+    private final Map/*<Long, List<BufferedImage>>*/ imagePool;
+
+    /** Ring buffer of the most recent job latencies, in nanoseconds. */
+    private final long[] latencies;
+
+    /** Number of latency samples recorded so far. */
+    private long latencyCount;
+
+    /** Number of jobs which completed with an exception. */
+    private long failedJobCount;
+
+
+    /**
+     * Create a new render service with the specified number of worker threads
+     * and the specified maximum number of queued render jobs.
+     *
+     * @param workerCount number of worker threads, must be at least one
+     * @param maximumQueueDepth maximum number of jobs waiting to be rendered,
+     *            must be at least one
+     */
+    public POffscreenRenderService(final int workerCount, final int maximumQueueDepth) {
+        this(workerCount, maximumQueueDepth, DEFAULT_MAXIMUM_POOLED_IMAGES, DEFAULT_LATENCY_WINDOW);
+    }
+
+    /**
+     * Create a new render service with the specified number of worker
+     * threads, maximum number of queued render jobs, maximum number of
+     * pooled images per image size and latency window.
+     *
+     * @param workerCount number of worker threads, must be at least one
+     * @param maximumQueueDepth maximum number of jobs waiting to be rendered,
+     *            must be at least one
+     * @param maximumPooledImages maximum number of images kept for reuse per
+     *            image size, must be at least zero
+     * @param latencyWindow number of recent job latencies used to compute
+     *            latency percentiles, must be at least one
+     */
+    public POffscreenRenderService(final int workerCount, final int maximumQueueDepth,
+            final int maximumPooledImages, final int latencyWindow) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("workerCount must be at least one, was " + workerCount);
+        }
+        if (maximumQueueDepth < 1) {
+            throw new IllegalArgumentException("maximumQueueDepth must be at least one, was " + maximumQueueDepth);
+        }
+        if (maximumPooledImages < 0) {
+            throw new IllegalArgumentException("maximumPooledImages must be at least zero, was "
+                    + maximumPooledImages);
+        }
+        if (latencyWindow < 1) {
+            throw new IllegalArgumentException("latencyWindow must be at least one, was " + latencyWindow);
+        }
+        this.maximumPooledImages = maximumPooledImages;
+        imagePool = new HashMap();
+        latencies = new long[latencyWindow];
+        executor = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue(maximumQueueDepth), new RenderThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+
+    /**
+     * Submit the specified render job. The job's callback is invoked on a
+     * worker thread once the job has been rendered.
+     *
+     * @param job render job to submit, must not be null
+     * @return a future which completes once the job's callback has returned
+     * @throws java.util.concurrent.RejectedExecutionException if the queue of
+     *             pending jobs is full or this service has been shut down
+     */
+    public Future submit(final RenderJob job) {
+        if (job == null) {
+            throw new IllegalArgumentException("job must not be null");
+        }
+        final long submitted = System.nanoTime();
+        return executor.submit(new Callable() {
+            public Object call() throws Exception {
+                try {
+                    render(job);
+                    return job;
+                }
+                catch (final Exception e) {
+                    synchronized (latencies) {
+                        failedJobCount++;
+                    }
+                    throw e;
+                }
+                finally {
+                    recordLatency(System.nanoTime() - submitted);
+                }
+            }
+        });
+    }
+
+    /**
+     * Render the specified job into a pooled image, invoke its callback and
+     * return the image to the pool. Each job is rendered with new graphics,
+     * so no graphics state left behind by the scene of one job affects the
+     * next.
+     *
+     * @param job job to render
+     * @throws Exception if the job's callback fails
+     */
+    private void render(final RenderJob job) throws Exception {
+        final BufferedImage image = acquireImage(job.getWidth(), job.getHeight());
+        try {
+            final Graphics2D g2 = image.createGraphics();
+            try {
+                final Rectangle2D viewBounds = job.getViewBounds();
+
+                g2.setComposite(AlphaComposite.Src);
+                if (job.getBackground() == null) {
+                    g2.setColor(new Color(0, 0, 0, 0));
+                }
+                else {
+                    g2.setColor(job.getBackground());
+                }
+                g2.fillRect(0, 0, job.getWidth(), job.getHeight());
+                g2.setComposite(AlphaComposite.SrcOver);
+
+                g2.setClip(0, 0, job.getWidth(), job.getHeight());
+                g2.scale(job.getWidth() / viewBounds.getWidth(), job.getHeight() / viewBounds.getHeight());
+                g2.translate(-viewBounds.getX(), -viewBounds.getY());
+
+                final PPaintContext paintContext = new PPaintContext(g2);
+                paintContext.setRenderQuality(job.getRenderQuality());
+                job.getScene().fullPaint(paintContext);
+            }
+            finally {
+                g2.dispose();
+            }
+
+            job.getCallback().rendered(job, image);
+        }
+        finally {
+            releaseImage(image);
+        }
+    }
+
+    /**
+     * Return an image of the specified size from the pool, creating a new
+     * one if none is available.
+     *
+     * @param width width of the image
+     * @param height height of the image
+     * @return an image of the specified size
+     */
+    private BufferedImage acquireImage(final int width, final int height) {
+        final Long key = sizeKey(width, height);
+        synchronized (imagePool) {
+            final List images = (List) imagePool.get(key);
+            if (images != null && !images.isEmpty()) {
+                return (BufferedImage) images.remove(images.size() - 1);
+            }
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+
+    /**
+     * Return the specified image to the pool, unless the pool for its size is
+     * full.
+     *
+     * @param image image to release
+     */
+    private void releaseImage(final BufferedImage image) {
+        final Long key = sizeKey(image.getWidth(), image.getHeight());
+        synchronized (imagePool) {
+            List images = (List) imagePool.get(key);
+            if (images == null) {
+                images = new ArrayList();
+                imagePool.put(key, images);
+            }
+            if (images.size() < maximumPooledImages) {
+                images.add(image);
+            }
+        }
+    }
+
+    private static Long sizeKey(final int width, final int height) {
+        return Long.valueOf(((long) width << 32) | (height & 0xffffffffL));
+    }
+
+    /**
+     * Record the specified job latency.
+     *
+     * @param latency latency in nanoseconds
+     */
+    private void recordLatency(final long latency) {
+        synchronized (latencies) {
+            latencies[(int) (latencyCount % latencies.length)] = latency;
+            latencyCount++;
+        }
+    }
+
+    /**
+     * Return the number of render jobs waiting to be rendered.
+     *
+     * @return the number of render jobs waiting to be rendered
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Return the number of render jobs currently being rendered.
+     *
+     * @return the number of render jobs currently being rendered
+     */
+    public int getActiveJobCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Return the number of render jobs completed, successfully or not, since
+     * this service was created.
+     *
+     * @return the number of completed render jobs
+     */
+    public long getCompletedJobCount() {
+        synchronized (latencies) {
+            return latencyCount;
+        }
+    }
+
+    /**
+     * Return the number of render jobs whose rendering or callback failed
+     * with an exception.
+     *
+     * @return the number of failed render jobs
+     */
+    public long getFailedJobCount() {
+        synchronized (latencies) {
+            return failedJobCount;
+        }
+    }
+
+    /**
+     * Return the specified percentile of the most recent job latencies in
+     * milliseconds, or <code>0.0d</code> if no job has completed yet. Latency
+     * is measured from submission of a job until its callback returns.
+     *
+     * @param percentile percentile, in the range <code>[0.0, 100.0]</code>
+     * @return the specified percentile of the most recent job latencies in
+     *         milliseconds
+     */
+    public double getLatencyPercentile(final double percentile) {
+        if (percentile < 0.0d || percentile > 100.0d) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100, was " + percentile);
+        }
+        final long[] samples;
+        synchronized (latencies) {
+            samples = new long[(int) Math.min(latencyCount, latencies.length)];
+            System.arraycopy(latencies, 0, samples, 0, samples.length);
+        }
+        if (samples.length == 0) {
+            return 0.0d;
+        }
+        Arrays.sort(samples);
+        final int index = (int) Math.ceil(percentile / 100.0d * samples.length) - 1;
+        return samples[Math.max(0, index)] / 1000000.0d;
+    }
+
+    /**
+     * Return the number of images currently held for reuse.
+     *
+     * @return the number of images currently held for reuse
+     */
+    public int getPooledImageCount() {
+        int count = 0;
+        synchronized (imagePool) {
+            for (Iterator i = imagePool.values().iterator(); i.hasNext();) {
+                count += ((List) i.next()).size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Stop accepting new render jobs. Jobs already submitted are still
+     * rendered.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Wait for the submitted jobs to complete after a shutdown request.
+     *
+     * @param timeout maximum time to wait
+     * @param unit unit of <code>timeout</code>
+     * @return true if all jobs completed, false if the timeout elapsed first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+
+    /**
+     * Callback notified on a worker thread once a render job has been
+     * rendered.
+     */
+    public interface RenderCallback {
+
+        /**
+         * Notify this callback that the specified job has been rendered into
+         * the specified image. The image is reused once this method returns.
+         *
+         * @param job rendered job
+         * @param image image containing the rendering, only valid for the
+         *            duration of this call
+         * @throws Exception if the rendering can not be consumed
+         */
+        void rendered(RenderJob job, BufferedImage image) throws Exception;
+    }
+
+
+    /**
+     * Immutable description of a render job.
+     */
+    public static final class RenderJob {
+
+        /** Scene node to render. */
+        private final PNode scene;
+
+        /** View bounds, in the parent coordinates of the scene node. */
+        private final PBounds viewBounds;
+
+        /** Width of the rendered image. */
+        private final int width;
+
+        /** Height of the rendered image. */
+        private final int height;
+
+        /** Render quality. */
+        private final int renderQuality;
+
+        /** Background color, or null for a transparent background. */
+        private final Color background;
+
+        /** Callback receiving the rendered image. */
+        private final RenderCallback callback;
+
+
+        /**
+         * Create a new render job.
+         *
+         * @param scene scene node to render, must not be null
+         * @param viewBounds bounds to render, in the parent coordinates of
+         *            <code>scene</code>, must not be null or empty
+         * @param width width of the rendered image, must be at least one
+         * @param height height of the rendered image, must be at least one
+         * @param renderQuality render quality, must be one of
+         *            <code>PPaintContext.HIGH_QUALITY_RENDERING</code> or
+         *            <code>PPaintContext.LOW_QUALITY_RENDERING</code>
+         * @param background background color, or null for a transparent
+         *            background
+         * @param callback callback receiving the rendered image, must not be
+         *            null
+         */
+        public RenderJob(final PNode scene, final Rectangle2D viewBounds, final int width, final int height,
+                final int renderQuality, final Color background, final RenderCallback callback) {
+            if (scene == null) {
+                throw new IllegalArgumentException("scene must not be null");
+            }
+            if (viewBounds == null || viewBounds.isEmpty()) {
+                throw new IllegalArgumentException("viewBounds must not be null or empty");
+            }
+            if (width < 1) {
+                throw new IllegalArgumentException("width must be at least one, was " + width);
+            }
+            if (height < 1) {
+                throw new IllegalArgumentException("height must be at least one, was " + height);
+            }
+            if (renderQuality != PPaintContext.HIGH_QUALITY_RENDERING
+                    && renderQuality != PPaintContext.LOW_QUALITY_RENDERING) {
+                throw new IllegalArgumentException("renderQuality must be one of PPaintContext.HIGH_QUALITY_RENDERING"
+                        + " or PPaintContext.LOW_QUALITY_RENDERING, was " + renderQuality);
+            }
+            if (callback == null) {
+                throw new IllegalArgumentException("callback must not be null");
+            }
+            this.scene = scene;
+            this.viewBounds = new PBounds(viewBounds);
+            this.width = width;
+            this.height = height;
+            this.renderQuality = renderQuality;
+            this.background = background;
+            this.callback = callback;
+        }
+
+        /**
+         * Return the scene node rendered by this job.
+         *
+         * @return the scene node rendered by this job
+         */
+        public PNode getScene() {
+            return scene;
+        }
+
+        /**
+         * Return a copy of the view bounds rendered by this job.
+         *
+         * @return a copy of the view bounds rendered by this job
+         */
+        public PBounds getViewBounds() {
+            return (PBounds) viewBounds.clone();
+        }
+
+        /**
+         * Return the width of the image rendered by this job.
+         *
+         * @return the width of the image rendered by this job
+         */
+        public int getWidth() {
+            return width;
+        }
+
+        /**
+         * Return the height of the image rendered by this job.
+         *
+         * @return the height of the image rendered by this job
+         */
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * Return the render quality of this job.
+         *
+         * @return the render quality of this job
+         */
+        public int getRenderQuality() {
+            return renderQuality;
+        }
+
+        /**
+         * Return the background color of this job, may be null.
+         *
+         * @return the background color of this job
+         */
+        public Color getBackground() {
+            return background;
+        }
+
+        /**
+         * Return the callback receiving the image rendered by this job.
+         *
+         * @return the callback receiving the image rendered by this job
+         */
+        public RenderCallback getCallback() {
+            return callback;
+        }
+    }
+
+
+    /**
+     * Thread factory creating daemon render worker threads.
+     */
+    private static final class RenderThreadFactory implements ThreadFactory {
+
+        /** Number of threads created so far. */
+        private final AtomicInteger count = new AtomicInteger();
+
+        /** {@inheritDoc} */
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "piccolo2d-render-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -65,6 +65,9 @@ public class PActivity {
     /** Activity scheduler that this activity is bound to. */
     private PActivityScheduler scheduler;
 
+    /** Scheduling state of this activity, maintained by its scheduler. */
+    PActivityScheduler.Entry schedulerEntry;
+
     /** Time at which this activity should start in PRoot global time. */
     private long startTime;
 
@@ -147,6 +150,7 @@ public class PActivity {
      */
     public void setStartTime(final long aTriggerTime) {
         startTime = aTriggerTime;
+        timingChanged();
     }
 
     /**
@@ -165,6 +169,7 @@ public class PActivity {
      */
     public void setStepRate(final long aStepRate) {
         stepRate = aStepRate;
+        timingChanged();
     }
 
     /**
@@ -196,6 +201,17 @@ public class PActivity {
      */
     public void setDuration(final long aDuration) {
         duration = aDuration;
+        timingChanged();
+    }
+
+    /**
+     * Notify the scheduler of this activity that its timing has changed, so
+     * that it processes it in the next frame.
+     */
+    private void timingChanged() {
+        if (scheduler != null) {
+            scheduler.activityTimingChanged(this);
+        }
     }
 
     /**
@@ -32,6 +32,10 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 
 import javax.swing.Timer;
@@ -50,19 +54,52 @@ import org.piccolo2d.util.PUtil;
  * <li>PActivity.terminate - to terminate a running activity
  * <li>PRoot.processInputs - already calls processActivities for you.
  * </ul>
+ * <p>
+ * Activities are kept in a heap ordered by the time they next need to be
+ * processed, as returned by {@link PActivity#processStep(long)}, so that each
+ * frame only the activities due are processed, and activities are added and
+ * removed in logarithmic time. Activities due in the same frame are processed
+ * in the same order as they always were: most recently added first, then those
+ * added to be processed last.
+ * </p>
  * 
  * @version 1.0
  * @author Jesse Grosjean
  */
 public class PActivityScheduler implements Serializable {
     private static final long serialVersionUID = 1L;
+
+    /** Heap index of activities being processed. */
+    private static final int PROCESSING = -2;
+
+    /** Orders activities due in the same frame by processing order. */
+    private static final Comparator PROCESSING_ORDER = new Comparator() {
+        public int compare(final Object o1, final Object o2) {
+            final Entry e1 = ((PActivity) o1).schedulerEntry;
+            final Entry e2 = ((PActivity) o2).schedulerEntry;
+            if (e1.processLast != e2.processLast) {
+                return e1.processLast ? 1 : -1;
+            }
+            if (e1.processLast) {
+                return compareLongs(e1.sequence, e2.sequence);
+            }
+            return compareLongs(e2.sequence, e1.sequence);
+        }
+    };
+
     private transient Timer activityTimer = null;
     private final PRoot root;
-    private final List activities;    
-    private boolean activitiesChanged;
-    private boolean animating;
+
+    /** Scheduled activities, a heap ordered by the time they are next due. */
+    private final List activities;
     private final ArrayList processingActivities;
 
+    /** Number of scheduled activities that are animations. */
+    private int animatingCount;
+
+    /** Sequence number of the next activity added. */
+    private long nextSequence;
+
     /**
      * Constructs an instance of PActivityScheduler. All activities it will
      * schedule will take place on children of the rootNode provided.
@@ -104,26 +141,90 @@ public class PActivityScheduler implements Serializable {
      *            all other scheduled activities
      */
     public void addActivity(final PActivity activity, final boolean processLast) {
-        if (activities.contains(activity)) {
+        if (!add(activity, processLast)) {
             return;
         }
+        siftUp(activities.size() - 1);
 
-        activitiesChanged = true;
+        if (!getActivityTimer().isRunning()) {
+            startActivityTimer();
+        }
+    }
 
-        if (processLast) {
-            activities.add(0, activity);
+    /**
+     * Adds the given activities to the scheduler, skipping those already
+     * scheduled. Adding many activities at once is cheaper than adding them
+     * one at a time.
+     * 
+     * @since 4.0
+     * @param activitiesToAdd activities to be scheduled
+     */
+    public void addActivities(final Collection activitiesToAdd) {
+        final int oldSize = activities.size();
+        final Iterator iterator = activitiesToAdd.iterator();
+        while (iterator.hasNext()) {
+            add((PActivity) iterator.next(), false);
+        }
+        if (activities.size() == oldSize) {
+            return;
+        }
+        if (activities.size() - oldSize > oldSize) {
+            heapify();
         }
         else {
-            activities.add(activity);
+            for (int i = oldSize; i < activities.size(); i++) {
+                siftUp(i);
+            }
         }
 
-        activity.setActivityScheduler(this);
-
         if (!getActivityTimer().isRunning()) {
             startActivityTimer();
         }
     }
 
+    /**
+     * Append the specified activity to the heap, without restoring the heap
+     * order, if it is not scheduled yet.
+     * 
+     * @param activity activity to be scheduled
+     * @param processLast whether or not this activity should be performed after
+     *            all other scheduled activities
+     * @return true if the activity has been added
+     */
+    private boolean add(final PActivity activity, final boolean processLast) {
+        if (isScheduled(activity)) {
+            return false;
+        }
+
+        final Entry entry = new Entry();
+        entry.processLast = processLast;
+        entry.sequence = nextSequence++;
+        entry.animation = activity.isAnimation();
+        // due at once, the activity tells when it is next due
+        entry.dueTime = Long.MIN_VALUE;
+        entry.index = activities.size();
+        activity.schedulerEntry = entry;
+        activities.add(activity);
+        if (entry.animation) {
+            animatingCount++;
+        }
+
+        activity.setActivityScheduler(this);
+        return true;
+    }
+
+    /**
+     * Return true if the specified activity is scheduled by this scheduler,
+     * including while it is being processed.
+     * 
+     * @since 4.0
+     * @param activity activity to check
+     * @return true if the specified activity is scheduled by this scheduler
+     */
+    public boolean isScheduled(final PActivity activity) {
+        return activity.schedulerEntry != null && activity.getActivityScheduler() == this;
+    }
+
     /**
      * Removes the given activity from the scheduled activities. Does nothing if
      * it's not found.
@@ -131,29 +232,121 @@ public class PActivityScheduler implements Serializable {
      * @param activity the activity to be removed
      */
     public void removeActivity(final PActivity activity) {
-        if (!activities.contains(activity)) {
+        if (!isScheduled(activity)) {
             return;
         }
 
-        activitiesChanged = true;
-        activities.remove(activity);
+        final int index = remove(activity);
+        if (index >= 0 && index < activities.size()) {
+            siftDown(index);
+            siftUp(index);
+        }
 
-        if (activities.size() == 0) {
+        // activities being processed are added back to the heap afterwards
+        if (activities.size() == 0 && processingActivities.isEmpty()) {
             stopActivityTimer();
         }
     }
 
+    /**
+     * Removes the given activities from the scheduled activities, skipping
+     * those not found. Removing many activities at once is cheaper than
+     * removing them one at a time.
+     * 
+     * @since 4.0
+     * @param activitiesToRemove activities to be removed
+     */
+    public void removeActivities(final Collection activitiesToRemove) {
+        boolean removed = false;
+        final Iterator iterator = activitiesToRemove.iterator();
+        while (iterator.hasNext()) {
+            final PActivity activity = (PActivity) iterator.next();
+            if (isScheduled(activity)) {
+                final Entry entry = activity.schedulerEntry;
+                if (entry.index >= 0) {
+                    // removed from the heap below
+                    activities.set(entry.index, null);
+                }
+                forget(activity);
+                removed = true;
+            }
+        }
+        if (!removed) {
+            return;
+        }
+        activities.removeAll(Collections.singleton(null));
+        heapify();
+
+        if (activities.size() == 0 && processingActivities.isEmpty()) {
+            stopActivityTimer();
+        }
+    }
+
+    /**
+     * Remove the specified scheduled activity from the heap, replacing it by
+     * the last activity of the heap without restoring the heap order.
+     * 
+     * @param activity activity to remove
+     * @return the index of the activity in the heap, or a negative value if it
+     *         was being processed
+     */
+    private int remove(final PActivity activity) {
+        final int index = activity.schedulerEntry.index;
+        forget(activity);
+        if (index >= 0) {
+            removeFromHeap(index);
+        }
+        return index;
+    }
+
+    /**
+     * Remove the activity at the specified index from the heap, replacing it by
+     * the last activity of the heap without restoring the heap order.
+     * 
+     * @param index index of the activity to remove
+     * @return the removed activity
+     */
+    private PActivity removeFromHeap(final int index) {
+        final PActivity removed = (PActivity) activities.get(index);
+        final PActivity last = (PActivity) activities.remove(activities.size() - 1);
+        if (index < activities.size()) {
+            activities.set(index, last);
+            last.schedulerEntry.index = index;
+        }
+        return removed;
+    }
+
+    /**
+     * Forget the scheduling state of the specified activity.
+     * 
+     * @param activity activity to forget
+     */
+    private void forget(final PActivity activity) {
+        if (activity.schedulerEntry.animation) {
+            animatingCount--;
+        }
+        activity.schedulerEntry = null;
+    }
+
     /**
      * Removes all activities from the list of scheduled activities.
      */
     public void removeAllActivities() {
-        activitiesChanged = true;
+        for (int i = 0; i < activities.size(); i++) {
+            ((PActivity) activities.get(i)).schedulerEntry = null;
+        }
+        for (int i = 0; i < processingActivities.size(); i++) {
+            ((PActivity) processingActivities.get(i)).schedulerEntry = null;
+        }
         activities.clear();
+        animatingCount = 0;
         stopActivityTimer();
     }
 
     /**
-     * Returns a reference to the current activities list. Handle with care.
+     * Returns a reference to the current activities list. Handle with care:
+     * the list is a heap ordered by the time activities are next due, and must
+     * not be modified directly.
      * 
      * @return reference to the current activities list.
      */
@@ -162,21 +355,98 @@ public class PActivityScheduler implements Serializable {
     }
 
     /**
-     * Process all scheduled activities for the given time. Each activity is
-     * given one "step", equivalent to one frame of animation.
+     * Notify this scheduler that the timing of the specified activity has
+     * changed, so that it is processed in the next frame.
+     * 
+     * @param activity activity whose timing has changed
+     */
+    void activityTimingChanged(final PActivity activity) {
+        if (isScheduled(activity) && activity.schedulerEntry.index >= 0) {
+            activity.schedulerEntry.dueTime = Long.MIN_VALUE;
+            siftUp(activity.schedulerEntry.index);
+        }
+    }
+
+    /**
+     * Process all scheduled activities for the given time. Each activity due
+     * is given one "step", equivalent to one frame of animation.
      * 
      * @param currentTime the current unix time in milliseconds.
      */
     public void processActivities(final long currentTime) {
-        final int size = activities.size();
-        if (size > 0) {
-            processingActivities.addAll(activities);
-            for (int i = size - 1; i >= 0; i--) {
-                final PActivity each = (PActivity) processingActivities.get(i);
-                each.processStep(currentTime);
+        while (!activities.isEmpty()
+                && ((PActivity) activities.get(0)).schedulerEntry.dueTime <= currentTime) {
+            final PActivity each = removeFromHeap(0);
+            if (!activities.isEmpty()) {
+                siftDown(0);
             }
-            processingActivities.clear();
+            // still scheduled while being processed
+            each.schedulerEntry.index = PROCESSING;
+            processingActivities.add(each);
+        }
+        if (processingActivities.isEmpty()) {
+            return;
         }
+
+        Collections.sort(processingActivities, PROCESSING_ORDER);
+        final int size = processingActivities.size();
+        for (int i = 0; i < size; i++) {
+            final PActivity each = (PActivity) processingActivities.get(i);
+            if (each.schedulerEntry == null || each.schedulerEntry.index != PROCESSING) {
+                // removed or rescheduled by a previous activity
+                continue;
+            }
+            final long delay = each.processStep(currentTime);
+            final Entry entry = each.schedulerEntry;
+            if (entry == null || entry.index != PROCESSING) {
+                continue;
+            }
+            if (delay < 0) {
+                removeActivity(each);
+                continue;
+            }
+            entry.dueTime = getDueTime(each, currentTime, delay);
+            entry.index = activities.size();
+            activities.add(each);
+            siftUp(entry.index);
+        }
+        for (int i = 0; i < size; i++) {
+            final PActivity each = (PActivity) processingActivities.get(i);
+            if (each.schedulerEntry != null && each.schedulerEntry.index == PROCESSING) {
+                // processed by a previous activity, due at once
+                each.schedulerEntry.dueTime = Long.MIN_VALUE;
+                each.schedulerEntry.index = activities.size();
+                activities.add(each);
+                siftUp(each.schedulerEntry.index);
+            }
+        }
+        processingActivities.clear();
+
+        if (activities.size() == 0) {
+            stopActivityTimer();
+        }
+        else if (!getActivityTimer().isRunning()) {
+            startActivityTimer();
+        }
+    }
+
+    /**
+     * Return the time the specified activity is next due, given the delay it
+     * asked for. Activities are always due by the time they should stop.
+     * 
+     * @param activity activity
+     * @param currentTime the current time
+     * @param delay delay asked for by the activity
+     * @return the time the specified activity is next due
+     */
+    private static long getDueTime(final PActivity activity, final long currentTime, final long delay) {
+        final long dueTime = currentTime + delay;
+        final long stopTime = activity.getStopTime();
+        if (stopTime != Long.MAX_VALUE && stopTime < dueTime) {
+            // processStep finishes activities once past their stop time
+            return stopTime + 1;
+        }
+        return dueTime;
     }
 
     /**
@@ -185,15 +455,111 @@ public class PActivityScheduler implements Serializable {
      * @return true if any of the scheduled activities are animations.
      */
     public boolean getAnimating() {
-        if (activitiesChanged) {
-            animating = false;
-            for (int i = 0; i < activities.size(); i++) {
-                final PActivity each = (PActivity) activities.get(i);
-                animating |= each.isAnimation();
+        return animatingCount > 0;
+    }
+
+    /**
+     * Return the number of scheduled activities that are animations.
+     * 
+     * @since 4.0
+     * @return the number of scheduled activities that are animations
+     */
+    public int getAnimatingCount() {
+        return animatingCount;
+    }
+
+    /**
+     * Restore the heap order of all the activities.
+     */
+    private void heapify() {
+        for (int i = 0; i < activities.size(); i++) {
+            ((PActivity) activities.get(i)).schedulerEntry.index = i;
+        }
+        for (int i = activities.size() / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * Move the activity at the specified index up the heap until its parent is
+     * due before it.
+     * 
+     * @param index index of the activity to move
+     */
+    private void siftUp(final int index) {
+        int child = index;
+        final PActivity activity = (PActivity) activities.get(child);
+        while (child > 0) {
+            final int parent = (child - 1) / 2;
+            final PActivity parentActivity = (PActivity) activities.get(parent);
+            if (!isDueBefore(activity, parentActivity)) {
+                break;
             }
-            activitiesChanged = false;
+            activities.set(child, parentActivity);
+            parentActivity.schedulerEntry.index = child;
+            child = parent;
         }
-        return animating;
+        activities.set(child, activity);
+        activity.schedulerEntry.index = child;
+    }
+
+    /**
+     * Move the activity at the specified index down the heap until its
+     * children are due after it.
+     * 
+     * @param index index of the activity to move
+     */
+    private void siftDown(final int index) {
+        final int size = activities.size();
+        int parent = index;
+        final PActivity activity = (PActivity) activities.get(parent);
+        while (true) {
+            int child = 2 * parent + 1;
+            if (child >= size) {
+                break;
+            }
+            PActivity childActivity = (PActivity) activities.get(child);
+            if (child + 1 < size && isDueBefore((PActivity) activities.get(child + 1), childActivity)) {
+                child++;
+                childActivity = (PActivity) activities.get(child);
+            }
+            if (!isDueBefore(childActivity, activity)) {
+                break;
+            }
+            activities.set(parent, childActivity);
+            childActivity.schedulerEntry.index = parent;
+            parent = child;
+        }
+        activities.set(parent, activity);
+        activity.schedulerEntry.index = parent;
+    }
+
+    /**
+     * Return true if activity <code>a</code> is due strictly before activity
+     * <code>b</code>.
+     * 
+     * @param a first activity
+     * @param b second activity
+     * @return true if activity <code>a</code> is due before activity
+     *         <code>b</code>
+     */
+    private static boolean isDueBefore(final PActivity a, final PActivity b) {
+        return a.schedulerEntry.dueTime < b.schedulerEntry.dueTime;
+    }
+
+    /**
+     * Compare two longs.
+     * 
+     * @param a first long
+     * @param b second long
+     * @return negative, zero or positive as <code>a</code> is less than, equal
+     *         to or greater than <code>b</code>
+     */
+    private static int compareLongs(final long a, final long b) {
+        if (a < b) {
+            return -1;
+        }
+        return a == b ? 0 : 1;
     }
 
     /**
@@ -226,4 +592,24 @@ public class PActivityScheduler implements Serializable {
         }
         return activityTimer;
     }
+
+    /**
+     * Scheduling state of an activity.
+     */
+    static final class Entry {
+        /** Index of the activity in the heap, or PROCESSING. */
+        int index;
+
+        /** Time at which the activity is next due. */
+        long dueTime;
+
+        /** Sequence number of the activity, in the order activities were added. */
+        long sequence;
+
+        /** Whether the activity is processed after the others due with it. */
+        boolean processLast;
+
+        /** Whether the activity is an animation. */
+        boolean animation;
+    }
 }
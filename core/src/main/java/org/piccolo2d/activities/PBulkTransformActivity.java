@@ -0,0 +1,449 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.activities;
+
+import java.awt.geom.AffineTransform;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.piccolo2d.PNode;
+import org.piccolo2d.util.PAffineTransform;
+
+/**
+ * <b>PBulkTransformActivity</b> animates the transforms of many nodes at once.
+ * It replaces one {@link PTransformActivity} per node, as created by
+ * {@link PNode#animateToTransform(AffineTransform, long)}, when animating a
+ * layout change.
+ * <p>
+ * The source and destination matrices of all the nodes are held in flat
+ * arrays and interpolated in a single loop, optionally in parallel for very
+ * large numbers of nodes. Interpolated transforms are then applied on the
+ * calling thread, skipping the nodes whose transform did not change, such as
+ * those that have not started moving yet when the animation is staggered.
+ * </p>
+ * <p>
+ * With a stagger greater than zero, nodes start moving one after the other in
+ * the order given, the last one starting once the stagger fraction of the
+ * animation has elapsed. Each node moves for the remaining fraction of the
+ * animation, so all of them arrive in time. Slow-in, slow-out or the
+ * interpolator applies to the timeline of the whole animation. Without a
+ * stagger, nodes follow an interpolator overshooting past their source and
+ * destination transforms; with one, each node is held at its source transform
+ * before its part of the animation and at its destination after it.
+ * </p>
+ * 
+ * @since 4.0
+ */
+public class PBulkTransformActivity extends PInterpolatingActivity {
+
+    /** Default number of nodes from which matrices are interpolated in parallel. */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 4096;
+
+    /** Number of nodes interpolated by each parallel task. */
+    private static final int PARALLEL_BATCH = 1024;
+
+    /** Number of values in a matrix. */
+    private static final int MATRIX_SIZE = 6;
+
+    /** Animated nodes. */
+    private final PNode[] nodes;
+
+    /** Source matrices, six values per node. */
+    private final double[] source;
+
+    /** Destination matrices, six values per node. */
+    private final double[] destination;
+
+    /** Interpolated matrices, six values per node. */
+    private final double[] current;
+
+    /** Decomposed source transforms, when interpolating decomposed transforms. */
+    private double[] sourceParts;
+
+    /** Decomposed destination transforms, when interpolating decomposed transforms. */
+    private double[] destinationParts;
+
+    /** Whether decomposed transforms are interpolated. */
+    private boolean decomposedInterpolation;
+
+    /** Transform applied to the nodes, reused. */
+    private final PAffineTransform transform = new PAffineTransform();
+
+    /** Fraction of the animation over which node start times are spread. */
+    private double stagger;
+
+    /** Whether matrices may be interpolated in parallel. */
+    private boolean parallel;
+
+    /** Number of nodes from which matrices are interpolated in parallel. */
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    /**
+     * Create a new bulk transform activity animating the transforms of the
+     * specified nodes to the specified destination transforms.
+     * 
+     * @param duration duration in milliseconds of the animation
+     * @param stepRate interval in milliseconds between updates of the nodes
+     * @param nodes nodes to animate, must not be null
+     * @param destinations destination transforms, one per node, must not be
+     *            null
+     */
+    public PBulkTransformActivity(final long duration, final long stepRate, final PNode[] nodes,
+            final AffineTransform[] destinations) {
+        this(duration, stepRate, nodes, toMatrices(nodes, destinations));
+    }
+
+    /**
+     * Create a new bulk transform activity animating the transforms of the
+     * specified nodes to the specified destination matrices.
+     * 
+     * @param duration duration in milliseconds of the animation
+     * @param stepRate interval in milliseconds between updates of the nodes
+     * @param nodes nodes to animate, must not be null
+     * @param destinationMatrices destination matrices, six values per node in
+     *            the order of {@link AffineTransform#getMatrix(double[])}, must
+     *            not be null
+     */
+    public PBulkTransformActivity(final long duration, final long stepRate, final PNode[] nodes,
+            final double[] destinationMatrices) {
+        super(duration, stepRate);
+        if (nodes == null) {
+            throw new IllegalArgumentException("nodes must not be null");
+        }
+        if (destinationMatrices == null) {
+            throw new IllegalArgumentException("destinationMatrices must not be null");
+        }
+        if (destinationMatrices.length != nodes.length * MATRIX_SIZE) {
+            throw new IllegalArgumentException("destinationMatrices must hold " + MATRIX_SIZE
+                    + " values per node, had " + destinationMatrices.length + " for " + nodes.length + " nodes");
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            if (nodes[i] == null) {
+                throw new IllegalArgumentException("nodes must not contain null, was null at " + i);
+            }
+        }
+        this.nodes = (PNode[]) nodes.clone();
+        destination = (double[]) destinationMatrices.clone();
+        source = new double[destination.length];
+        current = new double[destination.length];
+    }
+
+    /**
+     * Return the destination transforms as flat matrices.
+     * 
+     * @param nodes nodes to animate
+     * @param destinations destination transforms
+     * @return the destination matrices
+     */
+    private static double[] toMatrices(final PNode[] nodes, final AffineTransform[] destinations) {
+        if (destinations == null) {
+            throw new IllegalArgumentException("destinations must not be null");
+        }
+        if (nodes != null && nodes.length != destinations.length) {
+            throw new IllegalArgumentException("destinations must hold one transform per node, had "
+                    + destinations.length + " for " + nodes.length + " nodes");
+        }
+        final double[] matrices = new double[destinations.length * MATRIX_SIZE];
+        final double[] matrix = new double[MATRIX_SIZE];
+        for (int i = 0; i < destinations.length; i++) {
+            if (destinations[i] == null) {
+                throw new IllegalArgumentException("destinations must not contain null, was null at " + i);
+            }
+            destinations[i].getMatrix(matrix);
+            System.arraycopy(matrix, 0, matrices, i * MATRIX_SIZE, MATRIX_SIZE);
+        }
+        return matrices;
+    }
+
+    /**
+     * Return the number of nodes animated by this activity.
+     * 
+     * @return the number of nodes animated by this activity
+     */
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    /**
+     * Return the fraction of the animation over which node start times are
+     * spread. Defaults to <code>0.0</code>, all nodes moving together.
+     * 
+     * @return the fraction of the animation over which node start times are
+     *         spread
+     */
+    public double getStagger() {
+        return stagger;
+    }
+
+    /**
+     * Set the fraction of the animation over which node start times are
+     * spread.
+     * 
+     * @param stagger fraction of the animation over which node start times are
+     *            spread, at least <code>0.0</code> and less than
+     *            <code>1.0</code>
+     */
+    public void setStagger(final double stagger) {
+        if (stagger < 0.0d || stagger >= 1.0d) {
+            throw new IllegalArgumentException("stagger must be at least 0.0 and less than 1.0, was " + stagger);
+        }
+        this.stagger = stagger;
+    }
+
+    /**
+     * Return true if matrices are interpolated in parallel when there are at
+     * least the parallel threshold nodes. Defaults to <code>false</code>.
+     * 
+     * @return true if matrices may be interpolated in parallel
+     */
+    public boolean getParallel() {
+        return parallel;
+    }
+
+    /**
+     * Set whether matrices are interpolated in parallel on the common fork
+     * join pool when there are at least the parallel threshold nodes.
+     * Transforms are always applied to the nodes on the calling thread.
+     * 
+     * @param parallel true to interpolate matrices in parallel
+     */
+    public void setParallel(final boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Return the number of nodes from which matrices are interpolated in
+     * parallel. Defaults to {@link #DEFAULT_PARALLEL_THRESHOLD}.
+     * 
+     * @return the number of nodes from which matrices are interpolated in
+     *         parallel
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Set the number of nodes from which matrices are interpolated in
+     * parallel.
+     * 
+     * @param parallelThreshold number of nodes from which matrices are
+     *            interpolated in parallel, must be greater than zero
+     */
+    public void setParallelThreshold(final int parallelThreshold) {
+        if (parallelThreshold <= 0) {
+            throw new IllegalArgumentException("parallelThreshold must be greater than zero, was "
+                    + parallelThreshold);
+        }
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Return true if this activity interpolates the translation, rotation,
+     * scale and shear of the transforms rather than their matrix components.
+     * Defaults to <code>false</code>.
+     * 
+     * @return true if this activity interpolates decomposed transforms
+     */
+    public boolean getDecomposedInterpolation() {
+        return decomposedInterpolation;
+    }
+
+    /**
+     * Set whether this activity interpolates the translation, rotation, scale
+     * and shear of the transforms rather than their matrix components. The
+     * transforms are decomposed once, when the activity starts.
+     * 
+     * @see PTransformActivity#setDecomposedInterpolation(boolean)
+     * @param decomposedInterpolation true to interpolate decomposed transforms
+     */
+    public void setDecomposedInterpolation(final boolean decomposedInterpolation) {
+        this.decomposedInterpolation = decomposedInterpolation;
+        sourceParts = null;
+        destinationParts = null;
+    }
+
+    /**
+     * Return true since this activity animates nodes.
+     * 
+     * @return true
+     */
+    protected boolean isAnimation() {
+        return true;
+    }
+
+    /**
+     * Capture the current transforms of the nodes as source matrices on the
+     * first loop.
+     */
+    protected void activityStarted() {
+        if (getFirstLoop()) {
+            final double[] matrix = new double[MATRIX_SIZE];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i].getTransformReference(true).getMatrix(matrix);
+                System.arraycopy(matrix, 0, source, i * MATRIX_SIZE, MATRIX_SIZE);
+            }
+            sourceParts = null;
+        }
+        super.activityStarted();
+    }
+
+    /** {@inheritDoc} */
+    public void setRelativeTargetValue(final float zeroToOne) {
+        super.setRelativeTargetValue(zeroToOne);
+
+        if (decomposedInterpolation && sourceParts == null) {
+            sourceParts = decompose(source);
+            if (destinationParts == null) {
+                destinationParts = decompose(destination);
+            }
+        }
+        if (parallel && nodes.length >= parallelThreshold) {
+            ForkJoinPool.commonPool().invoke(new Interpolation(zeroToOne, 0, nodes.length));
+        }
+        else {
+            interpolate(zeroToOne, 0, nodes.length);
+        }
+        applyTransforms();
+    }
+
+    /**
+     * Decompose the specified matrices.
+     * 
+     * @param matrices matrices to decompose, six values per node
+     * @return the decomposed transforms, six values per node
+     */
+    private static double[] decompose(final double[] matrices) {
+        final double[] parts = new double[matrices.length];
+        for (int i = 0; i < matrices.length; i += MATRIX_SIZE) {
+            PTransformDecomposition.decompose(matrices, i, parts, i);
+        }
+        return parts;
+    }
+
+    /**
+     * Interpolate the matrices of the specified range of nodes.
+     * 
+     * @param zeroToOne relative completion of the animation
+     * @param start index of the first node of the range
+     * @param end index after the last node of the range
+     */
+    private void interpolate(final float zeroToOne, final int start, final int end) {
+        final boolean staggered = stagger > 0.0d && nodes.length > 1;
+        final double offsetStep;
+        final double span;
+        if (staggered) {
+            offsetStep = stagger / (nodes.length - 1);
+            span = 1.0d - stagger;
+        }
+        else {
+            offsetStep = 0.0d;
+            span = 1.0d;
+        }
+
+        for (int i = start; i < end; i++) {
+            double t = (zeroToOne - i * offsetStep) / span;
+            if (staggered) {
+                if (t < 0.0d) {
+                    t = 0.0d;
+                }
+                else if (t > 1.0d) {
+                    t = 1.0d;
+                }
+            }
+            final int base = i * MATRIX_SIZE;
+            if (decomposedInterpolation) {
+                PTransformDecomposition.interpolate(sourceParts, base, destinationParts, base, t, current, base);
+                continue;
+            }
+            for (int j = base; j < base + MATRIX_SIZE; j++) {
+                current[j] = source[j] + t * (destination[j] - source[j]);
+            }
+        }
+    }
+
+    /**
+     * Apply the interpolated matrices to the nodes whose transform changed.
+     */
+    private void applyTransforms() {
+        for (int i = 0; i < nodes.length; i++) {
+            final int base = i * MATRIX_SIZE;
+            final PAffineTransform nodeTransform = nodes[i].getTransformReference(true);
+            if (nodeTransform.getScaleX() == current[base] && nodeTransform.getShearY() == current[base + 1]
+                    && nodeTransform.getShearX() == current[base + 2]
+                    && nodeTransform.getScaleY() == current[base + 3]
+                    && nodeTransform.getTranslateX() == current[base + 4]
+                    && nodeTransform.getTranslateY() == current[base + 5]) {
+                continue;
+            }
+            transform.setTransform(current[base], current[base + 1], current[base + 2], current[base + 3],
+                    current[base + 4], current[base + 5]);
+            nodes[i].setTransform(transform);
+        }
+    }
+
+    /**
+     * Task interpolating the matrices of a range of nodes in parallel.
+     */
+    private final class Interpolation extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /** Relative completion of the animation. */
+        private final float zeroToOne;
+
+        /** Index of the first node of the range. */
+        private final int start;
+
+        /** Index after the last node of the range. */
+        private final int end;
+
+        /**
+         * Create a new task for the specified range of nodes.
+         * 
+         * @param zeroToOne relative completion of the animation
+         * @param start index of the first node of the range
+         * @param end index after the last node of the range
+         */
+        Interpolation(final float zeroToOne, final int start, final int end) {
+            this.zeroToOne = zeroToOne;
+            this.start = start;
+            this.end = end;
+        }
+
+        /** {@inheritDoc} */
+        protected void compute() {
+            if (end - start <= PARALLEL_BATCH) {
+                interpolate(zeroToOne, start, end);
+            }
+            else {
+                final int middle = (start + end) >>> 1;
+                invokeAll(new Interpolation(zeroToOne, start, middle), new Interpolation(zeroToOne, middle, end));
+            }
+        }
+    }
+}
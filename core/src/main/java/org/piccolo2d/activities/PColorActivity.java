@@ -35,6 +35,10 @@ import java.awt.Color;
  * duration of the animation. The source color is retrieved from the target just
  * before the activity is scheduled to start.
  * <P>
+ * Interpolators overshooting past the source or destination color, see
+ * {@link #setInterpolator(PInterpolator)}, are clamped to the range of valid
+ * color components.
+ * <P>
  * 
  * @version 1.0
  * @author Jesse Grosjean
@@ -166,6 +170,18 @@ public class PColorActivity extends PInterpolatingActivity {
         final float green = source.getGreen() + zeroToOne * (destination.getGreen() - source.getGreen());
         final float blue = source.getBlue() + zeroToOne * (destination.getBlue() - source.getBlue());
         final float alpha = source.getAlpha() + zeroToOne * (destination.getAlpha() - source.getAlpha());
-        target.setColor(new Color((int) red, (int) green, (int) blue, (int) alpha));
+        target.setColor(new Color(clamp(red), clamp(green), clamp(blue), clamp(alpha)));
+    }
+
+    /**
+     * Clamp the specified interpolated color component, which may overshoot
+     * with some interpolators, to a valid color component.
+     * 
+     * @param component interpolated color component
+     * @return the color component clamped between <code>0</code> and
+     *         <code>255</code>
+     */
+    private static int clamp(final float component) {
+        return Math.max(0, Math.min(255, (int) component));
     }
 }
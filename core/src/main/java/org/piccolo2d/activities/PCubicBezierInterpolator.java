@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.activities;
+
+/**
+ * <b>PCubicBezierInterpolator</b> eases along a cubic Bezier curve from
+ * <code>(0, 0)</code> to <code>(1, 1)</code>, defined by its two control
+ * points as CSS timing functions are.
+ * 
+ * @since 4.0
+ */
+public class PCubicBezierInterpolator extends PLookupTableInterpolator {
+
+    /** Curve easing in and out gently, as the CSS <code>ease</code> function. */
+    public static final PCubicBezierInterpolator EASE = new PCubicBezierInterpolator(0.25d, 0.1d, 0.25d, 1.0d);
+
+    /** Curve easing in, as the CSS <code>ease-in</code> function. */
+    public static final PCubicBezierInterpolator EASE_IN = new PCubicBezierInterpolator(0.42d, 0.0d, 1.0d, 1.0d);
+
+    /** Curve easing out, as the CSS <code>ease-out</code> function. */
+    public static final PCubicBezierInterpolator EASE_OUT = new PCubicBezierInterpolator(0.0d, 0.0d, 0.58d, 1.0d);
+
+    /** Curve easing in and out, as the CSS <code>ease-in-out</code> function. */
+    public static final PCubicBezierInterpolator EASE_IN_OUT = new PCubicBezierInterpolator(0.42d, 0.0d, 0.58d,
+            1.0d);
+
+    /** Maximum number of Newton iterations solving the curve for a time. */
+    private static final int NEWTON_ITERATIONS = 8;
+
+    /** Precision to which the curve is solved for a time. */
+    private static final double EPSILON = 1.0e-7d;
+
+    /** X coordinate of the first control point. */
+    private final double x1;
+
+    /** Y coordinate of the first control point. */
+    private final double y1;
+
+    /** X coordinate of the second control point. */
+    private final double x2;
+
+    /** Y coordinate of the second control point. */
+    private final double y2;
+
+    /**
+     * Create a new cubic Bezier interpolator with the specified control
+     * points.
+     * 
+     * @param x1 x coordinate of the first control point, between
+     *            <code>0</code> and <code>1</code>
+     * @param y1 y coordinate of the first control point
+     * @param x2 x coordinate of the second control point, between
+     *            <code>0</code> and <code>1</code>
+     * @param y2 y coordinate of the second control point
+     */
+    public PCubicBezierInterpolator(final double x1, final double y1, final double x2, final double y2) {
+        if (x1 < 0.0d || x1 > 1.0d || x2 < 0.0d || x2 > 1.0d) {
+            throw new IllegalArgumentException("x1 and x2 must be between 0 and 1, were " + x1 + " and " + x2);
+        }
+        this.x1 = x1;
+        this.y1 = y1;
+        this.x2 = x2;
+        this.y2 = y2;
+    }
+
+    /**
+     * Return the x coordinate of the first control point.
+     * 
+     * @return the x coordinate of the first control point
+     */
+    public double getX1() {
+        return x1;
+    }
+
+    /**
+     * Return the y coordinate of the first control point.
+     * 
+     * @return the y coordinate of the first control point
+     */
+    public double getY1() {
+        return y1;
+    }
+
+    /**
+     * Return the x coordinate of the second control point.
+     * 
+     * @return the x coordinate of the second control point
+     */
+    public double getX2() {
+        return x2;
+    }
+
+    /**
+     * Return the y coordinate of the second control point.
+     * 
+     * @return the y coordinate of the second control point
+     */
+    public double getY2() {
+        return y2;
+    }
+
+    /** {@inheritDoc} */
+    protected double computeValue(final double zeroToOne) {
+        return bezier(solve(zeroToOne), y1, y2);
+    }
+
+    /**
+     * Return the curve parameter at which the x coordinate of the curve is the
+     * specified value.
+     * 
+     * @param x x coordinate, between <code>0</code> and <code>1</code>
+     * @return the curve parameter at which the x coordinate of the curve is
+     *         <code>x</code>
+     */
+    private double solve(final double x) {
+        double t = x;
+        for (int i = 0; i < NEWTON_ITERATIONS; i++) {
+            final double error = bezier(t, x1, x2) - x;
+            if (Math.abs(error) < EPSILON) {
+                return t;
+            }
+            final double slope = bezierSlope(t, x1, x2);
+            if (Math.abs(slope) < EPSILON) {
+                break;
+            }
+            t -= error / slope;
+        }
+
+        // the x coordinate is monotonic, fall back to bisection
+        double low = 0.0d;
+        double high = 1.0d;
+        t = x;
+        while (high - low > EPSILON) {
+            if (bezier(t, x1, x2) < x) {
+                low = t;
+            }
+            else {
+                high = t;
+            }
+            t = (low + high) / 2.0d;
+        }
+        return t;
+    }
+
+    /**
+     * Return a coordinate of the curve from <code>0</code> to <code>1</code>
+     * with the specified control coordinates.
+     * 
+     * @param t curve parameter
+     * @param c1 coordinate of the first control point
+     * @param c2 coordinate of the second control point
+     * @return the coordinate of the curve at <code>t</code>
+     */
+    private static double bezier(final double t, final double c1, final double c2) {
+        final double u = 1.0d - t;
+        return 3.0d * u * u * t * c1 + 3.0d * u * t * t * c2 + t * t * t;
+    }
+
+    /**
+     * Return the derivative of a coordinate of the curve from <code>0</code>
+     * to <code>1</code> with the specified control coordinates.
+     * 
+     * @param t curve parameter
+     * @param c1 coordinate of the first control point
+     * @param c2 coordinate of the second control point
+     * @return the derivative of the coordinate of the curve at <code>t</code>
+     */
+    private static double bezierSlope(final double t, final double c1, final double c2) {
+        final double u = 1.0d - t;
+        return 3.0d * u * u * c1 + 6.0d * u * t * (c2 - c1) + 3.0d * t * t * (1.0d - c2);
+    }
+}
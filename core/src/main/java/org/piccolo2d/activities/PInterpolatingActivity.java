@@ -33,7 +33,7 @@ import org.piccolo2d.util.PUtil;
 /**
  * <b>PInterpolatingActivity</b> interpolates between two states (source and
  * destination) over the duration of the activity. The interpolation can be
- * either linear or slow- in, slow-out.
+ * either linear or slow- in, slow-out, or follow any {@link PInterpolator}.
  * <P>
  * The mode determines how the activity interpolates between the two states. The
  * default mode interpolates from source to destination, but you can also go
@@ -68,6 +68,7 @@ public class PInterpolatingActivity extends PActivity {
 
     private int mode;
     private boolean slowInSlowOut;
+    private PInterpolator interpolator;
     private int loopCount;
     private boolean firstLoop;
 
@@ -233,6 +234,34 @@ public class PInterpolatingActivity extends PActivity {
         slowInSlowOut = isSlowInSlowOut;
     }
 
+    /**
+     * Return the interpolator easing this activity, or <code>null</code> if
+     * it is linear or slow-in, slow-out depending on
+     * {@link #getSlowInSlowOut()}.
+     * 
+     * @since 4.0
+     * @return the interpolator easing this activity, or <code>null</code>
+     */
+    public PInterpolator getInterpolator() {
+        return interpolator;
+    }
+
+    /**
+     * Set the interpolator easing this activity. When not <code>null</code>,
+     * it takes precedence over the slow-in, slow-out property. Interpolators
+     * may overshoot past the source and destination states; transform
+     * activities follow the overshoot, while color activities clamp their
+     * colors to valid colors.
+     * 
+     * @since 4.0
+     * @param interpolator interpolator easing this activity, or
+     *            <code>null</code> to ease it as set by
+     *            {@link #setSlowInSlowOut(boolean)}
+     */
+    public void setInterpolator(final PInterpolator interpolator) {
+        this.interpolator = interpolator;
+    }
+
     // ****************************************************************
     // Stepping - Instead of overriding the step methods subclasses
     // of this activity will normally override setRelativeTargetValue().
@@ -265,7 +294,10 @@ public class PInterpolatingActivity extends PActivity {
         t = Math.min(1, t);
         t = Math.max(0, t);
 
-        if (getSlowInSlowOut()) {
+        if (interpolator != null) {
+            t = interpolator.interpolate(t);
+        }
+        else if (getSlowInSlowOut()) {
             t = computeSlowInSlowOut(t);
         }
 
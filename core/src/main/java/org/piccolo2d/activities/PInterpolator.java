@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.activities;
+
+/**
+ * <b>PInterpolator</b> maps the relative time of an interpolating activity to
+ * its relative progress, defining how it eases in and out. Interpolators are
+ * evaluated at every step of every running activity, so those with expensive
+ * curves should precompute them, see {@link PLookupTableInterpolator}.
+ * 
+ * @see PInterpolatingActivity#setInterpolator(PInterpolator)
+ * @since 4.0
+ */
+public interface PInterpolator {
+
+    /** Interpolator progressing linearly. */
+    PInterpolator LINEAR = new PInterpolator() {
+        public float interpolate(final float zeroToOne) {
+            return zeroToOne;
+        }
+    };
+
+    /**
+     * Interpolator accelerating then decelerating, as
+     * {@link PInterpolatingActivity#computeSlowInSlowOut(float)}.
+     */
+    PInterpolator SLOW_IN_SLOW_OUT = new PInterpolator() {
+        public float interpolate(final float zeroToOne) {
+            if (zeroToOne < 0.5f) {
+                return 2.0f * zeroToOne * zeroToOne;
+            }
+            final float complement = 1.0f - zeroToOne;
+            return 1.0f - 2.0f * complement * complement;
+        }
+    };
+
+    /**
+     * Return the relative progress at the specified relative time. The
+     * progress must be <code>0</code> at time <code>0</code> and
+     * <code>1</code> at time <code>1</code>, but may overshoot in between.
+     * 
+     * @param zeroToOne relative time, between <code>0</code> and
+     *            <code>1</code>
+     * @return the relative progress at the specified relative time
+     */
+    float interpolate(float zeroToOne);
+}
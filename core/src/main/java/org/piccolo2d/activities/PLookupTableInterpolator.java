@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.activities;
+
+/**
+ * <b>PLookupTableInterpolator</b> is the base class of interpolators whose
+ * curves are expensive to compute. The curve is sampled once into a lookup
+ * table, the first time the interpolator is used, after which interpolating is
+ * a table lookup and a linear interpolation between two samples.
+ * 
+ * @since 4.0
+ */
+public abstract class PLookupTableInterpolator implements PInterpolator {
+
+    /** Default number of samples of the curve. */
+    public static final int DEFAULT_SAMPLE_COUNT = 1025;
+
+    /** Number of samples of the curve. */
+    private final int sampleCount;
+
+    /** Samples of the curve, computed when first needed and published once complete. */
+    private volatile float[] samples;
+
+    /**
+     * Create a new lookup table interpolator with the default number of
+     * samples.
+     */
+    protected PLookupTableInterpolator() {
+        this(DEFAULT_SAMPLE_COUNT);
+    }
+
+    /**
+     * Create a new lookup table interpolator with the specified number of
+     * samples.
+     * 
+     * @param sampleCount number of samples of the curve, at least
+     *            <code>2</code>
+     */
+    protected PLookupTableInterpolator(final int sampleCount) {
+        if (sampleCount < 2) {
+            throw new IllegalArgumentException("sampleCount must be at least 2, was " + sampleCount);
+        }
+        this.sampleCount = sampleCount;
+    }
+
+    /**
+     * Return the number of samples of the curve.
+     * 
+     * @return the number of samples of the curve
+     */
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    /** {@inheritDoc} */
+    public float interpolate(final float zeroToOne) {
+        if (zeroToOne <= 0.0f) {
+            return 0.0f;
+        }
+        if (zeroToOne >= 1.0f) {
+            return 1.0f;
+        }
+
+        final float[] table = getSamples();
+        final float position = zeroToOne * (sampleCount - 1);
+        final int index = (int) position;
+        final float fraction = position - index;
+        return table[index] + fraction * (table[index + 1] - table[index]);
+    }
+
+    /**
+     * Return the samples of the curve, computing them if needed. Computing them
+     * concurrently only wastes the work of one of the threads.
+     * 
+     * @return the samples of the curve
+     */
+    private float[] getSamples() {
+        float[] table = samples;
+        if (table == null) {
+            table = new float[sampleCount];
+            for (int i = 1; i < sampleCount - 1; i++) {
+                table[i] = (float) computeValue((double) i / (sampleCount - 1));
+            }
+            table[sampleCount - 1] = 1.0f;
+            samples = table;
+        }
+        return table;
+    }
+
+    /**
+     * Compute the value of the curve at the specified relative time. Called
+     * once per sample, the first time this interpolator is used.
+     * 
+     * @param zeroToOne relative time, strictly between <code>0</code> and
+     *            <code>1</code>
+     * @return the value of the curve at the specified relative time
+     */
+    protected abstract double computeValue(double zeroToOne);
+}
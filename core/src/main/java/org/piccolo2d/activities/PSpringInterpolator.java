@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.activities;
+
+/**
+ * <b>PSpringInterpolator</b> moves as a damped spring released from the
+ * source towards the destination. Underdamped springs overshoot the
+ * destination and oscillate around it; the stiffness of the spring is chosen
+ * so that it settles by the end of the activity.
+ * 
+ * @since 4.0
+ */
+public class PSpringInterpolator extends PLookupTableInterpolator {
+
+    /** Remaining amplitude of the oscillations at the end of the activity. */
+    private static final double SETTLED_AMPLITUDE = 1.0e-4d;
+
+    /** Damping ratio of the spring. */
+    private final double dampingRatio;
+
+    /**
+     * Create a new spring interpolator with the specified damping ratio.
+     * 
+     * @param dampingRatio damping ratio of the spring, greater than
+     *            <code>0</code> and at most <code>1</code>; springs with
+     *            lower ratios oscillate more, a ratio of <code>1</code> is
+     *            critically damped and does not overshoot
+     */
+    public PSpringInterpolator(final double dampingRatio) {
+        if (dampingRatio <= 0.0d || dampingRatio > 1.0d) {
+            throw new IllegalArgumentException("dampingRatio must be greater than 0 and at most 1, was "
+                    + dampingRatio);
+        }
+        this.dampingRatio = dampingRatio;
+    }
+
+    /**
+     * Return the damping ratio of the spring.
+     * 
+     * @return the damping ratio of the spring
+     */
+    public double getDampingRatio() {
+        return dampingRatio;
+    }
+
+    /** {@inheritDoc} */
+    protected double computeValue(final double zeroToOne) {
+        final double frequency = -Math.log(SETTLED_AMPLITUDE) / dampingRatio;
+        if (dampingRatio == 1.0d) {
+            return 1.0d - Math.exp(-frequency * zeroToOne) * (1.0d + frequency * zeroToOne);
+        }
+        final double dampedFrequency = frequency * Math.sqrt(1.0d - dampingRatio * dampingRatio);
+        final double decay = dampingRatio * frequency;
+        return 1.0d - Math.exp(-decay * zeroToOne)
+                * (Math.cos(dampedFrequency * zeroToOne) + decay / dampedFrequency
+                        * Math.sin(dampedFrequency * zeroToOne));
+    }
+}
@@ -49,6 +49,10 @@ public class PTransformActivity extends PInterpolatingActivity {
     private final double[] source;
     private double[] destination;
     private final Target target;
+    private boolean decomposedInterpolation;
+    private double[] sourceParts;
+    private double[] destinationParts;
+    private double[] matrix;
 
     /**
      * <b>Target</b> Objects that want to get transformed by the transform
@@ -172,6 +176,32 @@ public class PTransformActivity extends PInterpolatingActivity {
         }
     }
 
+    /**
+     * Return true if this activity interpolates the translation, rotation,
+     * scale and shear of the transforms rather than their matrix components.
+     * Defaults to <code>false</code>.
+     * 
+     * @since 4.0
+     * @return true if this activity interpolates decomposed transforms
+     */
+    public boolean getDecomposedInterpolation() {
+        return decomposedInterpolation;
+    }
+
+    /**
+     * Set whether this activity interpolates the translation, rotation, scale
+     * and shear of the transforms rather than their matrix components.
+     * Interpolating matrix components shrinks and shears the target along the
+     * way when the transforms differ by a rotation; interpolating decomposed
+     * transforms rotates it the shortest way, keeping its scale.
+     * 
+     * @since 4.0
+     * @param decomposedInterpolation true to interpolate decomposed transforms
+     */
+    public void setDecomposedInterpolation(final boolean decomposedInterpolation) {
+        this.decomposedInterpolation = decomposedInterpolation;
+    }
+
     /**
      * Is invoked when the activity is started. Ensures that setTransform is
      * called on the target even before the first step.
@@ -197,6 +227,20 @@ public class PTransformActivity extends PInterpolatingActivity {
     public void setRelativeTargetValue(final float zeroToOne) {
         super.setRelativeTargetValue(zeroToOne);
 
+        if (decomposedInterpolation) {
+            if (matrix == null) {
+                sourceParts = new double[PTransformDecomposition.SIZE];
+                destinationParts = new double[PTransformDecomposition.SIZE];
+                matrix = new double[6];
+            }
+            PTransformDecomposition.decompose(source, 0, sourceParts, 0);
+            PTransformDecomposition.decompose(destination, 0, destinationParts, 0);
+            PTransformDecomposition.interpolate(sourceParts, 0, destinationParts, 0, zeroToOne, matrix, 0);
+            STATIC_TRANSFORM.setTransform(matrix[0], matrix[1], matrix[2], matrix[3], matrix[4], matrix[5]);
+            target.setTransform(STATIC_TRANSFORM);
+            return;
+        }
+
         STATIC_TRANSFORM.setTransform(source[0] + zeroToOne * (destination[0] - source[0]), source[1] + zeroToOne
                 * (destination[1] - source[1]), source[2] + zeroToOne * (destination[2] - source[2]), source[3]
                 + zeroToOne * (destination[3] - source[3]), source[4] + zeroToOne * (destination[4] - source[4]),
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.activities;
+
+/**
+ * <b>PTransformDecomposition</b> decomposes affine transforms into
+ * translation, rotation, scale and shear, and interpolates between
+ * decomposed transforms. Unlike interpolating matrix components, rotations
+ * then keep their scale and do not shear along the way.
+ * <p>
+ * A transform matrix is decomposed as <code>T * R * S</code>, where
+ * <code>T</code> translates, <code>R</code> rotates and <code>S</code> is
+ * upper triangular, holding both scales and the shear. Decomposed transforms
+ * are held as six values: translate x, translate y, rotation, scale x,
+ * scale y and shear.
+ * </p>
+ */
+final class PTransformDecomposition {
+
+    /** Number of values of a decomposed transform. */
+    static final int SIZE = 6;
+
+    /**
+     * This class cannot be instantiated.
+     */
+    private PTransformDecomposition() {
+        // empty
+    }
+
+    /**
+     * Decompose the transform matrix at the specified offset.
+     * 
+     * @param matrices transform matrices, in the order of
+     *            <code>AffineTransform.getMatrix</code>
+     * @param offset offset of the matrix to decompose
+     * @param parts array receiving the decomposed transform
+     * @param partsOffset offset at which the decomposed transform is stored
+     */
+    static void decompose(final double[] matrices, final int offset, final double[] parts, final int partsOffset) {
+        final double a = matrices[offset];
+        final double b = matrices[offset + 1];
+        final double c = matrices[offset + 2];
+        final double d = matrices[offset + 3];
+
+        parts[partsOffset] = matrices[offset + 4];
+        parts[partsOffset + 1] = matrices[offset + 5];
+        final double scaleX = Math.sqrt(a * a + b * b);
+        if (scaleX == 0.0d) {
+            parts[partsOffset + 2] = 0.0d;
+            parts[partsOffset + 3] = 0.0d;
+            parts[partsOffset + 4] = d;
+            parts[partsOffset + 5] = c;
+        }
+        else {
+            parts[partsOffset + 2] = Math.atan2(b, a);
+            parts[partsOffset + 3] = scaleX;
+            parts[partsOffset + 4] = (a * d - b * c) / scaleX;
+            parts[partsOffset + 5] = (a * c + b * d) / scaleX;
+        }
+    }
+
+    /**
+     * Interpolate between two decomposed transforms, rotating the shortest
+     * way, and store the resulting transform matrix.
+     * 
+     * @param from decomposed source transforms
+     * @param fromOffset offset of the decomposed source transform
+     * @param to decomposed destination transforms
+     * @param toOffset offset of the decomposed destination transform
+     * @param t relative progress from source to destination
+     * @param matrices array receiving the transform matrix
+     * @param offset offset at which the transform matrix is stored
+     */
+    static void interpolate(final double[] from, final int fromOffset, final double[] to, final int toOffset,
+            final double t, final double[] matrices, final int offset) {
+        double rotation = to[toOffset + 2] - from[fromOffset + 2];
+        if (rotation > Math.PI) {
+            rotation -= 2.0d * Math.PI;
+        }
+        else if (rotation < -Math.PI) {
+            rotation += 2.0d * Math.PI;
+        }
+        rotation = from[fromOffset + 2] + t * rotation;
+
+        final double scaleX = from[fromOffset + 3] + t * (to[toOffset + 3] - from[fromOffset + 3]);
+        final double scaleY = from[fromOffset + 4] + t * (to[toOffset + 4] - from[fromOffset + 4]);
+        final double shear = from[fromOffset + 5] + t * (to[toOffset + 5] - from[fromOffset + 5]);
+        final double cos = Math.cos(rotation);
+        final double sin = Math.sin(rotation);
+
+        matrices[offset] = cos * scaleX;
+        matrices[offset + 1] = sin * scaleX;
+        matrices[offset + 2] = cos * shear - sin * scaleY;
+        matrices[offset + 3] = sin * shear + cos * scaleY;
+        matrices[offset + 4] = from[fromOffset] + t * (to[toOffset] - from[fromOffset]);
+        matrices[offset + 5] = from[fromOffset + 1] + t * (to[toOffset + 1] - from[fromOffset + 1]);
+    }
+}
@@ -0,0 +1,454 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.event;
+
+import org.piccolo2d.PCamera;
+import org.piccolo2d.PRoot;
+import org.piccolo2d.activities.PActivity;
+import org.piccolo2d.util.PUtil;
+
+/**
+ * <b>PKineticCameraController</b> moves a camera's view with time based
+ * physics, driven by a single activity stepping once per frame.
+ * <p>
+ * When a drag is released, the view keeps moving at the velocity of the last
+ * {@value #VELOCITY_WINDOW} milliseconds of the drag, slowing down with
+ * friction. Zoom requests, such as mouse wheel notches, accumulate and are
+ * animated over a few frames, so that spinning the wheel quickly results in
+ * one smooth zoom rather than a repaint per notch.
+ * </p>
+ * <p>
+ * A controller may be shared between a {@link PPanEventHandler} and a
+ * {@link PMouseWheelZoomEventHandler}, so that panning and zooming are
+ * combined in the same frames.
+ * </p>
+ * 
+ * @see PPanEventHandler#setKineticController(PKineticCameraController)
+ * @see PMouseWheelZoomEventHandler#setKineticController(PKineticCameraController)
+ * @since 4.0
+ */
+public class PKineticCameraController {
+
+    /** Default friction, the rate at which the velocity decays per second. */
+    public static final double DEFAULT_FRICTION = 4.0d;
+
+    /** Default time constant of zoom animations, in milliseconds. */
+    public static final long DEFAULT_ZOOM_DURATION = 80L;
+
+    /** Duration of the end of a drag its release velocity is measured over, in milliseconds. */
+    public static final long VELOCITY_WINDOW = 100L;
+
+    /** Speed below which the view stops moving, in screen pixels per second. */
+    private static final double MINIMUM_SPEED = 10.0d;
+
+    /** Remaining logarithm of the zoom scale below which zooming ends. */
+    private static final double MINIMUM_LOG_SCALE = 1.0e-4d;
+
+    /** Number of drag samples kept to measure the release velocity. */
+    private static final int SAMPLE_COUNT = 16;
+
+    /** Friction, the rate at which the velocity decays per second. */
+    private double friction = DEFAULT_FRICTION;
+
+    /** Time constant of zoom animations, in milliseconds. */
+    private long zoomDuration = DEFAULT_ZOOM_DURATION;
+
+    /** Camera whose view is moved. */
+    private PCamera camera;
+
+    /** Horizontal velocity, in view units per second. */
+    private double velocityX;
+
+    /** Vertical velocity, in view units per second. */
+    private double velocityY;
+
+    /** Logarithm of the zoom scale remaining to be applied. */
+    private double pendingLogScale;
+
+    /** X coordinate of the point zoomed about, in view coordinates. */
+    private double zoomX;
+
+    /** Y coordinate of the point zoomed about, in view coordinates. */
+    private double zoomY;
+
+    /** Times of the drag samples, a ring buffer. */
+    private final long[] sampleTimes = new long[SAMPLE_COUNT];
+
+    /** Horizontal deltas of the drag samples, a ring buffer. */
+    private final double[] sampleDeltaX = new double[SAMPLE_COUNT];
+
+    /** Vertical deltas of the drag samples, a ring buffer. */
+    private final double[] sampleDeltaY = new double[SAMPLE_COUNT];
+
+    /** Number of drag samples recorded, up to the size of the ring buffer. */
+    private int sampleSize;
+
+    /** Index at which the next drag sample is recorded. */
+    private int nextSample;
+
+    /** Activity moving the view, or <code>null</code> when at rest. */
+    private MotionActivity activity;
+
+    /**
+     * Create a new kinetic camera controller.
+     */
+    public PKineticCameraController() {
+        // empty
+    }
+
+    /**
+     * Return the friction, the rate at which the velocity decays per second.
+     * Defaults to {@link #DEFAULT_FRICTION}.
+     * 
+     * @return the friction
+     */
+    public double getFriction() {
+        return friction;
+    }
+
+    /**
+     * Set the friction, the rate at which the velocity decays per second.
+     * Higher values stop the view sooner.
+     * 
+     * @param friction friction, must be greater than zero
+     */
+    public void setFriction(final double friction) {
+        if (friction <= 0.0d) {
+            throw new IllegalArgumentException("friction must be greater than zero, was " + friction);
+        }
+        this.friction = friction;
+    }
+
+    /**
+     * Return the time constant of zoom animations, in milliseconds. Defaults
+     * to {@link #DEFAULT_ZOOM_DURATION}.
+     * 
+     * @return the time constant of zoom animations, in milliseconds
+     */
+    public long getZoomDuration() {
+        return zoomDuration;
+    }
+
+    /**
+     * Set the time constant of zoom animations, in milliseconds. Each frame
+     * applies the part of the pending zoom that decays over the frame's time,
+     * so most of a zoom is applied after three times the time constant.
+     * 
+     * @param zoomDuration time constant of zoom animations, in milliseconds,
+     *            at least zero; zero applies zooms in the next frame
+     */
+    public void setZoomDuration(final long zoomDuration) {
+        if (zoomDuration < 0L) {
+            throw new IllegalArgumentException("zoomDuration must be at least zero, was " + zoomDuration);
+        }
+        this.zoomDuration = zoomDuration;
+    }
+
+    /**
+     * Return the camera whose view this controller moves, or
+     * <code>null</code> if none yet.
+     * 
+     * @return the camera whose view this controller moves
+     */
+    public PCamera getCamera() {
+        return camera;
+    }
+
+    /**
+     * Return true if the view is moving or zooming.
+     * 
+     * @return true if the view is moving or zooming
+     */
+    public boolean isMoving() {
+        return activity != null;
+    }
+
+    /**
+     * Return the horizontal velocity of the view, in view units per second.
+     * 
+     * @return the horizontal velocity of the view
+     */
+    public double getVelocityX() {
+        return velocityX;
+    }
+
+    /**
+     * Return the vertical velocity of the view, in view units per second.
+     * 
+     * @return the vertical velocity of the view
+     */
+    public double getVelocityY() {
+        return velocityY;
+    }
+
+    /**
+     * Notify this controller that the user started dragging the view of the
+     * specified camera. Stops any motion of the view.
+     * 
+     * @param dragCamera camera whose view is dragged
+     */
+    public void dragStarted(final PCamera dragCamera) {
+        setCamera(dragCamera);
+        velocityX = 0.0d;
+        velocityY = 0.0d;
+        sampleSize = 0;
+        nextSample = 0;
+        stopIfAtRest();
+    }
+
+    /**
+     * Notify this controller that the view has been dragged by the specified
+     * delta, as passed to {@link PCamera#translateView(double, double)}.
+     * 
+     * @param deltaX horizontal delta, in view units
+     * @param deltaY vertical delta, in view units
+     * @param when time of the drag, in milliseconds
+     */
+    public void dragged(final double deltaX, final double deltaY, final long when) {
+        sampleTimes[nextSample] = when;
+        sampleDeltaX[nextSample] = deltaX;
+        sampleDeltaY[nextSample] = deltaY;
+        nextSample = (nextSample + 1) % SAMPLE_COUNT;
+        sampleSize = Math.min(sampleSize + 1, SAMPLE_COUNT);
+    }
+
+    /**
+     * Notify this controller that the drag has been released, flinging the
+     * view at the velocity of the end of the drag.
+     * 
+     * @param when time of the release, in milliseconds
+     */
+    public void dragReleased(final long when) {
+        double deltaX = 0.0d;
+        double deltaY = 0.0d;
+        long earliest = when;
+        long latest = Long.MIN_VALUE;
+        for (int i = 1; i <= sampleSize; i++) {
+            final int index = (nextSample - i + SAMPLE_COUNT) % SAMPLE_COUNT;
+            if (when - sampleTimes[index] > VELOCITY_WINDOW) {
+                break;
+            }
+            if (latest != Long.MIN_VALUE) {
+                // the earliest sample only marks the start of the window
+                deltaX += sampleDeltaX[(index + 1) % SAMPLE_COUNT];
+                deltaY += sampleDeltaY[(index + 1) % SAMPLE_COUNT];
+            }
+            else {
+                latest = sampleTimes[index];
+            }
+            earliest = sampleTimes[index];
+        }
+        sampleSize = 0;
+        nextSample = 0;
+
+        if (camera != null && latest > earliest) {
+            final double seconds = (latest - earliest) / 1000.0d;
+            fling(camera, deltaX / seconds, deltaY / seconds);
+        }
+    }
+
+    /**
+     * Move the view of the specified camera at the specified velocity, slowing
+     * down with friction.
+     * 
+     * @param flingCamera camera whose view is moved
+     * @param flingVelocityX horizontal velocity, in view units per second
+     * @param flingVelocityY vertical velocity, in view units per second
+     */
+    public void fling(final PCamera flingCamera, final double flingVelocityX, final double flingVelocityY) {
+        setCamera(flingCamera);
+        velocityX = flingVelocityX;
+        velocityY = flingVelocityY;
+        if (getScreenSpeed() < MINIMUM_SPEED) {
+            velocityX = 0.0d;
+            velocityY = 0.0d;
+            stopIfAtRest();
+            return;
+        }
+        start();
+    }
+
+    /**
+     * Zoom the view of the specified camera by the specified scale about the
+     * specified point, animated over the next frames. Scales requested before
+     * the previous ones have been applied accumulate.
+     * 
+     * @param zoomCamera camera whose view is zoomed
+     * @param scale scale to zoom by, must be greater than zero
+     * @param viewX x coordinate of the point to zoom about, in view
+     *            coordinates
+     * @param viewY y coordinate of the point to zoom about, in view
+     *            coordinates
+     */
+    public void zoom(final PCamera zoomCamera, final double scale, final double viewX, final double viewY) {
+        if (scale <= 0.0d) {
+            throw new IllegalArgumentException("scale must be greater than zero, was " + scale);
+        }
+        setCamera(zoomCamera);
+        pendingLogScale += Math.log(scale);
+        zoomX = viewX;
+        zoomY = viewY;
+        start();
+    }
+
+    /**
+     * Stop any motion of the view, leaving the view where it is.
+     */
+    public void stop() {
+        velocityX = 0.0d;
+        velocityY = 0.0d;
+        pendingLogScale = 0.0d;
+        if (activity != null) {
+            activity.terminate(PActivity.TERMINATE_WITHOUT_FINISHING);
+            activity = null;
+        }
+    }
+
+    /**
+     * Set the camera whose view is moved, stopping the motion of the previous
+     * camera's view.
+     * 
+     * @param newCamera camera whose view is moved
+     */
+    private void setCamera(final PCamera newCamera) {
+        if (newCamera == null) {
+            throw new IllegalArgumentException("camera must not be null");
+        }
+        if (camera != newCamera) {
+            stop();
+            camera = newCamera;
+        }
+    }
+
+    /**
+     * Schedule the activity moving the view, if not scheduled yet. Without a
+     * root to schedule it, pending zooms are applied at once.
+     */
+    private void start() {
+        if (activity != null) {
+            return;
+        }
+        final PRoot root = camera.getRoot();
+        if (root == null) {
+            velocityX = 0.0d;
+            velocityY = 0.0d;
+            step(Long.MAX_VALUE);
+            return;
+        }
+        activity = new MotionActivity();
+        root.addActivity(activity);
+    }
+
+    /**
+     * Stop the activity moving the view if there is no motion left.
+     */
+    private void stopIfAtRest() {
+        if (velocityX == 0.0d && velocityY == 0.0d && pendingLogScale == 0.0d) {
+            stop();
+        }
+    }
+
+    /**
+     * Return the speed of the view, in screen pixels per second.
+     * 
+     * @return the speed of the view, in screen pixels per second
+     */
+    private double getScreenSpeed() {
+        return Math.sqrt(velocityX * velocityX + velocityY * velocityY) * camera.getViewScale();
+    }
+
+    /**
+     * Advance the motion of the view by the specified time.
+     * 
+     * @param elapsed time elapsed since the previous step, in milliseconds
+     */
+    void step(final long elapsed) {
+        if (camera == null) {
+            return;
+        }
+
+        if (velocityX != 0.0d || velocityY != 0.0d) {
+            final double seconds = elapsed / 1000.0d;
+            final double decay = Math.exp(-friction * seconds);
+            final double distance = (1.0d - decay) / friction;
+            camera.translateView(velocityX * distance, velocityY * distance);
+            velocityX *= decay;
+            velocityY *= decay;
+            if (getScreenSpeed() < MINIMUM_SPEED) {
+                velocityX = 0.0d;
+                velocityY = 0.0d;
+            }
+        }
+
+        if (pendingLogScale != 0.0d) {
+            double logScale = pendingLogScale;
+            if (zoomDuration > 0L) {
+                logScale *= 1.0d - Math.exp(-(double) elapsed / zoomDuration);
+            }
+            if (Math.abs(pendingLogScale - logScale) < MINIMUM_LOG_SCALE) {
+                logScale = pendingLogScale;
+            }
+            pendingLogScale -= logScale;
+            camera.scaleViewAboutPoint(Math.exp(logScale), zoomX, zoomY);
+        }
+
+        stopIfAtRest();
+    }
+
+    /**
+     * Activity stepping the motion of the view once per frame.
+     */
+    private final class MotionActivity extends PActivity {
+
+        /** Elapsed time of the previous step, in milliseconds. */
+        private long previousElapsedTime;
+
+        /**
+         * Create a new motion activity running until the view is at rest.
+         */
+        MotionActivity() {
+            super(-1, PUtil.DEFAULT_ACTIVITY_STEP_RATE);
+        }
+
+        /** {@inheritDoc} */
+        protected boolean isAnimation() {
+            return true;
+        }
+
+        /** {@inheritDoc} */
+        protected void activityStep(final long elapsedTime) {
+            super.activityStep(elapsedTime);
+            final long elapsed = elapsedTime - previousElapsedTime;
+            previousElapsedTime = elapsedTime;
+            if (activity == this) {
+                step(elapsed);
+            }
+        }
+    }
+}
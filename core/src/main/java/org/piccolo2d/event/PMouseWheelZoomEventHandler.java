@@ -49,6 +49,9 @@ public final class PMouseWheelZoomEventHandler extends PBasicInputEventHandler {
     /** Zoom mode. */
     private ZoomMode zoomMode = ZoomMode.ZOOM_ABOUT_CANVAS_CENTER;
 
+    /** Kinetic camera controller animating zooms, if any. */
+    private PKineticCameraController kineticController;
+
 
     /**
      * Create a new mouse wheel zoom event handler.
@@ -118,12 +121,40 @@ public final class PMouseWheelZoomEventHandler extends PBasicInputEventHandler {
         return zoomMode;
     }
 
+    /**
+     * Return the kinetic camera controller animating zooms, or
+     * <code>null</code> if none.
+     *
+     * @since 4.0
+     * @return the kinetic camera controller, or <code>null</code>
+     */
+    public PKineticCameraController getKineticController() {
+        return kineticController;
+    }
+
+    /**
+     * Set the kinetic camera controller animating zooms. Zooms requested by
+     * wheel notches then accumulate and are animated over the next frames,
+     * rather than each notch zooming at once. Defaults to <code>null</code>.
+     *
+     * @since 4.0
+     * @param kineticController kinetic camera controller, or <code>null</code>
+     */
+    public void setKineticController(final PKineticCameraController kineticController) {
+        this.kineticController = kineticController;
+    }
+
     /** {@inheritDoc} */
     public void mouseWheelRotated(final PInputEvent event) {
         PCamera camera = event.getCamera();
         double scale = 1.0d + event.getWheelRotation() * scaleFactor;
         Point2D viewAboutPoint = getViewAboutPoint(event);
-        camera.scaleViewAboutPoint(scale, viewAboutPoint.getX(), viewAboutPoint.getY());
+        if (kineticController != null) {
+            kineticController.zoom(camera, scale, viewAboutPoint.getX(), viewAboutPoint.getY());
+        }
+        else {
+            camera.scaleViewAboutPoint(scale, viewAboutPoint.getX(), viewAboutPoint.getY());
+        }
     }
 
     /**
@@ -55,6 +55,7 @@ public class PPanEventHandler extends PDragSequenceEventHandler {
     private boolean autopan;
     private double minAutopanSpeed = DEFAULT_MIN_AUTOPAN_SPEED;
     private double maxAutopanSpeed = DEFAULT_MAX_AUTOPAN_SPEED;
+    private PKineticCameraController kineticController;
 
     /**
      * Constructs a Pan Event Handler that will by default perform auto-panning.
@@ -65,6 +66,56 @@ public class PPanEventHandler extends PDragSequenceEventHandler {
         setAutopan(true);
     }
 
+    /**
+     * Return the kinetic camera controller flinging the view when a drag is
+     * released, or <code>null</code> if none.
+     * 
+     * @since 4.0
+     * @return the kinetic camera controller, or <code>null</code>
+     */
+    public PKineticCameraController getKineticController() {
+        return kineticController;
+    }
+
+    /**
+     * Set the kinetic camera controller flinging the view when a drag is
+     * released. The view then keeps moving at the velocity of the end of the
+     * drag, slowing down with friction. Defaults to <code>null</code>, the
+     * view stopping when the drag is released.
+     * 
+     * @since 4.0
+     * @param kineticController kinetic camera controller, or
+     *            <code>null</code>
+     */
+    public void setKineticController(final PKineticCameraController kineticController) {
+        this.kineticController = kineticController;
+    }
+
+    /**
+     * Stops any kinetic motion of the view when a drag starts.
+     * 
+     * @param event event that started the drag
+     */
+    protected void startDrag(final PInputEvent event) {
+        super.startDrag(event);
+        if (kineticController != null) {
+            kineticController.dragStarted(event.getCamera());
+        }
+    }
+
+    /**
+     * Flings the view when a drag is released, if there is a kinetic camera
+     * controller.
+     * 
+     * @param event event that ended the drag
+     */
+    protected void endDrag(final PInputEvent event) {
+        super.endDrag(event);
+        if (kineticController != null) {
+            kineticController.dragReleased(event.getWhen());
+        }
+    }
+
     /**
      * Updates the view in response to a user initiated drag event.
      * 
@@ -87,6 +138,9 @@ public class PPanEventHandler extends PDragSequenceEventHandler {
         if (c.getViewBounds().contains(l)) {
             final PDimension d = event.getDelta();
             c.translateView(d.getWidth(), d.getHeight());
+            if (kineticController != null) {
+                kineticController.dragged(d.getWidth(), d.getHeight(), event.getWhen());
+            }
         }
     }
 
@@ -34,16 +34,23 @@ import java.awt.GraphicsEnvironment;
 import java.awt.Image;
 import java.awt.MediaTracker;
 import java.awt.Toolkit;
+import java.awt.Transparency;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
 
 import org.piccolo2d.PNode;
 import org.piccolo2d.util.PBounds;
+import org.piccolo2d.util.PImageLoader;
 import org.piccolo2d.util.PPaintContext;
 
 
@@ -78,8 +85,26 @@ public class PImage extends PNode {
     
     public static final int PROPERTY_CODE_IMAGE = 1 << 15;
 
+    /**
+     * Normalized copies of the images set on nodes normalizing their images,
+     * soft references keyed weakly by the images they were copied from.
+     */
+    private static final Map NORMALIZED_IMAGES = new WeakHashMap();
+
     private transient Image image;
 
+    /** True if images set on this node are normalized to a compatible format. */
+    private boolean normalizingImage;
+
+    /** True while an image is being loaded asynchronously. */
+    private transient boolean imageLoading;
+
+    /** Number of the latest image requested; images of earlier requests are discarded. */
+    private transient int imageGeneration;
+
+    /** Exception the latest asynchronous load failed with, if any. */
+    private transient IOException imageLoadException;
+
     /** Constructs a PImage without a java.awt.Image attached. */
     public PImage() {
     }
@@ -143,6 +168,8 @@ public class PImage extends PNode {
      * @param newImage image to be displayed by this PImage
      */
     public void setImage(final Image newImage) {
+        imageGeneration++;
+        imageLoading = false;
         final Image oldImage = image;
 
         if (newImage == null || newImage instanceof BufferedImage) {
@@ -151,6 +178,9 @@ public class PImage extends PNode {
         else {
             image = getLoadedImage(newImage);
         }
+        if (normalizingImage) {
+            image = toNormalizedImage(image);
+        }
 
         if (image != null) {
             setBounds(0, 0, getImage().getWidth(null), getImage().getHeight(null));
@@ -160,6 +190,141 @@ public class PImage extends PNode {
         firePropertyChange(PROPERTY_CODE_IMAGE, PROPERTY_IMAGE, oldImage, image);
     }
 
+    /**
+     * Return true if images set on this node are normalized to a format
+     * compatible with the screen. Defaults to <code>false</code>.
+     * 
+     * @since 4.0
+     * @return true if images set on this node are normalized to a format
+     *         compatible with the screen
+     */
+    public boolean isNormalizingImage() {
+        return normalizingImage;
+    }
+
+    /**
+     * Set to <code>true</code> to normalize images set on this node to a format
+     * compatible with the screen, see {@link #toNormalizedImage(Image)}. Such
+     * images are drawn by the fast Java2D loops, and may be cached by Java2D in
+     * video memory, instead of being converted each time they are drawn. The
+     * image currently wrapped is normalized immediately.
+     * 
+     * @since 4.0
+     * @param normalizingImage true to normalize images set on this node
+     */
+    public void setNormalizingImage(final boolean normalizingImage) {
+        this.normalizingImage = normalizingImage;
+        if (normalizingImage && image != null) {
+            final Image normalizedImage = toNormalizedImage(image);
+            if (normalizedImage != image) {
+                final Image oldImage = image;
+                image = normalizedImage;
+                invalidatePaint();
+                firePropertyChange(PROPERTY_CODE_IMAGE, PROPERTY_IMAGE, oldImage, image);
+            }
+        }
+    }
+
+    /**
+     * Load the image at the specified url off the event dispatch thread, and
+     * wrap it once it is loaded. The bounds of this node are kept while the
+     * image is loading and are then set to the size of the image. Until then
+     * this node paints a placeholder box in its bounds.
+     * 
+     * @since 4.0
+     * @param url URL of image resource to load
+     * @see PImageLoader
+     */
+    public void loadImage(final URL url) {
+        requestImage(url, 0, 0, false);
+    }
+
+    /**
+     * Load the image at the specified url off the event dispatch thread, and
+     * wrap it once it is loaded. The bounds of this node are set to
+     * <code>width</code> by <code>height</code> immediately and kept once the
+     * image is loaded, the image being stretched to fit them. The image is
+     * subsampled while decoding so that it is no larger than needed to fill
+     * these bounds. Until it is loaded this node paints a placeholder box in
+     * its bounds.
+     * 
+     * @since 4.0
+     * @param url URL of image resource to load
+     * @param width width of this node, must be greater than zero
+     * @param height height of this node, must be greater than zero
+     * @see PImageLoader
+     */
+    public void loadImage(final URL url, final double width, final double height) {
+        if (width <= 0.0d || height <= 0.0d) {
+            throw new IllegalArgumentException("width and height must be greater than zero, were " + width
+                    + " and " + height);
+        }
+        setBounds(0, 0, width, height);
+        requestImage(url, (int) Math.ceil(width), (int) Math.ceil(height), true);
+    }
+
+    /**
+     * Return true while an image is being loaded off the event dispatch
+     * thread.
+     * 
+     * @since 4.0
+     * @return true while an image is being loaded off the event dispatch
+     *         thread
+     */
+    public boolean isImageLoading() {
+        return imageLoading;
+    }
+
+    /**
+     * Return the exception the latest image loaded off the event dispatch
+     * thread failed with, or <code>null</code> if it did not fail.
+     * 
+     * @since 4.0
+     * @return the exception the latest image load failed with, or
+     *         <code>null</code>
+     */
+    public IOException getImageLoadException() {
+        return imageLoadException;
+    }
+
+    /**
+     * Request loading the image at the specified url, superseding any
+     * outstanding request.
+     * 
+     * @param url URL of image resource to load
+     * @param width width to fill, or zero for the full size
+     * @param height height to fill, or zero for the full size
+     * @param keepBounds true to keep the bounds of this node once the image is
+     *            loaded
+     */
+    private void requestImage(final URL url, final int width, final int height, final boolean keepBounds) {
+        final int generation = ++imageGeneration;
+        imageLoading = true;
+        imageLoadException = null;
+        invalidatePaint();
+
+        PImageLoader.load(url, width, height, new PImageLoader.Listener() {
+            public void imageLoaded(final BufferedImage loadedImage) {
+                if (generation != imageGeneration) {
+                    return;
+                }
+                final PBounds bounds = getBounds();
+                setImage(loadedImage);
+                if (keepBounds) {
+                    setBounds(bounds);
+                }
+            }
+
+            public void imageLoadFailed(final IOException exception) {
+                if (generation == imageGeneration) {
+                    imageLoading = false;
+                    imageLoadException = exception;
+                    invalidatePaint();
+                }
+            }
+        });
+    }
+
     /**
      * Ensures the image is loaded enough (loading is fine).
      * 
@@ -184,6 +349,10 @@ public class PImage extends PNode {
      * @param paintContext context into which the rendering will occur
      */
     protected void paint(final PPaintContext paintContext) {
+        if (imageLoading) {
+            paintLoadingPlaceholder(paintContext);
+            return;
+        }
         if (getImage() == null) {
             return;
         }
@@ -207,6 +376,33 @@ public class PImage extends PNode {
 
     }
 
+    /**
+     * Returns whether this image node is opaque over the specified boundary,
+     * that is whether its image is loaded and opaque and its bounds contain
+     * the boundary.
+     * 
+     * @param boundary boundary to check and see if this node covers completely
+     * @return true if opaque
+     */
+    public boolean isOpaque(final Rectangle2D boundary) {
+        return !imageLoading && image instanceof BufferedImage
+                && ((BufferedImage) image).getTransparency() == Transparency.OPAQUE
+                && getBoundsReference().contains(boundary);
+    }
+
+    /**
+     * Paint a placeholder box in the bounds of this node while its image is
+     * being loaded off the event dispatch thread.
+     * 
+     * @since 4.0
+     * @param paintContext context into which the rendering will occur
+     */
+    protected void paintLoadingPlaceholder(final PPaintContext paintContext) {
+        final Graphics2D g2 = paintContext.getGraphics();
+        g2.setPaint(PPaintContext.PLACEHOLDER_PAINT);
+        g2.fill(getBoundsReference());
+    }
+
     /**
      * Serializes this PImage to the stream provided. The java.awt.Image wrapped
      * by this PImage is converted into a BufferedImage when serialized.
@@ -233,6 +429,108 @@ public class PImage extends PNode {
     private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
         in.defaultReadObject();
         image = ImageIO.read(in);
+        if (normalizingImage) {
+            image = toNormalizedImage(image);
+        }
+    }
+
+    /**
+     * Return true if the specified image has a format compatible with the
+     * screen: the format of compatible images of the default screen
+     * configuration, or <code>TYPE_INT_ARGB_PRE</code> (<code>TYPE_INT_RGB</code>
+     * for opaque images) when headless.
+     * 
+     * @since 4.0
+     * @param image image to check
+     * @return true if the specified image has a format compatible with the
+     *         screen
+     */
+    public static boolean isNormalizedImage(final Image image) {
+        if (!(image instanceof BufferedImage)) {
+            return false;
+        }
+        final BufferedImage bufferedImage = (BufferedImage) image;
+        final int transparency = bufferedImage.getTransparency();
+        if (GraphicsEnvironment.isHeadless()) {
+            return bufferedImage.getType() == getHeadlessNormalizedType(transparency);
+        }
+        final GraphicsConfiguration graphicsConfiguration = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDefaultConfiguration();
+        return bufferedImage.getColorModel().equals(graphicsConfiguration.getColorModel(transparency));
+    }
+
+    /**
+     * Return the specified image if its format is compatible with the screen,
+     * otherwise a copy of it in such a format. Copies are cached as long as
+     * the image they were copied from is reachable and memory allows, so that
+     * an image shared by several nodes is converted once. Images not fully
+     * loaded yet are returned unchanged.
+     * 
+     * @since 4.0
+     * @param image image to normalize, may be <code>null</code>
+     * @return the specified image or a copy of it in a format compatible with
+     *         the screen
+     * @see #isNormalizedImage(Image)
+     */
+    public static Image toNormalizedImage(final Image image) {
+        if (image == null || isNormalizedImage(image)) {
+            return image;
+        }
+        final int width = image.getWidth(null);
+        final int height = image.getHeight(null);
+        if (width <= 0 || height <= 0) {
+            return image;
+        }
+
+        synchronized (NORMALIZED_IMAGES) {
+            final SoftReference reference = (SoftReference) NORMALIZED_IMAGES.get(image);
+            if (reference != null) {
+                final BufferedImage normalizedImage = (BufferedImage) reference.get();
+                if (normalizedImage != null) {
+                    return normalizedImage;
+                }
+            }
+        }
+
+        final int transparency;
+        if (image instanceof BufferedImage) {
+            transparency = ((BufferedImage) image).getTransparency();
+        }
+        else {
+            transparency = Transparency.TRANSLUCENT;
+        }
+
+        final BufferedImage result;
+        if (GraphicsEnvironment.isHeadless()) {
+            result = new BufferedImage(width, height, getHeadlessNormalizedType(transparency));
+        }
+        else {
+            final GraphicsConfiguration graphicsConfiguration = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            result = graphicsConfiguration.createCompatibleImage(width, height, transparency);
+        }
+        final Graphics2D g2 = result.createGraphics();
+        g2.drawImage(image, 0, 0, null);
+        g2.dispose();
+
+        synchronized (NORMALIZED_IMAGES) {
+            NORMALIZED_IMAGES.put(image, new SoftReference(result));
+        }
+        return result;
+    }
+
+    /**
+     * Return the type of normalized images of the specified transparency when
+     * headless.
+     * 
+     * @param transparency transparency of the image
+     * @return the type of normalized images of the specified transparency
+     */
+    private static int getHeadlessNormalizedType(final int transparency) {
+        if (transparency == Transparency.OPAQUE) {
+            return BufferedImage.TYPE_INT_RGB;
+        }
+        return BufferedImage.TYPE_INT_ARGB_PRE;
     }
 
     /**
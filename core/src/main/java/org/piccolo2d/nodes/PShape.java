@@ -34,12 +34,15 @@ import java.awt.Graphics2D;
 import java.awt.Paint;
 import java.awt.Shape;
 import java.awt.Stroke;
+import java.awt.Transparency;
 
 import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
 import java.awt.geom.Rectangle2D;
 
 import org.piccolo2d.PNode;
 
+import org.piccolo2d.util.PHairline;
 import org.piccolo2d.util.PPaintContext;
 
 /**
@@ -53,6 +56,12 @@ public abstract class PShape extends PNode {
     /** Stroke paint for this shape node, defaults to {@link #DEFAULT_STROKE_PAINT}. */
     private Paint strokePaint = DEFAULT_STROKE_PAINT;
 
+    /** Width in device pixels of the hairline drawn instead of the stroke, or zero. */
+    private float hairlineWidth;
+
+    /** Device space stroke the hairline is drawn with, created when first needed. */
+    private transient BasicStroke hairlineStroke;
+
     /** True if bounds are currently being updated to match the shape. */
     private transient boolean updatingBoundsFromShape = false;
 
@@ -82,6 +91,17 @@ public abstract class PShape extends PNode {
      */
     protected abstract Shape getShape();
 
+    /**
+     * Return the shape backing this shape node.  The returned shape must not
+     * be modified or the bounds of this node may no longer be valid.
+     *
+     * @since 4.0
+     * @return the shape backing this shape node
+     */
+    public final Shape getShapeReference() {
+        return getShape();
+    }
+
     /**
      * Apply the specified transform to the shape for this shape node.
      *
@@ -113,6 +133,39 @@ public abstract class PShape extends PNode {
         firePropertyChange(-1, "stroke", oldStroke, this.stroke);
     }
 
+    /**
+     * Return the width in device pixels of the hairline drawn instead of the
+     * stroke, or zero if the stroke is drawn. Defaults to zero.
+     *
+     * @since 4.0
+     * @return the width in device pixels of the hairline drawn instead of the
+     *         stroke, or zero
+     */
+    public final float getHairlineWidth() {
+        return hairlineWidth;
+    }
+
+    /**
+     * Set the width in device pixels of the hairline drawn instead of the
+     * stroke. A hairline keeps its width whatever the scale the shape is
+     * viewed at, and is drawn and picked without generating the outline of a
+     * stroke, see {@link PHairline}. The bounds of this shape node then ignore
+     * the stroke. This is a bound property.
+     *
+     * @since 4.0
+     * @param hairlineWidth width in device pixels of the hairline, between
+     *            zero and {@link PHairline#MAX_WIDTH}; zero draws the stroke
+     */
+    public final void setHairlineWidth(final float hairlineWidth) {
+        PHairline.checkWidth(hairlineWidth);
+        final float oldHairlineWidth = this.hairlineWidth;
+        this.hairlineWidth = hairlineWidth;
+        hairlineStroke = null;
+        updateBoundsFromShape();
+        invalidatePaint();
+        firePropertyChange(-1, "hairlineWidth", Float.valueOf(oldHairlineWidth), Float.valueOf(hairlineWidth));
+    }
+
     /**
      * Return the stroke paint for this shape node.  Defaults to {@link #DEFAULT_STROKE_PAINT}.
      *
@@ -151,7 +204,10 @@ public abstract class PShape extends PNode {
      * @return the bounds of this node, taking the stroke into consideration if necessary
      */
     protected final Rectangle2D getBoundsWithStroke() {
-        if (stroke != null) {
+        if (hairlineWidth > 0.0f) {
+            return PHairline.getBounds(getShape(), hairlineWidth);
+        }
+        else if (stroke != null) {
             return stroke.createStrokedShape(getShape()).getBounds2D();
         }
         else {
@@ -203,6 +259,9 @@ public abstract class PShape extends PNode {
             if (getPaint() != null && getShape().intersects(bounds)) {
                 return true;
             }
+            else if (hairlineWidth > 0.0f && strokePaint != null) {
+                return PHairline.intersects(getShape(), bounds, PHairline.getPickTolerance(hairlineWidth));
+            }
             else if (stroke != null && strokePaint != null) {
                 return stroke.createStrokedShape(getShape()).intersects(bounds);
             }
@@ -210,6 +269,79 @@ public abstract class PShape extends PNode {
         return false;
     }
 
+    /**
+     * Returns whether this shape node is opaque over the specified boundary,
+     * that is whether its paint is opaque and its shape is an axis aligned
+     * rectangle containing the boundary.
+     * 
+     * @param boundary boundary to check and see if this node covers completely
+     * @return true if opaque
+     */
+    public boolean isOpaque(final Rectangle2D boundary) {
+        final Paint p = getPaint();
+        if (p == null || p.getTransparency() != Transparency.OPAQUE) {
+            return false;
+        }
+        final Shape shape = getShape();
+        if (!(shape instanceof Rectangle2D) && !isRectangle(shape)) {
+            return false;
+        }
+        return shape.getBounds2D().contains(boundary);
+    }
+
+    /**
+     * Return true if the specified shape is a single axis aligned rectangle.
+     * 
+     * @since 4.0
+     * @param shape shape to check
+     * @return true if the specified shape is a single axis aligned rectangle
+     */
+    protected static boolean isRectangle(final Shape shape) {
+        final PathIterator iterator = shape.getPathIterator(null);
+        final double[] coords = new double[6];
+        final double[] xs = new double[5];
+        final double[] ys = new double[5];
+        int count = 0;
+        boolean closed = false;
+        while (!iterator.isDone()) {
+            final int type = iterator.currentSegment(coords);
+            if (closed || type == PathIterator.SEG_QUADTO || type == PathIterator.SEG_CUBICTO
+                    || type == PathIterator.SEG_MOVETO && count > 0) {
+                return false;
+            }
+            if (type == PathIterator.SEG_CLOSE) {
+                closed = true;
+            }
+            else {
+                if (count == xs.length) {
+                    return false;
+                }
+                xs[count] = coords[0];
+                ys[count] = coords[1];
+                count++;
+            }
+            iterator.next();
+        }
+        if (count == 5 && xs[4] == xs[0] && ys[4] == ys[0]) {
+            count = 4;
+        }
+        if (count != 4) {
+            return false;
+        }
+        for (int i = 0; i < 4; i++) {
+            final int next = (i + 1) % 4;
+            final boolean vertical = xs[i] == xs[next] && ys[i] != ys[next];
+            final boolean horizontal = ys[i] == ys[next] && xs[i] != xs[next];
+            if (vertical == horizontal) {
+                return false;
+            }
+            if (i > 0 && vertical == (xs[i - 1] == xs[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /** {@inheritDoc} */
     protected void paint(final PPaintContext paintContext) {
         final Paint p = getPaint();
@@ -220,7 +352,14 @@ public abstract class PShape extends PNode {
             g2.fill(getShape());
         }
 
-        if (stroke != null && strokePaint != null) {
+        if (hairlineWidth > 0.0f && strokePaint != null) {
+            if (hairlineStroke == null) {
+                hairlineStroke = PHairline.createStroke(hairlineWidth);
+            }
+            g2.setPaint(strokePaint);
+            PHairline.draw(g2, getShape(), hairlineStroke);
+        }
+        else if (stroke != null && strokePaint != null) {
             g2.setPaint(strokePaint);
             g2.setStroke(stroke);
             g2.draw(getShape());
@@ -40,7 +40,10 @@ import java.text.AttributedCharacterIterator;
 import java.text.AttributedString;
 import java.util.ArrayList;
 
+import javax.swing.SwingUtilities;
+
 import org.piccolo2d.PNode;
+import org.piccolo2d.util.PLayoutExecutor;
 import org.piccolo2d.util.PPaintContext;
 
 
@@ -176,6 +179,27 @@ public class PText extends PNode {
     /** One or more lines of text layout. */
     private transient TextLayout[] lines;
 
+    /** True if the layout is recomputed when the bounds are validated. */
+    private boolean layoutDeferred;
+
+    /** True if the layout needs to be recomputed when the bounds are validated. */
+    private transient boolean layoutPending;
+
+    /** Layout computed ahead of bounds validation, possibly on a worker thread. */
+    private transient Layout pendingLayout;
+
+    /** True if the layout is computed off the event dispatch thread. */
+    private boolean layoutAsynchronous;
+
+    /** True while a layout computed off the event dispatch thread is outstanding. */
+    private transient boolean asynchronousLayoutPending;
+
+    /** Number of the latest layout requested; results of earlier requests are discarded. */
+    private transient int layoutGeneration;
+
+    /** True while a layout is being applied to the bounds of this node. */
+    private transient boolean applyingLayout;
+
     /**
      * Create a new text node with no text (<code>""</code>).
      */
@@ -420,27 +444,180 @@ public class PText extends PNode {
         firePropertyChange(PROPERTY_CODE_FONT, PROPERTY_FONT, oldFont, this.font);
     }
 
+    /**
+     * Return true if the layout of this text node is recomputed when its bounds
+     * are validated rather than immediately. Defaults to <code>false</code>.
+     * 
+     * @since 4.0
+     * @return true if the layout of this text node is deferred
+     */
+    public boolean isLayoutDeferred() {
+        return layoutDeferred;
+    }
+
+    /**
+     * Set to <code>true</code> to recompute the layout of this text node when
+     * its bounds are validated rather than immediately. The bounds of this
+     * node then only reflect changes to its text, font or width once its full
+     * bounds have been validated, but many text nodes below a node with
+     * parallel bounds validation have their layouts computed concurrently.
+     * 
+     * @see org.piccolo2d.PNode#setParallelBoundsValidation(boolean)
+     * @since 4.0
+     * @param layoutDeferred true to recompute the layout of this text node when
+     *            its bounds are validated
+     */
+    public void setLayoutDeferred(final boolean layoutDeferred) {
+        this.layoutDeferred = layoutDeferred;
+        if (!layoutDeferred) {
+            validatePendingLayout();
+        }
+    }
+
+    /**
+     * Return true if the layout of this text node is computed off the event
+     * dispatch thread. Defaults to <code>false</code>.
+     * 
+     * @since 4.0
+     * @return true if the layout of this text node is computed off the event
+     *         dispatch thread
+     */
+    public boolean isLayoutAsynchronous() {
+        return layoutAsynchronous;
+    }
+
+    /**
+     * Set to <code>true</code> to compute the layout of this text node off the
+     * event dispatch thread, on the executor of {@link PLayoutExecutor}. Until
+     * the layout is ready this node keeps its bounds and paints a placeholder
+     * box instead of its text. The layout is then applied on the event
+     * dispatch thread, changing the bounds of this node once. Changes to the
+     * text, font or width while a layout is outstanding supersede it.
+     * 
+     * @since 4.0
+     * @param layoutAsynchronous true to compute the layout of this text node
+     *            off the event dispatch thread
+     */
+    public void setLayoutAsynchronous(final boolean layoutAsynchronous) {
+        this.layoutAsynchronous = layoutAsynchronous;
+        if (!layoutAsynchronous) {
+            completeAsynchronousLayout();
+        }
+    }
+
+    /**
+     * Return true while a layout computed off the event dispatch thread is
+     * outstanding.
+     * 
+     * @since 4.0
+     * @return true while a layout computed off the event dispatch thread is
+     *         outstanding
+     */
+    public boolean isLayoutPending() {
+        return asynchronousLayoutPending;
+    }
+
     /**
      * Compute the bounds of the text wrapped by this node. The text layout is
-     * wrapped based on the bounds of this node.
+     * wrapped based on the bounds of this node. If the layout is deferred, it
+     * is computed when the bounds of this node are next validated. If the
+     * layout is asynchronous, it is computed off the event dispatch thread.
      */
     public void recomputeLayout() {
+        if (layoutAsynchronous) {
+            requestAsynchronousLayout();
+            return;
+        }
+        if (layoutDeferred) {
+            layoutPending = true;
+            pendingLayout = null;
+            invalidateFullBounds();
+            return;
+        }
+        applyLayout(computeLayout());
+    }
+
+    /**
+     * Request computing the layout of this node off the event dispatch thread,
+     * superseding any outstanding request.
+     */
+    private void requestAsynchronousLayout() {
+        final int generation = ++layoutGeneration;
+        final String layoutText = text;
+        final Font layoutFont = getFont();
+        final float availableWidth = getAvailableWidth();
+        asynchronousLayoutPending = true;
+        invalidatePaint();
+
+        PLayoutExecutor.getExecutor().execute(new Runnable() {
+            public void run() {
+                final Layout layout = computeLayout(layoutText, layoutFont, availableWidth);
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() {
+                        if (generation == layoutGeneration) {
+                            asynchronousLayoutPending = false;
+                            applyLayout(layout);
+                            invalidatePaint();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Compute and apply the outstanding asynchronous layout of this node, if
+     * any, on the calling thread.
+     */
+    private void completeAsynchronousLayout() {
+        if (asynchronousLayoutPending) {
+            layoutGeneration++;
+            asynchronousLayoutPending = false;
+            applyLayout(computeLayout());
+            invalidatePaint();
+        }
+    }
+
+    /**
+     * Return the width available to the text wrapped by this node.
+     * 
+     * @return the width available to the text wrapped by this node
+     */
+    private float getAvailableWidth() {
+        if (constrainWidthToTextWidth) {
+            return Float.MAX_VALUE;
+        }
+        return (float) getWidth();
+    }
+
+    /**
+     * Compute the layout of the text wrapped by this node, without changing
+     * this node.
+     * 
+     * @return the layout of the text wrapped by this node
+     */
+    private Layout computeLayout() {
+        return computeLayout(text, getFont(), getAvailableWidth());
+    }
+
+    /**
+     * Compute the layout of the specified text, without changing this node.
+     * May be called off the event dispatch thread.
+     * 
+     * @param text text to lay out
+     * @param font font of the text
+     * @param availableWidth width available to the text
+     * @return the layout of the specified text
+     */
+    private Layout computeLayout(final String text, final Font font, final float availableWidth) {
         final ArrayList linesList = new ArrayList();
         double textWidth = 0;
         double textHeight = 0;
-
         if (text != null && text.length() > 0) {
             final AttributedString atString = new AttributedString(text);
-            atString.addAttribute(TextAttribute.FONT, getFont());
+            atString.addAttribute(TextAttribute.FONT, font);
             final AttributedCharacterIterator itr = atString.getIterator();
             final LineBreakMeasurer measurer = new LineBreakMeasurer(itr, PPaintContext.RENDER_QUALITY_HIGH_FRC);
-            final float availableWidth;
-            if (constrainWidthToTextWidth) {
-                availableWidth = Float.MAX_VALUE;
-            }
-            else {
-                availableWidth = (float) getWidth();
-            }
 
             int nextLineBreakOffset = text.indexOf('\n');
             if (nextLineBreakOffset == -1) {
@@ -470,24 +647,100 @@ public class PText extends PNode {
             }
         }
 
-        lines = (TextLayout[]) linesList.toArray(EMPTY_TEXT_LAYOUT_ARRAY);
+        return new Layout((TextLayout[]) linesList.toArray(EMPTY_TEXT_LAYOUT_ARRAY), textWidth, textHeight);
+    }
+
+    /**
+     * Apply the specified layout to this node.
+     * 
+     * @param layout layout of the text wrapped by this node
+     */
+    private void applyLayout(final Layout layout) {
+        lines = layout.lines;
+        applyingLayout = true;
+        try {
+            applyLayoutBounds(layout);
+        }
+        finally {
+            applyingLayout = false;
+        }
+    }
 
+    /**
+     * Constrain the bounds of this node to the size of the specified layout,
+     * if requested.
+     * 
+     * @param layout layout of the text wrapped by this node
+     */
+    private void applyLayoutBounds(final Layout layout) {
         if (constrainWidthToTextWidth || constrainHeightToTextHeight) {
             double newWidth = getWidth();
             double newHeight = getHeight();
 
             if (constrainWidthToTextWidth) {
-                newWidth = textWidth;
+                newWidth = layout.width;
             }
 
             if (constrainHeightToTextHeight) {
-                newHeight = textHeight;
+                newHeight = layout.height;
             }
 
             super.setBounds(getX(), getY(), newWidth, newHeight);
         }
     }
 
+    /**
+     * Apply the pending layout of this node, if any, computing it if it has
+     * not been computed ahead.
+     */
+    private void validatePendingLayout() {
+        if (layoutPending) {
+            final Layout layout;
+            if (pendingLayout == null) {
+                layout = computeLayout();
+            }
+            else {
+                layout = pendingLayout;
+            }
+            layoutPending = false;
+            pendingLayout = null;
+            applyLayout(layout);
+        }
+    }
+
+    /** {@inheritDoc} */
+    protected boolean getBoundsComputationPending() {
+        return layoutPending && pendingLayout == null;
+    }
+
+    /** {@inheritDoc} */
+    protected void computePendingBounds() {
+        pendingLayout = computeLayout();
+    }
+
+    /** {@inheritDoc} */
+    protected boolean validateFullBounds() {
+        validatePendingLayout();
+        return super.validateFullBounds();
+    }
+
+    /**
+     * Return the text layouts of the lines of text wrapped by this node, in
+     * order from top to bottom. The returned array is a copy, but the text
+     * layouts themselves are shared with this node and must not be modified.
+     *
+     * @since 4.0
+     * @return the text layouts of the lines of text wrapped by this node
+     */
+    public TextLayout[] getTextLayouts() {
+        completeAsynchronousLayout();
+        validatePendingLayout();
+        if (lines == null) {
+            recomputeLayout();
+        }
+        return (TextLayout[]) lines.clone();
+    }
+
     /**
      * Compute the next layout using the specified line break measurer,
      * available width, and next line break offset.
@@ -513,6 +766,19 @@ public class PText extends PNode {
         // empty
     }
 
+    /**
+     * Paint a placeholder box in place of the text while its layout is being
+     * computed off the event dispatch thread.
+     * 
+     * @since 4.0
+     * @param paintContext paint context
+     */
+    protected void paintLayoutPlaceholder(final PPaintContext paintContext) {
+        final Graphics2D g2 = paintContext.getGraphics();
+        g2.setPaint(PPaintContext.PLACEHOLDER_PAINT);
+        g2.fill(getBoundsReference());
+    }
+
     /**
      * Paint text with the specified paint context.
      * 
@@ -526,6 +792,7 @@ public class PText extends PNode {
 
         final Graphics2D g2 = paintContext.getGraphics();
 
+        validatePendingLayout();
         if (lines == null) {
             recomputeLayout();
             repaint();
@@ -556,8 +823,12 @@ public class PText extends PNode {
         if (textPaint == null) {
             return;
         }
+        if (asynchronousLayoutPending) {
+            paintLayoutPlaceholder(paintContext);
+            return;
+        }
         final float screenFontSize = getFont().getSize() * (float) paintContext.getScale();
-        if (screenFontSize <= greekThreshold) {
+        if (screenFontSize <= greekThreshold * paintContext.getGreekThresholdScale()) {
             paintGreek(paintContext);
         }
         paintText(paintContext);
@@ -565,6 +836,36 @@ public class PText extends PNode {
 
     /** {@inheritDoc} */
     protected void internalUpdateBounds(final double x, final double y, final double width, final double height) {
-        recomputeLayout();
+        // the layout being applied already fits these bounds
+        if (!applyingLayout) {
+            recomputeLayout();
+        }
+    }
+
+    /**
+     * Lines of text layout and the size of the text they wrap.
+     */
+    private static final class Layout {
+        /** Lines of text layout. */
+        private final TextLayout[] lines;
+
+        /** Width of the text. */
+        private final double width;
+
+        /** Height of the text. */
+        private final double height;
+
+        /**
+         * Create a new layout.
+         * 
+         * @param lines lines of text layout
+         * @param width width of the text
+         * @param height height of the text
+         */
+        Layout(final TextLayout[] lines, final double width, final double height) {
+            this.lines = lines;
+            this.width = width;
+            this.height = height;
+        }
     }
 }
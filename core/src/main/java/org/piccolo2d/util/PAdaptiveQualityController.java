@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.util;
+
+import java.awt.RenderingHints;
+
+/**
+ * <b>PAdaptiveQualityController</b> measures the time taken to paint frames
+ * and degrades the render quality progressively to hold a target frame time.
+ * Each quality level adds a degradation to those of the lower levels:
+ * <ol>
+ * <li>{@link #NO_ANTIALIASING}: low quality rendering, without antialiasing</li>
+ * <li>{@link #NEAREST_NEIGHBOR_INTERPOLATION}: nearest neighbor image
+ * interpolation</li>
+ * <li>{@link #GREEKING}: greek thresholds of text nodes raised</li>
+ * <li>{@link #LEVEL_OF_DETAIL}: nodes smaller than a few screen pixels not
+ * painted</li>
+ * </ol>
+ * <p>
+ * The level is raised by one whenever a frame takes longer than the target
+ * frame time, and lowered by one after a number of consecutive frames taking
+ * less than half of it. Once no frame has been painted for the idle delay,
+ * the canvas restores full quality and repaints.
+ * </p>
+ *
+ * @see org.piccolo2d.PCanvas#setAdaptiveQualityController(PAdaptiveQualityController)
+ * @since 4.0
+ */
+public class PAdaptiveQualityController {
+
+    /** Level at full quality. */
+    public static final int FULL_QUALITY = 0;
+
+    /** Level at which rendering is low quality, without antialiasing. */
+    public static final int NO_ANTIALIASING = 1;
+
+    /** Level at which images are interpolated with their nearest neighbor. */
+    public static final int NEAREST_NEIGHBOR_INTERPOLATION = 2;
+
+    /** Level at which the greek thresholds of text nodes are raised. */
+    public static final int GREEKING = 3;
+
+    /** Level at which nodes smaller than a few screen pixels are not painted. */
+    public static final int LEVEL_OF_DETAIL = 4;
+
+    /** Default target frame time, in milliseconds. */
+    public static final double DEFAULT_TARGET_FRAME_TIME = 1000.0d / 30.0d;
+
+    /** Default idle delay before restoring full quality, in milliseconds. */
+    public static final int DEFAULT_IDLE_DELAY = 250;
+
+    /** Number of consecutive fast frames after which the level is lowered. */
+    private static final int FAST_FRAMES_TO_IMPROVE = 10;
+
+    /** Factor applied to the greek thresholds of text nodes when greeking. */
+    private static final double GREEK_THRESHOLD_SCALE = 3.0d;
+
+    /** Minimum screen size of nodes painted at the level of detail level. */
+    private static final double MINIMUM_SCREEN_SIZE = 2.0d;
+
+    /** Target frame time, in milliseconds. */
+    private double targetFrameTime = DEFAULT_TARGET_FRAME_TIME;
+
+    /** Idle delay before restoring full quality, in milliseconds. */
+    private int idleDelay = DEFAULT_IDLE_DELAY;
+
+    /** Highest level this controller degrades to. */
+    private int maximumLevel = LEVEL_OF_DETAIL;
+
+    /** Current level. */
+    private int level = FULL_QUALITY;
+
+    /** Number of consecutive frames taking less than half the target. */
+    private int fastFrames;
+
+    /** Time taken by the last frame, in milliseconds. */
+    private double lastFrameTime;
+
+    /**
+     * Create a new adaptive quality controller with the default target frame
+     * time.
+     */
+    public PAdaptiveQualityController() {
+        // empty
+    }
+
+    /**
+     * Create a new adaptive quality controller with the specified target
+     * frame time.
+     *
+     * @param targetFrameTime target frame time, in milliseconds, must be
+     *            greater than zero
+     */
+    public PAdaptiveQualityController(final double targetFrameTime) {
+        setTargetFrameTime(targetFrameTime);
+    }
+
+    /**
+     * Return the target frame time, in milliseconds. Defaults to
+     * {@link #DEFAULT_TARGET_FRAME_TIME}.
+     *
+     * @return the target frame time, in milliseconds
+     */
+    public double getTargetFrameTime() {
+        return targetFrameTime;
+    }
+
+    /**
+     * Set the target frame time to <code>targetFrameTime</code> milliseconds.
+     *
+     * @param targetFrameTime target frame time, in milliseconds, must be
+     *            greater than zero
+     */
+    public void setTargetFrameTime(final double targetFrameTime) {
+        if (targetFrameTime <= 0.0d) {
+            throw new IllegalArgumentException("targetFrameTime must be greater than zero, was " + targetFrameTime);
+        }
+        this.targetFrameTime = targetFrameTime;
+    }
+
+    /**
+     * Return the idle delay before restoring full quality, in milliseconds.
+     * Defaults to {@link #DEFAULT_IDLE_DELAY}.
+     *
+     * @return the idle delay before restoring full quality, in milliseconds
+     */
+    public int getIdleDelay() {
+        return idleDelay;
+    }
+
+    /**
+     * Set the idle delay before restoring full quality to
+     * <code>idleDelay</code> milliseconds.
+     *
+     * @param idleDelay idle delay before restoring full quality, in
+     *            milliseconds, must be at least zero
+     */
+    public void setIdleDelay(final int idleDelay) {
+        if (idleDelay < 0) {
+            throw new IllegalArgumentException("idleDelay must be at least zero, was " + idleDelay);
+        }
+        this.idleDelay = idleDelay;
+    }
+
+    /**
+     * Return the highest level this controller degrades to. Defaults to
+     * {@link #LEVEL_OF_DETAIL}.
+     *
+     * @return the highest level this controller degrades to
+     */
+    public int getMaximumLevel() {
+        return maximumLevel;
+    }
+
+    /**
+     * Set the highest level this controller degrades to.
+     *
+     * @param maximumLevel highest level this controller degrades to, between
+     *            {@link #FULL_QUALITY} and {@link #LEVEL_OF_DETAIL}
+     */
+    public void setMaximumLevel(final int maximumLevel) {
+        if (maximumLevel < FULL_QUALITY || maximumLevel > LEVEL_OF_DETAIL) {
+            throw new IllegalArgumentException("maximumLevel must be between " + FULL_QUALITY + " and "
+                    + LEVEL_OF_DETAIL + ", was " + maximumLevel);
+        }
+        this.maximumLevel = maximumLevel;
+        level = Math.min(level, maximumLevel);
+    }
+
+    /**
+     * Return the current level, between {@link #FULL_QUALITY} and the maximum
+     * level.
+     *
+     * @return the current level
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Return the time taken by the last frame reported, in milliseconds.
+     *
+     * @return the time taken by the last frame reported, in milliseconds
+     */
+    public double getLastFrameTime() {
+        return lastFrameTime;
+    }
+
+    /**
+     * Report that a frame took <code>frameTime</code> milliseconds to paint,
+     * and adapt the level.
+     *
+     * @param frameTime time taken to paint the frame, in milliseconds
+     */
+    public void frameRendered(final double frameTime) {
+        lastFrameTime = frameTime;
+        if (frameTime > targetFrameTime) {
+            fastFrames = 0;
+            if (level < maximumLevel) {
+                level++;
+            }
+        }
+        else if (frameTime < targetFrameTime / 2.0d && level > FULL_QUALITY) {
+            fastFrames++;
+            if (fastFrames >= FAST_FRAMES_TO_IMPROVE) {
+                fastFrames = 0;
+                level--;
+            }
+        }
+        else {
+            fastFrames = 0;
+        }
+    }
+
+    /**
+     * Restore full quality.
+     */
+    public void reset() {
+        level = FULL_QUALITY;
+        fastFrames = 0;
+    }
+
+    /**
+     * Apply the degradations of the current level to the specified paint
+     * context, after its render quality has been set.
+     *
+     * @param paintContext paint context to degrade
+     */
+    public void configure(final PPaintContext paintContext) {
+        if (level >= NO_ANTIALIASING) {
+            paintContext.setRenderQuality(PPaintContext.LOW_QUALITY_RENDERING);
+        }
+        if (level >= NEAREST_NEIGHBOR_INTERPOLATION) {
+            paintContext.getGraphics().setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                    RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        }
+        if (level >= GREEKING) {
+            paintContext.setGreekThresholdScale(GREEK_THRESHOLD_SCALE);
+        }
+        if (level >= LEVEL_OF_DETAIL) {
+            paintContext.setMinimumScreenSize(MINIMUM_SCREEN_SIZE);
+        }
+    }
+}
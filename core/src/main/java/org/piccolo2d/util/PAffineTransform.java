@@ -49,12 +49,6 @@ public class PAffineTransform extends AffineTransform {
      */
     private static final long serialVersionUID = 1L;
 
-    /** Used internally to speed up computation. */
-    private static final double[] PTS1 = new double[8];
-
-    /** Used internally to speed up computation. */
-    private static final double[] PTS2 = new double[8];
-
     /**
      * Constructs a new AffineTransform representing the Identity
      * transformation.
@@ -160,12 +154,14 @@ public class PAffineTransform extends AffineTransform {
      *         transformed.
      */
     public double getScale() {
-        PTS1[0] = 0; // x1
-        PTS1[1] = 0; // y1
-        PTS1[2] = 1; // x2
-        PTS1[3] = 0; // y2
-        transform(PTS1, 0, PTS2, 0, 2);
-        return Point2D.distance(PTS2[0], PTS2[1], PTS2[2], PTS2[3]);
+        final double[] pts1 = new double[4];
+        final double[] pts2 = new double[4];
+        pts1[0] = 0; // x1
+        pts1[1] = 0; // y1
+        pts1[2] = 1; // x2
+        pts1[3] = 0; // y2
+        transform(pts1, 0, pts2, 0, 2);
+        return Point2D.distance(pts2[0], pts2[1], pts2[2], pts2[3]);
     }
 
     /**
@@ -199,24 +195,26 @@ public class PAffineTransform extends AffineTransform {
      * @return rotation in radians
      */
     public double getRotation() {
-        PTS1[0] = 0; // x1
-        PTS1[1] = 0; // y1
-        PTS1[2] = 1; // x2
-        PTS1[3] = 0; // y2
+        final double[] pts1 = new double[4];
+        final double[] pts2 = new double[4];
+        pts1[0] = 0; // x1
+        pts1[1] = 0; // y1
+        pts1[2] = 1; // x2
+        pts1[3] = 0; // y2
 
-        transform(PTS1, 0, PTS2, 0, 2);
+        transform(pts1, 0, pts2, 0, 2);
 
-        final double dy = Math.abs(PTS2[3] - PTS2[1]);
-        final double l = Point2D.distance(PTS2[0], PTS2[1], PTS2[2], PTS2[3]);
+        final double dy = Math.abs(pts2[3] - pts2[1]);
+        final double l = Point2D.distance(pts2[0], pts2[1], pts2[2], pts2[3]);
         double rotation = Math.asin(dy / l);
 
         // correct for quadrant
-        if (PTS2[3] - PTS2[1] > 0) {
-            if (PTS2[2] - PTS2[0] < 0) {
+        if (pts2[3] - pts2[1] > 0) {
+            if (pts2[2] - pts2[0] < 0) {
                 rotation = Math.PI - rotation;
             }
         }
-        else if (PTS2[2] - PTS2[0] > 0) {
+        else if (pts2[2] - pts2[0] > 0) {
             rotation = 2 * Math.PI - rotation;
         }
         else {
@@ -252,10 +250,12 @@ public class PAffineTransform extends AffineTransform {
             result = dimDst;
         }
 
-        PTS1[0] = dimSrc.getWidth();
-        PTS1[1] = dimSrc.getHeight();
-        deltaTransform(PTS1, 0, PTS2, 0, 1);
-        result.setSize(PTS2[0], PTS2[1]);
+        final double[] pts1 = new double[2];
+        final double[] pts2 = new double[2];
+        pts1[0] = dimSrc.getWidth();
+        pts1[1] = dimSrc.getHeight();
+        deltaTransform(pts1, 0, pts2, 0, 1);
+        result.setSize(pts2[0], pts2[1]);
         return result;
     }
 
@@ -460,15 +460,16 @@ public class PAffineTransform extends AffineTransform {
      * @return coordinate array
      */
     private static double[] rectToArray(final Rectangle2D aRectangle) {
-        PTS1[0] = aRectangle.getX();
-        PTS1[1] = aRectangle.getY();
-        PTS1[2] = PTS1[0] + aRectangle.getWidth();
-        PTS1[3] = PTS1[1];
-        PTS1[4] = PTS1[0] + aRectangle.getWidth();
-        PTS1[5] = PTS1[1] + aRectangle.getHeight();
-        PTS1[6] = PTS1[0];
-        PTS1[7] = PTS1[1] + aRectangle.getHeight();
-        return PTS1;
+        final double[] pts1 = new double[8];
+        pts1[0] = aRectangle.getX();
+        pts1[1] = aRectangle.getY();
+        pts1[2] = pts1[0] + aRectangle.getWidth();
+        pts1[3] = pts1[1];
+        pts1[4] = pts1[0] + aRectangle.getWidth();
+        pts1[5] = pts1[1] + aRectangle.getHeight();
+        pts1[6] = pts1[0];
+        pts1[7] = pts1[1] + aRectangle.getHeight();
+        return pts1;
     }
 
     /**
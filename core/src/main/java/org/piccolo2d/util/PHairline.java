@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.util;
+
+import java.awt.BasicStroke;
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * <b>PHairline</b> draws and picks shape outlines of a fixed width in device
+ * pixels, whatever the scale they are viewed at.
+ * <p>
+ * Outlines are transformed to device space once and drawn with a thin
+ * {@link BasicStroke} under the identity transform, which Java2D rasterizes
+ * directly as lines instead of generating and filling the outline of the
+ * stroke. Picking tests the distance of the segments of the outline to the
+ * pick bounds, in device pixels, without generating the stroke outline either.
+ * </p>
+ * <p>
+ * Widths are limited to {@link #MAX_WIDTH} device pixels, which repaints of
+ * the bounds of the shape always cover.
+ * </p>
+ * 
+ * @see org.piccolo2d.nodes.PShape#setHairlineWidth(float)
+ * @since 4.0
+ */
+public final class PHairline {
+
+    /** Maximum width of hairlines, in device pixels. */
+    public static final float MAX_WIDTH = 2.0f;
+
+    /** Identity transform hairlines are drawn under. */
+    private static final AffineTransform IDENTITY = new AffineTransform();
+
+    /**
+     * This class cannot be instantiated.
+     */
+    private PHairline() {
+        // empty
+    }
+
+    /**
+     * Check that the specified hairline width is valid.
+     * 
+     * @param width hairline width, in device pixels
+     */
+    public static void checkWidth(final float width) {
+        if (width < 0.0f || width > MAX_WIDTH) {
+            throw new IllegalArgumentException("hairline width must be between 0 and " + MAX_WIDTH + ", was "
+                    + width);
+        }
+    }
+
+    /**
+     * Return the stroke hairlines of the specified width are drawn with in
+     * device space.
+     * 
+     * @param width hairline width, in device pixels
+     * @return the stroke hairlines of the specified width are drawn with
+     */
+    public static BasicStroke createStroke(final float width) {
+        return new BasicStroke(width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_ROUND);
+    }
+
+    /**
+     * Return the bounds of hairlines of the specified width outlining the
+     * specified shape. These are the bounds of the shape outset by half the
+     * width in local units, so that the bounds of horizontal and vertical
+     * outlines are not empty; repaints cover the rest of the hairline at other
+     * scales.
+     * 
+     * @param shape shape to outline
+     * @param width hairline width, in device pixels
+     * @return the bounds of hairlines of the specified width outlining the
+     *         shape
+     */
+    public static Rectangle2D getBounds(final Shape shape, final float width) {
+        final Rectangle2D bounds = shape.getBounds2D();
+        final double outset = width / 2.0d;
+        bounds.setRect(bounds.getX() - outset, bounds.getY() - outset, bounds.getWidth() + width,
+                bounds.getHeight() + width);
+        return bounds;
+    }
+
+    /**
+     * Draw the outline of the specified shape with the specified device space
+     * stroke, using the current paint of the graphics.
+     * 
+     * @param g2 graphics to draw on
+     * @param shape shape to outline, in the user space of the graphics
+     * @param deviceStroke stroke to draw with, in device space
+     */
+    public static void draw(final Graphics2D g2, final Shape shape, final BasicStroke deviceStroke) {
+        final AffineTransform transform = g2.getTransform();
+        final GeneralPath devicePath = new GeneralPath(GeneralPath.WIND_NON_ZERO);
+        devicePath.append(shape.getPathIterator(transform), false);
+
+        g2.setTransform(IDENTITY);
+        g2.setStroke(deviceStroke);
+        try {
+            g2.draw(devicePath);
+        }
+        finally {
+            g2.setTransform(transform);
+        }
+    }
+
+    /**
+     * Return the distance, in local units, within which hairlines of the
+     * specified width are picked by the current pick path.
+     * 
+     * @param width hairline width, in device pixels
+     * @return the pick tolerance of hairlines of the specified width, in local
+     *         units
+     */
+    public static double getPickTolerance(final float width) {
+        double scale = 1.0d;
+        if (PPickPath.CURRENT_PICK_PATH != null) {
+            scale = PPickPath.CURRENT_PICK_PATH.getScale();
+        }
+        if (scale <= 0.0d) {
+            return 0.0d;
+        }
+        return width / 2.0d / scale;
+    }
+
+    /**
+     * Return true if a segment of the outline of the specified shape is within
+     * the specified tolerance of the specified bounds.
+     * 
+     * @param shape shape whose outline is tested
+     * @param bounds bounds to test, in the coordinates of the shape
+     * @param tolerance distance within which segments intersect, in the
+     *            coordinates of the shape
+     * @return true if the outline of the shape is within
+     *         <code>tolerance</code> of <code>bounds</code>
+     */
+    public static boolean intersects(final Shape shape, final Rectangle2D bounds, final double tolerance) {
+        final Rectangle2D outset = new Rectangle2D.Double(bounds.getX() - tolerance, bounds.getY() - tolerance,
+                bounds.getWidth() + 2.0d * tolerance, bounds.getHeight() + 2.0d * tolerance);
+        final double flatness = Math.max(tolerance, Math.min(outset.getWidth(), outset.getHeight())) / 2.0d;
+        final PathIterator iterator = shape.getPathIterator(null, Math.max(flatness, 1.0e-3d));
+        final double[] coords = new double[6];
+        double startX = 0.0d;
+        double startY = 0.0d;
+        double x = 0.0d;
+        double y = 0.0d;
+        while (!iterator.isDone()) {
+            switch (iterator.currentSegment(coords)) {
+                case PathIterator.SEG_MOVETO:
+                    startX = coords[0];
+                    startY = coords[1];
+                    x = startX;
+                    y = startY;
+                    if (outset.contains(x, y)) {
+                        return true;
+                    }
+                    break;
+                case PathIterator.SEG_LINETO:
+                    if (outset.intersectsLine(x, y, coords[0], coords[1])) {
+                        return true;
+                    }
+                    x = coords[0];
+                    y = coords[1];
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    if (outset.intersectsLine(x, y, startX, startY)) {
+                        return true;
+                    }
+                    x = startX;
+                    y = startY;
+                    break;
+                default:
+                    // flattened iterators only return lines
+                    break;
+            }
+            iterator.next();
+        }
+        return false;
+    }
+}
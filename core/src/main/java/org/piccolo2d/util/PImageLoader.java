@@ -0,0 +1,403 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.util;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.swing.SwingUtilities;
+
+/**
+ * <b>PImageLoader</b> decodes images with ImageIO off the event dispatch
+ * thread and hands them to listeners on the event dispatch thread.
+ * <p>
+ * Images may be subsampled while decoding so that they are no larger than
+ * needed to fill a requested size. Decoded images are kept in a shared cache
+ * holding them softly, keyed by source and requested size; concurrent loads of
+ * the same key decode the image once and notify all their listeners.
+ * </p>
+ *
+ * @see org.piccolo2d.nodes.PImage#loadImage(URL)
+ * @since 4.0
+ */
+public final class PImageLoader {
+
+    /** Decoded images, soft references keyed by source and requested size. */
+    private static final Map CACHE = new HashMap();
+
+    /** Queue of the cached images cleared by the garbage collector. */
+    private static final ReferenceQueue CACHE_QUEUE = new ReferenceQueue();
+
+    /** Loads in progress, keyed by source and requested size. */
+    private static final Map LOADS = new HashMap();
+
+    /** Executor decoding images, created when first needed. */
+    private static Executor executor;
+
+    /** Number of images decoded so far. */
+    private static int decodeCount;
+
+    /**
+     * This class cannot be instantiated.
+     */
+    private PImageLoader() {
+        // empty
+    }
+
+    /**
+     * Return the executor on which images are decoded.
+     *
+     * @return the executor on which images are decoded
+     */
+    public static synchronized Executor getExecutor() {
+        if (executor == null) {
+            executor = PDaemonExecutors.newExecutor("piccolo2d-image-");
+        }
+        return executor;
+    }
+
+    /**
+     * Set the executor on which images are decoded.
+     *
+     * @param executor executor on which images are decoded, or
+     *            <code>null</code> to restore the default executor
+     */
+    public static synchronized void setExecutor(final Executor executor) {
+        PImageLoader.executor = executor;
+    }
+
+    /**
+     * Load the image at the specified source at full size, notifying the
+     * specified listener on the event dispatch thread.
+     *
+     * @param source source of the image to load
+     * @param listener listener to notify once the image is loaded
+     */
+    public static void load(final URL source, final Listener listener) {
+        load(source, 0, 0, listener);
+    }
+
+    /**
+     * Load the image at the specified source, subsampled so that it is no
+     * larger than needed to fill <code>width</code> by <code>height</code>
+     * pixels, notifying the specified listener on the event dispatch thread. A
+     * size of zero loads the image at full size.
+     *
+     * @param source source of the image to load
+     * @param width width to fill, at least zero
+     * @param height height to fill, at least zero
+     * @param listener listener to notify once the image is loaded
+     */
+    public static void load(final URL source, final int width, final int height, final Listener listener) {
+        if (source == null) {
+            throw new IllegalArgumentException("source must not be null");
+        }
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("width and height must be at least zero, were " + width + " and "
+                    + height);
+        }
+        if (listener == null) {
+            throw new IllegalArgumentException("listener must not be null");
+        }
+
+        final String key = source.toExternalForm() + "#" + width + "x" + height;
+        final Load load;
+        final Executor loadExecutor;
+        synchronized (PImageLoader.class) {
+            final BufferedImage cachedImage = getCachedImage(key);
+            if (cachedImage != null) {
+                notifyLater(listener, cachedImage, null);
+                return;
+            }
+            final Load pendingLoad = (Load) LOADS.get(key);
+            if (pendingLoad != null) {
+                pendingLoad.listeners.add(listener);
+                return;
+            }
+            load = new Load(key, source, width, height);
+            load.listeners.add(listener);
+            LOADS.put(key, load);
+            loadExecutor = getExecutor();
+        }
+        loadExecutor.execute(load);
+    }
+
+    /**
+     * Return the number of images decoded so far. Loads served from the cache
+     * or joining a load in progress do not decode images.
+     *
+     * @return the number of images decoded so far
+     */
+    public static synchronized int getDecodeCount() {
+        return decodeCount;
+    }
+
+    /**
+     * Discard all decoded images from the cache.
+     */
+    public static synchronized void clearCache() {
+        CACHE.clear();
+    }
+
+    /**
+     * Return the cached image for the specified key, or <code>null</code> if
+     * none. Must be called while holding the class lock.
+     *
+     * @param key key of the image
+     * @return the cached image for the specified key, or <code>null</code>
+     */
+    private static BufferedImage getCachedImage(final String key) {
+        final CachedImage reference = (CachedImage) CACHE.get(key);
+        if (reference == null) {
+            return null;
+        }
+        final BufferedImage image = (BufferedImage) reference.get();
+        if (image == null) {
+            CACHE.remove(key);
+        }
+        return image;
+    }
+
+    /**
+     * Cache the specified image for the specified key, first removing the
+     * entries of the images cleared by the garbage collector. Must be called
+     * while holding the class lock.
+     *
+     * @param key key of the image
+     * @param image image to cache
+     */
+    private static void putCachedImage(final String key, final BufferedImage image) {
+        CachedImage cleared;
+        while ((cleared = (CachedImage) CACHE_QUEUE.poll()) != null) {
+            if (CACHE.get(cleared.key) == cleared) {
+                CACHE.remove(cleared.key);
+            }
+        }
+        CACHE.put(key, new CachedImage(key, image));
+    }
+
+    /**
+     * Decode the image at the specified source, subsampled so that it is no
+     * larger than needed to fill the specified size.
+     *
+     * @param source source of the image to decode
+     * @param width width to fill, or zero for the full width
+     * @param height height to fill, or zero for the full height
+     * @return the decoded image
+     * @throws IOException if the image cannot be read
+     */
+    private static BufferedImage decode(final URL source, final int width, final int height) throws IOException {
+        final InputStream in = source.openStream();
+        try {
+            final ImageInputStream imageIn = ImageIO.createImageInputStream(in);
+            if (imageIn == null) {
+                throw new IOException("cannot read image from " + source);
+            }
+            try {
+                final Iterator readers = ImageIO.getImageReaders(imageIn);
+                if (!readers.hasNext()) {
+                    throw new IOException("no image reader for " + source);
+                }
+                final ImageReader reader = (ImageReader) readers.next();
+                try {
+                    reader.setInput(imageIn, true, true);
+                    final ImageReadParam param = reader.getDefaultReadParam();
+                    final int subsampling = getSubsampling(reader.getWidth(0), reader.getHeight(0), width, height);
+                    if (subsampling > 1) {
+                        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                    }
+                    return reader.read(0, param);
+                }
+                finally {
+                    reader.dispose();
+                }
+            }
+            finally {
+                imageIn.close();
+            }
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Return the largest subsampling of an image of the specified size that
+     * still fills the requested size.
+     *
+     * @param imageWidth width of the image
+     * @param imageHeight height of the image
+     * @param width width to fill, or zero for the full width
+     * @param height height to fill, or zero for the full height
+     * @return the subsampling, at least one
+     */
+    static int getSubsampling(final int imageWidth, final int imageHeight, final int width, final int height) {
+        if (width == 0 || height == 0) {
+            return 1;
+        }
+        return Math.max(1, Math.min(imageWidth / width, imageHeight / height));
+    }
+
+    /**
+     * Notify the specified listener on the event dispatch thread.
+     *
+     * @param listener listener to notify
+     * @param image loaded image, or <code>null</code> if loading failed
+     * @param exception exception loading failed with, or <code>null</code>
+     */
+    private static void notifyLater(final Listener listener, final BufferedImage image, final IOException exception) {
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                if (exception == null) {
+                    listener.imageLoaded(image);
+                }
+                else {
+                    listener.imageLoadFailed(exception);
+                }
+            }
+        });
+    }
+
+    /**
+     * Listener notified on the event dispatch thread once an image is loaded.
+     */
+    public interface Listener {
+
+        /**
+         * Notify this listener that the image has been loaded.
+         *
+         * @param image loaded image
+         */
+        void imageLoaded(BufferedImage image);
+
+        /**
+         * Notify this listener that the image could not be loaded.
+         *
+         * @param exception exception loading failed with
+         */
+        void imageLoadFailed(IOException exception);
+    }
+
+    /**
+     * Soft reference to a cached image, remembering its key so that its entry
+     * can be removed once the image is cleared.
+     */
+    private static final class CachedImage extends SoftReference {
+
+        /** Key of the image. */
+        private final String key;
+
+        /**
+         * Create a new soft reference to the specified cached image.
+         *
+         * @param key key of the image
+         * @param image image
+         */
+        CachedImage(final String key, final BufferedImage image) {
+            super(image, CACHE_QUEUE);
+            this.key = key;
+        }
+    }
+
+    /**
+     * Load in progress, notifying all the listeners joining it.
+     */
+    private static final class Load implements Runnable {
+
+        /** Key of the image. */
+        private final String key;
+
+        /** Source of the image. */
+        private final URL source;
+
+        /** Width to fill. */
+        private final int width;
+
+        /** Height to fill. */
+        private final int height;
+
+        /** Listeners to notify, guarded by the class lock of the loader. */
+        private final List listeners = new ArrayList();
+
+        /**
+         * Create a new load.
+         *
+         * @param key key of the image
+         * @param source source of the image
+         * @param width width to fill
+         * @param height height to fill
+         */
+        Load(final String key, final URL source, final int width, final int height) {
+            this.key = key;
+            this.source = source;
+            this.width = width;
+            this.height = height;
+        }
+
+        /** {@inheritDoc} */
+        public void run() {
+            BufferedImage image = null;
+            IOException exception = null;
+            try {
+                image = decode(source, width, height);
+            }
+            catch (final IOException e) {
+                exception = e;
+            }
+            catch (final RuntimeException e) {
+                exception = new IOException("cannot decode image from " + source, e);
+            }
+
+            synchronized (PImageLoader.class) {
+                LOADS.remove(key);
+                if (image != null) {
+                    decodeCount++;
+                    putCachedImage(key, image);
+                }
+                for (int i = 0; i < listeners.size(); i++) {
+                    notifyLater((Listener) listeners.get(i), image, exception);
+                }
+            }
+        }
+    }
+}
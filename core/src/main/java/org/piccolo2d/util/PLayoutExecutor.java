@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.util;
+
+import java.util.concurrent.Executor;
+
+/**
+ * <b>PLayoutExecutor</b> holds the executor on which nodes with asynchronous
+ * layout compute their layouts off the event dispatch thread. Layout tasks
+ * must not change the scene graph; they hand their results back to the event
+ * dispatch thread with <code>SwingUtilities.invokeLater</code>.
+ * <p>
+ * The default executor runs one daemon thread per available processor, which
+ * are stopped after a second without layout tasks.
+ * </p>
+ *
+ * @see org.piccolo2d.nodes.PText#setLayoutAsynchronous(boolean)
+ * @since 4.0
+ */
+public final class PLayoutExecutor {
+
+    /** Executor running layout tasks, created when first needed. */
+    private static Executor executor;
+
+    /**
+     * This class cannot be instantiated.
+     */
+    private PLayoutExecutor() {
+        // empty
+    }
+
+    /**
+     * Return the executor on which layouts are computed asynchronously.
+     *
+     * @return the executor on which layouts are computed asynchronously
+     */
+    public static synchronized Executor getExecutor() {
+        if (executor == null) {
+            executor = PDaemonExecutors.newExecutor("piccolo2d-layout-");
+        }
+        return executor;
+    }
+
+    /**
+     * Set the executor on which layouts are computed asynchronously.
+     *
+     * @param executor executor on which layouts are computed asynchronously,
+     *            or <code>null</code> to restore the default executor
+     */
+    public static synchronized void setExecutor(final Executor executor) {
+        PLayoutExecutor.executor = executor;
+    }
+}
@@ -0,0 +1,590 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.util;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+import javax.swing.SwingUtilities;
+
+import org.piccolo2d.PCamera;
+import org.piccolo2d.PLayer;
+import org.piccolo2d.PNode;
+
+
+/**
+ * <b>PLazySceneLoader</b> loads an indexed scene written by
+ * {@link PSceneWriter} on demand from a memory mapped file.
+ * <p>
+ * Only the top levels of the scene are read eagerly. The children of a node
+ * below those levels are represented by a single {@link Placeholder} child
+ * with the full bounds of the children it stands for. A placeholder reads
+ * its children, one level at a time, when it is first picked within their
+ * bounds, or when they are accessed through <code>getChild</code>,
+ * <code>getChildrenReference</code> or <code>getChildrenIterator</code>.
+ * When a placeholder is first painted within their bounds, it paints nothing
+ * and reads its children later on the event dispatch thread, so the scene
+ * graph is not changed while it is painted. Note
+ * <code>getChildrenCount</code> returns zero until a placeholder has been
+ * loaded.
+ * </p>
+ * <p>
+ * When more than the maximum loaded node count have been read on demand,
+ * the least recently painted placeholders are released again, discarding
+ * their children. Changes made to the children of a placeholder are lost
+ * when it is released, so scenes loaded this way are best treated as read
+ * only.
+ * </p>
+ *
+ * @see PSceneWriter#setIndexed(boolean)
+ * @since 4.0
+ */
+public class PLazySceneLoader {
+
+    /** Default number of levels read eagerly, <code>2</code>. */
+    public static final int DEFAULT_EAGER_DEPTH = 2;
+
+    /** Default maximum number of nodes read on demand, <code>100000</code>. */
+    public static final int DEFAULT_MAX_LOADED_NODE_COUNT = 100000;
+
+    /** Memory mapped scene file. */
+    private final ByteBuffer buffer;
+
+    /** Reader holding the dictionaries of the scene. */
+    private final PSceneReader reader;
+
+    /** Number of nodes in the scene. */
+    private final int nodeCount;
+
+    /** File offset of the index. */
+    private final int indexOffset;
+
+    /** Layers read so far, by ordinal, for resolving camera layers. */
+    private final Map/*<Integer, PLayer>*/ layers = new HashMap();
+
+    /** Loaded placeholders and their node counts, least recently used first. */
+    private final LinkedHashMap/*<Placeholder, Integer>*/ loadedPlaceholders = new LinkedHashMap(16, 0.75f, true);
+
+    /** Number of nodes read on demand and not yet released. */
+    private int loadedNodeCount;
+
+    /** Maximum number of nodes read on demand before placeholders are released. */
+    private int maxLoadedNodeCount = DEFAULT_MAX_LOADED_NODE_COUNT;
+
+
+    /**
+     * Create a new lazy scene loader for the specified indexed scene file.
+     * The file is memory mapped and its dictionaries are read.
+     *
+     * @param file indexed scene file, must not be null
+     * @throws IOException if an I/O error occurs or the file does not hold an
+     *             indexed scene
+     * @throws ClassNotFoundException if the class of a Java serialized paint
+     *             or stroke can not be found
+     */
+    public PLazySceneLoader(final File file) throws IOException, ClassNotFoundException {
+        if (file == null) {
+            throw new IllegalArgumentException("file must not be null");
+        }
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = randomAccessFile.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        finally {
+            randomAccessFile.close();
+        }
+
+        final DataInputStream header = input(0);
+        if ((PSceneReader.readHeader(header) & PSceneFormat.FLAG_INDEXED) == 0) {
+            throw new StreamCorruptedException("scene is not indexed");
+        }
+        reader = new PSceneReader(header);
+        reader.readDictionaries(header);
+        nodeCount = header.readInt();
+
+        final long offset = buffer.getLong(buffer.limit() - PSceneFormat.TRAILER_SIZE);
+        if (offset + (long) nodeCount * PSceneFormat.INDEX_ENTRY_SIZE + PSceneFormat.TRAILER_SIZE != buffer
+                .limit()) {
+            throw new StreamCorruptedException("index offset " + offset + " does not match the file size");
+        }
+        indexOffset = (int) offset;
+    }
+
+
+    /**
+     * Return the number of nodes in the scene.
+     *
+     * @return the number of nodes in the scene
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Return the number of nodes read on demand by placeholders and not yet
+     * released.
+     *
+     * @return the number of nodes read on demand
+     */
+    public int getLoadedNodeCount() {
+        return loadedNodeCount;
+    }
+
+    /**
+     * Return the maximum number of nodes read on demand before the least
+     * recently painted placeholders are released. Defaults to
+     * {@link #DEFAULT_MAX_LOADED_NODE_COUNT}.
+     *
+     * @return the maximum number of nodes read on demand
+     */
+    public int getMaxLoadedNodeCount() {
+        return maxLoadedNodeCount;
+    }
+
+    /**
+     * Set the maximum number of nodes read on demand before the least
+     * recently painted placeholders are released.
+     *
+     * @param maxLoadedNodeCount maximum number of nodes read on demand, must
+     *            be at least one
+     */
+    public void setMaxLoadedNodeCount(final int maxLoadedNodeCount) {
+        if (maxLoadedNodeCount < 1) {
+            throw new IllegalArgumentException("maxLoadedNodeCount must be at least one, was " + maxLoadedNodeCount);
+        }
+        this.maxLoadedNodeCount = maxLoadedNodeCount;
+    }
+
+    /**
+     * Read the top {@link #DEFAULT_EAGER_DEPTH} levels of the scene and return
+     * its top node.
+     *
+     * @return the top node of the scene
+     * @throws IOException if an I/O error occurs
+     */
+    public PNode load() throws IOException {
+        return load(DEFAULT_EAGER_DEPTH);
+    }
+
+    /**
+     * Read the top <code>eagerDepth</code> levels of the scene and return its
+     * top node. The children of nodes on the last level read are represented
+     * by placeholders.
+     *
+     * @param eagerDepth number of levels to read, must be at least one
+     * @return the top node of the scene
+     * @throws IOException if an I/O error occurs
+     */
+    public PNode load(final int eagerDepth) throws IOException {
+        if (eagerDepth < 1) {
+            throw new IllegalArgumentException("eagerDepth must be at least one, was " + eagerDepth);
+        }
+        final PNode node = readNode(0, eagerDepth);
+        resolveCameraLayers();
+        return node;
+    }
+
+    /**
+     * Return a data input reading the memory mapped file from the specified
+     * offset.
+     *
+     * @param offset file offset
+     * @return a data input reading from the specified offset
+     */
+    private DataInputStream input(final int offset) {
+        final ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        return new DataInputStream(new ByteBufferInputStream(view));
+    }
+
+    private int indexEntry(final int ordinal) throws StreamCorruptedException {
+        if (ordinal < 0 || ordinal >= nodeCount) {
+            throw new StreamCorruptedException("node ordinal " + ordinal + " out of range");
+        }
+        return indexOffset + ordinal * PSceneFormat.INDEX_ENTRY_SIZE;
+    }
+
+    private int recordOffset(final int ordinal) throws StreamCorruptedException {
+        return buffer.getInt(indexEntry(ordinal));
+    }
+
+    private int subtreeSize(final int ordinal) throws StreamCorruptedException {
+        return buffer.getInt(indexEntry(ordinal) + 4);
+    }
+
+    /**
+     * Read the node with the specified ordinal and <code>depth - 1</code>
+     * levels of its descendants.
+     *
+     * @param ordinal node ordinal
+     * @param depth number of levels to read, at least one
+     * @return the node read
+     * @throws IOException if an I/O error occurs
+     */
+    private PNode readNode(final int ordinal, final int depth) throws IOException {
+        final DataInputStream in = input(recordOffset(ordinal));
+        final PNode node = reader.readNodeRecord(in);
+        if (node instanceof PLayer) {
+            layers.put(Integer.valueOf(ordinal), node);
+        }
+        final int childCount = in.readInt();
+        if (childCount > 0) {
+            if (depth > 1) {
+                int child = ordinal + 1;
+                for (int i = 0; i < childCount; i++) {
+                    node.addChild(readNode(child, depth - 1));
+                    child += subtreeSize(child);
+                }
+            }
+            else {
+                node.addChild(new Placeholder(this, ordinal, childCount));
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Add the layers of the cameras read which have been read so far.
+     */
+    private void resolveCameraLayers() {
+        final List cameraLayers = reader.getCameraLayersReference();
+        for (int i = cameraLayers.size() - 2; i >= 0; i -= 2) {
+            final PCamera camera = (PCamera) cameraLayers.get(i);
+            final int[] layerOrdinals = (int[]) cameraLayers.get(i + 1);
+            boolean resolved = true;
+            for (int j = 0; j < layerOrdinals.length; j++) {
+                if (layerOrdinals[j] != PSceneFormat.NONE) {
+                    final PLayer layer = (PLayer) layers.get(Integer.valueOf(layerOrdinals[j]));
+                    if (layer == null) {
+                        resolved = false;
+                    }
+                    else {
+                        camera.addLayer(layer);
+                        layerOrdinals[j] = PSceneFormat.NONE;
+                    }
+                }
+            }
+            if (resolved) {
+                cameraLayers.remove(i + 1);
+                cameraLayers.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Read the children of the specified placeholder and release the least
+     * recently used placeholders if more than the maximum loaded node count
+     * have been read.
+     *
+     * @param placeholder placeholder to load
+     * @throws IOException if an I/O error occurs
+     */
+    private void load(final Placeholder placeholder) throws IOException {
+        int child = placeholder.ordinal + 1;
+        for (int i = 0; i < placeholder.childCount; i++) {
+            placeholder.addChild(readNode(child, 1));
+            child += subtreeSize(child);
+        }
+        resolveCameraLayers();
+        loadedPlaceholders.put(placeholder, Integer.valueOf(placeholder.childCount));
+        loadedNodeCount += placeholder.childCount;
+
+        if (loadedNodeCount > maxLoadedNodeCount) {
+            releaseLeastRecentlyUsed(placeholder);
+        }
+    }
+
+    /**
+     * Release the least recently used placeholders until no more than the
+     * maximum loaded node count are loaded, excluding the specified
+     * placeholder and its ancestors.
+     *
+     * @param keep placeholder to keep loaded along with its ancestors
+     */
+    private void releaseLeastRecentlyUsed(final Placeholder keep) {
+        final List victims = new ArrayList();
+        int excess = loadedNodeCount - maxLoadedNodeCount;
+        final Iterator i = loadedPlaceholders.entrySet().iterator();
+        while (excess > 0 && i.hasNext()) {
+            final Map.Entry entry = (Map.Entry) i.next();
+            final Placeholder candidate = (Placeholder) entry.getKey();
+            if (candidate != keep && !keep.isDescendentOf(candidate)) {
+                victims.add(candidate);
+                excess -= ((Integer) entry.getValue()).intValue();
+            }
+        }
+        for (int j = 0; j < victims.size(); j++) {
+            ((Placeholder) victims.get(j)).release();
+        }
+    }
+
+    /**
+     * Forget the specified placeholder and any loaded placeholders among its
+     * descendants.
+     *
+     * @param node node whose placeholders should be forgotten
+     */
+    private void forget(final PNode node) {
+        if (node instanceof Placeholder) {
+            if (!((Placeholder) node).isLoaded()) {
+                return;
+            }
+            final Integer count = (Integer) loadedPlaceholders.remove(node);
+            if (count != null) {
+                loadedNodeCount -= count.intValue();
+            }
+        }
+        final List children = node.getChildrenReference();
+        for (int i = 0; i < children.size(); i++) {
+            forget((PNode) children.get(i));
+        }
+    }
+
+
+    /**
+     * Placeholder for the unread children of a node in a lazily loaded scene.
+     */
+    public static final class Placeholder extends PNode {
+
+        /** Default serial version UID. */
+        private static final long serialVersionUID = 1L;
+
+        /** Loader reading the children. */
+        private final transient PLazySceneLoader loader;
+
+        /** Ordinal of the node whose children this placeholder stands for. */
+        private final int ordinal;
+
+        /** Number of children this placeholder stands for. */
+        private final int childCount;
+
+        /** True if the children have been read. */
+        private boolean loaded;
+
+        /** True if reading the children has been scheduled by a paint. */
+        private boolean loadScheduled;
+
+
+        /**
+         * Create a new placeholder for the children of the node with the
+         * specified ordinal.
+         *
+         * @param loader loader reading the children
+         * @param ordinal ordinal of the node whose children this placeholder
+         *            stands for
+         * @param childCount number of children
+         * @throws StreamCorruptedException if the index is corrupt
+         */
+        Placeholder(final PLazySceneLoader loader, final int ordinal, final int childCount)
+                throws StreamCorruptedException {
+            this.loader = loader;
+            this.ordinal = ordinal;
+            this.childCount = childCount;
+            setPickable(false);
+
+            final PBounds childBounds = new PBounds();
+            int child = ordinal + 1;
+            for (int i = 0; i < childCount; i++) {
+                final int entry = loader.indexEntry(child) + 8;
+                final ByteBuffer buffer = loader.buffer;
+                childBounds.add(new PBounds(buffer.getDouble(entry), buffer.getDouble(entry + 8), buffer
+                        .getDouble(entry + 16), buffer.getDouble(entry + 24)));
+                child += loader.subtreeSize(child);
+            }
+            setBounds(childBounds);
+        }
+
+
+        /**
+         * Return true if the children this placeholder stands for have been
+         * read.
+         *
+         * @return true if this placeholder has been loaded
+         */
+        public boolean isLoaded() {
+            return loaded;
+        }
+
+        /**
+         * Read the children this placeholder stands for, if they have not
+         * been read yet.
+         *
+         * @throws RuntimeException if an I/O error occurs reading the children
+         */
+        public void load() {
+            if (loaded) {
+                // mark as most recently used
+                loader.loadedPlaceholders.get(this);
+                return;
+            }
+            loaded = true;
+            try {
+                loader.load(this);
+            }
+            catch (final IOException e) {
+                removeAllChildren();
+                loaded = false;
+                throw new RuntimeException("Could not read scene children: " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Discard the children this placeholder stands for, if they have
+         * been read. They are read again when next needed.
+         */
+        public void release() {
+            if (loaded) {
+                loader.forget(this);
+                removeAllChildren();
+                loaded = false;
+            }
+        }
+
+        /**
+         * Schedule reading the children this placeholder stands for on the
+         * event dispatch thread, if they have not been read or scheduled yet.
+         */
+        private void scheduleLoad() {
+            if (loaded || loadScheduled) {
+                return;
+            }
+            loadScheduled = true;
+            SwingUtilities.invokeLater(new Runnable() {
+                public void run() {
+                    loadScheduled = false;
+                    load();
+                }
+            });
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * The children are not read while painting, as that would change the
+         * scene graph being painted. If they have not been read yet, reading
+         * them is scheduled on the event dispatch thread and they are painted
+         * in a later frame.
+         * </p>
+         */
+        public void fullPaint(final PPaintContext paintContext) {
+            if (getVisible() && !getCulled() && fullIntersects(paintContext.getLocalClip())) {
+                if (loaded) {
+                    // mark as most recently used
+                    loader.loadedPlaceholders.get(this);
+                }
+                else {
+                    scheduleLoad();
+                }
+            }
+            super.fullPaint(paintContext);
+        }
+
+        /** {@inheritDoc} */
+        public boolean fullPick(final PPickPath pickPath) {
+            if (!loaded && getVisible() && getChildrenPickable() && fullIntersects(pickPath.getPickBounds())) {
+                load();
+            }
+            return super.fullPick(pickPath);
+        }
+
+        /** {@inheritDoc} */
+        public PNode getChild(final int index) {
+            load();
+            return super.getChild(index);
+        }
+
+        /** {@inheritDoc} */
+        public List getChildrenReference() {
+            if (!loaded) {
+                load();
+            }
+            return super.getChildrenReference();
+        }
+
+        /** {@inheritDoc} */
+        public ListIterator getChildrenIterator() {
+            load();
+            return super.getChildrenIterator();
+        }
+    }
+
+
+    /**
+     * Input stream reading from a byte buffer.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        /** Buffer read from. */
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /** {@inheritDoc} */
+        public int read() {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            return buffer.get() & 0xff;
+        }
+
+        /** {@inheritDoc} */
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        /** {@inheritDoc} */
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,391 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.util;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.piccolo2d.PNode;
+
+/**
+ * <b>POcclusionCuller</b> finds the nodes of a list of layers that are
+ * completely hidden, within a clip, behind opaque nodes painted after them,
+ * and flags them as culled so that {@link PNode#fullPaint(PPaintContext)}
+ * skips them along with their descendants.
+ * <p>
+ * The layers are traversed front to back, in the reverse of the paint order.
+ * Each node whose full bounds are covered by the opaque nodes met so far is
+ * culled without visiting its descendants. Otherwise, once its descendants
+ * have been visited, a node declaring itself opaque over its bounds through
+ * {@link PNode#isOpaque(Rectangle2D)} becomes an occluder, provided it is not
+ * rotated or sheared and neither it nor its ancestors are translucent. Nodes
+ * below the minimum screen size of the paint context are not painted, so
+ * they are skipped along with their descendants. The
+ * occluders are limited to the parts of the nodes their ancestors do not clip,
+ * see {@link PNode#getUnclippedDescendantBounds()}.
+ * </p>
+ * <p>
+ * Only nodes intersecting the clip are visited, so the cost of a pass is
+ * proportional to the damaged area being repainted rather than to the scene.
+ * The flags are only valid for the paint they were computed for and must be
+ * cleared with {@link #reset()} once it is done.
+ * </p>
+ *
+ * @see org.piccolo2d.PCamera#setOcclusionCulling(boolean)
+ * @since 4.0
+ */
+public class POcclusionCuller {
+
+    /** Default maximum number of occluders kept per pass. */
+    public static final int DEFAULT_MAX_OCCLUDERS = 64;
+
+    /** Maximum number of pieces a bounds is split into while testing coverage. */
+    private static final int MAX_UNCOVERED_PIECES = 64;
+
+    /** Occluders of the current pass, in the coordinates of the layers. */
+    private final List occluders = new ArrayList();
+
+    /** Nodes culled by the current pass. */
+    private final List culledNodes = new ArrayList();
+
+    /** Transforms from node to layer coordinates, reused by depth. */
+    private final List transforms = new ArrayList();
+
+    /** Clip of the current pass, in the coordinates of the layers. */
+    private final Rectangle2D clip = new Rectangle2D.Double();
+
+    /** Corners of a rectangle being transformed. */
+    private final double[] corners = new double[8];
+
+    /** Temporary rectangle used while visiting nodes. */
+    private final Rectangle2D tempRect = new Rectangle2D.Double();
+
+    /** Maximum number of occluders kept per pass. */
+    private int maxOccluders = DEFAULT_MAX_OCCLUDERS;
+
+    /** Size of a device pixel, in the coordinates of the layers. */
+    private double pixelSize;
+
+    /** Transform from the coordinates of the layers to the device. */
+    private final AffineTransform deviceTransform = new AffineTransform();
+
+    /** Minimum screen size of the current pass, see {@link PPaintContext#getMinimumScreenSize()}. */
+    private double minimumScreenSize;
+
+    /** Temporary vector used while testing the screen size of nodes. */
+    private final Point2D tempVector = new Point2D.Double();
+
+    /**
+     * Return the maximum number of occluders kept per pass. Defaults to
+     * {@link #DEFAULT_MAX_OCCLUDERS}.
+     *
+     * @return the maximum number of occluders kept per pass
+     */
+    public int getMaxOccluders() {
+        return maxOccluders;
+    }
+
+    /**
+     * Set the maximum number of occluders kept per pass. Opaque nodes met once
+     * this many occluders have been found do not hide other nodes.
+     *
+     * @param maxOccluders maximum number of occluders kept per pass, must be
+     *            at least zero
+     */
+    public void setMaxOccluders(final int maxOccluders) {
+        if (maxOccluders < 0) {
+            throw new IllegalArgumentException("maxOccluders must be at least zero, was " + maxOccluders);
+        }
+        this.maxOccluders = maxOccluders;
+    }
+
+    /**
+     * Flag the nodes of the specified layers hidden within the local clip of
+     * the specified paint context as culled. The transform of the paint
+     * context must be that from the coordinates of the layers to the device.
+     * The flags of a previous pass are cleared first.
+     *
+     * @param layers layers to cull, in paint order
+     * @param paintContext paint context the layers are about to be painted in
+     */
+    public void cull(final List layers, final PPaintContext paintContext) {
+        reset();
+        occluders.clear();
+        clip.setRect(paintContext.getLocalClip());
+        // occluders are shrunk by a device pixel to leave antialiased edges
+        pixelSize = 1.0d / paintContext.getScale();
+        deviceTransform.setTransform(paintContext.getGraphics().getTransform());
+        minimumScreenSize = paintContext.getMinimumScreenSize();
+
+        final AffineTransform identity = getTransform(0);
+        identity.setToIdentity();
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            cullNode((PNode) layers.get(i), identity, 1, true, clip);
+        }
+    }
+
+    /**
+     * Clear the culled flags set by the last pass.
+     */
+    public void reset() {
+        for (int i = 0; i < culledNodes.size(); i++) {
+            ((PNode) culledNodes.get(i)).setCulled(false);
+        }
+        culledNodes.clear();
+    }
+
+    /**
+     * Return the number of nodes culled by the last pass, not counting their
+     * descendants.
+     *
+     * @return the number of nodes culled by the last pass
+     */
+    public int getCulledNodeCount() {
+        return culledNodes.size();
+    }
+
+    /**
+     * Return the number of occluders found by the last pass.
+     *
+     * @return the number of occluders found by the last pass
+     */
+    public int getOccluderCount() {
+        return occluders.size();
+    }
+
+    /**
+     * Visit the specified node, culling it if it is covered by the occluders
+     * found so far, otherwise visiting its children front to back and adding
+     * it to the occluders if it is opaque.
+     *
+     * @param node node to visit
+     * @param parentTransform transform from the parent of the node to the
+     *            coordinates of the layers
+     * @param depth depth of the node, used to reuse transforms
+     * @param opaqueAncestors true if no ancestor of the node is translucent
+     * @param occluderClip rectangle the ancestors of the node do not clip, in
+     *            the coordinates of the layers
+     */
+    private void cullNode(final PNode node, final AffineTransform parentTransform, final int depth,
+            final boolean opaqueAncestors, final Rectangle2D occluderClip) {
+        if (!node.getVisible() || isBelowMinimumScreenSize(node, parentTransform)) {
+            return;
+        }
+        transformBounds(parentTransform, node.getFullBoundsReference(), tempRect);
+        Rectangle2D.intersect(tempRect, clip, tempRect);
+        if (tempRect.isEmpty()) {
+            return;
+        }
+        if (isCovered(tempRect)) {
+            node.setCulled(true);
+            culledNodes.add(node);
+            return;
+        }
+
+        final AffineTransform transform = getTransform(depth);
+        transform.setTransform(parentTransform);
+        final AffineTransform nodeTransform = node.getTransformReference(false);
+        if (nodeTransform != null) {
+            transform.concatenate(nodeTransform);
+        }
+        final boolean opaque = opaqueAncestors && node.getTransparency() == 1.0f;
+
+        Rectangle2D childrenClip = occluderClip;
+        final Rectangle2D unclippedBounds = node.getUnclippedDescendantBounds();
+        if (unclippedBounds != null && node.getChildrenCount() > 0) {
+            childrenClip = new Rectangle2D.Double();
+            if (isRectilinear(transform)) {
+                transformBounds(transform, unclippedBounds, childrenClip);
+                Rectangle2D.intersect(childrenClip, occluderClip, childrenClip);
+            }
+        }
+
+        for (int i = node.getChildrenCount() - 1; i >= 0; i--) {
+            cullNode(node.getChild(i), transform, depth + 1, opaque, childrenClip);
+        }
+
+        if (opaque && occluders.size() < maxOccluders && isRectilinear(transform)
+                && node.isOpaque(node.getBoundsReference())) {
+            final Rectangle2D occluder = new Rectangle2D.Double();
+            transformBounds(transform, node.getBoundsReference(), occluder);
+            occluder.setRect(occluder.getX() + pixelSize, occluder.getY() + pixelSize, occluder.getWidth() - 2
+                    * pixelSize, occluder.getHeight() - 2 * pixelSize);
+            Rectangle2D.intersect(occluder, occluderClip, occluder);
+            if (!occluder.isEmpty()) {
+                occluders.add(occluder);
+            }
+        }
+    }
+
+    /**
+     * Return true if the specified node is smaller on screen than the minimum
+     * screen size, the same test <code>PNode.fullPaint</code> skips nodes
+     * with.
+     *
+     * @param node node to test
+     * @param parentTransform transform from the parent of the node to the
+     *            coordinates of the layers
+     * @return true if the specified node is not painted for being too small
+     */
+    private boolean isBelowMinimumScreenSize(final PNode node, final AffineTransform parentTransform) {
+        if (minimumScreenSize == 0.0d) {
+            return false;
+        }
+        tempVector.setLocation(parentTransform.getScaleX(), parentTransform.getShearY());
+        deviceTransform.deltaTransform(tempVector, tempVector);
+        final double scale = tempVector.distance(0.0d, 0.0d);
+        final Rectangle2D fullBounds = node.getFullBoundsReference();
+        return Math.max(fullBounds.getWidth(), fullBounds.getHeight()) * scale < minimumScreenSize;
+    }
+
+    /**
+     * Return true if the specified rectangle is covered by the union of the
+     * occluders found so far.
+     *
+     * @param rect rectangle to test
+     * @return true if the specified rectangle is covered by the occluders
+     */
+    private boolean isCovered(final Rectangle2D rect) {
+        final int count = occluders.size();
+        if (count == 0) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (((Rectangle2D) occluders.get(i)).contains(rect)) {
+                return true;
+            }
+        }
+
+        List uncovered = new ArrayList();
+        uncovered.add(new Rectangle2D.Double(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight()));
+        for (int i = 0; i < count && !uncovered.isEmpty(); i++) {
+            final Rectangle2D occluder = (Rectangle2D) occluders.get(i);
+            final List remaining = new ArrayList();
+            for (int j = 0; j < uncovered.size(); j++) {
+                subtract((Rectangle2D) uncovered.get(j), occluder, remaining);
+            }
+            if (remaining.size() > MAX_UNCOVERED_PIECES) {
+                return false;
+            }
+            uncovered = remaining;
+        }
+        return uncovered.isEmpty();
+    }
+
+    /**
+     * Add the parts of rectangle <code>a</code> outside rectangle
+     * <code>b</code> to the specified list, as up to four rectangles.
+     *
+     * @param a rectangle to subtract from
+     * @param b rectangle to subtract
+     * @param result list the remaining rectangles are added to
+     */
+    private static void subtract(final Rectangle2D a, final Rectangle2D b, final List result) {
+        if (!a.intersects(b)) {
+            result.add(a);
+            return;
+        }
+        final double top = Math.max(a.getMinY(), b.getMinY());
+        final double bottom = Math.min(a.getMaxY(), b.getMaxY());
+        if (b.getMinY() > a.getMinY()) {
+            result.add(new Rectangle2D.Double(a.getX(), a.getY(), a.getWidth(), b.getMinY() - a.getMinY()));
+        }
+        if (b.getMaxY() < a.getMaxY()) {
+            result.add(new Rectangle2D.Double(a.getX(), b.getMaxY(), a.getWidth(), a.getMaxY() - b.getMaxY()));
+        }
+        if (b.getMinX() > a.getMinX()) {
+            result.add(new Rectangle2D.Double(a.getX(), top, b.getMinX() - a.getMinX(), bottom - top));
+        }
+        if (b.getMaxX() < a.getMaxX()) {
+            result.add(new Rectangle2D.Double(b.getMaxX(), top, a.getMaxX() - b.getMaxX(), bottom - top));
+        }
+    }
+
+    /**
+     * Return the transform reused at the specified depth.
+     *
+     * @param depth depth of the transform
+     * @return the transform reused at the specified depth
+     */
+    private AffineTransform getTransform(final int depth) {
+        while (transforms.size() <= depth) {
+            transforms.add(new AffineTransform());
+        }
+        return (AffineTransform) transforms.get(depth);
+    }
+
+    /**
+     * Return true if the specified transform maps rectangles to rectangles.
+     *
+     * @param transform transform to test
+     * @return true if the specified transform maps rectangles to rectangles
+     */
+    private static boolean isRectilinear(final AffineTransform transform) {
+        return (transform.getType() & (AffineTransform.TYPE_GENERAL_ROTATION | AffineTransform.TYPE_GENERAL_TRANSFORM))
+                == 0;
+    }
+
+    /**
+     * Store in <code>dst</code> the bounding box of <code>src</code>
+     * transformed by the specified transform.
+     *
+     * @param transform transform to apply
+     * @param src rectangle to transform
+     * @param dst rectangle receiving the bounding box
+     */
+    private void transformBounds(final AffineTransform transform, final Rectangle2D src, final Rectangle2D dst) {
+        if (src.isEmpty()) {
+            dst.setRect(0, 0, 0, 0);
+            return;
+        }
+        corners[0] = src.getMinX();
+        corners[1] = src.getMinY();
+        corners[2] = src.getMaxX();
+        corners[3] = src.getMinY();
+        corners[4] = src.getMaxX();
+        corners[5] = src.getMaxY();
+        corners[6] = src.getMinX();
+        corners[7] = src.getMaxY();
+        transform.transform(corners, 0, corners, 0, 4);
+        double minX = corners[0];
+        double minY = corners[1];
+        double maxX = corners[0];
+        double maxY = corners[1];
+        for (int i = 2; i < corners.length; i += 2) {
+            minX = Math.min(minX, corners[i]);
+            minY = Math.min(minY, corners[i + 1]);
+            maxX = Math.max(maxX, corners[i]);
+            maxY = Math.max(maxY, corners[i + 1]);
+        }
+        dst.setRect(minX, minY, maxX - minX, maxY - minY);
+    }
+}
@@ -29,6 +29,7 @@
 package org.piccolo2d.util;
 
 import java.awt.AlphaComposite;
+import java.awt.Color;
 import java.awt.Composite;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
@@ -62,8 +63,22 @@ public class PPaintContext {
     /** Font context to use while in high quality rendering. */
     public static final FontRenderContext RENDER_QUALITY_HIGH_FRC = new FontRenderContext(null, true, true);
 
-    /** Used while calculating scale at which rendering is occurring. */
-    private static final double[] PTS = new double[4];
+    /**
+     * Paint of the placeholder boxes painted in place of content that is not
+     * available yet, such as text being laid out or images being loaded.
+     *
+     * @since 4.0
+     */
+    public static final Color PLACEHOLDER_PAINT = new Color(128, 128, 128, 64);
+
+    /** Paint context painting a scene on each thread, if any. */
+    private static final ThreadLocal CURRENT_PAINT_CONTEXT = new ThreadLocal();
+
+    /**
+     * Used while calculating scale at which rendering is occurring. Held per
+     * paint context so that contexts may be used from different threads.
+     */
+    private final double[] pts = new double[4];
 
     /** PaintContext is associated with this graphics context. */
     private final Graphics2D graphics;
@@ -86,6 +101,18 @@ public class PPaintContext {
     /** The current render quality that all rendering should be done in. */
     protected int renderQuality;
 
+    /** Factor applied to the greek threshold of text nodes. */
+    private double greekThresholdScale = 1.0d;
+
+    /** Size in screen pixels below which nodes are not painted. */
+    private double minimumScreenSize;
+
+    /** Whether this paint context is the current paint context of its thread. */
+    private boolean painting;
+
+    /** Paint context current on the painting thread before this one. */
+    private PPaintContext previousPaintContext;
+
     /**
      * Creates a PPaintContext associated with the given graphics context.
      * 
@@ -109,6 +136,58 @@ public class PPaintContext {
         localClipStack.push(clip.getBounds2D());
     }
 
+    /**
+     * Return the paint context painting a scene on the calling thread, or
+     * <code>null</code> if none. A paint context is current while a node is
+     * painted with it, from the outermost call to
+     * {@link org.piccolo2d.PNode#fullPaint(PPaintContext)}.
+     * 
+     * @since 4.0
+     * @return the paint context painting a scene on the calling thread, or
+     *         <code>null</code>
+     */
+    public static PPaintContext getCurrentPaintContext() {
+        return (PPaintContext) CURRENT_PAINT_CONTEXT.get();
+    }
+
+    /**
+     * Make this paint context the current paint context of the calling thread,
+     * unless it already is.
+     * 
+     * @since 4.0
+     * @return true if this paint context has been made current, in which case
+     *         {@link #endPaint()} must be called once painting is done
+     */
+    public boolean beginPaint() {
+        if (painting) {
+            return false;
+        }
+        painting = true;
+        previousPaintContext = (PPaintContext) CURRENT_PAINT_CONTEXT.get();
+        CURRENT_PAINT_CONTEXT.set(this);
+        return true;
+    }
+
+    /**
+     * Restore the paint context that was current on the calling thread before
+     * {@link #beginPaint()} made this one current.
+     * 
+     * @since 4.0
+     */
+    public void endPaint() {
+        if (!painting) {
+            return;
+        }
+        painting = false;
+        if (previousPaintContext == null) {
+            CURRENT_PAINT_CONTEXT.remove();
+        }
+        else {
+            CURRENT_PAINT_CONTEXT.set(previousPaintContext);
+            previousPaintContext = null;
+        }
+    }
+
     /**
      * Returns the graphics context associated with this paint context.
      * 
@@ -138,12 +217,12 @@ public class PPaintContext {
      */
     public double getScale() {
         // x1, y1, x2, y2
-        PTS[0] = 0;
-        PTS[1] = 0;
-        PTS[2] = 1;
-        PTS[3] = 0;
-        graphics.getTransform().transform(PTS, 0, PTS, 0, 2);
-        return Point2D.distance(PTS[0], PTS[1], PTS[2], PTS[3]);
+        pts[0] = 0;
+        pts[1] = 0;
+        pts[2] = 1;
+        pts[3] = 0;
+        graphics.getTransform().transform(pts, 0, pts, 0, 2);
+        return Point2D.distance(pts[0], pts[1], pts[2], pts[3]);
     }
 
     /**
@@ -297,6 +376,77 @@ public class PPaintContext {
         }
     }
 
+    /**
+     * Return the factor applied to the greek threshold of text nodes painted
+     * with this paint context. Defaults to <code>1.0</code>.
+     * 
+     * @since 4.0
+     * @return the factor applied to the greek threshold of text nodes
+     */
+    public double getGreekThresholdScale() {
+        return greekThresholdScale;
+    }
+
+    /**
+     * Set the factor applied to the greek threshold of text nodes painted with
+     * this paint context. Factors above <code>1.0</code> render larger text
+     * as 'greek', which is cheaper than rendering glyphs.
+     * 
+     * @since 4.0
+     * @param greekThresholdScale factor applied to the greek threshold of
+     *            text nodes, must be at least zero
+     */
+    public void setGreekThresholdScale(final double greekThresholdScale) {
+        if (greekThresholdScale < 0.0d) {
+            throw new IllegalArgumentException("greekThresholdScale must be at least zero, was "
+                    + greekThresholdScale);
+        }
+        this.greekThresholdScale = greekThresholdScale;
+    }
+
+    /**
+     * Return the size in screen pixels below which nodes, including their
+     * children, are not painted with this paint context. Defaults to zero.
+     * 
+     * @since 4.0
+     * @return the size in screen pixels below which nodes are not painted
+     */
+    public double getMinimumScreenSize() {
+        return minimumScreenSize;
+    }
+
+    /**
+     * Set the size in screen pixels below which nodes, including their
+     * children, are not painted with this paint context. A node is below the
+     * size if the larger side of its full bounds is.
+     * 
+     * @since 4.0
+     * @param minimumScreenSize size in screen pixels below which nodes are not
+     *            painted, must be at least zero
+     */
+    public void setMinimumScreenSize(final double minimumScreenSize) {
+        if (minimumScreenSize < 0.0d) {
+            throw new IllegalArgumentException("minimumScreenSize must be at least zero, was " + minimumScreenSize);
+        }
+        this.minimumScreenSize = minimumScreenSize;
+    }
+
+    /**
+     * Return true if the specified bounds, in the current local coordinate
+     * system, are smaller on screen than the minimum screen size.
+     * 
+     * @since 4.0
+     * @param bounds bounds in the current local coordinate system
+     * @return true if the specified bounds are smaller on screen than the
+     *         minimum screen size
+     */
+    public boolean isBelowMinimumScreenSize(final Rectangle2D bounds) {
+        if (minimumScreenSize == 0.0d) {
+            return false;
+        }
+        return Math.max(bounds.getWidth(), bounds.getHeight()) * getScale() < minimumScreenSize;
+    }
+
     private void setRenderQualityToLow() {
         graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
         graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
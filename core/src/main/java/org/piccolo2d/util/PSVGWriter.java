@@ -0,0 +1,767 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.util;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.GradientPaint;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.font.TextLayout;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Base64;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.piccolo2d.PCamera;
+import org.piccolo2d.PLayer;
+import org.piccolo2d.PNode;
+import org.piccolo2d.nodes.PImage;
+import org.piccolo2d.nodes.PShape;
+import org.piccolo2d.nodes.PText;
+
+
+/**
+ * <b>PSVGWriter</b> writes a scene graph to a stream as an SVG document
+ * without rasterizing it.
+ * <p>
+ * The scene graph is walked the same way <code>fullPaint</code> walks it:
+ * invisible nodes are skipped, node transforms and transparencies are written
+ * as SVG groups, and subtrees whose full bounds do not intersect the export
+ * bounds are culled. Shapes are written as SVG paths, text as one SVG text
+ * element per line and images as embedded PNG data, written once per image
+ * and referenced by every node displaying it.
+ * </p>
+ * <p>
+ * Nodes other than shapes, text, images and cameras are written as
+ * their bounds filled with their paint, as <code>PNode.paint</code> does.
+ * Subclasses may override {@link #writeNodeContent} to write other node types.
+ * Paints other than colors and gradient paints are written as
+ * <code>none</code>.
+ * </p>
+ * <p>
+ * The document is written to the stream as the scene graph is walked, so
+ * memory use does not depend on the size of the scene.
+ * </p>
+ *
+ * @since 4.0
+ */
+public class PSVGWriter {
+
+    /** Number of fraction digits written for coordinates. */
+    private static final int FRACTION_DIGITS = 3;
+
+    /** Scale applied to coordinates before rounding to the fraction digits. */
+    private static final double FRACTION_SCALE = 1000.0d;
+
+    /** Writer the document is written to. */
+    private final Writer out;
+
+    /** Ids of images already written, keyed by image. */
+    private final Map/*<Image, String>*/ imageIds = new IdentityHashMap();
+
+    /** Reused buffer for formatting elements. */
+    private final StringBuilder buffer = new StringBuilder(256);
+
+    /** Stack of export bounds in the local coordinates of the current node. */
+    private final PStack localClipStack = new PStack();
+
+    /** Counter for generated ids. */
+    private int nextId;
+
+
+    /**
+     * Create a new SVG writer writing to the specified writer.
+     *
+     * @param out writer to write SVG documents to, must not be null
+     */
+    public PSVGWriter(final Writer out) {
+        if (out == null) {
+            throw new IllegalArgumentException("out must not be null");
+        }
+        this.out = out;
+    }
+
+
+    /**
+     * Write the specified node and its descendants as an SVG document. The
+     * document's view box is set to the export bounds, in the parent
+     * coordinates of the node. Subtrees outside of the export bounds are not
+     * written.
+     *
+     * @param node node to write, must not be null
+     * @param exportBounds bounds to export in the parent coordinates of
+     *            <code>node</code>, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(final PNode node, final Rectangle2D exportBounds) throws IOException {
+        if (node == null) {
+            throw new IllegalArgumentException("node must not be null");
+        }
+        if (exportBounds == null) {
+            throw new IllegalArgumentException("exportBounds must not be null");
+        }
+        buffer.setLength(0);
+        buffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        buffer.append("<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\"");
+        buffer.append(" version=\"1.1\" width=\"");
+        appendNumber(exportBounds.getWidth());
+        buffer.append("\" height=\"");
+        appendNumber(exportBounds.getHeight());
+        buffer.append("\" viewBox=\"");
+        appendNumber(exportBounds.getX());
+        buffer.append(' ');
+        appendNumber(exportBounds.getY());
+        buffer.append(' ');
+        appendNumber(exportBounds.getWidth());
+        buffer.append(' ');
+        appendNumber(exportBounds.getHeight());
+        buffer.append("\">\n");
+        flushBuffer();
+
+        localClipStack.clear();
+        localClipStack.push(new PBounds(exportBounds));
+        writeNode(node);
+        localClipStack.clear();
+
+        out.write("</svg>\n");
+        out.flush();
+    }
+
+    /**
+     * Write the specified node and its descendants if the node is visible and
+     * its full bounds intersect the export bounds.
+     *
+     * @param node node to write
+     * @throws IOException if an I/O error occurs
+     */
+    protected void writeNode(final PNode node) throws IOException {
+        final Rectangle2D localClip = getLocalClip();
+        if (!node.getVisible() || !node.fullIntersects(localClip)) {
+            return;
+        }
+
+        final PAffineTransform transform = node.getTransformReference(false);
+        final float transparency = node.getTransparency();
+        final boolean group = transform != null && !transform.isIdentity() || transparency < 1.0f;
+
+        if (group) {
+            buffer.setLength(0);
+            buffer.append("<g");
+            if (transform != null && !transform.isIdentity()) {
+                appendTransform(transform);
+            }
+            if (transparency < 1.0f) {
+                buffer.append(" opacity=\"");
+                appendNumber(transparency);
+                buffer.append('"');
+            }
+            buffer.append(">\n");
+            flushBuffer();
+        }
+
+        final Rectangle2D nodeClip;
+        if (transform == null) {
+            nodeClip = localClip;
+        }
+        else {
+            nodeClip = transform.inverseTransform(localClip, new PBounds());
+        }
+        localClipStack.push(nodeClip);
+
+        if (!node.getOccluded()) {
+            writeNodeContent(node);
+        }
+
+        final int count = node.getChildrenCount();
+        for (int i = 0; i < count; i++) {
+            writeNode(node.getChild(i));
+        }
+
+        localClipStack.pop();
+
+        if (group) {
+            out.write("</g>\n");
+        }
+    }
+
+    /**
+     * Write the content of the specified node, excluding its children, in the
+     * local coordinates of the node.
+     *
+     * @param node node whose content is written
+     * @throws IOException if an I/O error occurs
+     */
+    protected void writeNodeContent(final PNode node) throws IOException {
+        if (node instanceof PShape) {
+            final PShape shape = (PShape) node;
+            writeShape(shape.getShapeReference(), shape.getPaint(), shape.getStroke(), shape.getStrokePaint());
+        }
+        else if (node instanceof PText) {
+            writeShape(node.getBoundsReference(), node.getPaint(), null, null);
+            writeText((PText) node);
+        }
+        else if (node instanceof PImage) {
+            writeImage((PImage) node);
+        }
+        else if (node instanceof PCamera) {
+            writeShape(node.getBoundsReference(), node.getPaint(), null, null);
+            writeCameraView((PCamera) node);
+        }
+        else {
+            writeShape(node.getBoundsReference(), node.getPaint(), null, null);
+        }
+    }
+
+    /**
+     * Write the layers viewed by the specified camera, clipped to the bounds
+     * of the camera and transformed by its view transform.
+     *
+     * @param camera camera whose view is written
+     * @throws IOException if an I/O error occurs
+     */
+    protected void writeCameraView(final PCamera camera) throws IOException {
+        final PBounds cameraBounds = camera.getBoundsReference();
+        final String clipId = "clip" + nextId++;
+
+        buffer.setLength(0);
+        buffer.append("<clipPath id=\"").append(clipId).append("\"><rect x=\"");
+        appendNumber(cameraBounds.getX());
+        buffer.append("\" y=\"");
+        appendNumber(cameraBounds.getY());
+        buffer.append("\" width=\"");
+        appendNumber(cameraBounds.getWidth());
+        buffer.append("\" height=\"");
+        appendNumber(cameraBounds.getHeight());
+        buffer.append("\"/></clipPath>\n<g clip-path=\"url(#").append(clipId).append(")\">\n<g");
+        appendTransform(camera.getViewTransformReference());
+        buffer.append(">\n");
+        flushBuffer();
+
+        final Rectangle2D viewClip = cameraBounds.createIntersection(getLocalClip());
+        localClipStack.push(camera.getViewTransformReference().inverseTransform(viewClip, new PBounds()));
+        final int count = camera.getLayerCount();
+        for (int i = 0; i < count; i++) {
+            final PLayer layer = camera.getLayer(i);
+            writeNode(layer);
+        }
+        localClipStack.pop();
+
+        out.write("</g>\n</g>\n");
+    }
+
+    /**
+     * Write the specified shape, filled with the specified paint and stroked
+     * with the specified stroke and stroke paint. Strokes other than
+     * <code>BasicStroke</code> are written as their filled outline.
+     *
+     * @param shape shape to write
+     * @param paint fill paint, may be null
+     * @param stroke stroke, may be null
+     * @param strokePaint stroke paint, may be null
+     * @throws IOException if an I/O error occurs
+     */
+    protected void writeShape(final Shape shape, final Paint paint, final Stroke stroke, final Paint strokePaint)
+            throws IOException {
+        final boolean stroked = stroke != null && strokePaint != null;
+        if (paint == null && !stroked) {
+            return;
+        }
+
+        if (stroked && !(stroke instanceof BasicStroke)) {
+            writeShape(shape, paint, null, null);
+            writeShape(stroke.createStrokedShape(shape), strokePaint, null, null);
+            return;
+        }
+
+        final String fillGradient = writeGradient(paint);
+        String strokeGradient = null;
+        if (stroked) {
+            strokeGradient = writeGradient(strokePaint);
+        }
+
+        buffer.setLength(0);
+        buffer.append("<path d=\"");
+        appendPathData(shape);
+        buffer.append('"');
+        appendPaint("fill", paint, fillGradient);
+        appendFillRule(shape);
+        if (stroked) {
+            appendPaint("stroke", strokePaint, strokeGradient);
+            appendBasicStroke((BasicStroke) stroke);
+        }
+        buffer.append("/>\n");
+        flushBuffer();
+    }
+
+    /**
+     * Write the lines of the specified text node as SVG text elements.
+     *
+     * @param text text node to write
+     * @throws IOException if an I/O error occurs
+     */
+    protected void writeText(final PText text) throws IOException {
+        final String string = text.getText();
+        final Paint textPaint = text.getTextPaint();
+        if (string == null || string.length() == 0 || textPaint == null) {
+            return;
+        }
+
+        final Font font = text.getFont();
+        final TextLayout[] layouts = text.getTextLayouts();
+        final double x = text.getX();
+        final double bottomY = text.getY() + text.getHeight();
+        double y = text.getY();
+        final String gradientId = writeGradient(textPaint);
+        int offset = 0;
+
+        for (int i = 0; i < layouts.length; i++) {
+            final TextLayout layout = layouts[i];
+            final int length = layout.getCharacterCount();
+            y += layout.getAscent();
+            if (bottomY < y) {
+                break;
+            }
+
+            int end = Math.min(offset + length, string.length());
+            while (end > offset && (string.charAt(end - 1) == '\n' || string.charAt(end - 1) == '\r')) {
+                end--;
+            }
+            if (end > offset) {
+                final double alignmentOffset = (text.getWidth() - layout.getAdvance())
+                        * text.getHorizontalAlignment();
+
+                buffer.setLength(0);
+                buffer.append("<text x=\"");
+                appendNumber(x + alignmentOffset);
+                buffer.append("\" y=\"");
+                appendNumber(y);
+                buffer.append("\" font-family=\"");
+                appendEscaped(font.getFamily());
+                buffer.append("\" font-size=\"");
+                appendNumber(font.getSize2D());
+                buffer.append('"');
+                if (font.isBold()) {
+                    buffer.append(" font-weight=\"bold\"");
+                }
+                if (font.isItalic()) {
+                    buffer.append(" font-style=\"italic\"");
+                }
+                appendPaint("fill", textPaint, gradientId);
+                buffer.append(" xml:space=\"preserve\">");
+                appendEscaped(string.substring(offset, end));
+                buffer.append("</text>\n");
+                flushBuffer();
+            }
+
+            offset += length;
+            y += layout.getDescent() + layout.getLeading();
+        }
+    }
+
+    /**
+     * Write the specified image node. The image data is written once, the
+     * first time the image is encountered, and referenced afterwards.
+     *
+     * @param imageNode image node to write
+     * @throws IOException if an I/O error occurs
+     */
+    protected void writeImage(final PImage imageNode) throws IOException {
+        final Image image = imageNode.getImage();
+        if (image == null) {
+            return;
+        }
+        final double iw = image.getWidth(null);
+        final double ih = image.getHeight(null);
+        if (iw <= 0 || ih <= 0) {
+            return;
+        }
+
+        String id = (String) imageIds.get(image);
+        if (id == null) {
+            id = "image" + nextId++;
+            imageIds.put(image, id);
+            writeImageDefinition(id, PImage.toBufferedImage(image, false));
+        }
+
+        final PBounds b = imageNode.getBoundsReference();
+        buffer.setLength(0);
+        buffer.append("<use xlink:href=\"#").append(id).append('"');
+        appendTransform(new AffineTransform(b.width / iw, 0, 0, b.height / ih, b.x, b.y));
+        buffer.append("/>\n");
+        flushBuffer();
+    }
+
+    /**
+     * Write the definition of the specified image as embedded PNG data.
+     *
+     * @param id id of the image definition
+     * @param image image to write
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeImageDefinition(final String id, final BufferedImage image) throws IOException {
+        buffer.setLength(0);
+        buffer.append("<defs><image id=\"").append(id).append("\" width=\"").append(image.getWidth());
+        buffer.append("\" height=\"").append(image.getHeight()).append("\" xlink:href=\"data:image/png;base64,");
+        flushBuffer();
+
+        final OutputStream base64 = Base64.getEncoder().wrap(new WriterOutputStream(out));
+        ImageIO.write(image, "png", base64);
+        base64.close();
+
+        out.write("\"/></defs>\n");
+    }
+
+    /**
+     * Append the SVG path data of the specified shape to the buffer.
+     *
+     * @param shape shape
+     */
+    private void appendPathData(final Shape shape) {
+        final double[] coords = new double[6];
+        final PathIterator i = shape.getPathIterator(null);
+        boolean first = true;
+        while (!i.isDone()) {
+            final int type = i.currentSegment(coords);
+            if (!first) {
+                buffer.append(' ');
+            }
+            first = false;
+            switch (type) {
+                case PathIterator.SEG_MOVETO:
+                    buffer.append('M');
+                    appendCoordinates(coords, 1);
+                    break;
+                case PathIterator.SEG_LINETO:
+                    buffer.append('L');
+                    appendCoordinates(coords, 1);
+                    break;
+                case PathIterator.SEG_QUADTO:
+                    buffer.append('Q');
+                    appendCoordinates(coords, 2);
+                    break;
+                case PathIterator.SEG_CUBICTO:
+                    buffer.append('C');
+                    appendCoordinates(coords, 3);
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    buffer.append('Z');
+                    break;
+                default:
+                    throw new IllegalStateException("unknown path segment type " + type);
+            }
+            i.next();
+        }
+    }
+
+    /**
+     * Append the fill rule attribute of the specified shape, if it is not the
+     * SVG default.
+     *
+     * @param shape shape
+     */
+    private void appendFillRule(final Shape shape) {
+        if (shape.getPathIterator(null).getWindingRule() == PathIterator.WIND_EVEN_ODD) {
+            buffer.append(" fill-rule=\"evenodd\"");
+        }
+    }
+
+    private void appendCoordinates(final double[] coords, final int points) {
+        for (int j = 0; j < points; j++) {
+            if (j > 0) {
+                buffer.append(' ');
+            }
+            appendNumber(coords[2 * j]);
+            buffer.append(',');
+            appendNumber(coords[2 * j + 1]);
+        }
+    }
+
+    /**
+     * Append the specified transform as an SVG transform attribute.
+     *
+     * @param transform transform
+     */
+    private void appendTransform(final AffineTransform transform) {
+        buffer.append(" transform=\"matrix(");
+        appendNumber(transform.getScaleX());
+        buffer.append(' ');
+        appendNumber(transform.getShearY());
+        buffer.append(' ');
+        appendNumber(transform.getShearX());
+        buffer.append(' ');
+        appendNumber(transform.getScaleY());
+        buffer.append(' ');
+        appendNumber(transform.getTranslateX());
+        buffer.append(' ');
+        appendNumber(transform.getTranslateY());
+        buffer.append(")\"");
+    }
+
+    /**
+     * Write a gradient definition for the specified paint if it is a gradient
+     * paint.
+     *
+     * @param paint paint, may be null
+     * @return the id of the gradient definition, or null if the paint is not
+     *         a gradient paint
+     * @throws IOException if an I/O error occurs
+     */
+    private String writeGradient(final Paint paint) throws IOException {
+        if (!(paint instanceof GradientPaint)) {
+            return null;
+        }
+        final GradientPaint gradient = (GradientPaint) paint;
+        final String id = "gradient" + nextId++;
+        buffer.setLength(0);
+        buffer.append("<linearGradient id=\"").append(id).append("\" gradientUnits=\"userSpaceOnUse\" x1=\"");
+        appendNumber(gradient.getPoint1().getX());
+        buffer.append("\" y1=\"");
+        appendNumber(gradient.getPoint1().getY());
+        buffer.append("\" x2=\"");
+        appendNumber(gradient.getPoint2().getX());
+        buffer.append("\" y2=\"");
+        appendNumber(gradient.getPoint2().getY());
+        buffer.append('"');
+        if (gradient.isCyclic()) {
+            buffer.append(" spreadMethod=\"reflect\"");
+        }
+        buffer.append(">");
+        appendGradientStop(0, gradient.getColor1());
+        appendGradientStop(1, gradient.getColor2());
+        buffer.append("</linearGradient>\n");
+        flushBuffer();
+        return id;
+    }
+
+    /**
+     * Append the specified paint as the specified SVG paint attribute.
+     *
+     * @param attribute <code>fill</code> or <code>stroke</code>
+     * @param paint paint, may be null
+     * @param gradientId id of the gradient definition written for
+     *            <code>paint</code>, or null
+     */
+    private void appendPaint(final String attribute, final Paint paint, final String gradientId) {
+        buffer.append(' ').append(attribute).append("=\"");
+        if (paint instanceof Color) {
+            final Color color = (Color) paint;
+            appendColor(color);
+            buffer.append('"');
+            if (color.getAlpha() < 255) {
+                buffer.append(' ').append(attribute).append("-opacity=\"");
+                appendNumber(color.getAlpha() / 255.0d);
+                buffer.append('"');
+            }
+        }
+        else if (gradientId != null) {
+            buffer.append("url(#").append(gradientId).append(")\"");
+        }
+        else {
+            buffer.append("none\"");
+        }
+    }
+
+    private void appendGradientStop(final int offset, final Color color) {
+        buffer.append("<stop offset=\"").append(offset).append("\" stop-color=\"");
+        appendColor(color);
+        buffer.append("\" stop-opacity=\"");
+        appendNumber(color.getAlpha() / 255.0d);
+        buffer.append("\"/>");
+    }
+
+    private void appendColor(final Color color) {
+        final String hex = Integer.toHexString(color.getRGB() & 0xffffff | 0x1000000);
+        buffer.append('#').append(hex, 1, hex.length());
+    }
+
+    /**
+     * Append the attributes of the specified basic stroke.
+     *
+     * @param stroke stroke
+     */
+    private void appendBasicStroke(final BasicStroke stroke) {
+        buffer.append(" stroke-width=\"");
+        appendNumber(stroke.getLineWidth());
+        buffer.append('"');
+        switch (stroke.getEndCap()) {
+            case BasicStroke.CAP_ROUND:
+                buffer.append(" stroke-linecap=\"round\"");
+                break;
+            case BasicStroke.CAP_SQUARE:
+                buffer.append(" stroke-linecap=\"square\"");
+                break;
+            default:
+                break;
+        }
+        switch (stroke.getLineJoin()) {
+            case BasicStroke.JOIN_ROUND:
+                buffer.append(" stroke-linejoin=\"round\"");
+                break;
+            case BasicStroke.JOIN_BEVEL:
+                buffer.append(" stroke-linejoin=\"bevel\"");
+                break;
+            default:
+                buffer.append(" stroke-miterlimit=\"");
+                appendNumber(stroke.getMiterLimit());
+                buffer.append('"');
+                break;
+        }
+        final float[] dash = stroke.getDashArray();
+        if (dash != null && dash.length > 0) {
+            buffer.append(" stroke-dasharray=\"");
+            for (int i = 0; i < dash.length; i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                appendNumber(dash[i]);
+            }
+            buffer.append("\" stroke-dashoffset=\"");
+            appendNumber(stroke.getDashPhase());
+            buffer.append('"');
+        }
+    }
+
+    /**
+     * Append the specified number with at most three fraction digits and
+     * without exponent.
+     *
+     * @param value number
+     */
+    private void appendNumber(final double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            buffer.append('0');
+            return;
+        }
+        long scaled = Math.round(value * FRACTION_SCALE);
+        if (scaled < 0) {
+            buffer.append('-');
+            scaled = -scaled;
+        }
+        final long integer = scaled / (long) FRACTION_SCALE;
+        long fraction = scaled % (long) FRACTION_SCALE;
+        buffer.append(integer);
+        if (fraction != 0) {
+            buffer.append('.');
+            int digits = FRACTION_DIGITS;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                digits--;
+            }
+            final String fractionString = Long.toString(fraction);
+            for (int i = fractionString.length(); i < digits; i++) {
+                buffer.append('0');
+            }
+            buffer.append(fractionString);
+        }
+    }
+
+    /**
+     * Append the specified string with XML special characters escaped.
+     *
+     * @param string string
+     */
+    private void appendEscaped(final String string) {
+        for (int i = 0; i < string.length(); i++) {
+            final char c = string.charAt(i);
+            switch (c) {
+                case '<':
+                    buffer.append("&lt;");
+                    break;
+                case '>':
+                    buffer.append("&gt;");
+                    break;
+                case '&':
+                    buffer.append("&amp;");
+                    break;
+                case '"':
+                    buffer.append("&quot;");
+                    break;
+                default:
+                    if (c < 0x20 && c != '\t' && c != '\n' && c != '\r') {
+                        break;
+                    }
+                    buffer.append(c);
+                    break;
+            }
+        }
+    }
+
+    private Rectangle2D getLocalClip() {
+        return (Rectangle2D) localClipStack.peek();
+    }
+
+    private void flushBuffer() throws IOException {
+        out.append(buffer);
+        buffer.setLength(0);
+    }
+
+
+    /**
+     * Output stream writing bytes as ISO-8859-1 characters to a writer, used
+     * to stream base64 encoded image data into the document.
+     */
+    private static final class WriterOutputStream extends OutputStream {
+
+        /** Writer to write to. */
+        private final Writer writer;
+
+        WriterOutputStream(final Writer writer) {
+            this.writer = writer;
+        }
+
+        /** {@inheritDoc} */
+        public void write(final int b) throws IOException {
+            writer.write(b & 0xff);
+        }
+
+        /** {@inheritDoc} */
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                writer.write(b[i] & 0xff);
+            }
+        }
+
+        /** {@inheritDoc} */
+        public void close() {
+            // the writer is owned by the SVG writer
+        }
+    }
+}
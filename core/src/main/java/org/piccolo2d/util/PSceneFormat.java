@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.util;
+
+/**
+ * Constants of the binary scene format written by {@link PSceneWriter} and
+ * read by {@link PSceneReader}.
+ * <p>
+ * A scene file starts with a header of the magic number, the format version
+ * and a flags byte. If the compressed flag is set the remainder of the file
+ * is deflate compressed. The body consists of the paint, stroke, font and
+ * image dictionaries followed by the node table, which holds one record per
+ * node in depth first order. Each node record ends with the number of child
+ * records following it. Strings are written as the length of their UTF-8
+ * encoding followed by the encoded bytes.
+ * </p>
+ * <p>
+ * If the indexed flag is set, which requires an uncompressed body, the node
+ * table is followed by an index holding for each node, by ordinal, the file
+ * offset of its record, the number of nodes in its subtree and its full
+ * bounds. The file ends with the file offset of the index, which allows
+ * subtrees to be located and skipped without reading them.
+ * </p>
+ *
+ * @since 4.0
+ */
+final class PSceneFormat {
+
+    /** Magic number identifying a scene file, <code>"P2DS"</code>. */
+    static final int MAGIC = 0x50324453;
+
+    /** Current format version. */
+    static final short VERSION = 1;
+
+    /** Header flag indicating the body is deflate compressed. */
+    static final int FLAG_COMPRESSED = 1;
+
+    /** Header flag indicating the node table is followed by an index. */
+    static final int FLAG_INDEXED = 1 << 1;
+
+    /** Size in bytes of the header. */
+    static final int HEADER_SIZE = 7;
+
+    /** Size in bytes of an index entry. */
+    static final int INDEX_ENTRY_SIZE = 40;
+
+    /** Size in bytes of the trailer holding the file offset of the index. */
+    static final int TRAILER_SIZE = 8;
+
+    /** Node type code for <code>PNode</code>. */
+    static final byte NODE = 0;
+
+    /** Node type code for <code>PPath.Float</code>. */
+    static final byte PATH_FLOAT = 1;
+
+    /** Node type code for <code>PPath.Double</code>. */
+    static final byte PATH_DOUBLE = 2;
+
+    /** Node type code for <code>PText</code>. */
+    static final byte TEXT = 3;
+
+    /** Node type code for <code>PImage</code>. */
+    static final byte IMAGE = 4;
+
+    /** Node type code for <code>PLayer</code>. */
+    static final byte LAYER = 5;
+
+    /** Node type code for <code>PCamera</code>. */
+    static final byte CAMERA = 6;
+
+    /** Node type code for <code>PRoot</code>. */
+    static final byte ROOT = 7;
+
+    /** Node flag indicating the node is visible. */
+    static final int NODE_VISIBLE = 1;
+
+    /** Node flag indicating the node is pickable. */
+    static final int NODE_PICKABLE = 1 << 1;
+
+    /** Node flag indicating the children of the node are pickable. */
+    static final int NODE_CHILDREN_PICKABLE = 1 << 2;
+
+    /** Node flag indicating a transform follows the bounds. */
+    static final int NODE_TRANSFORM = 1 << 3;
+
+    /** Node flag indicating a name follows the paint index. */
+    static final int NODE_NAME = 1 << 4;
+
+    /** Dictionary entry type code for a color. */
+    static final byte PAINT_COLOR = 1;
+
+    /** Dictionary entry type code for a gradient paint. */
+    static final byte PAINT_GRADIENT = 2;
+
+    /** Dictionary entry type code for a basic stroke. */
+    static final byte STROKE_BASIC = 1;
+
+    /** Dictionary entry type code for a Java serialized paint or stroke. */
+    static final byte SERIALIZED = 3;
+
+    /** Index written in place of a dictionary entry for null. */
+    static final int NONE = -1;
+
+
+    private PSceneFormat() {
+        // empty
+    }
+}
@@ -0,0 +1,607 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.util;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.GradientPaint;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Stroke;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.InflaterInputStream;
+
+import javax.imageio.ImageIO;
+
+import org.piccolo2d.PCamera;
+import org.piccolo2d.PLayer;
+import org.piccolo2d.PNode;
+import org.piccolo2d.PRoot;
+import org.piccolo2d.nodes.PImage;
+import org.piccolo2d.nodes.PPath;
+import org.piccolo2d.nodes.PText;
+
+
+/**
+ * <b>PSceneReader</b> reads a scene graph written by {@link PSceneWriter}.
+ *
+ * @since 4.0
+ */
+public class PSceneReader {
+
+    /**
+     * Largest number of entries allocated before they are read, so that a
+     * corrupt count fails at the end of the stream instead of exhausting
+     * memory.
+     */
+    private static final int MAX_PREALLOCATED = 4096;
+
+    /** Stream read from. */
+    private final InputStream in;
+
+    /** Paint dictionary. */
+    private Paint[] paints;
+
+    /** Stroke dictionary. */
+    private Stroke[] strokes;
+
+    /** Font dictionary. */
+    private Font[] fonts;
+
+    /** Image dictionary. */
+    private Image[] images;
+
+    /** Nodes read so far, in depth first order. */
+    private PNode[] nodes;
+
+    /** Number of nodes read so far. */
+    private int nodeCount;
+
+    /** Number of nodes of the scene. */
+    private int nodeLimit;
+
+    /** Cameras read so far paired with the ordinals of their layers. */
+    private final List/*<Object>*/ cameraLayers = new ArrayList();
+
+
+    /**
+     * Create a new scene reader reading scenes from the specified input
+     * stream.
+     *
+     * @param in input stream, must not be null
+     */
+    public PSceneReader(final InputStream in) {
+        if (in == null) {
+            throw new IllegalArgumentException("in must not be null");
+        }
+        this.in = in;
+    }
+
+
+    /**
+     * Read a scene and return its top node. The input stream is buffered and
+     * may be read past the end of the scene; it is not closed.
+     *
+     * @return the top node of the scene read
+     * @throws IOException if an I/O error occurs or the stream does not hold
+     *             a scene in a supported version of the format
+     * @throws ClassNotFoundException if the class of a Java serialized paint
+     *             or stroke can not be found
+     */
+    public PNode read() throws IOException, ClassNotFoundException {
+        final InputStream bufferedIn = new BufferedInputStream(in);
+        final DataInputStream header = new DataInputStream(bufferedIn);
+        final int flags = readHeader(header);
+
+        final DataInputStream body;
+        if ((flags & PSceneFormat.FLAG_COMPRESSED) != 0) {
+            body = new DataInputStream(new BufferedInputStream(new InflaterInputStream(bufferedIn)));
+        }
+        else {
+            body = header;
+        }
+
+        try {
+            readDictionaries(body);
+            nodeLimit = readCount(body, "node count");
+            nodes = new PNode[Math.min(nodeLimit, MAX_PREALLOCATED)];
+            nodeCount = 0;
+            final PNode node = readNode(body);
+            resolveCameraLayers();
+            return node;
+        }
+        finally {
+            paints = null;
+            strokes = null;
+            fonts = null;
+            images = null;
+            nodes = null;
+            cameraLayers.clear();
+        }
+    }
+
+    /**
+     * Read the header of a scene and return its flags.
+     *
+     * @param header stream to read from
+     * @return the flags of the scene
+     * @throws IOException if an I/O error occurs or the stream does not hold
+     *             a scene in a supported version of the format
+     */
+    static int readHeader(final DataInput header) throws IOException {
+        final int magic = header.readInt();
+        if (magic != PSceneFormat.MAGIC) {
+            throw new StreamCorruptedException("not a scene stream, magic was " + Integer.toHexString(magic));
+        }
+        final short version = header.readShort();
+        if (version > PSceneFormat.VERSION) {
+            throw new StreamCorruptedException("unsupported scene format version " + version);
+        }
+        return header.readUnsignedByte();
+    }
+
+    /**
+     * Read the paint, stroke, font and image dictionaries.
+     *
+     * @param body stream to read from
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if the class of a Java serialized entry
+     *             can not be found
+     */
+    void readDictionaries(final DataInput body) throws IOException, ClassNotFoundException {
+        final int paintCount = readCount(body, "paint count");
+        final List paintList = new ArrayList(Math.min(paintCount, MAX_PREALLOCATED));
+        for (int i = 0; i < paintCount; i++) {
+            paintList.add(readPaint(body));
+        }
+        paints = (Paint[]) paintList.toArray(new Paint[paintCount]);
+
+        final int strokeCount = readCount(body, "stroke count");
+        final List strokeList = new ArrayList(Math.min(strokeCount, MAX_PREALLOCATED));
+        for (int i = 0; i < strokeCount; i++) {
+            strokeList.add(readStroke(body));
+        }
+        strokes = (Stroke[]) strokeList.toArray(new Stroke[strokeCount]);
+
+        final int fontCount = readCount(body, "font count");
+        final List fontList = new ArrayList(Math.min(fontCount, MAX_PREALLOCATED));
+        for (int i = 0; i < fontCount; i++) {
+            final String name = readString(body);
+            final int style = body.readInt();
+            final float size = body.readFloat();
+            fontList.add(new Font(name, style, 1).deriveFont(size));
+        }
+        fonts = (Font[]) fontList.toArray(new Font[fontCount]);
+
+        final int imageCount = readCount(body, "image count");
+        final List imageList = new ArrayList(Math.min(imageCount, MAX_PREALLOCATED));
+        for (int i = 0; i < imageCount; i++) {
+            imageList.add(ImageIO.read(new ByteArrayInputStream(readBytes(body, "image size"))));
+        }
+        images = (Image[]) imageList.toArray(new Image[imageCount]);
+    }
+
+    private static Paint readPaint(final DataInput body) throws IOException, ClassNotFoundException {
+        final byte type = body.readByte();
+        switch (type) {
+            case PSceneFormat.PAINT_COLOR:
+                return new Color(body.readInt(), true);
+            case PSceneFormat.PAINT_GRADIENT:
+                final float x1 = body.readFloat();
+                final float y1 = body.readFloat();
+                final Color color1 = new Color(body.readInt(), true);
+                final float x2 = body.readFloat();
+                final float y2 = body.readFloat();
+                final Color color2 = new Color(body.readInt(), true);
+                return new GradientPaint(x1, y1, color1, x2, y2, color2, body.readBoolean());
+            case PSceneFormat.SERIALIZED:
+                return (Paint) readSerialized(body);
+            default:
+                throw new StreamCorruptedException("unknown paint type " + type);
+        }
+    }
+
+    private static Stroke readStroke(final DataInput body) throws IOException, ClassNotFoundException {
+        final byte type = body.readByte();
+        switch (type) {
+            case PSceneFormat.STROKE_BASIC:
+                final float width = body.readFloat();
+                final int cap = body.readByte();
+                final int join = body.readByte();
+                final float miterLimit = body.readFloat();
+                final int dashLength = body.readInt();
+                float[] dash = null;
+                if (dashLength != PSceneFormat.NONE) {
+                    if (dashLength < 0) {
+                        throw new StreamCorruptedException("negative dash length " + dashLength);
+                    }
+                    dash = readFloats(body, dashLength);
+                }
+                return new BasicStroke(width, cap, join, miterLimit, dash, body.readFloat());
+            case PSceneFormat.SERIALIZED:
+                return (Stroke) readSerialized(body);
+            default:
+                throw new StreamCorruptedException("unknown stroke type " + type);
+        }
+    }
+
+    private static Object readSerialized(final DataInput body) throws IOException, ClassNotFoundException {
+        final byte[] bytes = readBytes(body, "serialized size");
+        final ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(bytes));
+        try {
+            return objectIn.readObject();
+        }
+        finally {
+            objectIn.close();
+        }
+    }
+
+    private static String readString(final DataInput body) throws IOException {
+        return new String(readBytes(body, "string length"), "UTF-8");
+    }
+
+    /**
+     * Read a count of entries.
+     *
+     * @param body stream to read from
+     * @param what name of the count, for error messages
+     * @return the count read
+     * @throws IOException if an I/O error occurs or the count is negative
+     */
+    private static int readCount(final DataInput body, final String what) throws IOException {
+        final int count = body.readInt();
+        if (count < 0) {
+            throw new StreamCorruptedException("negative " + what + " " + count);
+        }
+        return count;
+    }
+
+    /**
+     * Read a count of bytes followed by the bytes. The array grows as the
+     * bytes are read, so that a count larger than the bytes left in the stream
+     * fails at the end of the stream.
+     *
+     * @param body stream to read from
+     * @param what name of the count, for error messages
+     * @return the bytes read
+     * @throws IOException if an I/O error occurs, the count is negative or
+     *             the stream ends before the bytes
+     */
+    private static byte[] readBytes(final DataInput body, final String what) throws IOException {
+        final int length = readCount(body, what);
+        byte[] bytes = new byte[Math.min(length, MAX_PREALLOCATED)];
+        body.readFully(bytes);
+        while (bytes.length < length) {
+            final int read = bytes.length;
+            final byte[] grown = new byte[(int) Math.min(length, 2L * read)];
+            System.arraycopy(bytes, 0, grown, 0, read);
+            body.readFully(grown, read, grown.length - read);
+            bytes = grown;
+        }
+        return bytes;
+    }
+
+    /**
+     * Read the specified number of floats, growing the array as they are read.
+     *
+     * @param body stream to read from
+     * @param count number of floats, at least zero
+     * @return the floats read
+     * @throws IOException if an I/O error occurs or the stream ends before
+     *             the floats
+     */
+    private static float[] readFloats(final DataInput body, final int count) throws IOException {
+        float[] values = new float[Math.min(count, MAX_PREALLOCATED)];
+        for (int i = 0; i < count; i++) {
+            if (i == values.length) {
+                final float[] grown = new float[(int) Math.min(count, 2L * i)];
+                System.arraycopy(values, 0, grown, 0, i);
+                values = grown;
+            }
+            values[i] = body.readFloat();
+        }
+        return values;
+    }
+
+    /**
+     * Read the specified number of ints, growing the array as they are read.
+     *
+     * @param body stream to read from
+     * @param count number of ints, at least zero
+     * @return the ints read
+     * @throws IOException if an I/O error occurs or the stream ends before
+     *             the ints
+     */
+    private static int[] readInts(final DataInput body, final int count) throws IOException {
+        int[] values = new int[Math.min(count, MAX_PREALLOCATED)];
+        for (int i = 0; i < count; i++) {
+            if (i == values.length) {
+                final int[] grown = new int[(int) Math.min(count, 2L * i)];
+                System.arraycopy(values, 0, grown, 0, i);
+                values = grown;
+            }
+            values[i] = body.readInt();
+        }
+        return values;
+    }
+
+    private static Object entry(final Object[] entries, final int index) throws StreamCorruptedException {
+        if (index == PSceneFormat.NONE) {
+            return null;
+        }
+        if (index < 0 || index >= entries.length) {
+            throw new StreamCorruptedException("dictionary index " + index + " out of range");
+        }
+        return entries[index];
+    }
+
+    /**
+     * Read a node record and the records of its descendants.
+     *
+     * @param body stream to read from
+     * @return the node read
+     * @throws IOException if an I/O error occurs
+     */
+    private PNode readNode(final DataInput body) throws IOException {
+        final PNode node = readNodeRecord(body);
+        if (nodeCount >= nodeLimit) {
+            throw new StreamCorruptedException("more node records than the node count " + nodeLimit);
+        }
+        if (nodeCount == nodes.length) {
+            final PNode[] grown = new PNode[(int) Math.min(nodeLimit, 2L * nodeCount)];
+            System.arraycopy(nodes, 0, grown, 0, nodeCount);
+            nodes = grown;
+        }
+        nodes[nodeCount++] = node;
+
+        final int childCount = body.readInt();
+        for (int i = 0; i < childCount; i++) {
+            node.addChild(readNode(body));
+        }
+        return node;
+    }
+
+    /**
+     * Read a node record up to, but not including, its child count. The
+     * layers of a camera read are added to the pending camera layers.
+     *
+     * @param body stream to read from
+     * @return the node read, without children
+     * @throws IOException if an I/O error occurs
+     */
+    PNode readNodeRecord(final DataInput body) throws IOException {
+        final byte type = body.readByte();
+        final int flags = body.readUnsignedByte();
+        final double x = body.readDouble();
+        final double y = body.readDouble();
+        final double width = body.readDouble();
+        final double height = body.readDouble();
+
+        AffineTransform transform = null;
+        if ((flags & PSceneFormat.NODE_TRANSFORM) != 0) {
+            transform = readTransform(body);
+        }
+        final Paint paint = (Paint) entry(paints, body.readInt());
+        final float transparency = body.readFloat();
+        String name = null;
+        if ((flags & PSceneFormat.NODE_NAME) != 0) {
+            name = readString(body);
+        }
+
+        final PNode node;
+        switch (type) {
+            case PSceneFormat.NODE:
+                node = new PNode();
+                break;
+            case PSceneFormat.PATH_FLOAT:
+            case PSceneFormat.PATH_DOUBLE:
+                node = readPath(type == PSceneFormat.PATH_DOUBLE, body);
+                break;
+            case PSceneFormat.TEXT:
+                node = readText(body);
+                break;
+            case PSceneFormat.IMAGE:
+                node = new PImage((Image) entry(images, body.readInt()));
+                break;
+            case PSceneFormat.LAYER:
+                node = new PLayer();
+                break;
+            case PSceneFormat.CAMERA:
+                node = readCamera(body);
+                break;
+            case PSceneFormat.ROOT:
+                node = new PRoot();
+                break;
+            default:
+                throw new StreamCorruptedException("unknown node type " + type);
+        }
+
+        // the bounds of a path follow from its shape
+        if (!(node instanceof PPath)) {
+            node.setBounds(x, y, width, height);
+        }
+        if (transform != null) {
+            node.setTransform(transform);
+        }
+        node.setPaint(paint);
+        node.setTransparency(transparency);
+        node.setName(name);
+        node.setVisible((flags & PSceneFormat.NODE_VISIBLE) != 0);
+        node.setPickable((flags & PSceneFormat.NODE_PICKABLE) != 0);
+        node.setChildrenPickable((flags & PSceneFormat.NODE_CHILDREN_PICKABLE) != 0);
+        return node;
+    }
+
+    private static AffineTransform readTransform(final DataInput body) throws IOException {
+        final double[] matrix = new double[6];
+        for (int i = 0; i < matrix.length; i++) {
+            matrix[i] = body.readDouble();
+        }
+        return new AffineTransform(matrix);
+    }
+
+    private PPath readPath(final boolean doublePrecision, final DataInput body) throws IOException {
+        final Stroke stroke = (Stroke) entry(strokes, body.readInt());
+        final Paint strokePaint = (Paint) entry(paints, body.readInt());
+        final int windingRule = body.readByte();
+        final byte[] types = readBytes(body, "path segment count");
+        final int coordinateCount = body.readInt();
+
+        final Path2D path;
+        if (doublePrecision) {
+            path = new Path2D.Double(windingRule, types.length);
+        }
+        else {
+            path = new Path2D.Float(windingRule, types.length);
+        }
+        final double[] segment = new double[6];
+        int coordinatesRead = 0;
+        for (int i = 0; i < types.length; i++) {
+            final int count = PSceneWriter.coordinateCount(types[i]);
+            coordinatesRead += count;
+            if (coordinatesRead > coordinateCount) {
+                throw new StreamCorruptedException("path segments exceed coordinate count " + coordinateCount);
+            }
+            for (int j = 0; j < count; j++) {
+                segment[j] = doublePrecision ? body.readDouble() : body.readFloat();
+            }
+            switch (types[i]) {
+                case PathIterator.SEG_MOVETO:
+                    path.moveTo(segment[0], segment[1]);
+                    break;
+                case PathIterator.SEG_LINETO:
+                    path.lineTo(segment[0], segment[1]);
+                    break;
+                case PathIterator.SEG_QUADTO:
+                    path.quadTo(segment[0], segment[1], segment[2], segment[3]);
+                    break;
+                case PathIterator.SEG_CUBICTO:
+                    path.curveTo(segment[0], segment[1], segment[2], segment[3], segment[4], segment[5]);
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    path.closePath();
+                    break;
+                default:
+                    throw new StreamCorruptedException("unknown path segment type " + types[i]);
+            }
+        }
+        if (coordinatesRead != coordinateCount) {
+            throw new StreamCorruptedException("path coordinate count mismatch, expected " + coordinateCount
+                    + " was " + coordinatesRead);
+        }
+
+        final PPath node;
+        if (doublePrecision) {
+            node = new PPath.Double((Path2D.Double) path, stroke);
+        }
+        else {
+            node = new PPath.Float((Path2D.Float) path, stroke);
+        }
+        node.setStrokePaint(strokePaint);
+        return node;
+    }
+
+    private PText readText(final DataInput body) throws IOException {
+        final String text = readString(body);
+        final boolean nullText = body.readBoolean();
+        final Font font = (Font) entry(fonts, body.readInt());
+        final Paint textPaint = (Paint) entry(paints, body.readInt());
+
+        final PText node = new PText();
+        node.setHorizontalAlignment(body.readFloat());
+        node.setGreekThreshold(body.readDouble());
+        node.setConstrainWidthToTextWidth(body.readBoolean());
+        node.setConstrainHeightToTextHeight(body.readBoolean());
+        node.setFont(font);
+        node.setTextPaint(textPaint);
+        node.setText(nullText ? null : text);
+        return node;
+    }
+
+    private PCamera readCamera(final DataInput body) throws IOException {
+        final PCamera camera = new PCamera();
+        final AffineTransform viewTransform = readTransform(body);
+        final int viewConstraint = body.readInt();
+        final int[] layerOrdinals = readInts(body, readCount(body, "layer count"));
+        camera.setViewTransform(viewTransform);
+        camera.setViewConstraint(viewConstraint);
+        cameraLayers.add(camera);
+        cameraLayers.add(layerOrdinals);
+        return camera;
+    }
+
+    /**
+     * Return a reference to the pending camera layers, a list holding each
+     * camera read followed by the ordinals of its layers as an
+     * <code>int[]</code>.
+     *
+     * @return a reference to the pending camera layers
+     */
+    List getCameraLayersReference() {
+        return cameraLayers;
+    }
+
+    /**
+     * Add the layers of cameras read, which may appear anywhere in the
+     * scene, once all nodes have been read.
+     *
+     * @throws StreamCorruptedException if a layer ordinal does not refer to a
+     *             layer
+     */
+    private void resolveCameraLayers() throws StreamCorruptedException {
+        for (int i = 0; i < cameraLayers.size(); i += 2) {
+            final PCamera camera = (PCamera) cameraLayers.get(i);
+            final int[] layerOrdinals = (int[]) cameraLayers.get(i + 1);
+            for (int j = 0; j < layerOrdinals.length; j++) {
+                if (layerOrdinals[j] == PSceneFormat.NONE) {
+                    continue;
+                }
+                final Object layer = entry(nodes, layerOrdinals[j]);
+                if (!(layer instanceof PLayer)) {
+                    throw new StreamCorruptedException("camera layer ordinal " + layerOrdinals[j]
+                            + " does not refer to a layer");
+                }
+                camera.addLayer((PLayer) layer);
+            }
+        }
+    }
+}
@@ -0,0 +1,672 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.util;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.GradientPaint;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Stroke;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+
+import javax.imageio.ImageIO;
+
+import org.piccolo2d.PCamera;
+import org.piccolo2d.PLayer;
+import org.piccolo2d.PNode;
+import org.piccolo2d.PRoot;
+import org.piccolo2d.nodes.PImage;
+import org.piccolo2d.nodes.PPath;
+import org.piccolo2d.nodes.PText;
+
+
+/**
+ * <b>PSceneWriter</b> writes a scene graph in a compact, versioned binary
+ * format that can be read back with {@link PSceneReader}.
+ * <p>
+ * Unlike Java serialization through {@link PObjectOutputStream}, no dry run
+ * pass over the object graph is made and no class descriptors are written.
+ * Paints, strokes, fonts and images are collected into dictionaries written
+ * once ahead of the node table, and nodes refer to them by index. Transforms,
+ * bounds and path coordinates are written as primitive values. The format
+ * supports <code>PNode</code>, <code>PPath.Float</code>,
+ * <code>PPath.Double</code>, <code>PText</code>, <code>PImage</code>,
+ * <code>PLayer</code>, <code>PCamera</code> and <code>PRoot</code>; other node
+ * classes, client properties and listeners are not written.
+ * </p>
+ *
+ * @since 4.0
+ */
+public class PSceneWriter {
+
+    /** Stream written to. */
+    private final OutputStream out;
+
+    /** True if the body should be compressed. */
+    private final boolean compressed;
+
+    /** Paint dictionary, in order of first use. */
+    private final List/*<Paint>*/ paints = new ArrayList();
+
+    /** Indices of paints in the paint dictionary. */
+    private final Map/*<Paint, Integer>*/ paintIndices = new HashMap();
+
+    /** Stroke dictionary, in order of first use. */
+    private final List/*<Stroke>*/ strokes = new ArrayList();
+
+    /** Indices of strokes in the stroke dictionary. */
+    private final Map/*<Stroke, Integer>*/ strokeIndices = new HashMap();
+
+    /** Font dictionary, in order of first use. */
+    private final List/*<Font>*/ fonts = new ArrayList();
+
+    /** Indices of fonts in the font dictionary. */
+    private final Map/*<Font, Integer>*/ fontIndices = new HashMap();
+
+    /** Image dictionary, in order of first use. */
+    private final List/*<Image>*/ images = new ArrayList();
+
+    /** Indices of images in the image dictionary, by identity. */
+    private final Map/*<Image, Integer>*/ imageIndices = new IdentityHashMap();
+
+    /** Node ordinals in depth first order, by identity. */
+    private final Map/*<PNode, Integer>*/ nodeOrdinals = new IdentityHashMap();
+
+    /** True if written scenes should be indexed. */
+    private boolean indexed;
+
+    /** Ordinal of the next node record to be written. */
+    private int nextOrdinal;
+
+    /** File offsets of node records by ordinal, if indexed. */
+    private int[] recordOffsets;
+
+    /** Subtree node counts by ordinal, if indexed. */
+    private int[] subtreeSizes;
+
+    /** Full bounds by ordinal, four values per node, if indexed. */
+    private double[] fullBounds;
+
+
+    /**
+     * Create a new scene writer writing uncompressed scenes to the specified
+     * output stream.
+     *
+     * @param out output stream, must not be null
+     */
+    public PSceneWriter(final OutputStream out) {
+        this(out, false);
+    }
+
+    /**
+     * Create a new scene writer writing scenes to the specified output
+     * stream, deflate compressing them if <code>compressed</code> is true.
+     *
+     * @param out output stream, must not be null
+     * @param compressed true if written scenes should be compressed
+     */
+    public PSceneWriter(final OutputStream out, final boolean compressed) {
+        if (out == null) {
+            throw new IllegalArgumentException("out must not be null");
+        }
+        this.out = out;
+        this.compressed = compressed;
+    }
+
+
+    /**
+     * Return true if written scenes are followed by an index locating the
+     * record and subtree of each node. Defaults to false.
+     *
+     * @return true if written scenes are indexed
+     */
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    /**
+     * Set to true if written scenes should be followed by an index locating
+     * the record and subtree of each node, as required by
+     * {@link PLazySceneLoader}. Indexed scenes can not be compressed.
+     *
+     * @param indexed true if written scenes should be indexed
+     * @throws IllegalStateException if this writer writes compressed scenes
+     */
+    public void setIndexed(final boolean indexed) {
+        if (indexed && compressed) {
+            throw new IllegalStateException("compressed scenes can not be indexed");
+        }
+        this.indexed = indexed;
+    }
+
+    /**
+     * Write the specified node and its descendants. The output stream is
+     * flushed but not closed.
+     *
+     * @param node node to write, must not be null
+     * @throws IOException if an I/O error occurs
+     * @throws NotSerializableException if the scene contains a node class,
+     *             paint or stroke which can not be written
+     */
+    public void write(final PNode node) throws IOException {
+        if (node == null) {
+            throw new IllegalArgumentException("node must not be null");
+        }
+        clearDictionaries();
+        collect(node);
+
+        final DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(PSceneFormat.MAGIC);
+        header.writeShort(PSceneFormat.VERSION);
+        int flags = 0;
+        if (compressed) {
+            flags |= PSceneFormat.FLAG_COMPRESSED;
+        }
+        if (indexed) {
+            flags |= PSceneFormat.FLAG_INDEXED;
+            final int nodeCount = nodeOrdinals.size();
+            recordOffsets = new int[nodeCount];
+            subtreeSizes = new int[nodeCount];
+            fullBounds = new double[4 * nodeCount];
+        }
+        header.writeByte(flags);
+
+        final DeflaterOutputStream deflater;
+        final DataOutputStream body;
+        if (compressed) {
+            deflater = new DeflaterOutputStream(new NonClosingOutputStream(out));
+            body = new DataOutputStream(new BufferedOutputStream(deflater));
+        }
+        else {
+            deflater = null;
+            body = new DataOutputStream(new BufferedOutputStream(new NonClosingOutputStream(out)));
+        }
+
+        writeDictionaries(body);
+        body.writeInt(nodeOrdinals.size());
+        nextOrdinal = 0;
+        writeNode(node, body);
+        if (indexed) {
+            writeIndex(body);
+        }
+        body.flush();
+        if (deflater != null) {
+            deflater.finish();
+        }
+        out.flush();
+
+        clearDictionaries();
+    }
+
+    private void clearDictionaries() {
+        paints.clear();
+        paintIndices.clear();
+        strokes.clear();
+        strokeIndices.clear();
+        fonts.clear();
+        fontIndices.clear();
+        images.clear();
+        imageIndices.clear();
+        nodeOrdinals.clear();
+        recordOffsets = null;
+        subtreeSizes = null;
+        fullBounds = null;
+    }
+
+    /**
+     * Collect the dictionary entries and node ordinals of the specified node
+     * and its descendants.
+     *
+     * @param node node
+     * @throws NotSerializableException if the node class is not supported
+     */
+    private void collect(final PNode node) throws NotSerializableException {
+        typeOf(node);
+        nodeOrdinals.put(node, Integer.valueOf(nodeOrdinals.size()));
+        addEntry(node.getPaint(), paints, paintIndices);
+
+        if (node instanceof PPath) {
+            final PPath path = (PPath) node;
+            addEntry(path.getStroke(), strokes, strokeIndices);
+            addEntry(path.getStrokePaint(), paints, paintIndices);
+        }
+        else if (node instanceof PText) {
+            final PText text = (PText) node;
+            addEntry(text.getFont(), fonts, fontIndices);
+            addEntry(text.getTextPaint(), paints, paintIndices);
+        }
+        else if (node instanceof PImage) {
+            addEntry(((PImage) node).getImage(), images, imageIndices);
+        }
+
+        final int count = node.getChildrenCount();
+        for (int i = 0; i < count; i++) {
+            collect(node.getChild(i));
+        }
+    }
+
+    private static void addEntry(final Object entry, final List entries, final Map indices) {
+        if (entry != null && !indices.containsKey(entry)) {
+            indices.put(entry, Integer.valueOf(entries.size()));
+            entries.add(entry);
+        }
+    }
+
+    private static int indexOf(final Object entry, final Map indices) {
+        if (entry == null) {
+            return PSceneFormat.NONE;
+        }
+        return ((Integer) indices.get(entry)).intValue();
+    }
+
+    /**
+     * Return the type code of the specified node.
+     *
+     * @param node node
+     * @return the type code of the specified node
+     * @throws NotSerializableException if the node class is not supported
+     */
+    private static byte typeOf(final PNode node) throws NotSerializableException {
+        final Class nodeClass = node.getClass();
+        if (nodeClass == PNode.class) {
+            return PSceneFormat.NODE;
+        }
+        else if (nodeClass == PPath.Float.class) {
+            return PSceneFormat.PATH_FLOAT;
+        }
+        else if (nodeClass == PPath.Double.class) {
+            return PSceneFormat.PATH_DOUBLE;
+        }
+        else if (nodeClass == PText.class) {
+            return PSceneFormat.TEXT;
+        }
+        else if (nodeClass == PImage.class) {
+            return PSceneFormat.IMAGE;
+        }
+        else if (nodeClass == PLayer.class) {
+            return PSceneFormat.LAYER;
+        }
+        else if (nodeClass == PCamera.class) {
+            return PSceneFormat.CAMERA;
+        }
+        else if (nodeClass == PRoot.class) {
+            return PSceneFormat.ROOT;
+        }
+        throw new NotSerializableException(nodeClass.getName());
+    }
+
+    /**
+     * Write the paint, stroke, font and image dictionaries.
+     *
+     * @param body stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeDictionaries(final DataOutputStream body) throws IOException {
+        body.writeInt(paints.size());
+        for (int i = 0; i < paints.size(); i++) {
+            writePaint((Paint) paints.get(i), body);
+        }
+
+        body.writeInt(strokes.size());
+        for (int i = 0; i < strokes.size(); i++) {
+            writeStroke((Stroke) strokes.get(i), body);
+        }
+
+        body.writeInt(fonts.size());
+        for (int i = 0; i < fonts.size(); i++) {
+            final Font font = (Font) fonts.get(i);
+            writeString(font.getName(), body);
+            body.writeInt(font.getStyle());
+            body.writeFloat(font.getSize2D());
+        }
+
+        body.writeInt(images.size());
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (int i = 0; i < images.size(); i++) {
+            bytes.reset();
+            ImageIO.write(PImage.toBufferedImage((Image) images.get(i), false), "png", bytes);
+            body.writeInt(bytes.size());
+            bytes.writeTo(body);
+        }
+    }
+
+    private static void writePaint(final Paint paint, final DataOutputStream body) throws IOException {
+        if (paint instanceof Color) {
+            body.writeByte(PSceneFormat.PAINT_COLOR);
+            body.writeInt(((Color) paint).getRGB());
+        }
+        else if (paint instanceof GradientPaint) {
+            final GradientPaint gradient = (GradientPaint) paint;
+            body.writeByte(PSceneFormat.PAINT_GRADIENT);
+            body.writeFloat((float) gradient.getPoint1().getX());
+            body.writeFloat((float) gradient.getPoint1().getY());
+            body.writeInt(gradient.getColor1().getRGB());
+            body.writeFloat((float) gradient.getPoint2().getX());
+            body.writeFloat((float) gradient.getPoint2().getY());
+            body.writeInt(gradient.getColor2().getRGB());
+            body.writeBoolean(gradient.isCyclic());
+        }
+        else {
+            writeSerialized(paint, body);
+        }
+    }
+
+    private static void writeStroke(final Stroke stroke, final DataOutputStream body) throws IOException {
+        if (stroke.getClass() == BasicStroke.class) {
+            final BasicStroke basicStroke = (BasicStroke) stroke;
+            body.writeByte(PSceneFormat.STROKE_BASIC);
+            body.writeFloat(basicStroke.getLineWidth());
+            body.writeByte(basicStroke.getEndCap());
+            body.writeByte(basicStroke.getLineJoin());
+            body.writeFloat(basicStroke.getMiterLimit());
+            final float[] dash = basicStroke.getDashArray();
+            if (dash == null) {
+                body.writeInt(PSceneFormat.NONE);
+            }
+            else {
+                body.writeInt(dash.length);
+                for (int i = 0; i < dash.length; i++) {
+                    body.writeFloat(dash[i]);
+                }
+            }
+            body.writeFloat(basicStroke.getDashPhase());
+        }
+        else {
+            writeSerialized(stroke, body);
+        }
+    }
+
+    private static void writeSerialized(final Object object, final DataOutputStream body) throws IOException {
+        if (!(object instanceof Serializable)) {
+            throw new NotSerializableException(object.getClass().getName());
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream objectOut = new ObjectOutputStream(bytes);
+        objectOut.writeObject(object);
+        objectOut.close();
+        body.writeByte(PSceneFormat.SERIALIZED);
+        body.writeInt(bytes.size());
+        bytes.writeTo(body);
+    }
+
+    private static void writeString(final String string, final DataOutputStream body) throws IOException {
+        final byte[] bytes = string.getBytes("UTF-8");
+        body.writeInt(bytes.length);
+        body.write(bytes);
+    }
+
+    /**
+     * Write the record of the specified node followed by the records of its
+     * descendants.
+     *
+     * @param node node
+     * @param body stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeNode(final PNode node, final DataOutputStream body) throws IOException {
+        final byte type = typeOf(node);
+        final int ordinal = nextOrdinal++;
+        if (indexed) {
+            recordOffsets[ordinal] = PSceneFormat.HEADER_SIZE + body.size();
+            final PBounds nodeFullBounds = node.getFullBoundsReference();
+            fullBounds[4 * ordinal] = nodeFullBounds.getX();
+            fullBounds[4 * ordinal + 1] = nodeFullBounds.getY();
+            fullBounds[4 * ordinal + 2] = nodeFullBounds.getWidth();
+            fullBounds[4 * ordinal + 3] = nodeFullBounds.getHeight();
+        }
+        final PAffineTransform transform = node.getTransformReference(false);
+        final String name = node.getName();
+
+        int flags = 0;
+        if (node.getVisible()) {
+            flags |= PSceneFormat.NODE_VISIBLE;
+        }
+        if (node.getPickable()) {
+            flags |= PSceneFormat.NODE_PICKABLE;
+        }
+        if (node.getChildrenPickable()) {
+            flags |= PSceneFormat.NODE_CHILDREN_PICKABLE;
+        }
+        if (transform != null && !transform.isIdentity()) {
+            flags |= PSceneFormat.NODE_TRANSFORM;
+        }
+        if (name != null) {
+            flags |= PSceneFormat.NODE_NAME;
+        }
+
+        body.writeByte(type);
+        body.writeByte(flags);
+
+        final PBounds bounds = node.getBoundsReference();
+        body.writeDouble(bounds.getX());
+        body.writeDouble(bounds.getY());
+        body.writeDouble(bounds.getWidth());
+        body.writeDouble(bounds.getHeight());
+
+        if ((flags & PSceneFormat.NODE_TRANSFORM) != 0) {
+            final double[] matrix = new double[6];
+            transform.getMatrix(matrix);
+            for (int i = 0; i < matrix.length; i++) {
+                body.writeDouble(matrix[i]);
+            }
+        }
+
+        body.writeInt(indexOf(node.getPaint(), paintIndices));
+        body.writeFloat(node.getTransparency());
+        if (name != null) {
+            writeString(name, body);
+        }
+
+        switch (type) {
+            case PSceneFormat.PATH_FLOAT:
+            case PSceneFormat.PATH_DOUBLE:
+                final PPath path = (PPath) node;
+                body.writeInt(indexOf(path.getStroke(), strokeIndices));
+                body.writeInt(indexOf(path.getStrokePaint(), paintIndices));
+                writePath(path.getPathReference(), type == PSceneFormat.PATH_DOUBLE, body);
+                break;
+            case PSceneFormat.TEXT:
+                final PText text = (PText) node;
+                writeString(text.getText() == null ? "" : text.getText(), body);
+                body.writeBoolean(text.getText() == null);
+                body.writeInt(indexOf(text.getFont(), fontIndices));
+                body.writeInt(indexOf(text.getTextPaint(), paintIndices));
+                body.writeFloat(text.getHorizontalAlignment());
+                body.writeDouble(text.getGreekThreshold());
+                body.writeBoolean(text.isConstrainWidthToTextWidth());
+                body.writeBoolean(text.isConstrainHeightToTextHeight());
+                break;
+            case PSceneFormat.IMAGE:
+                body.writeInt(indexOf(((PImage) node).getImage(), imageIndices));
+                break;
+            case PSceneFormat.CAMERA:
+                final PCamera camera = (PCamera) node;
+                final double[] matrix = new double[6];
+                camera.getViewTransformReference().getMatrix(matrix);
+                for (int i = 0; i < matrix.length; i++) {
+                    body.writeDouble(matrix[i]);
+                }
+                body.writeInt(camera.getViewConstraint());
+                body.writeInt(camera.getLayerCount());
+                for (int i = 0; i < camera.getLayerCount(); i++) {
+                    final Integer layerOrdinal = (Integer) nodeOrdinals.get(camera.getLayer(i));
+                    body.writeInt(layerOrdinal == null ? PSceneFormat.NONE : layerOrdinal.intValue());
+                }
+                break;
+            default:
+                break;
+        }
+
+        final int count = node.getChildrenCount();
+        body.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            writeNode(node.getChild(i), body);
+        }
+        if (indexed) {
+            subtreeSizes[ordinal] = nextOrdinal - ordinal;
+        }
+    }
+
+    /**
+     * Write the index of the node records written and the trailer holding
+     * its file offset.
+     *
+     * @param body stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeIndex(final DataOutputStream body) throws IOException {
+        // DataOutputStream.size() saturates at Integer.MAX_VALUE
+        if (body.size() == Integer.MAX_VALUE) {
+            throw new IOException("indexed scenes must be smaller than 2 GB");
+        }
+        final long indexOffset = PSceneFormat.HEADER_SIZE + body.size();
+        for (int i = 0; i < recordOffsets.length; i++) {
+            body.writeInt(recordOffsets[i]);
+            body.writeInt(subtreeSizes[i]);
+            for (int j = 0; j < 4; j++) {
+                body.writeDouble(fullBounds[4 * i + j]);
+            }
+        }
+        body.writeLong(indexOffset);
+    }
+
+    /**
+     * Write the segments and coordinates of the specified path as a block of
+     * segment types followed by a block of coordinates.
+     *
+     * @param path path
+     * @param doublePrecision true if coordinates should be written in double
+     *            precision
+     * @param body stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writePath(final Path2D path, final boolean doublePrecision, final DataOutputStream body)
+            throws IOException {
+        final ByteArrayOutputStream types = new ByteArrayOutputStream();
+        final ByteArrayOutputStream coordinateBytes = new ByteArrayOutputStream();
+        final DataOutputStream coordinates = new DataOutputStream(coordinateBytes);
+        final double[] segment = new double[6];
+        int coordinateCount = 0;
+
+        final PathIterator i = path.getPathIterator(null);
+        while (!i.isDone()) {
+            final int type = i.currentSegment(segment);
+            types.write(type);
+            final int count = coordinateCount(type);
+            for (int j = 0; j < count; j++) {
+                if (doublePrecision) {
+                    coordinates.writeDouble(segment[j]);
+                }
+                else {
+                    coordinates.writeFloat((float) segment[j]);
+                }
+            }
+            coordinateCount += count;
+            i.next();
+        }
+
+        body.writeByte(path.getWindingRule());
+        body.writeInt(types.size());
+        types.writeTo(body);
+        body.writeInt(coordinateCount);
+        coordinates.flush();
+        coordinateBytes.writeTo(body);
+    }
+
+    /**
+     * Return the number of coordinates of the specified path segment type.
+     *
+     * @param type path segment type
+     * @return the number of coordinates of the specified path segment type
+     */
+    static int coordinateCount(final int type) {
+        switch (type) {
+            case PathIterator.SEG_MOVETO:
+            case PathIterator.SEG_LINETO:
+                return 2;
+            case PathIterator.SEG_QUADTO:
+                return 4;
+            case PathIterator.SEG_CUBICTO:
+                return 6;
+            default:
+                return 0;
+        }
+    }
+
+
+    /**
+     * Output stream which does not close the stream it wraps.
+     */
+    private static final class NonClosingOutputStream extends OutputStream {
+
+        /** Wrapped stream. */
+        private final OutputStream out;
+
+        NonClosingOutputStream(final OutputStream out) {
+            this.out = out;
+        }
+
+        /** {@inheritDoc} */
+        public void write(final int b) throws IOException {
+            out.write(b);
+        }
+
+        /** {@inheritDoc} */
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        /** {@inheritDoc} */
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        /** {@inheritDoc} */
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -28,14 +28,21 @@
  */
 package org.piccolo2d;
 
+import java.awt.Color;
 import java.awt.Cursor;
+import java.awt.Graphics2D;
 
+import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 
 import javax.swing.JPanel;
+import javax.swing.Timer;
 
 import org.piccolo2d.event.PInputEventListener;
+import org.piccolo2d.nodes.PPath;
 import org.piccolo2d.util.PBounds;
 import org.piccolo2d.util.PPaintContext;
 import org.piccolo2d.util.PUtil;
@@ -263,4 +270,249 @@ public class PCanvasTest extends TestCase {
             assertEquals(MouseEvent.BUTTON3, mockListener.getNotification(i).event.getButton());
         }
     }
+
+    public void testScrollModeIsSimpleByDefault() {
+        assertEquals(PCanvas.SIMPLE_SCROLL_MODE, canvas.getScrollMode());
+    }
+
+    public void testSetScrollModeRejectsUnknownModes() {
+        try {
+            canvas.setScrollMode(42);
+            fail("setScrollMode(42) expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private int paintCount;
+
+    /**
+     * Fill the layer with a grid of ten by five differently colored squares
+     * which count how often they are painted.
+     */
+    private void createGrid(final PCanvas gridCanvas) {
+        gridCanvas.setBounds(0, 0, 200, 100);
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 5; j++) {
+                final PPath square = new PPath.Float(new Rectangle2D.Float(i * 20, j * 20, 20, 20)) {
+                    protected void paint(final PPaintContext paintContext) {
+                        paintCount++;
+                        super.paint(paintContext);
+                    }
+                };
+                square.setPaint(new Color(i * 25, j * 50, 128));
+                square.setStroke(null);
+                gridCanvas.getLayer().addChild(square);
+            }
+        }
+    }
+
+    private static void paint(final PCanvas canvas, final BufferedImage screen) {
+        canvas.getRoot().validateFullBounds();
+        canvas.getRoot().validateFullPaint();
+        final Graphics2D g2 = screen.createGraphics();
+        canvas.paintComponent(g2);
+        g2.dispose();
+    }
+
+    private static void assertSameImage(final BufferedImage expected, final BufferedImage actual) {
+        for (int x = 0; x < expected.getWidth(); x++) {
+            for (int y = 0; y < expected.getHeight(); y++) {
+                assertEquals("pixel " + x + ", " + y, expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+
+    public void testBlitScrollingMatchesFullRepaint() {
+        createGrid(canvas);
+        canvas.setScrollMode(PCanvas.BLIT_SCROLL_MODE);
+        final BufferedImage screen = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        paint(canvas, screen);
+
+        canvas.getCamera().translateView(13, -7);
+        assertFalse(canvas.getCamera().getPaintInvalid());
+        paint(canvas, screen);
+
+        final PCanvas expectedCanvas = new PCanvas();
+        createGrid(expectedCanvas);
+        expectedCanvas.getCamera().translateView(13, -7);
+        final BufferedImage expected = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        paint(expectedCanvas, expected);
+
+        assertSameImage(expected, screen);
+    }
+
+    public void testBlitScrollingRendersOnlyExposedStrips() {
+        createGrid(canvas);
+        canvas.setScrollMode(PCanvas.BLIT_SCROLL_MODE);
+        final BufferedImage screen = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        paint(canvas, screen);
+        assertEquals(50, paintCount);
+
+        paintCount = 0;
+        canvas.getCamera().translateView(-10, 0);
+        paint(canvas, screen);
+
+        assertEquals(5, paintCount);
+    }
+
+    public void testBlitScrollingFallsBackWhenSceneDamaged() {
+        createGrid(canvas);
+        canvas.setScrollMode(PCanvas.BLIT_SCROLL_MODE);
+        paint(canvas, new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB));
+
+        canvas.repaint(new PBounds(0, 0, 10, 10));
+        canvas.getCamera().translateView(10, 0);
+
+        assertTrue(canvas.getCamera().getPaintInvalid());
+    }
+
+    public void testBlitScrollingFallsBackWhenViewScaled() {
+        createGrid(canvas);
+        canvas.setScrollMode(PCanvas.BLIT_SCROLL_MODE);
+        paint(canvas, new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB));
+
+        canvas.getCamera().scaleView(2.0d);
+
+        assertTrue(canvas.getCamera().getPaintInvalid());
+    }
+
+    public void testSimpleScrollingRepaintsCamera() {
+        createGrid(canvas);
+        paint(canvas, new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB));
+
+        canvas.getCamera().translateView(10, 0);
+
+        assertTrue(canvas.getCamera().getPaintInvalid());
+    }
+
+    public void testRetainedBufferingIsOffByDefault() {
+        assertFalse(canvas.isRetainedBuffering());
+    }
+
+    public void testRetainedBufferingRendersOnlyDamagedRegions() {
+        createGrid(canvas);
+        canvas.setRetainedBuffering(true);
+        final BufferedImage screen = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        paint(canvas, screen);
+        assertEquals(50, paintCount);
+
+        paintCount = 0;
+        canvas.repaint(new PBounds(5, 5, 5, 5));
+        canvas.repaint(new PBounds(185, 85, 5, 5));
+        paint(canvas, screen);
+
+        assertEquals(2, paintCount);
+    }
+
+    public void testRetainedBufferingMatchesFullRepaint() {
+        createGrid(canvas);
+        canvas.setRetainedBuffering(true);
+        final BufferedImage screen = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        paint(canvas, screen);
+
+        ((PNode) canvas.getLayer().getChild(0)).setPaint(Color.WHITE);
+        ((PNode) canvas.getLayer().getChild(49)).setPaint(Color.BLACK);
+        paint(canvas, screen);
+
+        final PCanvas expectedCanvas = new PCanvas();
+        createGrid(expectedCanvas);
+        ((PNode) expectedCanvas.getLayer().getChild(0)).setPaint(Color.WHITE);
+        ((PNode) expectedCanvas.getLayer().getChild(49)).setPaint(Color.BLACK);
+        final BufferedImage expected = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        paint(expectedCanvas, expected);
+
+        assertSameImage(expected, screen);
+    }
+
+    public void testRedrawStatistics() {
+        createGrid(canvas);
+        canvas.setRetainedBuffering(true);
+        final BufferedImage screen = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        paint(canvas, screen);
+        assertEquals(20000.0d, canvas.getRedrawArea(), 0.0d);
+
+        canvas.repaint(new PBounds(5, 5, 5, 5));
+        canvas.repaint(new PBounds(185, 85, 5, 5));
+        paint(canvas, screen);
+
+        assertEquals(162.0d, canvas.getRedrawArea(), 0.0d);
+        assertEquals(20162.0d, canvas.getTotalRedrawArea(), 0.0d);
+        assertEquals(2, canvas.getRedrawFrameCount());
+
+        canvas.resetRedrawStatistics();
+        assertEquals(0.0d, canvas.getTotalRedrawArea(), 0.0d);
+        assertEquals(0, canvas.getRedrawFrameCount());
+    }
+
+    public void testProgressiveRefinementIsOffByDefault() {
+        assertFalse(canvas.isProgressiveRefinement());
+        assertFalse(canvas.isRefining());
+    }
+
+    /**
+     * Create a canvas whose timers never fire, so that refinement only
+     * proceeds when the test asks.
+     */
+    private static PCanvas createManualTimerCanvas() {
+        return new PCanvas() {
+            public Timer createTimer(final int delay, final ActionListener listener) {
+                return new Timer(delay, listener) {
+                    public void restart() {
+                        // never fire
+                    }
+                };
+            }
+        };
+    }
+
+    public void testProgressiveRefinementRendersAfterInteraction() {
+        canvas = createManualTimerCanvas();
+        createGrid(canvas);
+        canvas.setProgressiveRefinement(true);
+        final BufferedImage screen = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        paint(canvas, screen);
+
+        canvas.setInteracting(true);
+        canvas.setInteracting(false);
+        assertTrue(canvas.isRefining());
+
+        paintCount = 0;
+        while (canvas.refineSlice()) {
+            // refine until done
+        }
+        assertFalse(canvas.isRefining());
+        // squares crossing a tile border render once per tile
+        assertEquals(55, paintCount);
+
+        // copying the refined tiles to the screen renders nothing
+        paintCount = 0;
+        final Graphics2D g2 = screen.createGraphics();
+        g2.setClip(0, 0, 200, 100);
+        canvas.paintComponent(g2);
+        g2.dispose();
+        assertEquals(0, paintCount);
+
+        final PCanvas expectedCanvas = new PCanvas();
+        createGrid(expectedCanvas);
+        final BufferedImage expected = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        paint(expectedCanvas, expected);
+        assertSameImage(expected, screen);
+    }
+
+    public void testProgressiveRefinementPausesWhileInteracting() {
+        canvas = createManualTimerCanvas();
+        createGrid(canvas);
+        canvas.setProgressiveRefinement(true);
+        paint(canvas, new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB));
+
+        canvas.setInteracting(true);
+        canvas.setInteracting(false);
+        canvas.setInteracting(true);
+
+        assertTrue(canvas.isRefining());
+        canvas.setProgressiveRefinement(false);
+        assertFalse(canvas.isRefining());
+    }
 }
@@ -29,11 +29,16 @@
 package org.piccolo2d;
 
 import java.awt.event.FocusEvent;
+import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
 import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.piccolo2d.PCamera;
 import org.piccolo2d.PInputManager;
+import org.piccolo2d.event.PBasicInputEventHandler;
 import org.piccolo2d.event.PInputEvent;
 import org.piccolo2d.util.PBounds;
 import org.piccolo2d.util.PPickPath;
@@ -135,4 +140,105 @@ public class PInputManagerTest extends TestCase {
         manager.processInput();
     }
 
+    public void testCoalescingMouseMotionIsOffByDefault() {
+        assertFalse(manager.isCoalescingMouseMotion());
+    }
+
+    /**
+     * Create a canvas whose camera records the types of the mouse moved,
+     * dragged, pressed and released events it receives.
+     */
+    private static PCanvas createRecordingCanvas(final List types) {
+        final PCanvas canvas = new PCanvas();
+        canvas.setBounds(0, 0, 100, 100);
+        canvas.getCamera().addInputEventListener(new PBasicInputEventHandler() {
+            public void mouseMoved(final PInputEvent event) {
+                types.add(new Integer(MouseEvent.MOUSE_MOVED));
+            }
+
+            public void mouseDragged(final PInputEvent event) {
+                types.add(new Integer(MouseEvent.MOUSE_DRAGGED));
+            }
+
+            public void mousePressed(final PInputEvent event) {
+                types.add(new Integer(MouseEvent.MOUSE_PRESSED));
+            }
+
+            public void mouseReleased(final PInputEvent event) {
+                types.add(new Integer(MouseEvent.MOUSE_RELEASED));
+            }
+        });
+        return canvas;
+    }
+
+    private static void send(final PCanvas canvas, final int type, final int x, final int y, final int modifiers) {
+        final MouseEvent event = new MouseEvent(canvas, type, 0, modifiers, x, y, 1, false, MouseEvent.BUTTON1);
+        canvas.getRoot().getDefaultInputManager().processEventFromCamera(event, type, canvas.getCamera());
+    }
+
+    public void testCoalescesConsecutiveMouseMotion() throws Exception {
+        SwingTestUtil.onEventDispatchThread(new Runnable() {
+            public void run() {
+                final List types = new ArrayList();
+                final PCanvas canvas = createRecordingCanvas(types);
+                final PInputManager inputManager = canvas.getRoot().getDefaultInputManager();
+                inputManager.setCoalescingMouseMotion(true);
+
+                send(canvas, MouseEvent.MOUSE_MOVED, 10, 10, 0);
+                send(canvas, MouseEvent.MOUSE_MOVED, 11, 10, 0);
+                send(canvas, MouseEvent.MOUSE_MOVED, 12, 10, 0);
+                assertTrue(types.isEmpty());
+
+                inputManager.processPendingMotion();
+
+                assertEquals(1, types.size());
+                assertEquals(2, inputManager.getCoalescedEventCount());
+                assertEquals(new Point2D.Double(12, 10), inputManager.getCurrentCanvasPosition());
+            }
+        });
+    }
+
+    public void testOtherEventsProcessPendingMotionFirst() throws Exception {
+        SwingTestUtil.onEventDispatchThread(new Runnable() {
+            public void run() {
+                final List types = new ArrayList();
+                final PCanvas canvas = createRecordingCanvas(types);
+                final PInputManager inputManager = canvas.getRoot().getDefaultInputManager();
+                inputManager.setCoalescingMouseMotion(true);
+
+                send(canvas, MouseEvent.MOUSE_MOVED, 10, 10, 0);
+                send(canvas, MouseEvent.MOUSE_MOVED, 11, 10, 0);
+                send(canvas, MouseEvent.MOUSE_PRESSED, 11, 10, InputEvent.BUTTON1_DOWN_MASK);
+                send(canvas, MouseEvent.MOUSE_DRAGGED, 12, 10, InputEvent.BUTTON1_DOWN_MASK);
+                send(canvas, MouseEvent.MOUSE_DRAGGED, 15, 12, InputEvent.BUTTON1_DOWN_MASK);
+                send(canvas, MouseEvent.MOUSE_RELEASED, 15, 12, 0);
+
+                assertEquals(4, types.size());
+                assertEquals(new Integer(MouseEvent.MOUSE_MOVED), types.get(0));
+                assertEquals(new Integer(MouseEvent.MOUSE_PRESSED), types.get(1));
+                assertEquals(new Integer(MouseEvent.MOUSE_DRAGGED), types.get(2));
+                assertEquals(new Integer(MouseEvent.MOUSE_RELEASED), types.get(3));
+                assertEquals(2, inputManager.getCoalescedEventCount());
+
+                inputManager.resetCoalescedEventCount();
+                assertEquals(0, inputManager.getCoalescedEventCount());
+            }
+        });
+    }
+
+    public void testDisablingCoalescingProcessesPendingMotion() throws Exception {
+        SwingTestUtil.onEventDispatchThread(new Runnable() {
+            public void run() {
+                final List types = new ArrayList();
+                final PCanvas canvas = createRecordingCanvas(types);
+                final PInputManager inputManager = canvas.getRoot().getDefaultInputManager();
+                inputManager.setCoalescingMouseMotion(true);
+
+                send(canvas, MouseEvent.MOUSE_MOVED, 10, 10, 0);
+                inputManager.setCoalescingMouseMotion(false);
+
+                assertEquals(1, types.size());
+            }
+        });
+    }
 }
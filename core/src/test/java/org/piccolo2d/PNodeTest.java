@@ -30,7 +30,9 @@ package org.piccolo2d;
 
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.Font;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.GraphicsEnvironment;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
@@ -38,12 +40,17 @@ import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Enumeration;
 import java.util.ListIterator;
 
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
 import javax.swing.text.MutableAttributeSet;
 
 import org.piccolo2d.PCanvas;
@@ -55,6 +62,7 @@ import org.piccolo2d.activities.PInterpolatingActivity;
 import org.piccolo2d.activities.PTransformActivity;
 import org.piccolo2d.activities.PColorActivity.Target;
 import org.piccolo2d.event.PBasicInputEventHandler;
+import org.piccolo2d.nodes.PText;
 import org.piccolo2d.util.PAffineTransform;
 import org.piccolo2d.util.PAffineTransformException;
 import org.piccolo2d.util.PBounds;
@@ -1146,6 +1154,46 @@ public class PNodeTest extends TestCase {
         assertEquals(Color.GREEN.getRGB(), img.getRGB(19, 39));
     }
 
+    public void testWriteImageMatchesToImageAcrossBands() throws IOException {
+        node.setBounds(0, 0, 10, 10);
+        node.setPaint(Color.RED);
+
+        PNode greenSquare = new PNode();
+        greenSquare.setPaint(Color.GREEN);
+        greenSquare.setBounds(5, 5, 5, 5);
+        node.addChild(greenSquare);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ImageWriter writer = (ImageWriter) ImageIO.getImageWritersByFormatName("png").next();
+        final ImageOutputStream out = ImageIO.createImageOutputStream(bytes);
+        writer.setOutput(out);
+        node.writeImage(writer, 20, 40, Color.BLUE, PNode.FILL_STRATEGY_ASPECT_FIT, 7);
+        out.close();
+        writer.dispose();
+
+        final BufferedImage written = ImageIO.read(new ByteArrayInputStream(bytes.toByteArray()));
+        final BufferedImage expected = (BufferedImage) node.toImage(new BufferedImage(20, 40,
+                BufferedImage.TYPE_INT_RGB), Color.BLUE, PNode.FILL_STRATEGY_ASPECT_FIT);
+
+        assertEquals(20, written.getWidth());
+        assertEquals(40, written.getHeight());
+        for (int y = 0; y < 40; y++) {
+            for (int x = 0; x < 20; x++) {
+                assertEquals(expected.getRGB(x, y), written.getRGB(x, y));
+            }
+        }
+    }
+
+    public void testWriteImageRejectsNullWriter() throws IOException {
+        try {
+            node.writeImage(null, 10, 10, null);
+            fail("writeImage(null, ...) expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
     public void testGetPickableShouldDefaultToTrue() {
         assertTrue(node.getPickable());
     }
@@ -1558,6 +1606,33 @@ public class PNodeTest extends TestCase {
         assertTrue(node.getOccluded());
     }
 
+    public void testIsOpaqueWithOpaquePaintWithinBounds() {
+        node.setBounds(0, 0, 100, 100);
+        assertFalse(node.isOpaque(new Rectangle2D.Double(10, 10, 10, 10)));
+
+        node.setPaint(Color.RED);
+        assertTrue(node.isOpaque(new Rectangle2D.Double(10, 10, 10, 10)));
+        assertFalse(node.isOpaque(new Rectangle2D.Double(95, 10, 10, 10)));
+
+        node.setPaint(new Color(255, 0, 0, 128));
+        assertFalse(node.isOpaque(new Rectangle2D.Double(10, 10, 10, 10)));
+    }
+
+    public void testCulledNodesAreNotPainted() {
+        final PNode child = new PNode();
+        child.setPaint(Color.RED);
+        child.setBounds(0, 0, 10, 10);
+        node.addChild(child);
+        node.setCulled(true);
+
+        final BufferedImage img = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g2 = img.createGraphics();
+        node.fullPaint(new PPaintContext(g2));
+        g2.dispose();
+
+        assertEquals(0xFF000000, img.getRGB(5, 5));
+    }
+
     public void testHiddenNodesAreNotPickable() {
         final PCanvas canvas = new PCanvas();
         canvas.setBounds(0, 0, 400, 400);
@@ -1612,4 +1687,67 @@ public class PNodeTest extends TestCase {
         assertEquals(1, listeners.length);
         assertEquals(mockListener, listeners[0]);
     }
+
+    public void testParallelBoundsValidationIsOffByDefault() {
+        assertFalse(node.getParallelBoundsValidation());
+    }
+
+    public void testParallelBoundsValidationComputesPendingChildBounds() {
+        final int[] computed = new int[1];
+        final PNode parent = new PNode();
+        parent.setParallelBoundsValidation(true);
+        final PNode expected = new PNode();
+        for (int i = 0; i < 100; i++) {
+            final PText text = new PText("text " + i) {
+                protected void computePendingBounds() {
+                    synchronized (computed) {
+                        computed[0]++;
+                    }
+                    super.computePendingBounds();
+                }
+            };
+            text.setLayoutDeferred(true);
+            text.translate(0, i * 20);
+            parent.addChild(text);
+            final PText eager = new PText("text " + i);
+            eager.translate(0, i * 20);
+            expected.addChild(eager);
+        }
+        parent.getFullBoundsReference();
+
+        final Font font = new Font("Serif", Font.BOLD, 17);
+        for (int i = 0; i < 100; i++) {
+            ((PText) parent.getChild(i)).setFont(font);
+            ((PText) expected.getChild(i)).setFont(font);
+        }
+
+        assertEquals(expected.getFullBoundsReference(), parent.getFullBoundsReference());
+        assertEquals(100, computed[0]);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(expected.getChild(i).getBounds(), parent.getChild(i).getBounds());
+        }
+    }
+
+    public void testFullPaintMakesPaintContextCurrent() {
+        final PPaintContext[] current = new PPaintContext[2];
+        final PNode parent = new PNode();
+        parent.setBounds(0, 0, 10, 10);
+        final PNode child = new PNode() {
+            protected void paint(final PPaintContext paintContext) {
+                current[0] = PPaintContext.getCurrentPaintContext();
+            }
+        };
+        child.setBounds(0, 0, 10, 10);
+        parent.addChild(child);
+
+        final BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D g2 = image.createGraphics();
+        final PPaintContext paintContext = new PPaintContext(g2);
+        assertNull(PPaintContext.getCurrentPaintContext());
+        parent.fullPaint(paintContext);
+        g2.dispose();
+
+        assertSame(paintContext, current[0]);
+        assertNull(PPaintContext.getCurrentPaintContext());
+    }
 }
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.piccolo2d.nodes.PPath;
+import org.piccolo2d.util.PPaintContext;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for POffscreenRenderService.
+ */
+public class POffscreenRenderServiceTest extends TestCase {
+
+    private POffscreenRenderService service;
+
+    protected void setUp() {
+        service = new POffscreenRenderService(2, 16);
+    }
+
+    protected void tearDown() throws InterruptedException {
+        service.shutdown();
+        service.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    public void testConstructorRejectsInvalidArguments() {
+        try {
+            new POffscreenRenderService(0, 1);
+            fail("ctr(0, 1) expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new POffscreenRenderService(1, 0);
+            fail("ctr(1, 0) expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testRenderJobRejectsEmptyViewBounds() {
+        try {
+            new POffscreenRenderService.RenderJob(new PNode(), new Rectangle2D.Double(), 10, 10,
+                    PPaintContext.HIGH_QUALITY_RENDERING, null, new RecordingCallback());
+            fail("empty view bounds expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testRenderPaintsSceneIntoViewBounds() throws Exception {
+        final PPath rect = PPath.createRectangle(50, 50, 50, 50);
+        rect.setPaint(Color.RED);
+        rect.setStroke(null);
+
+        final RecordingCallback callback = new RecordingCallback();
+        final Future future = service.submit(new POffscreenRenderService.RenderJob(rect, new Rectangle2D.Double(0,
+                0, 100, 100), 20, 20, PPaintContext.LOW_QUALITY_RENDERING, Color.WHITE, callback));
+        future.get(10, TimeUnit.SECONDS);
+
+        assertEquals(Color.WHITE.getRGB(), callback.topLeft);
+        assertEquals(Color.RED.getRGB(), callback.bottomRight);
+    }
+
+    public void testJobsDoNotInheritGraphicsStateOfEarlierJobs() throws Exception {
+        final POffscreenRenderService singleWorker = new POffscreenRenderService(1, 4);
+        try {
+            final PNode changesState = new PNode() {
+                protected void paint(final PPaintContext paintContext) {
+                    final Graphics2D g2 = paintContext.getGraphics();
+                    g2.setStroke(new BasicStroke(7.0f));
+                    g2.setRenderingHint(RenderingHints.KEY_DITHERING, RenderingHints.VALUE_DITHER_ENABLE);
+                }
+            };
+            changesState.setBounds(0, 0, 10, 10);
+            final Object[] state = new Object[2];
+            final PNode recordsState = new PNode() {
+                protected void paint(final PPaintContext paintContext) {
+                    final Graphics2D g2 = paintContext.getGraphics();
+                    state[0] = g2.getStroke();
+                    state[1] = g2.getRenderingHint(RenderingHints.KEY_DITHERING);
+                }
+            };
+            recordsState.setBounds(0, 0, 10, 10);
+
+            final RecordingCallback callback = new RecordingCallback();
+            singleWorker.submit(new POffscreenRenderService.RenderJob(changesState, new Rectangle2D.Double(0, 0, 10,
+                    10), 10, 10, PPaintContext.HIGH_QUALITY_RENDERING, null, callback)).get(10, TimeUnit.SECONDS);
+            singleWorker.submit(new POffscreenRenderService.RenderJob(recordsState, new Rectangle2D.Double(0, 0, 10,
+                    10), 10, 10, PPaintContext.HIGH_QUALITY_RENDERING, null, callback)).get(10, TimeUnit.SECONDS);
+
+            assertEquals(1, singleWorker.getPooledImageCount());
+            assertEquals(new BasicStroke(), state[0]);
+            assertFalse(RenderingHints.VALUE_DITHER_ENABLE.equals(state[1]));
+        }
+        finally {
+            singleWorker.shutdown();
+        }
+    }
+
+    public void testImagesAreReturnedToPool() throws Exception {
+        final RecordingCallback callback = new RecordingCallback();
+        for (int i = 0; i < 3; i++) {
+            service.submit(new POffscreenRenderService.RenderJob(new PNode(), new Rectangle2D.Double(0, 0, 10, 10),
+                    10, 10, PPaintContext.HIGH_QUALITY_RENDERING, null, callback)).get(10, TimeUnit.SECONDS);
+        }
+        assertTrue(service.getPooledImageCount() >= 1);
+        assertTrue(service.getPooledImageCount() <= 2);
+    }
+
+    public void testLatencyStatistics() throws Exception {
+        assertEquals(0.0d, service.getLatencyPercentile(50.0d), 0.0d);
+
+        final RecordingCallback callback = new RecordingCallback();
+        for (int i = 0; i < 5; i++) {
+            service.submit(new POffscreenRenderService.RenderJob(new PNode(), new Rectangle2D.Double(0, 0, 10, 10),
+                    10, 10, PPaintContext.HIGH_QUALITY_RENDERING, null, callback)).get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(5, service.getCompletedJobCount());
+        assertEquals(0, service.getFailedJobCount());
+        assertEquals(0, service.getQueueDepth());
+        assertTrue(service.getLatencyPercentile(50.0d) > 0.0d);
+        assertTrue(service.getLatencyPercentile(99.0d) >= service.getLatencyPercentile(50.0d));
+    }
+
+    public void testLatencyPercentileRejectsInvalidPercentile() {
+        try {
+            service.getLatencyPercentile(101.0d);
+            fail("getLatencyPercentile(101) expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static final class RecordingCallback implements POffscreenRenderService.RenderCallback {
+        volatile int topLeft;
+        volatile int bottomRight;
+
+        public void rendered(final POffscreenRenderService.RenderJob job, final BufferedImage image) {
+            topLeft = image.getRGB(0, 0);
+            bottomRight = image.getRGB(image.getWidth() - 1, image.getHeight() - 1);
+        }
+    }
+}
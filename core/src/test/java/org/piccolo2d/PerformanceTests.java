@@ -31,6 +31,7 @@ package org.piccolo2d;
 import java.awt.Graphics2D;
 import java.awt.GraphicsConfiguration;
 import java.awt.GraphicsEnvironment;
+import java.awt.Image;
 import java.awt.Transparency;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.GeneralPath;
@@ -41,6 +42,7 @@ import java.util.ArrayList;
 import java.util.Random;
 
 import org.piccolo2d.PNode;
+import org.piccolo2d.nodes.PImage;
 import org.piccolo2d.nodes.PPath;
 import org.piccolo2d.util.PAffineTransform;
 import org.piccolo2d.util.PBounds;
@@ -76,6 +78,7 @@ public class PerformanceTests extends TestCase {
             translateNodes();
             costOfNoBoundsCache();
             // renderSpeed();
+            // drawImageSpeed();
             if (i != 2) {
                 log.clear();
             }
@@ -392,4 +395,37 @@ public class PerformanceTests extends TestCase {
         }
         log.endTest("Fill " + NUMBER_NODES + " paths");
     }
+
+    public void drawImageSpeed() {
+        final int[] types = new int[] { BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR,
+                BufferedImage.TYPE_BYTE_INDEXED, BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB,
+                BufferedImage.TYPE_INT_ARGB_PRE };
+        final String[] typeNames = new String[] { "TYPE_3BYTE_BGR", "TYPE_4BYTE_ABGR", "TYPE_BYTE_INDEXED",
+                "TYPE_INT_RGB", "TYPE_INT_ARGB", "TYPE_INT_ARGB_PRE" };
+
+        final GraphicsConfiguration graphicsConfiguration = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDefaultConfiguration();
+        final BufferedImage result = graphicsConfiguration.createCompatibleImage(400, 400, Transparency.OPAQUE);
+        final Graphics2D g2 = result.createGraphics();
+        g2.scale(1.5, 1.5);
+
+        for (int i = 0; i < types.length; i++) {
+            final BufferedImage image = new BufferedImage(200, 200, types[i]);
+
+            log.startTest();
+            for (int j = 0; j < NUMBER_NODES / 100; j++) {
+                g2.drawImage(image, 0, 0, null);
+            }
+            log.endTest("Draw " + NUMBER_NODES / 100 + " scaled " + typeNames[i] + " images");
+
+            final Image normalizedImage = PImage.toNormalizedImage(image);
+
+            log.startTest();
+            for (int j = 0; j < NUMBER_NODES / 100; j++) {
+                g2.drawImage(normalizedImage, 0, 0, null);
+            }
+            log.endTest("Draw " + NUMBER_NODES / 100 + " scaled " + typeNames[i] + " images normalized");
+        }
+        g2.dispose();
+    }
 }
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.activities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.piccolo2d.PRoot;
+
+/**
+ * Unit test for PActivityScheduler.
+ */
+public class PActivitySchedulerTest extends TestCase {
+
+    private PActivityScheduler scheduler;
+    private List steps;
+    private boolean timerRunning;
+
+    public PActivitySchedulerTest(final String name) {
+        super(name);
+    }
+
+    public void setUp() {
+        steps = new ArrayList();
+        scheduler = new PActivityScheduler(new PRoot()) {
+            protected void startActivityTimer() {
+                // processed explicitly
+                timerRunning = true;
+            }
+
+            protected void stopActivityTimer() {
+                // processed explicitly
+                timerRunning = false;
+            }
+        };
+    }
+
+    public void testActivityIsNotProcessedBeforeItsStartTime() {
+        final CountingActivity activity = new CountingActivity("a", 100, 10, 1000);
+        scheduler.addActivity(activity);
+
+        scheduler.processActivities(0);
+        assertEquals(1, activity.processCount);
+        scheduler.processActivities(500);
+        scheduler.processActivities(999);
+        assertEquals(1, activity.processCount);
+        assertFalse(activity.isStepping());
+
+        scheduler.processActivities(1000);
+        assertEquals(2, activity.processCount);
+        assertTrue(activity.isStepping());
+    }
+
+    public void testActivityIsProcessedAtItsStepRate() {
+        final CountingActivity activity = new CountingActivity("a", 1000, 20, 0);
+        scheduler.addActivity(activity);
+
+        scheduler.processActivities(0);
+        scheduler.processActivities(10);
+        assertEquals(1, activity.processCount);
+        scheduler.processActivities(20);
+        assertEquals(2, activity.processCount);
+    }
+
+    public void testFinishedActivityIsRemoved() {
+        final CountingActivity activity = new CountingActivity("a", 100, 1000, 0);
+        scheduler.addActivity(activity);
+
+        scheduler.processActivities(0);
+        assertTrue(scheduler.isScheduled(activity));
+        scheduler.processActivities(101);
+        assertFalse(scheduler.isScheduled(activity));
+        assertEquals(0, scheduler.getActivitiesReference().size());
+        assertFalse(activity.isStepping());
+    }
+
+    public void testTimerKeepsRunningWhenActivityFinishesWhileOthersAreProcessed() {
+        final CountingActivity running = new CountingActivity("running", 10000, 10, 0);
+        final CountingActivity expired = new CountingActivity("expired", 100, 10, 0);
+        scheduler.addActivity(running);
+        scheduler.addActivity(expired);
+
+        scheduler.processActivities(101);
+        assertFalse(scheduler.isScheduled(expired));
+        assertEquals(1, scheduler.getActivitiesReference().size());
+        assertTrue(timerRunning);
+    }
+
+    public void testTimerStopsWhenLastActivityFinishes() {
+        final CountingActivity activity = new CountingActivity("a", 100, 10, 0);
+        scheduler.addActivity(activity);
+
+        scheduler.processActivities(101);
+        assertFalse(timerRunning);
+    }
+
+    public void testRemoveActivity() {
+        final CountingActivity a = new CountingActivity("a", 1000, 10, 0);
+        final CountingActivity b = new CountingActivity("b", 1000, 20, 0);
+        final CountingActivity c = new CountingActivity("c", 1000, 30, 0);
+        scheduler.addActivity(a);
+        scheduler.addActivity(b);
+        scheduler.addActivity(c);
+        scheduler.processActivities(0);
+
+        scheduler.removeActivity(b);
+        assertFalse(scheduler.isScheduled(b));
+        assertEquals(2, scheduler.getActivitiesReference().size());
+
+        steps.clear();
+        scheduler.processActivities(100);
+        assertEquals(Arrays.asList(new String[] { "c", "a" }), steps);
+    }
+
+    public void testAddActivityTwiceSchedulesItOnce() {
+        final CountingActivity activity = new CountingActivity("a", 1000, 10, 0);
+        scheduler.addActivity(activity);
+        scheduler.addActivity(activity);
+        assertEquals(1, scheduler.getActivitiesReference().size());
+    }
+
+    public void testActivitiesAreProcessedNewestFirstThenLast() {
+        scheduler.addActivity(new CountingActivity("last1", 1000, 10, 0), true);
+        scheduler.addActivity(new CountingActivity("a", 1000, 10, 0));
+        scheduler.addActivity(new CountingActivity("last2", 1000, 10, 0), true);
+        scheduler.addActivity(new CountingActivity("b", 1000, 10, 0));
+
+        scheduler.processActivities(0);
+        assertEquals(Arrays.asList(new String[] { "b", "a", "last1", "last2" }), steps);
+
+        steps.clear();
+        scheduler.processActivities(10);
+        assertEquals(Arrays.asList(new String[] { "b", "a", "last1", "last2" }), steps);
+    }
+
+    public void testAnimatingCount() {
+        final CountingActivity animation = new CountingActivity("a", 1000, 10, 0);
+        animation.animation = true;
+        final CountingActivity other = new CountingActivity("b", 1000, 10, 0);
+
+        scheduler.addActivity(other);
+        assertFalse(scheduler.getAnimating());
+        scheduler.addActivity(animation);
+        assertTrue(scheduler.getAnimating());
+        assertEquals(1, scheduler.getAnimatingCount());
+
+        scheduler.removeActivity(animation);
+        assertFalse(scheduler.getAnimating());
+        assertEquals(0, scheduler.getAnimatingCount());
+    }
+
+    public void testAddAndRemoveActivities() {
+        final List activities = new ArrayList();
+        for (int i = 0; i < 10; i++) {
+            activities.add(new CountingActivity(String.valueOf(i), 1000, 10 + i, 0));
+        }
+        scheduler.addActivities(activities);
+        assertEquals(10, scheduler.getActivitiesReference().size());
+        scheduler.addActivities(activities);
+        assertEquals(10, scheduler.getActivitiesReference().size());
+
+        scheduler.processActivities(0);
+        assertEquals(10, steps.size());
+
+        scheduler.removeActivities(activities.subList(0, 5));
+        assertEquals(5, scheduler.getActivitiesReference().size());
+        steps.clear();
+        scheduler.processActivities(100);
+        assertEquals(Arrays.asList(new String[] { "9", "8", "7", "6", "5" }), steps);
+
+        scheduler.removeActivities(activities);
+        assertEquals(0, scheduler.getActivitiesReference().size());
+    }
+
+    public void testSetStartTimeReschedulesActivity() {
+        final CountingActivity activity = new CountingActivity("a", 100, 10, 1000);
+        scheduler.addActivity(activity);
+        scheduler.processActivities(0);
+        assertEquals(1, activity.processCount);
+
+        activity.setStartTime(50);
+        scheduler.processActivities(50);
+        assertEquals(2, activity.processCount);
+        assertTrue(activity.isStepping());
+    }
+
+    public void testActivityRemovedWhileProcessingIsNotProcessed() {
+        final CountingActivity victim = new CountingActivity("victim", 1000, 10, 0);
+        final CountingActivity remover = new CountingActivity("remover", 1000, 10, 0) {
+            public long processStep(final long currentTime) {
+                scheduler.removeActivity(victim);
+                return super.processStep(currentTime);
+            }
+        };
+        scheduler.addActivity(victim);
+        scheduler.addActivity(remover);
+
+        scheduler.processActivities(0);
+        assertEquals(Arrays.asList(new String[] { "remover" }), steps);
+        assertFalse(scheduler.isScheduled(victim));
+        assertTrue(scheduler.isScheduled(remover));
+    }
+
+    public void testRemoveAllActivities() {
+        scheduler.addActivity(new CountingActivity("a", 1000, 10, 0));
+        scheduler.addActivity(new CountingActivity("b", 1000, 10, 0));
+        scheduler.removeAllActivities();
+        assertEquals(0, scheduler.getActivitiesReference().size());
+        scheduler.processActivities(0);
+        assertTrue(steps.isEmpty());
+    }
+
+    /**
+     * Activity recording when it is processed.
+     */
+    private class CountingActivity extends PActivity {
+        private final String name;
+        private int processCount;
+        private boolean animation;
+
+        CountingActivity(final String name, final long duration, final long stepRate, final long startTime) {
+            super(duration, stepRate, startTime);
+            this.name = name;
+        }
+
+        public long processStep(final long currentTime) {
+            processCount++;
+            if (currentTime >= getStartTime()) {
+                steps.add(name);
+            }
+            return super.processStep(currentTime);
+        }
+
+        protected boolean isAnimation() {
+            return animation;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.activities;
+
+import java.awt.geom.AffineTransform;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+
+import junit.framework.TestCase;
+
+import org.piccolo2d.PNode;
+
+/**
+ * Unit test for PBulkTransformActivity.
+ */
+public class PBulkTransformActivityTest extends TestCase {
+
+    public PBulkTransformActivityTest(final String name) {
+        super(name);
+    }
+
+    private static PNode[] createNodes(final int count) {
+        final PNode[] nodes = new PNode[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = new PNode();
+        }
+        return nodes;
+    }
+
+    private static AffineTransform[] createDestinations(final int count) {
+        final AffineTransform[] destinations = new AffineTransform[count];
+        for (int i = 0; i < count; i++) {
+            destinations[i] = AffineTransform.getTranslateInstance(100 * (i + 1), 10);
+        }
+        return destinations;
+    }
+
+    public void testInterpolatesAllNodes() {
+        final PNode[] nodes = createNodes(3);
+        final PBulkTransformActivity activity = new PBulkTransformActivity(1000, 10, nodes, createDestinations(3));
+        assertEquals(3, activity.getNodeCount());
+
+        activity.activityStarted();
+        assertEquals(0.0d, nodes[2].getXOffset(), 0.0d);
+
+        activity.setRelativeTargetValue(0.5f);
+        assertEquals(50.0d, nodes[0].getXOffset(), 1.0e-9d);
+        assertEquals(150.0d, nodes[2].getXOffset(), 1.0e-9d);
+        assertEquals(5.0d, nodes[2].getYOffset(), 1.0e-9d);
+
+        activity.setRelativeTargetValue(1.0f);
+        assertEquals(100.0d, nodes[0].getXOffset(), 0.0d);
+        assertEquals(300.0d, nodes[2].getXOffset(), 0.0d);
+    }
+
+    public void testStaggerDelaysLaterNodes() {
+        final PNode[] nodes = createNodes(3);
+        final PBulkTransformActivity activity = new PBulkTransformActivity(1000, 10, nodes, createDestinations(3));
+        activity.setStagger(0.5d);
+        activity.activityStarted();
+
+        activity.setRelativeTargetValue(0.25f);
+        assertEquals(50.0d, nodes[0].getXOffset(), 1.0e-9d);
+        assertEquals(0.0d, nodes[1].getXOffset(), 1.0e-9d);
+        assertEquals(0.0d, nodes[2].getXOffset(), 0.0d);
+
+        activity.setRelativeTargetValue(0.5f);
+        assertEquals(100.0d, nodes[0].getXOffset(), 0.0d);
+        assertEquals(0.0d, nodes[2].getXOffset(), 0.0d);
+
+        activity.setRelativeTargetValue(1.0f);
+        assertEquals(300.0d, nodes[2].getXOffset(), 0.0d);
+    }
+
+    public void testOvershootWithoutStagger() {
+        final PNode[] nodes = createNodes(3);
+        final PBulkTransformActivity activity = new PBulkTransformActivity(1000, 10, nodes, createDestinations(3));
+        activity.activityStarted();
+
+        activity.setRelativeTargetValue(1.25f);
+        assertEquals(125.0d, nodes[0].getXOffset(), 1.0e-9d);
+        assertEquals(375.0d, nodes[2].getXOffset(), 1.0e-9d);
+
+        activity.setRelativeTargetValue(-0.25f);
+        assertEquals(-25.0d, nodes[0].getXOffset(), 1.0e-9d);
+    }
+
+    public void testStaggerHoldsNodesOutsideTheirWindow() {
+        final PNode[] nodes = createNodes(3);
+        final PBulkTransformActivity activity = new PBulkTransformActivity(1000, 10, nodes, createDestinations(3));
+        activity.setStagger(0.5d);
+        activity.activityStarted();
+
+        activity.setRelativeTargetValue(0.9f);
+        assertEquals(100.0d, nodes[0].getXOffset(), 0.0d);
+        assertEquals(240.0d, nodes[2].getXOffset(), 1.0e-4d);
+    }
+
+    public void testUnchangedNodesAreNotUpdated() {
+        final PNode[] nodes = createNodes(2);
+        final PBulkTransformActivity activity = new PBulkTransformActivity(1000, 10, nodes, createDestinations(2));
+        activity.setStagger(0.5d);
+        activity.activityStarted();
+
+        final int[] changes = new int[1];
+        nodes[1].addPropertyChangeListener(PNode.PROPERTY_TRANSFORM, new PropertyChangeListener() {
+            public void propertyChange(final PropertyChangeEvent event) {
+                changes[0]++;
+            }
+        });
+        activity.setRelativeTargetValue(0.25f);
+        activity.setRelativeTargetValue(0.5f);
+        assertEquals(0, changes[0]);
+        activity.setRelativeTargetValue(0.75f);
+        assertEquals(1, changes[0]);
+    }
+
+    public void testParallelInterpolationMatchesSequential() {
+        final PNode[] sequentialNodes = createNodes(100);
+        final PNode[] parallelNodes = createNodes(100);
+        final PBulkTransformActivity sequential = new PBulkTransformActivity(1000, 10, sequentialNodes,
+                createDestinations(100));
+        final PBulkTransformActivity parallel = new PBulkTransformActivity(1000, 10, parallelNodes,
+                createDestinations(100));
+        parallel.setParallel(true);
+        parallel.setParallelThreshold(1);
+        sequential.setStagger(0.3d);
+        parallel.setStagger(0.3d);
+        sequential.activityStarted();
+        parallel.activityStarted();
+
+        sequential.setRelativeTargetValue(0.4f);
+        parallel.setRelativeTargetValue(0.4f);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(sequentialNodes[i].getTransform(), parallelNodes[i].getTransform());
+        }
+    }
+
+    public void testDecomposedInterpolation() {
+        final PNode[] nodes = createNodes(2);
+        final AffineTransform[] destinations = new AffineTransform[] { AffineTransform.getRotateInstance(Math.PI),
+                AffineTransform.getScaleInstance(3, 3) };
+        final PBulkTransformActivity activity = new PBulkTransformActivity(1000, 10, nodes, destinations);
+        activity.setDecomposedInterpolation(true);
+        activity.activityStarted();
+
+        activity.setRelativeTargetValue(0.5f);
+        assertEquals(1.0d, nodes[0].getTransform().getDeterminant(), 1.0e-9d);
+        assertEquals(2.0d, nodes[1].getScale(), 1.0e-9d);
+    }
+
+    public void testIsAnimation() {
+        assertTrue(new PBulkTransformActivity(1000, 10, createNodes(1), createDestinations(1)).isAnimation());
+    }
+
+    public void testConstructorRejectsMismatchedDestinations() {
+        try {
+            new PBulkTransformActivity(1000, 10, createNodes(2), createDestinations(3));
+            fail("constructor with mismatched destinations expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new PBulkTransformActivity(1000, 10, createNodes(2), new double[6]);
+            fail("constructor with mismatched destination matrices expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testSetStaggerOutOfRange() {
+        final PBulkTransformActivity activity = new PBulkTransformActivity(1000, 10, createNodes(1),
+                createDestinations(1));
+        try {
+            activity.setStagger(1.0d);
+            fail("setStagger(1.0) expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
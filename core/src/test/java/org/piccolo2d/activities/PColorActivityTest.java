@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.activities;
+
+import java.awt.Color;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for PColorActivity.
+ */
+public class PColorActivityTest extends TestCase {
+
+    /** Interpolator overshooting to 1.125 at three quarters of the time. */
+    private static final PInterpolator OVERSHOOT = new PInterpolator() {
+        public float interpolate(final float zeroToOne) {
+            return zeroToOne + 2.0f * zeroToOne * (1.0f - zeroToOne);
+        }
+    };
+
+    private Color color;
+
+    private final PColorActivity.Target target = new PColorActivity.Target() {
+        public void setColor(final Color newColor) {
+            color = newColor;
+        }
+
+        public Color getColor() {
+            return color;
+        }
+    };
+
+    public void testInterpolatesColor() {
+        color = Color.BLACK;
+        final PColorActivity activity = new PColorActivity(1000L, 10L, target, new Color(200, 100, 0, 255));
+        activity.activityStarted();
+
+        activity.setRelativeTargetValue(0.5f);
+
+        assertEquals(new Color(100, 50, 0, 255), color);
+    }
+
+    public void testClampsOvershootingInterpolator() {
+        color = new Color(55, 255, 128, 255);
+        final PColorActivity activity = new PColorActivity(1000L, 10L, target, new Color(255, 55, 128, 255));
+        activity.setInterpolator(OVERSHOOT);
+        activity.activityStarted();
+
+        activity.activityStep(750L);
+
+        assertEquals(new Color(255, 30, 128, 255), color);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.activities;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for PCubicBezierInterpolator.
+ */
+public class PCubicBezierInterpolatorTest extends TestCase {
+
+    public PCubicBezierInterpolatorTest(final String name) {
+        super(name);
+    }
+
+    public void testEndPoints() {
+        assertEquals(0.0f, PCubicBezierInterpolator.EASE.interpolate(0.0f), 0.0f);
+        assertEquals(1.0f, PCubicBezierInterpolator.EASE.interpolate(1.0f), 0.0f);
+        assertEquals(0.0f, PCubicBezierInterpolator.EASE.interpolate(-1.0f), 0.0f);
+        assertEquals(1.0f, PCubicBezierInterpolator.EASE.interpolate(2.0f), 0.0f);
+    }
+
+    public void testLinearControlPoints() {
+        final PCubicBezierInterpolator linear = new PCubicBezierInterpolator(1.0d / 3.0d, 1.0d / 3.0d,
+                2.0d / 3.0d, 2.0d / 3.0d);
+        for (int i = 0; i <= 10; i++) {
+            assertEquals(i / 10.0f, linear.interpolate(i / 10.0f), 1.0e-5f);
+        }
+    }
+
+    public void testEaseInOutIsSymmetric() {
+        final PCubicBezierInterpolator easeInOut = PCubicBezierInterpolator.EASE_IN_OUT;
+        assertEquals(0.5f, easeInOut.interpolate(0.5f), 1.0e-5f);
+        assertEquals(1.0f - easeInOut.interpolate(0.2f), easeInOut.interpolate(0.8f), 1.0e-5f);
+        assertTrue(easeInOut.interpolate(0.2f) < 0.2f);
+    }
+
+    public void testEaseInMatchesCurve() {
+        // at parameter 0.5 the ease in curve is at (0.6575, 0.5)
+        assertEquals(0.5f, PCubicBezierInterpolator.EASE_IN.interpolate(0.6575f), 1.0e-4f);
+    }
+
+    public void testIsMonotonic() {
+        float previous = 0.0f;
+        for (int i = 0; i <= 1000; i++) {
+            final float value = PCubicBezierInterpolator.EASE.interpolate(i / 1000.0f);
+            assertTrue(value >= previous);
+            previous = value;
+        }
+    }
+
+    public void testConstructorRejectsControlPointsOutOfRange() {
+        try {
+            new PCubicBezierInterpolator(1.5d, 0.0d, 0.5d, 1.0d);
+            fail("constructor with x1 out of range expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -46,4 +46,21 @@ public class PInterpolatingActivityTest extends TestCase {
         assertEquals(PUtil.DEFAULT_ACTIVITY_STEP_RATE, activity.getStepRate());
         assertEquals(PInterpolatingActivity.SOURCE_TO_DESTINATION, activity.getMode());
     }
+
+    public void testInterpolatorTakesPrecedenceOverSlowInSlowOut() {
+        final float[] value = new float[1];
+        final PInterpolatingActivity activity = new PInterpolatingActivity(1000L) {
+            public void setRelativeTargetValue(final float zeroToOne) {
+                value[0] = zeroToOne;
+            }
+        };
+        assertNull(activity.getInterpolator());
+
+        activity.activityStep(250L);
+        assertEquals(0.125f, value[0], 1.0e-6f);
+
+        activity.setInterpolator(PInterpolator.LINEAR);
+        activity.activityStep(250L);
+        assertEquals(0.25f, value[0], 1.0e-6f);
+    }
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.activities;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for PSpringInterpolator.
+ */
+public class PSpringInterpolatorTest extends TestCase {
+
+    public PSpringInterpolatorTest(final String name) {
+        super(name);
+    }
+
+    public void testEndPoints() {
+        final PSpringInterpolator spring = new PSpringInterpolator(0.3d);
+        assertEquals(0.0f, spring.interpolate(0.0f), 0.0f);
+        assertEquals(1.0f, spring.interpolate(1.0f), 0.0f);
+    }
+
+    public void testUnderdampedSpringOvershoots() {
+        final PSpringInterpolator spring = new PSpringInterpolator(0.3d);
+        float maximum = 0.0f;
+        for (int i = 0; i <= 100; i++) {
+            maximum = Math.max(maximum, spring.interpolate(i / 100.0f));
+        }
+        assertTrue(maximum > 1.0f);
+    }
+
+    public void testCriticallyDampedSpringDoesNotOvershoot() {
+        final PSpringInterpolator spring = new PSpringInterpolator(1.0d);
+        float previous = 0.0f;
+        for (int i = 0; i <= 100; i++) {
+            final float value = spring.interpolate(i / 100.0f);
+            assertTrue(value >= previous);
+            assertTrue(value <= 1.0f);
+            previous = value;
+        }
+    }
+
+    public void testSpringSettles() {
+        final PSpringInterpolator spring = new PSpringInterpolator(0.5d);
+        assertEquals(1.0f, spring.interpolate(0.99f), 1.0e-2f);
+    }
+
+    public void testConstructorRejectsDampingRatioOutOfRange() {
+        try {
+            new PSpringInterpolator(0.0d);
+            fail("constructor with damping ratio 0 expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
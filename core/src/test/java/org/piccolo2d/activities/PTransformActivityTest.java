@@ -28,6 +28,8 @@
  */
 package org.piccolo2d.activities;
 
+import java.awt.geom.AffineTransform;
+
 import org.piccolo2d.activities.PTransformActivity;
 
 import junit.framework.TestCase;
@@ -45,4 +47,55 @@ public class PTransformActivityTest extends TestCase {
         final PTransformActivity transformActivity = new PTransformActivity(1000, 0, null);
         assertNotNull(transformActivity.toString());
     }
+
+    public void testDecomposedInterpolationKeepsScaleWhileRotating() {
+        final AffineTransform[] result = new AffineTransform[1];
+        final PTransformActivity.Target target = new PTransformActivity.Target() {
+            public void setTransform(final AffineTransform transform) {
+                result[0] = new AffineTransform(transform);
+            }
+
+            public void getSourceMatrix(final double[] source) {
+                new AffineTransform().getMatrix(source);
+            }
+        };
+        final PTransformActivity transformActivity = new PTransformActivity(1000, 0, target, AffineTransform
+                .getRotateInstance(Math.PI));
+        assertFalse(transformActivity.getDecomposedInterpolation());
+        transformActivity.activityStarted();
+
+        transformActivity.setRelativeTargetValue(0.5f);
+        assertEquals(0.0d, result[0].getDeterminant(), 1.0e-9d);
+
+        transformActivity.setDecomposedInterpolation(true);
+        transformActivity.setRelativeTargetValue(0.5f);
+        assertEquals(1.0d, result[0].getDeterminant(), 1.0e-9d);
+        assertEquals(0.0d, result[0].getScaleX(), 1.0e-9d);
+        assertEquals(1.0d, Math.abs(result[0].getShearY()), 1.0e-9d);
+
+        transformActivity.setRelativeTargetValue(1.0f);
+        assertEquals(-1.0d, result[0].getScaleX(), 1.0e-9d);
+        assertEquals(-1.0d, result[0].getScaleY(), 1.0e-9d);
+    }
+
+    public void testDecomposedInterpolationRotatesTheShortestWay() {
+        final AffineTransform[] result = new AffineTransform[1];
+        final PTransformActivity.Target target = new PTransformActivity.Target() {
+            public void setTransform(final AffineTransform transform) {
+                result[0] = new AffineTransform(transform);
+            }
+
+            public void getSourceMatrix(final double[] source) {
+                AffineTransform.getRotateInstance(Math.toRadians(170)).getMatrix(source);
+            }
+        };
+        final PTransformActivity transformActivity = new PTransformActivity(1000, 0, target, AffineTransform
+                .getRotateInstance(Math.toRadians(-170)));
+        transformActivity.setDecomposedInterpolation(true);
+        transformActivity.activityStarted();
+
+        transformActivity.setRelativeTargetValue(0.5f);
+        assertEquals(-1.0d, result[0].getScaleX(), 1.0e-9d);
+        assertEquals(0.0d, result[0].getShearY(), 1.0e-9d);
+    }
 }
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.event;
+
+import java.awt.event.ActionListener;
+
+import javax.swing.Timer;
+
+import junit.framework.TestCase;
+
+import org.piccolo2d.PCamera;
+import org.piccolo2d.PRoot;
+
+/**
+ * Unit test for PKineticCameraController.
+ */
+public class PKineticCameraControllerTest extends TestCase {
+
+    private PKineticCameraController controller;
+    private PCamera camera;
+    private PRoot root;
+
+    public PKineticCameraControllerTest(final String name) {
+        super(name);
+    }
+
+    public void setUp() {
+        root = new PRoot() {
+            public Timer createTimer(final int delay, final ActionListener listener) {
+                return new Timer(delay, listener) {
+                    public void start() {
+                        // frames are stepped explicitly
+                    }
+                };
+            }
+        };
+        camera = new PCamera();
+        root.addChild(camera);
+        controller = new PKineticCameraController();
+    }
+
+    public void testDefaults() {
+        assertEquals(PKineticCameraController.DEFAULT_FRICTION, controller.getFriction(), 0.0d);
+        assertEquals(PKineticCameraController.DEFAULT_ZOOM_DURATION, controller.getZoomDuration());
+        assertNull(controller.getCamera());
+        assertFalse(controller.isMoving());
+    }
+
+    public void testFlingMovesViewAndSlowsDown() {
+        controller.fling(camera, 1000.0d, 0.0d);
+        assertTrue(controller.isMoving());
+        assertEquals(1, root.getActivityScheduler().getActivitiesReference().size());
+
+        controller.step(100L);
+        final double firstOffset = camera.getViewTransformReference().getTranslateX();
+        assertTrue(firstOffset > 0.0d);
+        assertTrue(controller.getVelocityX() < 1000.0d);
+
+        controller.step(100L);
+        final double secondOffset = camera.getViewTransformReference().getTranslateX();
+        assertTrue(secondOffset - firstOffset < firstOffset);
+    }
+
+    public void testFlingComesToRest() {
+        controller.fling(camera, 1000.0d, 0.0d);
+        for (int i = 0; i < 200 && controller.isMoving(); i++) {
+            controller.step(20L);
+        }
+        assertFalse(controller.isMoving());
+        assertEquals(0, root.getActivityScheduler().getActivitiesReference().size());
+        // distance travelled approaches velocity / friction
+        assertEquals(1000.0d / PKineticCameraController.DEFAULT_FRICTION, camera.getViewTransformReference()
+                .getTranslateX(), 5.0d);
+    }
+
+    public void testSlowFlingDoesNotMove() {
+        controller.fling(camera, 1.0d, 0.0d);
+        assertFalse(controller.isMoving());
+    }
+
+    public void testDragReleaseFlingsAtEndVelocity() {
+        controller.dragStarted(camera);
+        controller.dragged(5.0d, 0.0d, 1000L);
+        controller.dragged(10.0d, 0.0d, 1010L);
+        controller.dragged(10.0d, 0.0d, 1020L);
+        controller.dragReleased(1025L);
+        assertTrue(controller.isMoving());
+        assertEquals(1000.0d, controller.getVelocityX(), 1.0e-9d);
+        assertEquals(0.0d, controller.getVelocityY(), 0.0d);
+    }
+
+    public void testDragReleasedAfterPauseDoesNotFling() {
+        controller.dragStarted(camera);
+        controller.dragged(10.0d, 0.0d, 1000L);
+        controller.dragged(10.0d, 0.0d, 1010L);
+        controller.dragReleased(1500L);
+        assertFalse(controller.isMoving());
+    }
+
+    public void testDragStartStopsMotion() {
+        controller.fling(camera, 1000.0d, 0.0d);
+        controller.dragStarted(camera);
+        assertFalse(controller.isMoving());
+        assertEquals(0, root.getActivityScheduler().getActivitiesReference().size());
+    }
+
+    public void testZoomsAccumulateIntoOneAnimation() {
+        controller.zoom(camera, 2.0d, 0.0d, 0.0d);
+        controller.zoom(camera, 2.0d, 0.0d, 0.0d);
+        assertEquals(1.0d, camera.getViewScale(), 0.0d);
+        assertEquals(1, root.getActivityScheduler().getActivitiesReference().size());
+
+        controller.step(PKineticCameraController.DEFAULT_ZOOM_DURATION);
+        assertTrue(camera.getViewScale() > 1.0d);
+        assertTrue(camera.getViewScale() < 4.0d);
+
+        for (int i = 0; i < 200 && controller.isMoving(); i++) {
+            controller.step(20L);
+        }
+        assertFalse(controller.isMoving());
+        assertEquals(4.0d, camera.getViewScale(), 1.0e-3d);
+    }
+
+    public void testZoomWithoutRootIsApplied() {
+        final PCamera detachedCamera = new PCamera();
+        controller.zoom(detachedCamera, 2.0d, 0.0d, 0.0d);
+        assertFalse(controller.isMoving());
+        assertEquals(2.0d, detachedCamera.getViewScale(), 1.0e-9d);
+    }
+
+    public void testStop() {
+        controller.zoom(camera, 2.0d, 0.0d, 0.0d);
+        controller.stop();
+        assertFalse(controller.isMoving());
+        controller.step(100L);
+        assertEquals(1.0d, camera.getViewScale(), 0.0d);
+    }
+
+    public void testSetFrictionRejectsZero() {
+        try {
+            controller.setFriction(0.0d);
+            fail("setFriction(0.0) expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testZoomRejectsNonPositiveScale() {
+        try {
+            controller.zoom(camera, 0.0d, 0.0d, 0.0d);
+            fail("zoom with scale 0 expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -75,4 +75,13 @@ public final class PMouseWheelZoomEventHandlerTest extends TestCase {
         zoomHandler.zoomAboutViewCenter();
         assertSame(ZOOM_ABOUT_VIEW_CENTER, zoomHandler.getZoomMode());
     }
+
+    public void testKineticController() {
+        PMouseWheelZoomEventHandler zoomHandler = new PMouseWheelZoomEventHandler();
+        assertNull(zoomHandler.getKineticController());
+
+        PKineticCameraController kineticController = new PKineticCameraController();
+        zoomHandler.setKineticController(kineticController);
+        assertSame(kineticController, zoomHandler.getKineticController());
+    }
 }
@@ -68,4 +68,14 @@ public class PPanEventHandlerTest extends TestCase {
         handler.setMaxAutopanSpeed(10);
         assertEquals(10, handler.getMaxAutoPanSpeed(), 0.000001);
     }
+
+    public void testKineticControllerDefaultsToNull() {
+        assertNull(handler.getKineticController());
+    }
+
+    public void testKineticControllerPersists() {
+        final PKineticCameraController kineticController = new PKineticCameraController();
+        handler.setKineticController(kineticController);
+        assertSame(kineticController, handler.getKineticController());
+    }
 }
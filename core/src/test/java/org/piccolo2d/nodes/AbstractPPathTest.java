@@ -28,7 +28,9 @@
  */
 package org.piccolo2d.nodes;
 
+import java.awt.BasicStroke;
 import java.awt.Color;
+import java.awt.Graphics2D;
 import java.awt.Shape;
 
 import java.awt.geom.AffineTransform;
@@ -36,6 +38,7 @@ import java.awt.geom.Arc2D;
 import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -46,6 +49,7 @@ import java.io.ObjectInputStream;
 
 import org.piccolo2d.util.PBounds;
 import org.piccolo2d.util.PObjectOutputStream;
+import org.piccolo2d.util.PPaintContext;
 
 /**
  * Abstract unit test for subclasses of PPath.
@@ -345,6 +349,40 @@ public abstract class AbstractPPathTest extends AbstractPShapeTest {
         assertFalse(path.intersects(new Rectangle2D.Double(100.0d, 200.0d, 2.0d, 2.0d)));
     }
 
+    public void testIntersectsHairline() {
+        PPath path = PPath.createRectangle(0.0d, 0.0d, 50.0d, 100.0d);
+        path.setPaint(null);
+        path.setStroke(null);
+        path.setHairlineWidth(1.0f);
+        assertTrue(path.intersects(new Rectangle2D.Double(0.2d, 40.0d, 0.2d, 2.0d)));
+        assertTrue(path.intersects(new Rectangle2D.Double(49.0d, 99.0d, 2.0d, 2.0d)));
+        assertFalse(path.intersects(new Rectangle2D.Double(1.0d, 40.0d, 2.0d, 2.0d)));
+        assertFalse(path.intersects(new Rectangle2D.Double(25.0d, 50.0d, 2.0d, 2.0d)));
+        assertFalse(path.intersects(new Rectangle2D.Double(-10.0d, -10.0d, 2.0d, 2.0d)));
+    }
+
+    public void testHairlineIgnoresStrokeInBounds() {
+        PPath path = PPath.createRectangle(0.0d, 0.0d, 50.0d, 100.0d);
+        path.setStroke(new BasicStroke(10.0f));
+        assertEquals(-5.0d, path.getX(), TOLERANCE);
+        path.setHairlineWidth(1.0f);
+        assertEquals(new PBounds(-0.5d, -0.5d, 51.0d, 101.0d), path.getBounds());
+    }
+
+    public void testPaintHairline() {
+        PPath path = PPath.createLine(0.0d, 5.0d, 10.0d, 5.0d);
+        path.setStrokePaint(Color.BLACK);
+        path.setHairlineWidth(1.0f);
+        BufferedImage image = new BufferedImage(40, 20, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.scale(4.0d, 2.0d);
+        path.fullPaint(new PPaintContext(graphics));
+        graphics.dispose();
+        assertEquals(Color.BLACK.getRGB(), image.getRGB(20, 10));
+        assertEquals(0, image.getRGB(20, 8));
+        assertEquals(0, image.getRGB(20, 12));
+    }
+
     public void testFullIntersects() {
         PPath path = PPath.createRectangle(0.0d, 0.0d, 50.0d, 100.0d);
         assertTrue(path.fullIntersects(new Rectangle2D.Double(0.0d, 0.0d, 2.0d, 2.0d)));
@@ -472,4 +510,27 @@ public abstract class AbstractPPathTest extends AbstractPShapeTest {
         path.closePath();
         assertEquals(1, mockListener.getPropertyChangeCount());
     }
+
+    public void testRectangleWithOpaquePaintIsOpaqueWithinItsBounds() {
+        final PPath rectangle = PPath.createRectangle(0.0d, 0.0d, 50.0d, 100.0d);
+
+        assertTrue(rectangle.isOpaque(new Rectangle2D.Double(10.0d, 10.0d, 20.0d, 20.0d)));
+        assertFalse(rectangle.isOpaque(new Rectangle2D.Double(40.0d, 10.0d, 20.0d, 20.0d)));
+    }
+
+    public void testRectangleWithTranslucentOrNoPaintIsNotOpaque() {
+        final PPath rectangle = PPath.createRectangle(0.0d, 0.0d, 50.0d, 100.0d);
+        final Rectangle2D boundary = new Rectangle2D.Double(10.0d, 10.0d, 20.0d, 20.0d);
+
+        rectangle.setPaint(new Color(255, 0, 0, 128));
+        assertFalse(rectangle.isOpaque(boundary));
+        rectangle.setPaint(null);
+        assertFalse(rectangle.isOpaque(boundary));
+    }
+
+    public void testEllipseIsNotOpaque() {
+        final PPath ellipse = PPath.createEllipse(0.0d, 0.0d, 50.0d, 100.0d);
+
+        assertFalse(ellipse.isOpaque(new Rectangle2D.Double(20.0d, 40.0d, 10.0d, 10.0d)));
+    }
 }
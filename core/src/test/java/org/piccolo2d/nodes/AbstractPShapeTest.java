@@ -104,4 +104,40 @@ public abstract class AbstractPShapeTest extends TestCase {
         shape.setStrokePaint(strokePaint);
         assertEquals(1, mockListener.getPropertyChangeCount());
     }
+
+    public void testDefaultHairlineWidth() {
+        PShape shape = createShapeNode();
+        assertEquals(0.0f, shape.getHairlineWidth(), 0.0f);
+    }
+
+    public void testHairlineWidth() {
+        PShape shape = createShapeNode();
+        shape.setHairlineWidth(1.0f);
+        assertEquals(1.0f, shape.getHairlineWidth(), 0.0f);
+    }
+
+    public void testHairlineWidthBoundProperty() {
+        PShape shape = createShapeNode();
+        shape.addPropertyChangeListener("hairlineWidth", mockListener);
+        shape.setHairlineWidth(1.0f);
+        assertEquals(1, mockListener.getPropertyChangeCount());
+    }
+
+    public void testHairlineWidthOutOfRange() {
+        PShape shape = createShapeNode();
+        try {
+            shape.setHairlineWidth(-1.0f);
+            fail("setHairlineWidth(-1.0f) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            shape.setHairlineWidth(3.0f);
+            fail("setHairlineWidth(3.0f) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
 }
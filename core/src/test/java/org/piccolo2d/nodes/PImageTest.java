@@ -28,13 +28,18 @@
  */
 package org.piccolo2d.nodes;
 
+import java.awt.Image;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.Executor;
 
 import javax.imageio.ImageIO;
 
+import org.piccolo2d.SwingTestUtil;
 import org.piccolo2d.nodes.PImage;
+import org.piccolo2d.util.PBounds;
+import org.piccolo2d.util.PImageLoader;
 import org.piccolo2d.util.PPaintContext;
 
 import junit.framework.TestCase;
@@ -44,6 +49,29 @@ import junit.framework.TestCase;
  */
 public class PImageTest extends TestCase {
 
+    public void tearDown() {
+        PImageLoader.setExecutor(null);
+        PImageLoader.clearCache();
+    }
+
+    /**
+     * Decode images immediately on the calling thread.
+     */
+    private static void useDirectImageLoaderExecutor() {
+        PImageLoader.setExecutor(new Executor() {
+            public void execute(final Runnable command) {
+                command.run();
+            }
+        });
+    }
+
+    private static File createImageFile() throws IOException {
+        final File imgFile = File.createTempFile("test", ".png");
+        imgFile.deleteOnExit();
+        ImageIO.write(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB), "png", imgFile);
+        return imgFile;
+    }
+
     public void testClone() {
         final PImage srcNode = new PImage(new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB));
         final PImage clonedNode = (PImage) srcNode.clone();
@@ -109,4 +137,154 @@ public class PImageTest extends TestCase {
         imageNode.paint(paintContext);
     }
 
+    public void testLoadImageAppliesImageOnEventDispatchThread() throws Exception {
+        useDirectImageLoaderExecutor();
+        final File imgFile = createImageFile();
+        final PImage imageNode = new PImage();
+
+        SwingTestUtil.onEventDispatchThread(new Runnable() {
+            public void run() {
+                try {
+                    imageNode.loadImage(imgFile.toURI().toURL());
+                }
+                catch (final IOException e) {
+                    fail(e.toString());
+                }
+                assertTrue(imageNode.isImageLoading());
+                assertNull(imageNode.getImage());
+            }
+        });
+
+        SwingTestUtil.onEventDispatchThread(new Runnable() {
+            public void run() {
+                assertFalse(imageNode.isImageLoading());
+                assertEquals(100, imageNode.getImage().getWidth(null));
+                assertEquals(new PBounds(0, 0, 100, 100), imageNode.getBounds());
+            }
+        });
+    }
+
+    public void testLoadImageWithSizeKeepsBoundsAndSubsamples() throws Exception {
+        useDirectImageLoaderExecutor();
+        final File imgFile = createImageFile();
+        final PImage imageNode = new PImage();
+
+        SwingTestUtil.onEventDispatchThread(new Runnable() {
+            public void run() {
+                try {
+                    imageNode.loadImage(imgFile.toURI().toURL(), 25, 25);
+                }
+                catch (final IOException e) {
+                    fail(e.toString());
+                }
+                assertEquals(new PBounds(0, 0, 25, 25), imageNode.getBounds());
+            }
+        });
+
+        SwingTestUtil.onEventDispatchThread(new Runnable() {
+            public void run() {
+                assertEquals(25, imageNode.getImage().getWidth(null));
+                assertEquals(new PBounds(0, 0, 25, 25), imageNode.getBounds());
+            }
+        });
+    }
+
+    public void testSetImageSupersedesLoadingImage() throws Exception {
+        useDirectImageLoaderExecutor();
+        final File imgFile = createImageFile();
+        final PImage imageNode = new PImage();
+        final BufferedImage img = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+
+        SwingTestUtil.onEventDispatchThread(new Runnable() {
+            public void run() {
+                try {
+                    imageNode.loadImage(imgFile.toURI().toURL());
+                }
+                catch (final IOException e) {
+                    fail(e.toString());
+                }
+                imageNode.setImage(img);
+            }
+        });
+
+        SwingTestUtil.onEventDispatchThread(new Runnable() {
+            public void run() {
+                assertFalse(imageNode.isImageLoading());
+                assertSame(img, imageNode.getImage());
+            }
+        });
+    }
+
+    public void testLoadImageReportsFailure() throws Exception {
+        useDirectImageLoaderExecutor();
+        final File missingFile = new File(createImageFile().getPath() + ".missing");
+        final PImage imageNode = new PImage();
+
+        SwingTestUtil.onEventDispatchThread(new Runnable() {
+            public void run() {
+                try {
+                    imageNode.loadImage(missingFile.toURI().toURL());
+                }
+                catch (final IOException e) {
+                    fail(e.toString());
+                }
+            }
+        });
+
+        SwingTestUtil.onEventDispatchThread(new Runnable() {
+            public void run() {
+                assertFalse(imageNode.isImageLoading());
+                assertNotNull(imageNode.getImageLoadException());
+                assertNull(imageNode.getImage());
+            }
+        });
+    }
+
+    public void testIsNotNormalizingImageByDefault() {
+        assertFalse(new PImage().isNormalizingImage());
+    }
+
+    public void testNormalizingImageConvertsImagesSet() {
+        final BufferedImage img = new BufferedImage(20, 10, BufferedImage.TYPE_3BYTE_BGR);
+        final PImage imageNode = new PImage();
+        imageNode.setNormalizingImage(true);
+
+        imageNode.setImage(img);
+
+        assertNotSame(img, imageNode.getImage());
+        assertTrue(PImage.isNormalizedImage(imageNode.getImage()));
+        assertEquals(new PBounds(0, 0, 20, 10), imageNode.getBounds());
+    }
+
+    public void testEnablingNormalizationConvertsCurrentImage() {
+        final BufferedImage img = new BufferedImage(20, 10, BufferedImage.TYPE_BYTE_INDEXED);
+        final PImage imageNode = new PImage(img);
+
+        imageNode.setNormalizingImage(true);
+
+        assertTrue(PImage.isNormalizedImage(imageNode.getImage()));
+    }
+
+    public void testToNormalizedImageKeepsNormalizedImages() {
+        final Image img = PImage.toNormalizedImage(new BufferedImage(20, 10, BufferedImage.TYPE_3BYTE_BGR));
+
+        assertSame(img, PImage.toNormalizedImage(img));
+    }
+
+    public void testToNormalizedImageConvertsSharedImageOnce() {
+        final BufferedImage img = new BufferedImage(20, 10, BufferedImage.TYPE_INT_ARGB);
+
+        assertSame(PImage.toNormalizedImage(img), PImage.toNormalizedImage(img));
+    }
+
+    public void testToNormalizedImageKeepsPixels() {
+        final BufferedImage img = new BufferedImage(2, 1, BufferedImage.TYPE_3BYTE_BGR);
+        img.setRGB(0, 0, 0xFF336699);
+        img.setRGB(1, 0, 0xFFFFFFFF);
+
+        final BufferedImage normalized = (BufferedImage) PImage.toNormalizedImage(img);
+
+        assertEquals(0xFF336699, normalized.getRGB(0, 0));
+        assertEquals(0xFFFFFFFF, normalized.getRGB(1, 0));
+    }
 }
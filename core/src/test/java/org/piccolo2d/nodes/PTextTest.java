@@ -31,9 +31,12 @@ package org.piccolo2d.nodes;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Font;
+import java.util.concurrent.Executor;
 
 import org.piccolo2d.MockPropertyChangeListener;
+import org.piccolo2d.SwingTestUtil;
 import org.piccolo2d.nodes.PText;
+import org.piccolo2d.util.PLayoutExecutor;
 
 import junit.framework.TestCase;
 
@@ -54,6 +57,21 @@ public class PTextTest extends TestCase {
         mockListener = new MockPropertyChangeListener();
     }
 
+    public void tearDown() {
+        PLayoutExecutor.setExecutor(null);
+    }
+
+    /**
+     * Run layout tasks immediately on the calling thread.
+     */
+    private static void useDirectLayoutExecutor() {
+        PLayoutExecutor.setExecutor(new Executor() {
+            public void execute(final Runnable command) {
+                command.run();
+            }
+        });
+    }
+
     public void testClone() {
         textNode.setTextPaint(Color.BLUE);
         textNode.setText("Boo");
@@ -203,4 +221,95 @@ public class PTextTest extends TestCase {
         assertEquals(1, mockListener.getPropertyChangeCount());
         assertEquals(PText.PROPERTY_FONT, mockListener.getPropertyChange(0).getPropertyName());
     }
+
+    public void testLayoutIsNotDeferredByDefault() {
+        assertFalse(textNode.isLayoutDeferred());
+    }
+
+    public void testDeferredLayoutUpdatesBoundsWhenValidated() {
+        textNode.setText("short");
+        final double width = textNode.getWidth();
+        textNode.setLayoutDeferred(true);
+
+        textNode.setText("a much longer text");
+        assertEquals(width, textNode.getWidth(), 0.0d);
+
+        textNode.getFullBoundsReference();
+        assertTrue(textNode.getWidth() > width);
+    }
+
+    public void testDisablingDeferredLayoutAppliesPendingLayout() {
+        textNode.setText("short");
+        final double width = textNode.getWidth();
+        textNode.setLayoutDeferred(true);
+        textNode.setText("a much longer text");
+
+        textNode.setLayoutDeferred(false);
+
+        assertTrue(textNode.getWidth() > width);
+    }
+
+    public void testLayoutIsNotAsynchronousByDefault() {
+        assertFalse(textNode.isLayoutAsynchronous());
+        assertFalse(textNode.isLayoutPending());
+    }
+
+    public void testAsynchronousLayoutUpdatesBoundsOnEventDispatchThread() throws Exception {
+        useDirectLayoutExecutor();
+        textNode.setText("short");
+        final double width = textNode.getWidth();
+        textNode.setLayoutAsynchronous(true);
+
+        SwingTestUtil.onEventDispatchThread(new Runnable() {
+            public void run() {
+                textNode.setText("a much longer text");
+                assertTrue(textNode.isLayoutPending());
+                assertEquals(width, textNode.getWidth(), 0.0d);
+            }
+        });
+
+        SwingTestUtil.onEventDispatchThread(new Runnable() {
+            public void run() {
+                assertFalse(textNode.isLayoutPending());
+                assertTrue(textNode.getWidth() > width);
+            }
+        });
+    }
+
+    public void testAsynchronousLayoutDiscardsSupersededLayouts() throws Exception {
+        useDirectLayoutExecutor();
+        final PText reference = new PText("last text");
+        textNode.setLayoutAsynchronous(true);
+
+        SwingTestUtil.onEventDispatchThread(new Runnable() {
+            public void run() {
+                textNode.setText("a much longer first text");
+                textNode.setText("last text");
+            }
+        });
+
+        SwingTestUtil.onEventDispatchThread(new Runnable() {
+            public void run() {
+                assertFalse(textNode.isLayoutPending());
+                assertEquals(reference.getWidth(), textNode.getWidth(), 0.0d);
+            }
+        });
+    }
+
+    public void testDisablingAsynchronousLayoutAppliesPendingLayout() {
+        PLayoutExecutor.setExecutor(new Executor() {
+            public void execute(final Runnable command) {
+                // never run
+            }
+        });
+        textNode.setText("short");
+        final double width = textNode.getWidth();
+        textNode.setLayoutAsynchronous(true);
+        textNode.setText("a much longer text");
+
+        textNode.setLayoutAsynchronous(false);
+
+        assertFalse(textNode.isLayoutPending());
+        assertTrue(textNode.getWidth() > width);
+    }
 }
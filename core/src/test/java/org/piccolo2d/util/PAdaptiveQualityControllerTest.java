@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.util;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+import org.piccolo2d.PNode;
+import org.piccolo2d.nodes.PPath;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for PAdaptiveQualityController.
+ */
+public class PAdaptiveQualityControllerTest extends TestCase {
+    private PAdaptiveQualityController controller;
+
+    public void setUp() {
+        controller = new PAdaptiveQualityController(20.0d);
+    }
+
+    public void testFullQualityByDefault() {
+        assertEquals(PAdaptiveQualityController.FULL_QUALITY, new PAdaptiveQualityController().getLevel());
+    }
+
+    public void testConstructorRejectsNonPositiveTargetFrameTime() {
+        try {
+            new PAdaptiveQualityController(0.0d);
+            fail("ctr(0.0d) expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testSlowFramesDegradeQualityUpToMaximumLevel() {
+        controller.setMaximumLevel(PAdaptiveQualityController.GREEKING);
+
+        controller.frameRendered(30.0d);
+        assertEquals(PAdaptiveQualityController.NO_ANTIALIASING, controller.getLevel());
+        controller.frameRendered(30.0d);
+        controller.frameRendered(30.0d);
+        controller.frameRendered(30.0d);
+
+        assertEquals(PAdaptiveQualityController.GREEKING, controller.getLevel());
+        assertEquals(30.0d, controller.getLastFrameTime(), 0.0d);
+    }
+
+    public void testFastFramesImproveQualityGradually() {
+        controller.frameRendered(30.0d);
+        controller.frameRendered(30.0d);
+
+        for (int i = 0; i < 9; i++) {
+            controller.frameRendered(5.0d);
+        }
+        assertEquals(PAdaptiveQualityController.NEAREST_NEIGHBOR_INTERPOLATION, controller.getLevel());
+        controller.frameRendered(5.0d);
+        assertEquals(PAdaptiveQualityController.NO_ANTIALIASING, controller.getLevel());
+    }
+
+    public void testFramesNearTargetKeepLevel() {
+        controller.frameRendered(30.0d);
+        for (int i = 0; i < 20; i++) {
+            controller.frameRendered(15.0d);
+        }
+        assertEquals(PAdaptiveQualityController.NO_ANTIALIASING, controller.getLevel());
+    }
+
+    public void testResetRestoresFullQuality() {
+        controller.frameRendered(30.0d);
+        controller.reset();
+        assertEquals(PAdaptiveQualityController.FULL_QUALITY, controller.getLevel());
+    }
+
+    public void testSetMaximumLevelRejectsUnknownLevels() {
+        try {
+            controller.setMaximumLevel(5);
+            fail("setMaximumLevel(5) expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testConfigureAppliesDegradationsOfLevel() {
+        for (int i = 0; i < 4; i++) {
+            controller.frameRendered(30.0d);
+        }
+        final Graphics2D g2 = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        final PPaintContext paintContext = new PPaintContext(g2);
+        paintContext.setRenderQuality(PPaintContext.HIGH_QUALITY_RENDERING);
+
+        controller.configure(paintContext);
+
+        assertEquals(PPaintContext.LOW_QUALITY_RENDERING, paintContext.getRenderQuality());
+        assertEquals(RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR, g2
+                .getRenderingHint(RenderingHints.KEY_INTERPOLATION));
+        assertEquals(3.0d, paintContext.getGreekThresholdScale(), 0.0d);
+        assertEquals(2.0d, paintContext.getMinimumScreenSize(), 0.0d);
+        g2.dispose();
+    }
+
+    public void testMinimumScreenSizeSkipsSmallNodes() {
+        final int[] paintCount = new int[1];
+        final PNode parent = new PNode();
+        parent.addChild(new PPath.Float(new Rectangle(0, 0, 1, 1)) {
+            protected void paint(final PPaintContext paintContext) {
+                paintCount[0]++;
+            }
+        });
+        parent.addChild(new PPath.Float(new Rectangle(0, 0, 10, 10)) {
+            protected void paint(final PPaintContext paintContext) {
+                paintCount[0]++;
+            }
+        });
+        final Graphics2D g2 = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        final PPaintContext paintContext = new PPaintContext(g2);
+        paintContext.setMinimumScreenSize(4.0d);
+
+        parent.fullPaint(paintContext);
+
+        assertEquals(1, paintCount[0]);
+        g2.dispose();
+    }
+}
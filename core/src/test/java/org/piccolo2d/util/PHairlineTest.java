@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.util;
+
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for PHairline.
+ */
+public class PHairlineTest extends TestCase {
+    public void testCheckWidth() {
+        PHairline.checkWidth(0.0f);
+        PHairline.checkWidth(PHairline.MAX_WIDTH);
+        try {
+            PHairline.checkWidth(PHairline.MAX_WIDTH + 0.5f);
+            fail("checkWidth(MAX_WIDTH + 0.5f) expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testGetBoundsOfHorizontalLineIsNotEmpty() {
+        final Rectangle2D bounds = PHairline.getBounds(new Line2D.Double(0.0d, 5.0d, 10.0d, 5.0d), 1.0f);
+        assertEquals(new Rectangle2D.Double(-0.5d, 4.5d, 11.0d, 1.0d), bounds);
+    }
+
+    public void testPickToleranceWithoutPickPath() {
+        PPickPath.CURRENT_PICK_PATH = null;
+        assertEquals(0.5d, PHairline.getPickTolerance(1.0f), 0.00001d);
+    }
+
+    public void testIntersectsLineWithinTolerance() {
+        final Line2D line = new Line2D.Double(0.0d, 0.0d, 100.0d, 100.0d);
+        assertTrue(PHairline.intersects(line, new Rectangle2D.Double(50.0d, 50.0d, 1.0d, 1.0d), 0.0d));
+        assertFalse(PHairline.intersects(line, new Rectangle2D.Double(53.0d, 50.0d, 1.0d, 1.0d), 0.5d));
+        assertTrue(PHairline.intersects(line, new Rectangle2D.Double(53.0d, 50.0d, 1.0d, 1.0d), 1.5d));
+    }
+
+    public void testIntersectsOutlineOnly() {
+        final Ellipse2D circle = new Ellipse2D.Double(0.0d, 0.0d, 100.0d, 100.0d);
+        assertFalse(PHairline.intersects(circle, new Rectangle2D.Double(45.0d, 45.0d, 10.0d, 10.0d), 1.0d));
+        assertTrue(PHairline.intersects(circle, new Rectangle2D.Double(99.0d, 45.0d, 10.0d, 10.0d), 1.0d));
+    }
+
+    public void testIntersectsClosingSegment() {
+        final Rectangle2D square = new Rectangle2D.Double(0.0d, 0.0d, 10.0d, 10.0d);
+        assertTrue(PHairline.intersects(square, new Rectangle2D.Double(-1.0d, 5.0d, 0.5d, 0.5d), 0.75d));
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.util;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for PImageLoader.
+ */
+public class PImageLoaderTest extends TestCase {
+
+    private File file;
+    private List queued;
+
+    public void setUp() throws IOException {
+        file = File.createTempFile("image", ".png");
+        ImageIO.write(new BufferedImage(100, 80, BufferedImage.TYPE_INT_RGB), "png", file);
+        queued = new ArrayList();
+        PImageLoader.clearCache();
+        PImageLoader.setExecutor(new Executor() {
+            public void execute(final Runnable command) {
+                queued.add(command);
+            }
+        });
+    }
+
+    public void tearDown() {
+        PImageLoader.setExecutor(null);
+        PImageLoader.clearCache();
+        file.delete();
+    }
+
+    private void runQueued() throws InterruptedException, InvocationTargetException {
+        for (int i = 0; i < queued.size(); i++) {
+            ((Runnable) queued.get(i)).run();
+        }
+        queued.clear();
+        SwingUtilities.invokeAndWait(new Runnable() {
+            public void run() {
+                // empty
+            }
+        });
+    }
+
+    private static PImageLoader.Listener createListener(final List images) {
+        return new PImageLoader.Listener() {
+            public void imageLoaded(final BufferedImage image) {
+                images.add(image);
+            }
+
+            public void imageLoadFailed(final IOException exception) {
+                images.add(exception);
+            }
+        };
+    }
+
+    public void testLoadsFullSizeImage() throws Exception {
+        final List images = new ArrayList();
+        PImageLoader.load(file.toURI().toURL(), createListener(images));
+        assertTrue(images.isEmpty());
+
+        runQueued();
+
+        assertEquals(1, images.size());
+        assertEquals(100, ((BufferedImage) images.get(0)).getWidth());
+        assertEquals(80, ((BufferedImage) images.get(0)).getHeight());
+    }
+
+    public void testSubsamplesToRequestedSize() throws Exception {
+        final List images = new ArrayList();
+        PImageLoader.load(file.toURI().toURL(), 30, 20, createListener(images));
+
+        runQueued();
+
+        final BufferedImage image = (BufferedImage) images.get(0);
+        assertEquals(34, image.getWidth());
+        assertEquals(27, image.getHeight());
+    }
+
+    public void testGetSubsamplingKeepsRequestedSizeFilled() {
+        assertEquals(1, PImageLoader.getSubsampling(100, 80, 0, 0));
+        assertEquals(1, PImageLoader.getSubsampling(100, 80, 200, 200));
+        assertEquals(2, PImageLoader.getSubsampling(100, 80, 50, 10));
+        assertEquals(4, PImageLoader.getSubsampling(100, 80, 25, 20));
+    }
+
+    public void testConcurrentLoadsDecodeOnce() throws Exception {
+        final URL url = file.toURI().toURL();
+        final List images = new ArrayList();
+        final int decodeCount = PImageLoader.getDecodeCount();
+
+        PImageLoader.load(url, createListener(images));
+        PImageLoader.load(url, createListener(images));
+        assertEquals(1, queued.size());
+
+        runQueued();
+
+        assertEquals(decodeCount + 1, PImageLoader.getDecodeCount());
+        assertEquals(2, images.size());
+        assertSame(images.get(0), images.get(1));
+    }
+
+    public void testLaterLoadsAreServedFromCache() throws Exception {
+        final URL url = file.toURI().toURL();
+        final List images = new ArrayList();
+        PImageLoader.load(url, createListener(images));
+        runQueued();
+
+        PImageLoader.load(url, createListener(images));
+        assertTrue(queued.isEmpty());
+        runQueued();
+
+        assertEquals(2, images.size());
+        assertSame(images.get(0), images.get(1));
+    }
+
+    public void testReportsUnreadableSource() throws Exception {
+        final List images = new ArrayList();
+        PImageLoader.load(new File(file.getPath() + ".missing").toURI().toURL(), createListener(images));
+
+        runQueued();
+
+        assertTrue(images.get(0) instanceof IOException);
+    }
+
+    public void testLoadRejectsNegativeSize() throws Exception {
+        try {
+            PImageLoader.load(file.toURI().toURL(), -1, 10, createListener(new ArrayList()));
+            fail("load(url, -1, 10, listener) expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.util;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+
+import javax.swing.SwingUtilities;
+
+import org.piccolo2d.PNode;
+import org.piccolo2d.nodes.PPath;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for PLazySceneLoader.
+ */
+public class PLazySceneLoaderTest extends TestCase {
+
+    private File file;
+
+    public void setUp() throws IOException {
+        file = File.createTempFile("scene", ".p2ds");
+    }
+
+    public void tearDown() {
+        file.delete();
+    }
+
+    /**
+     * Create a scene of ten groups side by side, each holding ten rows of ten
+     * squares.
+     */
+    private static PNode createScene() {
+        final PNode top = new PNode();
+        for (int i = 0; i < 10; i++) {
+            final PNode group = new PNode();
+            group.setName("group" + i);
+            group.translate(i * 100, 0);
+            for (int j = 0; j < 10; j++) {
+                final PNode row = new PNode();
+                for (int k = 0; k < 10; k++) {
+                    row.addChild(PPath.createRectangle(k * 10, j * 10, 5, 5));
+                }
+                group.addChild(row);
+            }
+            top.addChild(group);
+        }
+        return top;
+    }
+
+    private void write(final PNode node, final boolean indexed) throws IOException {
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            final PSceneWriter writer = new PSceneWriter(out);
+            writer.setIndexed(indexed);
+            writer.write(node);
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    private static void paint(final PNode node, final int x, final int y, final int width, final int height) {
+        final BufferedImage image = new BufferedImage(1000, 100, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D g2 = image.createGraphics();
+        g2.setClip(x, y, width, height);
+        node.fullPaint(new PPaintContext(g2));
+        g2.dispose();
+    }
+
+    /**
+     * Wait until the runnables queued on the event dispatch thread so far
+     * have run.
+     */
+    private static void flushEventDispatchThread() throws Exception {
+        SwingUtilities.invokeAndWait(new Runnable() {
+            public void run() {
+                // empty
+            }
+        });
+    }
+
+    public void testIndexedRequiresUncompressedScenes() {
+        try {
+            new PSceneWriter(new ByteArrayOutputStream(), true).setIndexed(true);
+            fail("setIndexed(true) on a compressing writer expected IllegalStateException");
+        }
+        catch (final IllegalStateException e) {
+            // expected
+        }
+    }
+
+    public void testIndexedScenesCanBeReadFully() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final PSceneWriter writer = new PSceneWriter(out);
+        writer.setIndexed(true);
+        writer.write(createScene());
+
+        final PNode copy = new PSceneReader(new ByteArrayInputStream(out.toByteArray())).read();
+        assertEquals(10, copy.getChildrenCount());
+        assertEquals(10, copy.getChild(3).getChildrenCount());
+    }
+
+    public void testRejectsSceneWithoutIndex() throws Exception {
+        write(createScene(), false);
+
+        try {
+            new PLazySceneLoader(file);
+            fail("ctr(unindexed scene) expected StreamCorruptedException");
+        }
+        catch (final StreamCorruptedException e) {
+            // expected
+        }
+    }
+
+    public void testReadsTopLevelsEagerly() throws Exception {
+        final PNode scene = createScene();
+        write(scene, true);
+
+        final PLazySceneLoader loader = new PLazySceneLoader(file);
+        final PNode top = loader.load(2);
+
+        assertEquals(1111, loader.getNodeCount());
+        assertEquals(10, top.getChildrenCount());
+        final PNode group = top.getChild(4);
+        assertEquals("group4", group.getName());
+        assertEquals(1, group.getChildrenCount());
+        final PLazySceneLoader.Placeholder placeholder = (PLazySceneLoader.Placeholder) group.getChild(0);
+        assertFalse(placeholder.isLoaded());
+        assertEquals(scene.getChild(4).getFullBounds(), group.getFullBounds());
+        assertEquals(scene.getFullBounds(), top.getFullBounds());
+    }
+
+    public void testGetChildLoadsPlaceholder() throws Exception {
+        write(createScene(), true);
+
+        final PLazySceneLoader loader = new PLazySceneLoader(file);
+        final PNode top = loader.load(2);
+        final PLazySceneLoader.Placeholder placeholder = (PLazySceneLoader.Placeholder) top.getChild(0).getChild(0);
+
+        final PNode row = placeholder.getChild(2);
+
+        assertTrue(placeholder.isLoaded());
+        assertEquals(10, placeholder.getChildrenCount());
+        assertEquals(10, loader.getLoadedNodeCount());
+        assertTrue(row.getChild(0) instanceof PLazySceneLoader.Placeholder);
+        assertTrue(row.getChild(0).getChild(9) instanceof PPath);
+    }
+
+    public void testPaintingLoadsOnlyVisiblePlaceholders() throws Exception {
+        write(createScene(), true);
+
+        final PLazySceneLoader loader = new PLazySceneLoader(file);
+        final PNode top = loader.load(2);
+
+        paint(top, 0, 0, 50, 50);
+        flushEventDispatchThread();
+
+        assertTrue(((PLazySceneLoader.Placeholder) top.getChild(0).getChild(0)).isLoaded());
+        for (int i = 1; i < 10; i++) {
+            assertFalse(((PLazySceneLoader.Placeholder) top.getChild(i).getChild(0)).isLoaded());
+        }
+    }
+
+    public void testPaintingDoesNotLoadPlaceholdersDuringThePaint() throws Exception {
+        write(createScene(), true);
+
+        final PLazySceneLoader loader = new PLazySceneLoader(file);
+        final PNode top = loader.load(2);
+        final PLazySceneLoader.Placeholder placeholder = (PLazySceneLoader.Placeholder) top.getChild(0).getChild(0);
+        final boolean[] loadedAfterPaint = new boolean[1];
+
+        SwingUtilities.invokeAndWait(new Runnable() {
+            public void run() {
+                paint(top, 0, 0, 50, 50);
+                loadedAfterPaint[0] = placeholder.isLoaded();
+            }
+        });
+
+        assertFalse(loadedAfterPaint[0]);
+        flushEventDispatchThread();
+        assertTrue(placeholder.isLoaded());
+        assertEquals(10, loader.getLoadedNodeCount());
+    }
+
+    public void testReleasesLeastRecentlyUsedPlaceholders() throws Exception {
+        write(createScene(), true);
+
+        final PLazySceneLoader loader = new PLazySceneLoader(file);
+        loader.setMaxLoadedNodeCount(25);
+        final PNode top = loader.load(2);
+        final PLazySceneLoader.Placeholder first = (PLazySceneLoader.Placeholder) top.getChild(0).getChild(0);
+        final PLazySceneLoader.Placeholder second = (PLazySceneLoader.Placeholder) top.getChild(1).getChild(0);
+        final PLazySceneLoader.Placeholder third = (PLazySceneLoader.Placeholder) top.getChild(2).getChild(0);
+
+        first.load();
+        second.load();
+        third.load();
+
+        assertFalse(first.isLoaded());
+        assertTrue(second.isLoaded());
+        assertTrue(third.isLoaded());
+        assertEquals(0, first.getChildrenCount());
+        assertEquals(20, loader.getLoadedNodeCount());
+    }
+
+    public void testReleaseKeepsAncestorsOfLoadedPlaceholder() throws Exception {
+        write(createScene(), true);
+
+        final PLazySceneLoader loader = new PLazySceneLoader(file);
+        loader.setMaxLoadedNodeCount(15);
+        final PNode top = loader.load(2);
+        final PLazySceneLoader.Placeholder outer = (PLazySceneLoader.Placeholder) top.getChild(0).getChild(0);
+        final PLazySceneLoader.Placeholder inner = (PLazySceneLoader.Placeholder) outer.getChild(0).getChild(0);
+
+        inner.load();
+
+        assertTrue(outer.isLoaded());
+        assertTrue(inner.isLoaded());
+        assertEquals(20, loader.getLoadedNodeCount());
+    }
+
+    public void testSetMaxLoadedNodeCountRejectsZero() throws Exception {
+        write(createScene(), true);
+
+        try {
+            new PLazySceneLoader(file).setMaxLoadedNodeCount(0);
+            fail("setMaxLoadedNodeCount(0) expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
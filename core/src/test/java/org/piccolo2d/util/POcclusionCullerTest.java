@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.util;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.piccolo2d.PCamera;
+import org.piccolo2d.PLayer;
+import org.piccolo2d.PNode;
+import org.piccolo2d.PRoot;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for POcclusionCuller.
+ */
+public class POcclusionCullerTest extends TestCase {
+
+    private PLayer layer;
+    private List layers;
+    private POcclusionCuller culler;
+
+    public void setUp() {
+        layer = new PLayer();
+        layers = new ArrayList();
+        layers.add(layer);
+        culler = new POcclusionCuller();
+    }
+
+    private static PNode createSquare(final double x, final double y, final double size, final Color color) {
+        final PNode square = new PNode();
+        square.setBounds(x, y, size, size);
+        square.setPaint(color);
+        return square;
+    }
+
+    private void cull(final int x, final int y, final int width, final int height) {
+        final BufferedImage image = new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g2 = image.createGraphics();
+        g2.setClip(x, y, width, height);
+        culler.cull(layers, new PPaintContext(g2));
+        g2.dispose();
+    }
+
+    public void testCullsNodesCoveredByLaterOpaqueNode() {
+        final PNode hidden = createSquare(20, 20, 20, Color.RED);
+        final PNode cover = createSquare(0, 0, 100, Color.BLUE);
+        layer.addChild(hidden);
+        layer.addChild(cover);
+
+        cull(0, 0, 200, 200);
+
+        assertTrue(hidden.getCulled());
+        assertFalse(cover.getCulled());
+        assertEquals(1, culler.getCulledNodeCount());
+    }
+
+    public void testDoesNotCullNodesPaintedAfterOpaqueNode() {
+        final PNode cover = createSquare(0, 0, 100, Color.BLUE);
+        final PNode front = createSquare(20, 20, 20, Color.RED);
+        layer.addChild(cover);
+        layer.addChild(front);
+
+        cull(0, 0, 200, 200);
+
+        assertFalse(front.getCulled());
+        assertFalse(cover.getCulled());
+    }
+
+    public void testCullsNodeCoveredByUnionOfOccluders() {
+        final PNode hidden = createSquare(20, 20, 60, Color.RED);
+        layer.addChild(hidden);
+        layer.addChild(createSquare(0, 0, 50, Color.BLUE));
+        layer.addChild(createSquare(45, 0, 50, Color.BLUE));
+        layer.addChild(createSquare(0, 45, 50, Color.BLUE));
+        layer.addChild(createSquare(45, 45, 50, Color.BLUE));
+
+        cull(0, 0, 200, 200);
+
+        assertTrue(hidden.getCulled());
+    }
+
+    public void testCullsNodeCoveredWithinClipOnly() {
+        final PNode hidden = createSquare(0, 0, 150, Color.RED);
+        layer.addChild(hidden);
+        layer.addChild(createSquare(0, 0, 100, Color.BLUE));
+
+        cull(0, 0, 200, 200);
+        assertFalse(hidden.getCulled());
+
+        cull(10, 10, 50, 50);
+        assertTrue(hidden.getCulled());
+    }
+
+    public void testSkipsNodesOutsideClip() {
+        final PNode outside = createSquare(150, 150, 20, Color.RED);
+        layer.addChild(outside);
+        layer.addChild(createSquare(0, 0, 200, Color.BLUE));
+
+        cull(0, 0, 100, 100);
+
+        assertFalse(outside.getCulled());
+        assertEquals(0, culler.getCulledNodeCount());
+    }
+
+    public void testTranslucentNodesDoNotOcclude() {
+        final PNode hidden = createSquare(20, 20, 20, Color.RED);
+        final PNode cover = createSquare(0, 0, 100, Color.BLUE);
+        cover.setTransparency(0.5f);
+        layer.addChild(hidden);
+        layer.addChild(cover);
+
+        cull(0, 0, 200, 200);
+
+        assertFalse(hidden.getCulled());
+    }
+
+    public void testRotatedNodesDoNotOcclude() {
+        final PNode hidden = createSquare(20, 20, 20, Color.RED);
+        final PNode cover = createSquare(0, 0, 100, Color.BLUE);
+        cover.rotateAboutPoint(0.1, 50, 50);
+        layer.addChild(hidden);
+        layer.addChild(cover);
+
+        cull(0, 0, 200, 200);
+
+        assertFalse(hidden.getCulled());
+    }
+
+    public void testAppliesTransformsOfAncestors() {
+        final PNode hidden = createSquare(120, 120, 20, Color.RED);
+        final PNode group = new PNode();
+        group.setOffset(100, 100);
+        group.addChild(createSquare(0, 0, 80, Color.BLUE));
+        layer.addChild(hidden);
+        layer.addChild(group);
+
+        cull(0, 0, 200, 200);
+
+        assertTrue(hidden.getCulled());
+    }
+
+    public void testDescendantsOccludeOnlyWhereTheirAncestorsDoNotClipThem() {
+        final PNode outside = createSquare(100, 100, 80, Color.RED);
+        final PNode inside = createSquare(10, 10, 20, Color.RED);
+        final PNode clipping = new PNode() {
+            public Rectangle2D getUnclippedDescendantBounds() {
+                return new Rectangle2D.Double(0, 0, 50, 50);
+            }
+        };
+        clipping.setBounds(0, 0, 50, 50);
+        clipping.addChild(createSquare(0, 0, 200, Color.BLACK));
+        layer.addChild(outside);
+        layer.addChild(inside);
+        layer.addChild(clipping);
+
+        cull(0, 0, 200, 200);
+
+        assertFalse(outside.getCulled());
+        assertTrue(inside.getCulled());
+    }
+
+    public void testNodesBelowMinimumScreenSizeDoNotOcclude() {
+        final PNode visible = createSquare(0, 0, 100, Color.RED);
+        final PNode small = createSquare(20, 20, 8, Color.BLUE);
+        layer.addChild(visible);
+        layer.addChild(small);
+
+        final BufferedImage image = new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g2 = image.createGraphics();
+        g2.setClip(22, 22, 4, 4);
+        final PPaintContext paintContext = new PPaintContext(g2);
+        paintContext.setMinimumScreenSize(10.0d);
+        culler.cull(layers, paintContext);
+        g2.dispose();
+
+        assertFalse(visible.getCulled());
+        assertFalse(small.getCulled());
+
+        cull(22, 22, 4, 4);
+        assertTrue(visible.getCulled());
+    }
+
+    public void testResetClearsCulledFlags() {
+        final PNode hidden = createSquare(20, 20, 20, Color.RED);
+        layer.addChild(hidden);
+        layer.addChild(createSquare(0, 0, 100, Color.BLUE));
+        cull(0, 0, 200, 200);
+
+        culler.reset();
+
+        assertFalse(hidden.getCulled());
+        assertEquals(0, culler.getCulledNodeCount());
+    }
+
+    public void testSetMaxOccludersRejectsNegativeValues() {
+        try {
+            culler.setMaxOccluders(-1);
+            fail("setMaxOccluders(-1) expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testCameraSkipsPaintingOccludedNodes() {
+        final List painted = new ArrayList();
+        final PNode hidden = new PNode() {
+            protected void paint(final PPaintContext paintContext) {
+                painted.add(this);
+                super.paint(paintContext);
+            }
+        };
+        hidden.setBounds(20, 20, 20, 20);
+        hidden.setPaint(Color.RED);
+        final PNode cover = createSquare(0, 0, 100, Color.BLUE);
+        layer.addChild(hidden);
+        layer.addChild(cover);
+
+        final PRoot root = new PRoot();
+        final PCamera camera = new PCamera();
+        camera.setBounds(0, 0, 200, 200);
+        root.addChild(layer);
+        root.addChild(camera);
+        camera.addLayer(layer);
+        camera.setOcclusionCulling(true);
+
+        final BufferedImage image = new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g2 = image.createGraphics();
+        camera.fullPaint(new PPaintContext(g2));
+        g2.dispose();
+
+        assertTrue(painted.isEmpty());
+        assertFalse(hidden.getCulled());
+        assertEquals(Color.BLUE.getRGB(), image.getRGB(30, 30));
+
+        camera.setOcclusionCulling(false);
+        final Graphics2D g2b = image.createGraphics();
+        camera.fullPaint(new PPaintContext(g2b));
+        g2b.dispose();
+
+        assertEquals(1, painted.size());
+    }
+}
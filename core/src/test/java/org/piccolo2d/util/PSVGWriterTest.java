@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.util;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.piccolo2d.PCamera;
+import org.piccolo2d.PLayer;
+import org.piccolo2d.PNode;
+import org.piccolo2d.nodes.PImage;
+import org.piccolo2d.nodes.PPath;
+import org.piccolo2d.nodes.PShape;
+import org.piccolo2d.nodes.PText;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for PSVGWriter.
+ */
+public class PSVGWriterTest extends TestCase {
+
+    private String write(final PNode node, final Rectangle2D exportBounds) throws IOException {
+        final StringWriter out = new StringWriter();
+        new PSVGWriter(out).write(node, exportBounds);
+        return out.toString();
+    }
+
+    private Document parse(final String svg) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(
+                new ByteArrayInputStream(svg.getBytes("UTF-8")));
+    }
+
+    private static int count(final String string, final String substring) {
+        int count = 0;
+        int index = string.indexOf(substring);
+        while (index >= 0) {
+            count++;
+            index = string.indexOf(substring, index + 1);
+        }
+        return count;
+    }
+
+    public void testConstructorRejectsNullWriter() {
+        try {
+            new PSVGWriter(null);
+            fail("ctr(null) expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testWritesPathWithPaintAndStroke() throws Exception {
+        final PPath path = PPath.createRectangle(0, 0, 10, 20);
+        path.setPaint(Color.RED);
+        path.setStroke(new BasicStroke(2.5f));
+        path.setStrokePaint(new Color(0, 0, 255, 128));
+
+        final String svg = write(path, new Rectangle2D.Double(0, 0, 100, 100));
+        parse(svg);
+
+        assertTrue(svg.indexOf("viewBox=\"0 0 100 100\"") >= 0);
+        assertTrue(svg.indexOf("M0,0 L10,0 L10,20 L0,20") >= 0);
+        assertTrue(svg.indexOf("fill=\"#ff0000\"") >= 0);
+        assertTrue(svg.indexOf("stroke=\"#0000ff\"") >= 0);
+        assertTrue(svg.indexOf("stroke-opacity=\"0.502\"") >= 0);
+        assertTrue(svg.indexOf("stroke-width=\"2.5\"") >= 0);
+    }
+
+    public void testWritesOtherShapesAsTheirOutline() throws Exception {
+        final PShape triangle = new TriangleShape();
+        triangle.setPaint(Color.RED);
+
+        final String svg = write(triangle, new Rectangle2D.Double(0, 0, 100, 100));
+        parse(svg);
+
+        assertTrue(svg.indexOf("M0,0 L20,0 L0,10 Z") >= 0);
+        assertEquals(-1, svg.indexOf("L20,10"));
+        assertTrue(svg.indexOf("stroke=\"#000000\"") >= 0);
+    }
+
+    public void testCullsNodesOutsideExportBounds() throws Exception {
+        final PNode parent = new PNode();
+        final PPath inside = PPath.createRectangle(0, 0, 10, 10);
+        final PPath outside = PPath.createRectangle(500, 500, 10, 10);
+        parent.addChild(inside);
+        parent.addChild(outside);
+
+        final String svg = write(parent, new Rectangle2D.Double(0, 0, 100, 100));
+
+        assertTrue(svg.indexOf("M0,0") >= 0);
+        assertEquals(-1, svg.indexOf("M500,500"));
+    }
+
+    public void testCullingAppliesNodeTransforms() throws Exception {
+        final PPath path = PPath.createRectangle(0, 0, 10, 10);
+        path.translate(500, 500);
+        final PNode parent = new PNode();
+        parent.addChild(path);
+
+        assertEquals(-1, write(parent, new Rectangle2D.Double(0, 0, 100, 100)).indexOf("<path"));
+
+        final String svg = write(parent, new Rectangle2D.Double(450, 450, 100, 100));
+        assertTrue(svg.indexOf("<g transform=\"matrix(1 0 0 1 500 500)\">") >= 0);
+        assertTrue(svg.indexOf("<path") >= 0);
+    }
+
+    public void testSkipsInvisibleNodes() throws Exception {
+        final PPath path = PPath.createRectangle(0, 0, 10, 10);
+        path.setVisible(false);
+
+        assertEquals(-1, write(path, new Rectangle2D.Double(0, 0, 100, 100)).indexOf("<path"));
+    }
+
+    public void testWritesEvenOddFillRuleAsAttribute() throws Exception {
+        final GeneralPath frame = new GeneralPath(GeneralPath.WIND_EVEN_ODD);
+        frame.append(new Rectangle2D.Double(0, 0, 30, 30), false);
+        frame.append(new Rectangle2D.Double(10, 10, 10, 10), false);
+        final PPath path = new PPath.Float(frame);
+        path.setPaint(Color.RED);
+
+        final Document document = parse(write(path, new Rectangle2D.Double(0, 0, 100, 100)));
+        final Element element = (Element) document.getElementsByTagName("path").item(0);
+        assertEquals("evenodd", element.getAttribute("fill-rule"));
+        assertEquals(-1, element.getAttribute("d").indexOf('f'));
+        assertEquals("#ff0000", element.getAttribute("fill"));
+    }
+
+    public void testWritesTransparencyAsGroupOpacity() throws Exception {
+        final PPath path = PPath.createRectangle(0, 0, 10, 10);
+        path.setTransparency(0.5f);
+
+        assertTrue(write(path, new Rectangle2D.Double(0, 0, 100, 100)).indexOf("<g opacity=\"0.5\">") >= 0);
+    }
+
+    public void testWritesTextLinesEscaped() throws Exception {
+        final PText text = new PText("a < b\nc & d");
+
+        final String svg = write(text, new Rectangle2D.Double(0, 0, 100, 100));
+        parse(svg);
+
+        assertEquals(2, count(svg, "<text "));
+        assertTrue(svg.indexOf(">a &lt; b</text>") >= 0);
+        assertTrue(svg.indexOf(">c &amp; d</text>") >= 0);
+    }
+
+    public void testWritesSharedImageDataOnce() throws Exception {
+        final BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+        final PNode parent = new PNode();
+        final PImage first = new PImage(image);
+        final PImage second = new PImage(image);
+        second.translate(10, 10);
+        parent.addChild(first);
+        parent.addChild(second);
+
+        final String svg = write(parent, new Rectangle2D.Double(0, 0, 100, 100));
+        parse(svg);
+
+        assertEquals(1, count(svg, "data:image/png;base64,"));
+        assertEquals(2, count(svg, "<use "));
+    }
+
+    public void testWritesCameraViewThroughViewTransform() throws Exception {
+        final PCamera camera = new PCamera();
+        final PLayer layer = new PLayer();
+        camera.addLayer(layer);
+        camera.setBounds(0, 0, 100, 100);
+        camera.scaleView(2.0d);
+        layer.addChild(PPath.createRectangle(10, 10, 10, 10));
+
+        final String svg = write(camera, new Rectangle2D.Double(0, 0, 100, 100));
+        parse(svg);
+
+        assertTrue(svg.indexOf("<clipPath") >= 0);
+        assertTrue(svg.indexOf("matrix(2 0 0 2 0 0)") >= 0);
+        assertTrue(svg.indexOf("M10,10") >= 0);
+    }
+
+    /**
+     * Shape node without a dedicated case in PSVGWriter.
+     */
+    private static final class TriangleShape extends PShape {
+
+        private final GeneralPath triangle = new GeneralPath();
+
+
+        TriangleShape() {
+            triangle.moveTo(0.0f, 0.0f);
+            triangle.lineTo(20.0f, 0.0f);
+            triangle.lineTo(0.0f, 10.0f);
+            triangle.closePath();
+            updateBoundsFromShape();
+        }
+
+
+        protected Shape getShape() {
+            return triangle;
+        }
+
+        protected void transform(final AffineTransform transform) {
+            triangle.transform(transform);
+        }
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.util;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.GradientPaint;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.QuadCurve2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+
+import org.piccolo2d.PCamera;
+import org.piccolo2d.PLayer;
+import org.piccolo2d.PNode;
+import org.piccolo2d.PRoot;
+import org.piccolo2d.nodes.PImage;
+import org.piccolo2d.nodes.PPath;
+import org.piccolo2d.nodes.PText;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for PSceneWriter and PSceneReader.
+ */
+public class PSceneWriterTest extends TestCase {
+
+    private static byte[] write(final PNode node, final boolean compressed) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PSceneWriter(out, compressed).write(node);
+        return out.toByteArray();
+    }
+
+    private static PNode read(final byte[] bytes) throws Exception {
+        return new PSceneReader(new ByteArrayInputStream(bytes)).read();
+    }
+
+    private static byte[] writeCounts(final int[] counts) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(PSceneFormat.MAGIC);
+        data.writeShort(PSceneFormat.VERSION);
+        data.writeByte(0);
+        for (int i = 0; i < counts.length; i++) {
+            data.writeInt(counts[i]);
+        }
+        data.flush();
+        return out.toByteArray();
+    }
+
+    private static PNode roundTrip(final PNode node, final boolean compressed) throws Exception {
+        return read(write(node, compressed));
+    }
+
+    private static void assertSamePath(final Path2D expected, final Path2D actual) {
+        final PathIterator e = expected.getPathIterator(null);
+        final PathIterator a = actual.getPathIterator(null);
+        final double[] expectedSegment = new double[6];
+        final double[] actualSegment = new double[6];
+        assertEquals(e.getWindingRule(), a.getWindingRule());
+        while (!e.isDone()) {
+            assertFalse(a.isDone());
+            assertEquals(e.currentSegment(expectedSegment), a.currentSegment(actualSegment));
+            for (int i = 0; i < 6; i++) {
+                assertEquals(expectedSegment[i], actualSegment[i], 0.0d);
+            }
+            e.next();
+            a.next();
+        }
+        assertTrue(a.isDone());
+    }
+
+    public void testConstructorsRejectNullStreams() {
+        try {
+            new PSceneWriter(null);
+            fail("ctr(null) expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new PSceneReader(null);
+            fail("ctr(null) expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testRoundTripsNodeProperties() throws Exception {
+        final PNode node = new PNode();
+        node.setBounds(1, 2, 30, 40);
+        node.setTransform(AffineTransform.getRotateInstance(0.5d, 3, 4));
+        node.setPaint(new Color(10, 20, 30, 40));
+        node.setTransparency(0.25f);
+        node.setName("node");
+        node.setVisible(false);
+        node.setPickable(false);
+
+        final PNode copy = roundTrip(node, false);
+
+        assertEquals(PNode.class, copy.getClass());
+        assertEquals(node.getBounds(), copy.getBounds());
+        assertEquals(node.getTransform(), copy.getTransform());
+        assertEquals(node.getPaint(), copy.getPaint());
+        assertEquals(0.25f, copy.getTransparency(), 0.0f);
+        assertEquals("node", copy.getName());
+        assertFalse(copy.getVisible());
+        assertFalse(copy.getPickable());
+        assertTrue(copy.getChildrenPickable());
+    }
+
+    public void testRoundTripsPaths() throws Exception {
+        final PNode parent = new PNode();
+        final PPath.Float floatPath = new PPath.Float(new Ellipse2D.Float(0, 0, 10, 20));
+        floatPath.setStroke(new BasicStroke(2.0f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_BEVEL, 4.0f,
+                new float[] { 1.0f, 2.0f }, 0.5f));
+        floatPath.setStrokePaint(Color.BLUE);
+        final PPath.Double doublePath = new PPath.Double(new QuadCurve2D.Double(0.1d, 0.2d, 5.3d,
+                7.7d, 9.9d, 1.1d), null);
+        doublePath.setPaint(new GradientPaint(0, 0, Color.RED, 10, 10, Color.GREEN, true));
+        parent.addChild(floatPath);
+        parent.addChild(doublePath);
+
+        final PNode copy = roundTrip(parent, true);
+
+        assertEquals(2, copy.getChildrenCount());
+        final PPath floatCopy = (PPath) copy.getChild(0);
+        final PPath doubleCopy = (PPath) copy.getChild(1);
+        assertEquals(PPath.Float.class, floatCopy.getClass());
+        assertEquals(PPath.Double.class, doubleCopy.getClass());
+        assertSamePath(floatPath.getPathReference(), floatCopy.getPathReference());
+        assertSamePath(doublePath.getPathReference(), doubleCopy.getPathReference());
+        assertEquals(floatPath.getStroke(), floatCopy.getStroke());
+        assertEquals(Color.BLUE, floatCopy.getStrokePaint());
+        assertNull(doubleCopy.getStroke());
+        assertEquals(floatPath.getBounds(), floatCopy.getBounds());
+
+        final GradientPaint gradient = (GradientPaint) doubleCopy.getPaint();
+        assertEquals(Color.RED, gradient.getColor1());
+        assertEquals(Color.GREEN, gradient.getColor2());
+        assertTrue(gradient.isCyclic());
+    }
+
+    public void testRoundTripsSerializableStroke() throws Exception {
+        final PPath path = PPath.createRectangle(0, 0, 10, 10);
+        path.setStroke(new SerializableStroke(3.0f));
+
+        final PPath copy = (PPath) roundTrip(path, false);
+
+        assertEquals(SerializableStroke.class, copy.getStroke().getClass());
+        assertEquals(3.0f, ((SerializableStroke) copy.getStroke()).width, 0.0f);
+    }
+
+    public void testRoundTripsText() throws Exception {
+        final PText text = new PText("hello\nworld");
+        text.setFont(new Font("Serif", Font.BOLD, 17));
+        text.setTextPaint(Color.MAGENTA);
+        text.setHorizontalAlignment(0.5f);
+        text.setGreekThreshold(3.0d);
+
+        final PText copy = (PText) roundTrip(text, false);
+
+        assertEquals("hello\nworld", copy.getText());
+        assertEquals(text.getFont(), copy.getFont());
+        assertEquals(Color.MAGENTA, copy.getTextPaint());
+        assertEquals(0.5f, copy.getHorizontalAlignment(), 0.0f);
+        assertEquals(3.0d, copy.getGreekThreshold(), 0.0d);
+        assertEquals(text.getBounds(), copy.getBounds());
+    }
+
+    public void testRoundTripsTextLongerThan64KBEncoded() throws Exception {
+        final StringBuffer buffer = new StringBuffer();
+        for (int i = 0; i < 25000; i++) {
+            buffer.append('\u20ac');
+        }
+        final PText text = new PText(buffer.toString());
+
+        final PText copy = (PText) roundTrip(text, false);
+
+        assertEquals(buffer.toString(), copy.getText());
+    }
+
+    public void testWritesSharedImageOnce() throws Exception {
+        final BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(3, 4, 0xff00ff00);
+        final PNode parent = new PNode();
+        parent.addChild(new PImage(image));
+        parent.addChild(new PImage(image));
+        final PNode single = new PNode();
+        single.addChild(new PImage(image));
+
+        final byte[] bytes = write(parent, false);
+        final PNode copy = read(bytes);
+
+        final PImage first = (PImage) copy.getChild(0);
+        final PImage second = (PImage) copy.getChild(1);
+        assertSame(first.getImage(), second.getImage());
+        assertEquals(0xff00ff00, ((BufferedImage) first.getImage()).getRGB(3, 4));
+        assertTrue(bytes.length < 2 * write(single, false).length);
+    }
+
+    public void testRoundTripsCameraLayers() throws Exception {
+        final PRoot root = new PRoot();
+        final PCamera camera = new PCamera();
+        final PLayer layer = new PLayer();
+        layer.addChild(PPath.createRectangle(0, 0, 10, 10));
+        root.addChild(camera);
+        root.addChild(layer);
+        camera.addLayer(layer);
+        camera.setBounds(0, 0, 100, 100);
+        camera.scaleView(2.0d);
+
+        final PRoot copy = (PRoot) roundTrip(root, true);
+
+        final PCamera cameraCopy = (PCamera) copy.getChild(0);
+        final PLayer layerCopy = (PLayer) copy.getChild(1);
+        assertEquals(1, cameraCopy.getLayerCount());
+        assertSame(layerCopy, cameraCopy.getLayer(0));
+        assertEquals(2.0d, cameraCopy.getViewScale(), 0.0d);
+        assertEquals(1, layerCopy.getChildrenCount());
+    }
+
+    public void testCompressionShrinksRepetitiveScenes() throws Exception {
+        final PNode parent = new PNode();
+        for (int i = 0; i < 500; i++) {
+            parent.addChild(PPath.createRectangle(0, 0, 10, 10));
+        }
+
+        assertTrue(write(parent, true).length < write(parent, false).length / 4);
+        assertEquals(500, roundTrip(parent, true).getChildrenCount());
+    }
+
+    public void testWriteRejectsUnsupportedNodeClasses() throws Exception {
+        final PNode parent = new PNode();
+        parent.addChild(new PNode() {
+            // empty
+        });
+
+        try {
+            write(parent, false);
+            fail("write(anonymous node) expected NotSerializableException");
+        }
+        catch (final NotSerializableException e) {
+            // expected
+        }
+    }
+
+    public void testReadRejectsNegativeCounts() throws Exception {
+        try {
+            read(writeCounts(new int[] { 0, -1 }));
+            fail("read(negative stroke count) expected StreamCorruptedException");
+        }
+        catch (final StreamCorruptedException e) {
+            // expected
+        }
+    }
+
+    public void testReadFailsAtEndOfStreamForCountsLargerThanStream() throws Exception {
+        try {
+            read(writeCounts(new int[] { Integer.MAX_VALUE }));
+            fail("read(paint count larger than stream) expected EOFException");
+        }
+        catch (final EOFException e) {
+            // expected
+        }
+        try {
+            read(writeCounts(new int[] { 0, 0, 0, 1, Integer.MAX_VALUE, 1 }));
+            fail("read(image size larger than stream) expected EOFException");
+        }
+        catch (final EOFException e) {
+            // expected
+        }
+        try {
+            read(writeCounts(new int[] { 0, 0, 0, 0, Integer.MAX_VALUE }));
+            fail("read(node count larger than stream) expected EOFException");
+        }
+        catch (final EOFException e) {
+            // expected
+        }
+    }
+
+    public void testReadRejectsOtherStreams() throws Exception {
+        try {
+            read(new byte[] { 1, 2, 3, 4, 5, 6, 7 });
+            fail("read(garbage) expected StreamCorruptedException");
+        }
+        catch (final StreamCorruptedException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Stroke which is not a basic stroke but is serializable.
+     */
+    private static final class SerializableStroke implements Stroke, Serializable {
+        private static final long serialVersionUID = 1L;
+        private final float width;
+
+        SerializableStroke(final float width) {
+            this.width = width;
+        }
+
+        public Shape createStrokedShape(final Shape shape) {
+            return new BasicStroke(width).createStrokedShape(shape);
+        }
+    }
+}
@@ -30,6 +30,7 @@ package org.piccolo2d.extras.nodes;
 
 import java.awt.Graphics2D;
 import java.awt.Paint;
+import java.awt.Shape;
 import java.awt.geom.Rectangle2D;
 
 import org.piccolo2d.PNode;
@@ -89,6 +90,21 @@ public class PClip extends PPath.Float {
         }
     }
 
+    /**
+     * Returns the bounds of the clip of this node if it is a rectangle,
+     * otherwise an empty rectangle.
+     * 
+     * @since 4.0
+     * @return the rectangle within which descendants are not clipped
+     */
+    public Rectangle2D getUnclippedDescendantBounds() {
+        final Shape clip = getPathReference();
+        if (isRectangle(clip)) {
+            return clip.getBounds2D();
+        }
+        return new Rectangle2D.Double();
+    }
+
     /**
      * Paint's this node as a solid rectangle if paint is provided, clipping
      * appropriately.
@@ -32,7 +32,9 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Paint;
+import java.awt.Shape;
 import java.awt.Stroke;
+import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.io.IOException;
@@ -41,8 +43,10 @@ import java.io.ObjectOutputStream;
 
 import org.piccolo2d.PNode;
 import org.piccolo2d.extras.util.LineShape;
+import org.piccolo2d.extras.util.PLineDecimator;
 import org.piccolo2d.nodes.PPath;
 import org.piccolo2d.util.PAffineTransform;
+import org.piccolo2d.util.PHairline;
 import org.piccolo2d.util.PPaintContext;
 import org.piccolo2d.util.PUtil;
 
@@ -64,10 +68,20 @@ public class PLine extends PNode {
     private static final int PROPERTY_CODE_STROKE = 1 << 17;
     private static final String PROPERTY_PATH = "path";
     private static final int PROPERTY_CODE_PATH = 1 << 18;
+    private static final String PROPERTY_HAIRLINE_WIDTH = "hairlineWidth";
+    private static final int PROPERTY_CODE_HAIRLINE_WIDTH = 1 << 19;
+    private static final String PROPERTY_DECIMATED = "decimated";
+    private static final int PROPERTY_CODE_DECIMATED = 1 << 20;
 
     private final transient LineShape lineShape;
     private transient Stroke stroke;
     private Paint strokePaint;
+    private float hairlineWidth;
+    private transient BasicStroke hairlineStroke;
+    private boolean decimated;
+    private transient PLineDecimator decimator;
+    private transient boolean unsorted;
+    private transient Path2D.Double decimatedLine;
 
     /**
      * Constructs a new PLine with an empty LineShape.
@@ -147,6 +161,70 @@ public class PLine extends PNode {
         firePropertyChange(PROPERTY_CODE_STROKE, PROPERTY_STROKE, oldStroke, stroke);
     }
 
+    /**
+     * Return the width in device pixels of the hairline drawn instead of the
+     * stroke, or zero if the stroke is drawn. Defaults to zero.
+     * 
+     * @since 4.0
+     * @return the width in device pixels of the hairline, or zero
+     */
+    public float getHairlineWidth() {
+        return hairlineWidth;
+    }
+
+    /**
+     * Set the width in device pixels of the hairline drawn instead of the
+     * stroke. A hairline keeps its width whatever the scale the line is viewed
+     * at, and is drawn and picked without generating the outline of a stroke.
+     * 
+     * @see PHairline
+     * @since 4.0
+     * @param newHairlineWidth width in device pixels of the hairline, between
+     *            zero and {@link PHairline#MAX_WIDTH}; zero draws the stroke
+     */
+    public void setHairlineWidth(final float newHairlineWidth) {
+        PHairline.checkWidth(newHairlineWidth);
+        final float oldHairlineWidth = hairlineWidth;
+        hairlineWidth = newHairlineWidth;
+        hairlineStroke = null;
+        updateBoundsFromLine();
+        invalidatePaint();
+        firePropertyChange(PROPERTY_CODE_HAIRLINE_WIDTH, PROPERTY_HAIRLINE_WIDTH, Float.valueOf(oldHairlineWidth),
+                Float.valueOf(hairlineWidth));
+    }
+
+    /**
+     * Returns true if the line is drawn decimated to the scale it is viewed
+     * at. Defaults to false.
+     * 
+     * @since 4.0
+     * @return true if the line is drawn decimated
+     */
+    public boolean isDecimated() {
+        return decimated;
+    }
+
+    /**
+     * Sets whether the line is drawn decimated to the scale it is viewed at.
+     * A decimated line only draws the points within the visible x range, and
+     * no more than four of them per device pixel column, which keeps lines of
+     * millions of points, such as time series, fast to draw at any zoom. The
+     * points of the line must be sorted by non-decreasing x; other lines are
+     * drawn in full.
+     * 
+     * @see PLineDecimator
+     * @since 4.0
+     * @param newDecimated true to draw the line decimated
+     */
+    public void setDecimated(final boolean newDecimated) {
+        final boolean oldDecimated = decimated;
+        decimated = newDecimated;
+        invalidateDecimator();
+        invalidatePaint();
+        firePropertyChange(PROPERTY_CODE_DECIMATED, PROPERTY_DECIMATED, Boolean.valueOf(oldDecimated), Boolean
+                .valueOf(decimated));
+    }
+
     /** {@inheritDoc} */
     public boolean setBounds(final double x, final double y, final double width, final double height) {
         if (lineShape == null || !super.setBounds(x, y, width, height)) {
@@ -169,6 +247,7 @@ public class PLine extends PNode {
         TEMP_TRANSFORM.scale(adjustedWidth / lineBounds.getWidth(), adjustedHeight / lineBounds.getHeight());
         TEMP_TRANSFORM.translate(-lineBounds.getX(), -lineBounds.getY());
         lineShape.transformPoints(TEMP_TRANSFORM);
+        invalidateDecimator();
 
         return true;
     }
@@ -179,6 +258,9 @@ public class PLine extends PNode {
             if (lineShape.intersects(aBounds)) {
                 return true;
             }
+            else if (hairlineWidth > 0.0f && strokePaint != null) {
+                return PHairline.intersects(lineShape, aBounds, PHairline.getPickTolerance(hairlineWidth));
+            }
             else if (stroke != null && strokePaint != null) {
                 return stroke.createStrokedShape(lineShape).intersects(aBounds);
             }
@@ -193,7 +275,10 @@ public class PLine extends PNode {
      *         into account
      */
     public Rectangle2D getLineBoundsWithStroke() {
-        if (stroke != null) {
+        if (hairlineWidth > 0.0f) {
+            return PHairline.getBounds(lineShape, hairlineWidth);
+        }
+        else if (stroke != null) {
             return stroke.createStrokedShape(lineShape).getBounds2D();
         }
         else {
@@ -205,6 +290,7 @@ public class PLine extends PNode {
      * Recalculates the bounds when a change to the underlying line occurs.
      */
     public void updateBoundsFromLine() {
+        invalidateDecimator();
         if (lineShape.getPointCount() == 0) {
             resetBounds();
         }
@@ -223,11 +309,66 @@ public class PLine extends PNode {
     protected void paint(final PPaintContext paintContext) {
         final Graphics2D g2 = paintContext.getGraphics();
 
-        if (stroke != null && strokePaint != null) {
+        if (hairlineWidth > 0.0f && strokePaint != null) {
+            if (hairlineStroke == null) {
+                hairlineStroke = PHairline.createStroke(hairlineWidth);
+            }
+            g2.setPaint(strokePaint);
+            PHairline.draw(g2, getPaintedLine(paintContext), hairlineStroke);
+        }
+        else if (stroke != null && strokePaint != null) {
             g2.setPaint(strokePaint);
             g2.setStroke(stroke);
-            g2.draw(lineShape);
+            g2.draw(getPaintedLine(paintContext));
+        }
+    }
+
+    /**
+     * Returns the shape of the line to draw in the provided context, decimated
+     * to its local clip and scale if the line is decimated.
+     * 
+     * @param paintContext the context into which the line is drawn
+     * @return the shape of the line to draw
+     */
+    private Shape getPaintedLine(final PPaintContext paintContext) {
+        if (!decimated || unsorted) {
+            return lineShape;
+        }
+        if (decimator == null) {
+            if (!PLineDecimator.isSorted(lineShape)) {
+                unsorted = true;
+                return lineShape;
+            }
+            decimator = new PLineDecimator(lineShape);
+            decimatedLine = new Path2D.Double();
         }
+
+        final Rectangle2D clip = paintContext.getLocalClip();
+        final Rectangle2D bounds = getBoundsReference();
+        final double minX = Math.max(clip.getMinX(), bounds.getMinX());
+        final double maxX = Math.min(clip.getMaxX(), bounds.getMaxX());
+        decimatedLine.reset();
+        decimator.appendTo(decimatedLine, minX, maxX, 1.0d / paintContext.getScale());
+        return decimatedLine;
+    }
+
+    /**
+     * Discards the decimator of the line, to be rebuilt when next painted.
+     */
+    private void invalidateDecimator() {
+        decimator = null;
+        decimatedLine = null;
+        unsorted = false;
+    }
+
+    /**
+     * Returns false, lines are only stroked and never cover an area.
+     * 
+     * @param boundary boundary to check and see if this node covers completely
+     * @return false
+     */
+    public boolean isOpaque(final Rectangle2D boundary) {
+        return false;
     }
 
     /**
@@ -0,0 +1,483 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.extras.nodes;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.piccolo2d.PNode;
+import org.piccolo2d.extras.util.XYRingBuffer;
+import org.piccolo2d.util.PBounds;
+import org.piccolo2d.util.PPaintContext;
+import org.piccolo2d.util.PUtil;
+
+/**
+ * <b>PStreamingLine</b> draws a multisegment line to which points are
+ * appended continuously, such as live telemetry.
+ * <p>
+ * The points are held in an {@link XYRingBuffer}, so appending a point and
+ * evicting the oldest ones take constant amortized time, and the bounds of the
+ * line are maintained without iterating its points. Appending or removing
+ * points only repaints the segments that changed rather than the whole line,
+ * and painting only draws the segments within the clip.
+ * </p>
+ *
+ * @since 4.0
+ */
+public class PStreamingLine extends PNode {
+
+    private static final long serialVersionUID = 1L;
+    private static final PBounds TEMP_REPAINT_BOUNDS = new PBounds();
+    private static final Rectangle2D TEMP_BOUNDS = new Rectangle2D.Double();
+    private static final BasicStroke DEFAULT_STROKE = new BasicStroke(1.0f);
+    private static final Color DEFAULT_STROKE_PAINT = Color.black;
+    private static final String PROPERTY_STROKE_PAINT = "strokePaint";
+    private static final int PROPERTY_CODE_STROKE_PAINT = 1 << 16;
+    private static final String PROPERTY_STROKE = "stroke";
+    private static final int PROPERTY_CODE_STROKE = 1 << 17;
+    private static final String PROPERTY_PATH = "path";
+    private static final int PROPERTY_CODE_PATH = 1 << 18;
+
+    private transient XYRingBuffer points;
+    private transient BasicStroke stroke;
+    private Paint strokePaint;
+    private transient Path2D.Double path;
+    private transient boolean updatingBounds;
+
+    /**
+     * Constructs a new PStreamingLine holding any number of points.
+     */
+    public PStreamingLine() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a new PStreamingLine holding at most the provided number of
+     * points, the oldest points being evicted as new ones are appended.
+     *
+     * @param maxPointCount maximum number of points held, at least one
+     */
+    public PStreamingLine(final int maxPointCount) {
+        points = new XYRingBuffer(maxPointCount);
+        stroke = DEFAULT_STROKE;
+        strokePaint = DEFAULT_STROKE_PAINT;
+    }
+
+    /**
+     * Returns the paint to be used while drawing the line.
+     *
+     * @return paint used when drawing the line
+     */
+    public Paint getStrokePaint() {
+        return strokePaint;
+    }
+
+    /**
+     * Changes the paint to be used while drawing the line.
+     *
+     * @param newStrokePaint paint to use when drawing the line
+     */
+    public void setStrokePaint(final Paint newStrokePaint) {
+        final Paint oldPaint = strokePaint;
+        strokePaint = newStrokePaint;
+        invalidatePaint();
+        firePropertyChange(PROPERTY_CODE_STROKE_PAINT, PROPERTY_STROKE_PAINT, oldPaint, strokePaint);
+    }
+
+    /**
+     * Returns the stroke that will be used when drawing the line.
+     *
+     * @return stroke used to draw the line
+     */
+    public BasicStroke getStroke() {
+        return stroke;
+    }
+
+    /**
+     * Sets stroke to use when drawing the line.
+     *
+     * @param newStroke stroke to use when drawing the line
+     */
+    public void setStroke(final BasicStroke newStroke) {
+        final BasicStroke oldStroke = stroke;
+        stroke = newStroke;
+        updateBoundsFromPoints();
+        invalidatePaint();
+        firePropertyChange(PROPERTY_CODE_STROKE, PROPERTY_STROKE, oldStroke, stroke);
+    }
+
+    /**
+     * Returns a reference to the underlying points. Be careful!
+     *
+     * @return direct reference to the underlying points
+     */
+    public XYRingBuffer getPointsReference() {
+        return points;
+    }
+
+    /**
+     * Returns the number of points in the line.
+     *
+     * @return number of points in the line
+     */
+    public int getPointCount() {
+        return points.getPointCount();
+    }
+
+    /**
+     * Returns the point at the provided index, the oldest point being at index
+     * zero. If dst is not null, it will populate it with the point's
+     * coordinates rather than create a new point.
+     *
+     * @param pointIndex index of desired point in line
+     * @param dst point to populate, may be null
+     * @return the desired point, or dst populate with its coordinates
+     */
+    public Point2D getPoint(final int pointIndex, final Point2D dst) {
+        return points.getPoint(pointIndex, dst);
+    }
+
+    /**
+     * Appends a point to the line, evicting the oldest point if the line holds
+     * its maximum number of points.
+     *
+     * @param x x component of new point
+     * @param y y component of new point
+     */
+    public void appendPoint(final double x, final double y) {
+        final PBounds changed = beginAppend(1);
+        changed.add(x, y);
+        points.appendPoint(x, y);
+        pointsChanged(changed);
+    }
+
+    /**
+     * Appends points to the line, evicting the oldest points as needed.
+     *
+     * @param coordinates array of x and y coordinates of the points to append
+     * @param offset index in the array of the x component of the first point
+     * @param count number of points to append
+     */
+    public void appendPoints(final double[] coordinates, final int offset, final int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must be at least zero, was " + count);
+        }
+        if (count == 0) {
+            return;
+        }
+        final PBounds changed = beginAppend(count);
+        for (int i = 0; i < count; i++) {
+            changed.add(coordinates[offset + i * 2], coordinates[offset + i * 2 + 1]);
+        }
+        points.appendPoints(coordinates, offset, count);
+        pointsChanged(changed);
+    }
+
+    /**
+     * Removes the provided number of oldest points from the line.
+     *
+     * @param count number of points to remove, at most the number of points in
+     *            the line
+     */
+    public void removeOldestPoints(final int count) {
+        if (count < 0 || count > points.getPointCount()) {
+            throw new IllegalArgumentException("count must be between 0 and " + points.getPointCount() + ", was "
+                    + count);
+        }
+        if (count == 0) {
+            return;
+        }
+        final PBounds changed = TEMP_REPAINT_BOUNDS;
+        changed.reset();
+        addPoints(changed, 0, Math.min(count, points.getPointCount() - 1));
+        points.removeOldestPoints(count);
+        pointsChanged(changed);
+    }
+
+    /**
+     * Removes the oldest points of the line up to the first point whose x is
+     * at least the provided x, such as the points older than a time window.
+     *
+     * @param x x of the oldest point to keep
+     */
+    public void removePointsBefore(final double x) {
+        int count = 0;
+        while (count < points.getPointCount() && points.getX(count) < x) {
+            count++;
+        }
+        removeOldestPoints(count);
+    }
+
+    /**
+     * Removes all points from the line.
+     */
+    public void removeAllPoints() {
+        removeOldestPoints(points.getPointCount());
+    }
+
+    /**
+     * Returns the bounds to repaint for appending the provided number of
+     * points, covering the segments evicted and the last point of the line.
+     *
+     * @param count number of points to be appended
+     * @return the bounds to repaint, to be extended with the appended points
+     */
+    private PBounds beginAppend(final int count) {
+        final PBounds changed = TEMP_REPAINT_BOUNDS;
+        changed.reset();
+        final int pointCount = points.getPointCount();
+        if (pointCount > 0) {
+            final long evicted = (long) pointCount + count - points.getMaxPointCount();
+            if (evicted > 0) {
+                addPoints(changed, 0, (int) Math.min(evicted, pointCount - 1));
+            }
+            addPoints(changed, pointCount - 1, pointCount - 1);
+        }
+        return changed;
+    }
+
+    /**
+     * Adds the points of the line between the provided indices to the
+     * provided bounds.
+     *
+     * @param bounds bounds to add the points to
+     * @param first index of the first point to add
+     * @param last index of the last point to add
+     */
+    private void addPoints(final PBounds bounds, final int first, final int last) {
+        for (int i = first; i <= last; i++) {
+            bounds.add(points.getX(i), points.getY(i));
+        }
+    }
+
+    /**
+     * Updates the bounds of the line, fires a change event and repaints the
+     * provided bounds, covering the segments that changed.
+     *
+     * @param changed bounds of the segments that changed, in local
+     *            coordinates
+     */
+    private void pointsChanged(final PBounds changed) {
+        updateBoundsFromPoints();
+        firePropertyChange(PROPERTY_CODE_PATH, PROPERTY_PATH, null, points);
+        if (!changed.isEmpty() && stroke != null && strokePaint != null) {
+            final double outset = getStrokeOutset();
+            changed.setRect(changed.getX() - outset, changed.getY() - outset, changed.getWidth() + 2.0d * outset,
+                    changed.getHeight() + 2.0d * outset);
+            repaintFrom(changed, this);
+        }
+    }
+
+    /**
+     * Recalculates the bounds of the line from the bounds of its points,
+     * without invalidating its paint.
+     */
+    public void updateBoundsFromPoints() {
+        updatingBounds = true;
+        try {
+            if (points.getPointCount() == 0) {
+                super.setBounds(0.0d, 0.0d, 0.0d, 0.0d);
+            }
+            else {
+                final Rectangle2D b = points.getBounds(TEMP_BOUNDS);
+                final double outset = getStrokeOutset();
+                super.setBounds(b.getX() - outset, b.getY() - outset, b.getWidth() + 2.0d * outset, b.getHeight()
+                        + 2.0d * outset);
+            }
+        }
+        finally {
+            updatingBounds = false;
+        }
+    }
+
+    /**
+     * Returns how far the stroke of the line extends beyond its points,
+     * joins and caps included.
+     *
+     * @return how far the stroke extends beyond the points of the line
+     */
+    private double getStrokeOutset() {
+        if (stroke == null) {
+            return 0.0d;
+        }
+        double factor = 1.0d;
+        if (stroke.getLineJoin() == BasicStroke.JOIN_MITER) {
+            factor = Math.max(factor, stroke.getMiterLimit());
+        }
+        if (stroke.getEndCap() == BasicStroke.CAP_SQUARE) {
+            factor = Math.max(factor, Math.sqrt(2.0d));
+        }
+        return stroke.getLineWidth() / 2.0d * factor;
+    }
+
+    /**
+     * Invalidates the paint of this node, unless it is only updating its
+     * bounds after points were appended or removed; these repaint only the
+     * segments that changed.
+     */
+    public void invalidatePaint() {
+        if (!updatingBounds) {
+            super.invalidatePaint();
+        }
+    }
+
+    /**
+     * Returns false, the bounds of a streaming line follow its points and
+     * cannot be set.
+     *
+     * @param x left of bounds
+     * @param y top of bounds
+     * @param width width of bounds
+     * @param height height of bounds
+     * @return false
+     */
+    public boolean setBounds(final double x, final double y, final double width, final double height) {
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    public boolean intersects(final Rectangle2D aBounds) {
+        final int pointCount = points.getPointCount();
+        if (!super.intersects(aBounds) || stroke == null || strokePaint == null || pointCount == 0) {
+            return false;
+        }
+        final double outset = stroke.getLineWidth() / 2.0d;
+        final Rectangle2D outsetBounds = TEMP_BOUNDS;
+        outsetBounds.setRect(aBounds.getX() - outset, aBounds.getY() - outset, aBounds.getWidth() + 2.0d * outset,
+                aBounds.getHeight() + 2.0d * outset);
+        double x1 = points.getX(0);
+        double y1 = points.getY(0);
+        if (outsetBounds.contains(x1, y1)) {
+            return true;
+        }
+        for (int i = 1; i < pointCount; i++) {
+            final double x2 = points.getX(i);
+            final double y2 = points.getY(i);
+            if (outsetBounds.intersectsLine(x1, y1, x2, y2)) {
+                return true;
+            }
+            x1 = x2;
+            y1 = y2;
+        }
+        return false;
+    }
+
+    /**
+     * Paints the segments of the line within the clip of the provided context
+     * if it has both a stroke and a stroke paint assigned.
+     *
+     * @param paintContext the context into which the line should be drawn
+     */
+    protected void paint(final PPaintContext paintContext) {
+        final int pointCount = points.getPointCount();
+        if (stroke == null || strokePaint == null || pointCount == 0) {
+            return;
+        }
+
+        final Rectangle2D clip = paintContext.getLocalClip();
+        final double outset = getStrokeOutset();
+        final double minX = clip.getMinX() - outset;
+        final double minY = clip.getMinY() - outset;
+        final double maxX = clip.getMaxX() + outset;
+        final double maxY = clip.getMaxY() + outset;
+
+        if (path == null) {
+            path = new Path2D.Double();
+        }
+        path.reset();
+        double x1 = points.getX(0);
+        double y1 = points.getY(0);
+        if (pointCount == 1) {
+            path.moveTo(x1, y1);
+            path.lineTo(x1, y1);
+        }
+        boolean connected = false;
+        for (int i = 1; i < pointCount; i++) {
+            final double x2 = points.getX(i);
+            final double y2 = points.getY(i);
+            if (Math.max(x1, x2) >= minX && Math.min(x1, x2) <= maxX && Math.max(y1, y2) >= minY
+                    && Math.min(y1, y2) <= maxY) {
+                if (!connected) {
+                    path.moveTo(x1, y1);
+                    connected = true;
+                }
+                path.lineTo(x2, y2);
+            }
+            else {
+                connected = false;
+            }
+            x1 = x2;
+            y1 = y2;
+        }
+
+        final Graphics2D g2 = paintContext.getGraphics();
+        g2.setPaint(strokePaint);
+        g2.setStroke(stroke);
+        g2.draw(path);
+    }
+
+    /**
+     * Returns false, lines are only stroked and never cover an area.
+     *
+     * @param boundary boundary to check and see if this node covers completely
+     * @return false
+     */
+    public boolean isOpaque(final Rectangle2D boundary) {
+        return false;
+    }
+
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        PUtil.writeStroke(stroke, out);
+        out.writeInt(points.getMaxPointCount());
+        out.writeInt(points.getPointCount());
+        for (int i = 0; i < points.getPointCount(); i++) {
+            out.writeDouble(points.getX(i));
+            out.writeDouble(points.getY(i));
+        }
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        stroke = (BasicStroke) PUtil.readStroke(in);
+        points = new XYRingBuffer(in.readInt());
+        final int pointCount = in.readInt();
+        for (int i = 0; i < pointCount; i++) {
+            points.appendPoint(in.readDouble(), in.readDouble());
+        }
+    }
+}
@@ -33,6 +33,7 @@ import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.Insets;
+import java.awt.Paint;
 import java.awt.font.FontRenderContext;
 import java.awt.font.LineBreakMeasurer;
 import java.awt.font.TextAttribute;
@@ -42,10 +43,12 @@ import java.awt.geom.Rectangle2D;
 import java.text.AttributedCharacterIterator;
 import java.text.AttributedString;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
 import java.util.List;
 import java.util.StringTokenizer;
 
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
 import javax.swing.text.AttributeSet;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.DefaultStyledDocument;
@@ -55,6 +58,7 @@ import javax.swing.text.StyleConstants;
 import javax.swing.text.StyleContext;
 
 import org.piccolo2d.PNode;
+import org.piccolo2d.util.PLayoutExecutor;
 import org.piccolo2d.util.PPaintContext;
 
 
@@ -68,7 +72,13 @@ public class PStyledText extends PNode {
     /** Font rendering context used for all PStyledText instances. */
     protected static final FontRenderContext SWING_FRC = new FontRenderContext(null, true, false);
 
-    /** Used while painting underlines. */
+    /**
+     * Used while painting underlines.
+     *
+     * @deprecated no longer used, underlines are painted with a line created
+     *             per call so text can be painted from several threads
+     */
+    @Deprecated
     protected static final Line2D paintLine = new Line2D.Double();
 
     /**
@@ -95,6 +105,24 @@ public class PStyledText extends PNode {
     /** Whether width will be forced to match containing text's width. */
     protected boolean constrainWidthToTextWidth = true;
 
+    /** Ranges within the document of the paragraphs in stringContents. */
+    private transient List paragraphRanges;
+
+    /** Layouts of the paragraphs in stringContents, or null for those to lay out. */
+    private transient List paragraphLayouts;
+
+    /** Width available to the text when the paragraph layouts were computed. */
+    private transient float paragraphLayoutWidth;
+
+    /** Whether the layout is computed off the event dispatch thread. */
+    private boolean layoutAsynchronous;
+
+    /** Whether a layout computed off the event dispatch thread is outstanding. */
+    private transient boolean asynchronousLayoutPending;
+
+    /** Number of the latest layout requested; results of earlier requests are discarded. */
+    private transient int layoutGeneration;
+
     /**
      * Constructs an empty PStyledText element.
      */
@@ -193,29 +221,150 @@ public class PStyledText extends PNode {
         // The default style context - which will be reused
         final StyleContext styleContext = StyleContext.getDefaultStyleContext();
 
-        int pos;
-        RunInfo paragraphRange = null;
+        for (int i = 0; i < pEnds.size(); i++) {
+            applyParagraphAttributes((AttributedString) stringContents.get(i), (RunInfo) pEnds.get(i), styleContext);
+        }
+        paragraphRanges = pEnds;
+        paragraphLayouts = new ArrayList(Collections.nCopies(pEnds.size(), null));
 
-        AttributedString attributedString;
+        recomputeLayout();
+    }
 
-        final Iterator contentIterator = stringContents.iterator();
-        final Iterator paragraphIterator = pEnds.iterator();
-        while (contentIterator.hasNext() && paragraphIterator.hasNext()) {
-            paragraphRange = (RunInfo) paragraphIterator.next();
-            attributedString = (AttributedString) contentIterator.next();
-            pos = paragraphRange.startIndex;
+    /**
+     * Enforce that the current display matches the underlying document after
+     * the specified change to it. Only the paragraphs touched by the change
+     * are styled and laid out again; the others keep their layout.
+     * 
+     * @since 4.0
+     * @param event change to the document of this node
+     */
+    public void syncWithDocument(final DocumentEvent event) {
+        if (event == null || event.getDocument() != document || stringContents == null || paragraphRanges == null) {
+            syncWithDocument();
+            return;
+        }
 
-            // The current element will be used as a temp variable while
-            // searching for the leaf element at the current position
-            Element curElement = null;
+        String documentString;
+        try {
+            documentString = document.getText(0, document.getLength());
+        }
+        catch (final BadLocationException e) {
+            // impossible in a single threaded model, see syncWithDocument()
+            return;
+        }
 
-            // Small assumption here that there is one root element - can fix
-            // for more general support later
-            final Element rootElement = document.getDefaultRootElement();
+        final int offset = event.getOffset();
+        int changeEnd = offset + event.getLength();
+        int delta = 0;
+        if (event.getType() == DocumentEvent.EventType.INSERT) {
+            delta = event.getLength();
+        }
+        else if (event.getType() == DocumentEvent.EventType.REMOVE) {
+            delta = -event.getLength();
+            changeEnd = offset;
+        }
+
+        final List oldContents = stringContents;
+        final List oldRanges = paragraphRanges;
+        final List oldLayouts = paragraphLayouts;
+        stringContents = new ArrayList();
+        final ArrayList newRanges = extractParagraphRanges(documentString);
+        final int newCount = newRanges.size();
+        final int oldCount = oldRanges.size();
+
+        // paragraphs ending before the change are unchanged
+        int unchangedBefore = 0;
+        while (unchangedBefore < Math.min(newCount, oldCount)) {
+            final RunInfo newRange = (RunInfo) newRanges.get(unchangedBefore);
+            final RunInfo oldRange = (RunInfo) oldRanges.get(unchangedBefore);
+            if (newRange.endIndex >= offset || !newRange.isShiftedFrom(oldRange, 0)) {
+                break;
+            }
+            unchangedBefore++;
+        }
+
+        // paragraphs starting after the change are unchanged, only shifted
+        int unchangedAfter = 0;
+        while (unchangedAfter < Math.min(newCount, oldCount) - unchangedBefore) {
+            final RunInfo newRange = (RunInfo) newRanges.get(newCount - 1 - unchangedAfter);
+            final RunInfo oldRange = (RunInfo) oldRanges.get(oldCount - 1 - unchangedAfter);
+            if (newRange.startIndex <= changeEnd || !newRange.isShiftedFrom(oldRange, delta)) {
+                break;
+            }
+            unchangedAfter++;
+        }
+
+        final StyleContext styleContext = StyleContext.getDefaultStyleContext();
+        final ArrayList layouts = new ArrayList(newCount);
+        for (int i = 0; i < newCount; i++) {
+            int oldIndex = -1;
+            if (i < unchangedBefore) {
+                oldIndex = i;
+            }
+            else if (i >= newCount - unchangedAfter) {
+                oldIndex = oldCount - (newCount - i);
+            }
 
-            // If the string is length 0 then we just need to add the attributes
-            // once
-            if (paragraphRange.isEmpty()) {
+            if (oldIndex >= 0) {
+                stringContents.set(i, oldContents.get(oldIndex));
+                layouts.add(oldLayouts.get(oldIndex));
+            }
+            else {
+                applyParagraphAttributes((AttributedString) stringContents.get(i), (RunInfo) newRanges.get(i),
+                        styleContext);
+                layouts.add(null);
+            }
+        }
+        paragraphRanges = newRanges;
+        paragraphLayouts = layouts;
+
+        recomputeLayout();
+    }
+
+    /**
+     * Apply the attributes of the document over the specified paragraph to
+     * its attributed string.
+     * 
+     * @param attributedString attributed string of the paragraph
+     * @param paragraphRange range of the paragraph within the document
+     * @param styleContext style context to read attributes with
+     */
+    private void applyParagraphAttributes(final AttributedString attributedString, final RunInfo paragraphRange,
+            final StyleContext styleContext) {
+        int pos = paragraphRange.startIndex;
+
+        // The current element will be used as a temp variable while
+        // searching for the leaf element at the current position
+        Element curElement = null;
+
+        // Small assumption here that there is one root element - can fix
+        // for more general support later
+        final Element rootElement = document.getDefaultRootElement();
+
+        // If the string is length 0 then we just need to add the attributes
+        // once
+        if (paragraphRange.isEmpty()) {
+            curElement = drillDownFromRoot(pos, rootElement);
+
+            // These are the mandatory attributes
+            final AttributeSet attributes = curElement.getAttributes();
+            final Color foreground = styleContext.getForeground(attributes);
+
+            attributedString.addAttribute(TextAttribute.FOREGROUND, foreground, Math.max(0, curElement
+                    .getStartOffset()
+                    - paragraphRange.startIndex), Math.min(paragraphRange.length(), curElement.getEndOffset()
+                    - paragraphRange.startIndex));
+
+            final Font font = extractFont(styleContext, pos, rootElement, attributes);
+            applyFontAttribute(paragraphRange, attributedString, curElement, font);
+            applyBackgroundAttribute(styleContext, paragraphRange, attributedString, curElement, attributes);
+            applyUnderlineAttribute(paragraphRange, attributedString, curElement, attributes);
+            applyStrikeThroughAttribute(paragraphRange, attributedString, curElement, attributes);
+        }
+        else {
+            // OK, now we loop until we find all the leaf elements in the
+            // range
+            while (pos < paragraphRange.endIndex) {
                 curElement = drillDownFromRoot(pos, rootElement);
 
                 // These are the mandatory attributes
@@ -232,35 +381,11 @@ public class PStyledText extends PNode {
                 applyBackgroundAttribute(styleContext, paragraphRange, attributedString, curElement, attributes);
                 applyUnderlineAttribute(paragraphRange, attributedString, curElement, attributes);
                 applyStrikeThroughAttribute(paragraphRange, attributedString, curElement, attributes);
-            }
-            else {
-                // OK, now we loop until we find all the leaf elements in the
-                // range
-                while (pos < paragraphRange.endIndex) {
-                    curElement = drillDownFromRoot(pos, rootElement);
-
-                    // These are the mandatory attributes
-                    final AttributeSet attributes = curElement.getAttributes();
-                    final Color foreground = styleContext.getForeground(attributes);
-
-                    attributedString.addAttribute(TextAttribute.FOREGROUND, foreground, Math.max(0, curElement
-                            .getStartOffset()
-                            - paragraphRange.startIndex), Math.min(paragraphRange.length(), curElement.getEndOffset()
-                            - paragraphRange.startIndex));
-
-                    final Font font = extractFont(styleContext, pos, rootElement, attributes);
-                    applyFontAttribute(paragraphRange, attributedString, curElement, font);                    
-                    applyBackgroundAttribute(styleContext, paragraphRange, attributedString, curElement, attributes);
-                    applyUnderlineAttribute(paragraphRange, attributedString, curElement, attributes);
-                    applyStrikeThroughAttribute(paragraphRange, attributedString, curElement, attributes);          
-
-                    // And set the position to the end of the given attribute
-                    pos = curElement.getEndOffset();
-                }
+
+                // And set the position to the end of the given attribute
+                pos = curElement.getEndOffset();
             }
         }
-
-        recomputeLayout();
     }
 
     /**
@@ -416,88 +541,256 @@ public class PStyledText extends PNode {
         return paragraphRanges;
     }
 
+    /**
+     * Return true if the layout of this node is computed off the event
+     * dispatch thread. Defaults to <code>false</code>.
+     * 
+     * @since 4.0
+     * @return true if the layout of this node is computed off the event
+     *         dispatch thread
+     */
+    public boolean isLayoutAsynchronous() {
+        return layoutAsynchronous;
+    }
+
+    /**
+     * Set to <code>true</code> to compute the layout of this node off the event
+     * dispatch thread, on the executor of {@link PLayoutExecutor}. Until the
+     * layout is ready this node keeps its bounds and paints a placeholder box
+     * instead of its text. The layout is then applied on the event dispatch
+     * thread, changing the bounds of this node once. Changes to the document,
+     * insets or width while a layout is outstanding supersede it.
+     * 
+     * @since 4.0
+     * @param layoutAsynchronous true to compute the layout of this node off the
+     *            event dispatch thread
+     */
+    public void setLayoutAsynchronous(final boolean layoutAsynchronous) {
+        this.layoutAsynchronous = layoutAsynchronous;
+        if (!layoutAsynchronous && asynchronousLayoutPending) {
+            layoutGeneration++;
+            asynchronousLayoutPending = false;
+            recomputeLayout();
+            invalidatePaint();
+        }
+    }
+
+    /**
+     * Return true while a layout computed off the event dispatch thread is
+     * outstanding.
+     * 
+     * @since 4.0
+     * @return true while a layout computed off the event dispatch thread is
+     *         outstanding
+     */
+    public boolean isLayoutPending() {
+        return asynchronousLayoutPending;
+    }
+
     /**
      * Compute the bounds of the text wrapped by this node. The text layout is
      * wrapped based on the bounds of this node. If the shrinkBoundsToFit
      * parameter is true then after the text has been laid out the bounds of
-     * this node are shrunk to fit around those text bounds.
+     * this node are shrunk to fit around those text bounds. If the layout is
+     * asynchronous, it is computed off the event dispatch thread.
      */
     public void recomputeLayout() {
         if (stringContents == null) {
             return;
         }
+        if (layoutAsynchronous) {
+            requestAsynchronousLayout();
+            return;
+        }
+        final float availableWidth = getAvailableWidth();
+        applyLayout(computeLayout(stringContents, getCachedParagraphLayouts(availableWidth), availableWidth),
+                availableWidth);
+    }
+
+    /**
+     * Request computing the layout of this node off the event dispatch thread,
+     * superseding any outstanding request.
+     */
+    private void requestAsynchronousLayout() {
+        final int generation = ++layoutGeneration;
+        // the attributed strings are replaced, not modified, when syncing
+        final List contents = new ArrayList(stringContents);
+        final float availableWidth = getAvailableWidth();
+        final List cachedParagraphLayouts = getCachedParagraphLayouts(availableWidth);
+        asynchronousLayoutPending = true;
+        invalidatePaint();
+
+        PLayoutExecutor.getExecutor().execute(new Runnable() {
+            public void run() {
+                final Layout layout = computeLayout(contents, cachedParagraphLayouts, availableWidth);
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() {
+                        if (generation == layoutGeneration) {
+                            asynchronousLayoutPending = false;
+                            applyLayout(layout, availableWidth);
+                            invalidatePaint();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Return the width available to the text of this node.
+     * 
+     * @return the width available to the text of this node
+     */
+    private float getAvailableWidth() {
+        if (constrainWidthToTextWidth) {
+            return Float.MAX_VALUE;
+        }
+        return (float) Math.ceil(getWidth() - insets.left - insets.right);
+    }
 
+    /**
+     * Return a copy of the cached layouts of the paragraphs of this node if
+     * they were computed for the specified available width, or null.
+     * 
+     * @param availableWidth width available to the text
+     * @return the cached paragraph layouts, or null
+     */
+    private List getCachedParagraphLayouts(final float availableWidth) {
+        if (paragraphLayouts == null || paragraphLayouts.size() != stringContents.size()
+                || availableWidth != paragraphLayoutWidth) {
+            return null;
+        }
+        return new ArrayList(paragraphLayouts);
+    }
+
+    /**
+     * Compute the layout of the specified contents, without changing this
+     * node. May be called off the event dispatch thread.
+     * 
+     * @param contents attributed strings of the paragraphs to lay out
+     * @param cachedParagraphLayouts layouts of the paragraphs to reuse, null
+     *            for the paragraphs to lay out, or null to lay out all of them
+     * @param availableWidth width available to the text
+     * @return the layout of the specified contents
+     */
+    private Layout computeLayout(final List contents, final List cachedParagraphLayouts, final float availableWidth) {
         final ArrayList linesList = new ArrayList();
+        final ArrayList layouts = new ArrayList(contents.size());
 
         double textWidth = 0;
         double textHeight = 0;
 
-        final Iterator contentIterator = stringContents.iterator();
-
-        while (contentIterator.hasNext()) {
-            final AttributedString ats = (AttributedString) contentIterator.next();
-            final AttributedCharacterIterator itr = ats.getIterator();
+        for (int i = 0; i < contents.size(); i++) {
+            Layout paragraphLayout = null;
+            if (cachedParagraphLayouts != null) {
+                paragraphLayout = (Layout) cachedParagraphLayouts.get(i);
+            }
+            if (paragraphLayout == null) {
+                paragraphLayout = computeParagraphLayout((AttributedString) contents.get(i), availableWidth);
+            }
+            layouts.add(paragraphLayout);
 
-            LineBreakMeasurer measurer;
-            ArrayList breakList = null;
+            for (int j = 0; j < paragraphLayout.lines.length; j++) {
+                linesList.add(paragraphLayout.lines[j]);
+            }
+            textWidth = Math.max(textWidth, paragraphLayout.textWidth);
+            textHeight = textHeight + paragraphLayout.textHeight;
+        }
 
-            measurer = new LineBreakMeasurer(itr, SWING_FRC);
-            breakList = extractLineBreaks(itr, measurer);
+        return new Layout((LineInfo[]) linesList.toArray(new LineInfo[linesList.size()]), textWidth, textHeight,
+                layouts);
+    }
 
-            measurer = new LineBreakMeasurer(itr, PPaintContext.RENDER_QUALITY_HIGH_FRC);
+    /**
+     * Compute the layout of the specified paragraph. May be called off the
+     * event dispatch thread.
+     * 
+     * @param ats attributed string of the paragraph to lay out
+     * @param availableWidth width available to the text
+     * @return the layout of the specified paragraph
+     */
+    private Layout computeParagraphLayout(final AttributedString ats, final float availableWidth) {
+        final ArrayList linesList = new ArrayList();
 
-            // Need to change the lineinfo data structure to know about multiple
-            // text layouts per line
+        double textWidth = 0;
+        double textHeight = 0;
 
-            LineInfo lineInfo = null;
-            boolean newLine = true;
-            double lineWidth = 0;
-            while (measurer.getPosition() < itr.getEndIndex()) {
-                TextLayout aTextLayout = null;
+        final AttributedCharacterIterator itr = ats.getIterator();
 
-                if (newLine) {
-                    newLine = false;
+        LineBreakMeasurer measurer;
+        ArrayList breakList = null;
 
-                    final double lineHeight = calculateLineHeightFromLineInfo(lineInfo);
+        measurer = new LineBreakMeasurer(itr, SWING_FRC);
+        breakList = extractLineBreaks(itr, measurer, availableWidth);
 
-                    textHeight = textHeight + lineHeight;
-                    textWidth = Math.max(textWidth, lineWidth);
+        measurer = new LineBreakMeasurer(itr, PPaintContext.RENDER_QUALITY_HIGH_FRC);
 
-                    // Now create a new line
-                    lineInfo = new LineInfo();
-                    linesList.add(lineInfo);
-                }
+        // Need to change the lineinfo data structure to know about multiple
+        // text layouts per line
 
-                final int lineEnd = ((Integer) breakList.get(0)).intValue();
-                if (lineEnd <= itr.getRunLimit()) {
-                    breakList.remove(0);
-                    newLine = true;
-                }
+        LineInfo lineInfo = null;
+        boolean newLine = true;
+        double lineWidth = 0;
+        while (measurer.getPosition() < itr.getEndIndex()) {
+            TextLayout aTextLayout = null;
 
-                aTextLayout = measurer.nextLayout(Float.MAX_VALUE, Math.min(lineEnd, itr.getRunLimit()), false);
+            if (newLine) {
+                newLine = false;
 
-                final SegmentInfo sInfo = createSegmentInfo(itr, aTextLayout);
+                final double lineHeight = calculateLineHeightFromLineInfo(lineInfo);
 
-                final FontMetrics metrics = StyleContext.getDefaultStyleContext().getFontMetrics(
-                        (Font) itr.getAttribute(TextAttribute.FONT));
-                lineInfo.maxAscent = Math.max(lineInfo.maxAscent, metrics.getMaxAscent());
-                lineInfo.maxDescent = Math.max(lineInfo.maxDescent, metrics.getMaxDescent());
-                lineInfo.leading = Math.max(lineInfo.leading, metrics.getLeading());
+                textHeight = textHeight + lineHeight;
+                textWidth = Math.max(textWidth, lineWidth);
 
-                lineInfo.segments.add(sInfo);
+                // Now create a new line
+                lineInfo = new LineInfo();
+                linesList.add(lineInfo);
+            }
 
-                itr.setIndex(measurer.getPosition());
-                lineWidth = lineWidth + aTextLayout.getAdvance();
+            final int lineEnd = ((Integer) breakList.get(0)).intValue();
+            if (lineEnd <= itr.getRunLimit()) {
+                breakList.remove(0);
+                newLine = true;
             }
 
-            final double lineHeight = calculateLineHeightFromLineInfo(lineInfo);
-            textHeight = textHeight + lineHeight;
-            textWidth = Math.max(textWidth, lineWidth);
+            aTextLayout = measurer.nextLayout(Float.MAX_VALUE, Math.min(lineEnd, itr.getRunLimit()), false);
+
+            final SegmentInfo sInfo = createSegmentInfo(itr, aTextLayout);
+
+            final FontMetrics metrics = StyleContext.getDefaultStyleContext().getFontMetrics(
+                    (Font) itr.getAttribute(TextAttribute.FONT));
+            lineInfo.maxAscent = Math.max(lineInfo.maxAscent, metrics.getMaxAscent());
+            lineInfo.maxDescent = Math.max(lineInfo.maxDescent, metrics.getMaxDescent());
+            lineInfo.leading = Math.max(lineInfo.leading, metrics.getLeading());
+
+            lineInfo.segments.add(sInfo);
+
+            itr.setIndex(measurer.getPosition());
+            lineWidth = lineWidth + aTextLayout.getAdvance();
         }
 
-        lines = (LineInfo[]) linesList.toArray(new LineInfo[linesList.size()]);
+        final double lineHeight = calculateLineHeightFromLineInfo(lineInfo);
+        textHeight = textHeight + lineHeight;
+        textWidth = Math.max(textWidth, lineWidth);
 
-        constrainDimensionsIfNeeded(textWidth, textHeight);
+        return new Layout((LineInfo[]) linesList.toArray(new LineInfo[linesList.size()]), textWidth, textHeight,
+                null);
+    }
+
+    /**
+     * Apply the specified layout to this node.
+     * 
+     * @param layout layout of the text of this node
+     * @param availableWidth width available to the text when the layout was
+     *            computed
+     */
+    private void applyLayout(final Layout layout, final float availableWidth) {
+        lines = layout.lines;
+        if (layout.paragraphLayouts.size() == stringContents.size()) {
+            paragraphLayouts = layout.paragraphLayouts;
+            paragraphLayoutWidth = availableWidth;
+        }
+        constrainDimensionsIfNeeded(layout.textWidth, layout.textHeight);
     }
 
     protected SegmentInfo createSegmentInfo(final AttributedCharacterIterator itr, TextLayout aTextLayout) {
@@ -550,16 +843,12 @@ public class PStyledText extends PNode {
 
     // Because swing doesn't use fractional font metrics by default, we use
     // LineBreakMeasurer to find out where Swing is going to break them
-    private ArrayList extractLineBreaks(final AttributedCharacterIterator itr, final LineBreakMeasurer measurer) {
+    private ArrayList extractLineBreaks(final AttributedCharacterIterator itr, final LineBreakMeasurer measurer,
+            final float availableWidth) {
         ArrayList breakList;
         breakList = new ArrayList();
         while (measurer.getPosition() < itr.getEndIndex()) {
-            if (constrainWidthToTextWidth) {
-                measurer.nextLayout(Float.MAX_VALUE);
-            }
-            else {
-                measurer.nextLayout((float) Math.ceil(getWidth() - insets.left - insets.right));
-            }
+            measurer.nextLayout(availableWidth);
 
             breakList.add(new Integer(measurer.getPosition()));
         }
@@ -587,6 +876,10 @@ public class PStyledText extends PNode {
 
     /** {@inheritDoc} */
     protected void paint(final PPaintContext paintContext) {
+        if (asynchronousLayoutPending) {
+            paintLayoutPlaceholder(paintContext);
+            return;
+        }
         if (lines == null || lines.length == 0) {
             return;
         }
@@ -596,41 +889,71 @@ public class PStyledText extends PNode {
         final float bottomY = (float) (getY() + getHeight() - insets.bottom);
 
         final Graphics2D g2 = paintContext.getGraphics();
+        Paint currentPaint = getPaint();
 
-        if (getPaint() != null) {
-            g2.setPaint(getPaint());
+        if (currentPaint != null) {
+            g2.setPaint(currentPaint);
             g2.fill(getBoundsReference());
         }
 
+        // lines and segments entirely outside of the clip are not painted
+        final Rectangle2D clip = paintContext.getLocalClip();
+        final double clipMinX = clip.getMinX();
+        final double clipMaxX = clip.getMaxX();
+        final Rectangle2D segmentBackground = new Rectangle2D.Double();
+        Font currentFont = null;
+
         float curX;
         LineInfo lineInfo;
         for (int i = 0; i < lines.length; i++) {
             lineInfo = lines[i];
+            final float lineTop = y;
+            final float lineHeight = (float) (lineInfo.maxAscent + lineInfo.maxDescent + lineInfo.leading);
             y += lineInfo.maxAscent;
             curX = x;
 
-            if (bottomY < y) {
+            if (bottomY < y || lineTop > clip.getMaxY()) {
                 return;
             }
+            if (lineTop + lineHeight < clip.getMinY()) {
+                y += lineInfo.maxDescent + lineInfo.leading;
+                continue;
+            }
 
             for (int j = 0; j < lineInfo.segments.size(); j++) {
                 final SegmentInfo sInfo = (SegmentInfo) lineInfo.segments.get(j);
                 final float width = sInfo.layout.getAdvance();
 
+                // glyphs may overhang their advance, by less than the ascent
+                if (curX > clipMaxX + lineInfo.maxAscent) {
+                    break;
+                }
+                if (curX + width < clipMinX - lineInfo.maxAscent) {
+                    curX = curX + width;
+                    continue;
+                }
+
                 if (sInfo.background != null) {
                     g2.setPaint(sInfo.background);
-                    g2.fill(new Rectangle2D.Double(curX, y - lineInfo.maxAscent, width, lineInfo.maxAscent
-                            + lineInfo.maxDescent + lineInfo.leading));
+                    currentPaint = sInfo.background;
+                    segmentBackground.setRect(curX, lineTop, width, lineHeight);
+                    g2.fill(segmentBackground);
                 }
 
-                sInfo.applyFont(g2);
+                if (sInfo.font != currentFont) {
+                    sInfo.applyFont(g2);
+                    currentFont = sInfo.font;
+                }
 
                 // Manually set the paint - this is specified in the
                 // AttributedString but seems to be
                 // ignored by the TextLayout. To handle multiple colors we
                 // should be breaking up the lines
                 // but that functionality can be added later as needed
-                g2.setPaint(sInfo.foreground);
+                if (sInfo.foreground != currentPaint) {
+                    g2.setPaint(sInfo.foreground);
+                    currentPaint = sInfo.foreground;
+                }
                 sInfo.layout.draw(g2, curX, y);
 
                 // Draw the underline and the strikethrough after the text
@@ -643,11 +966,39 @@ public class PStyledText extends PNode {
         }
     }
 
+    /**
+     * Returns whether this node is opaque over the specified boundary. Its
+     * paint only fills its bounds once it holds text.
+     * 
+     * @param boundary boundary to check and see if this node covers completely
+     * @return true if opaque
+     */
+    public boolean isOpaque(final Rectangle2D boundary) {
+        return (asynchronousLayoutPending || lines != null && lines.length > 0) && super.isOpaque(boundary);
+    }
+
+    /**
+     * Paint a placeholder box in place of the text while its layout is being
+     * computed off the event dispatch thread.
+     * 
+     * @since 4.0
+     * @param paintContext paint context
+     */
+    protected void paintLayoutPlaceholder(final PPaintContext paintContext) {
+        final Graphics2D g2 = paintContext.getGraphics();
+        if (getPaint() != null) {
+            g2.setPaint(getPaint());
+            g2.fill(getBoundsReference());
+        }
+        g2.setPaint(PPaintContext.PLACEHOLDER_PAINT);
+        g2.fill(getBoundsReference());
+    }
+
     protected void drawUnderlineAndStrikethroughAfterText
         (final float x, float y, final Graphics2D g2, LineInfo lineInfo, final SegmentInfo sInfo, final float width) {
         if (sInfo.underline != null) {
-            paintLine.setLine(x, y + 1 + lineInfo.maxDescent / 2, x + width, y + 1 + lineInfo.maxDescent / 2);
-            g2.draw(paintLine);
+            final double lineY = y + 1 + lineInfo.maxDescent / 2;
+            g2.draw(new Line2D.Double(x, lineY, x + width, lineY));
         }
     }
 
@@ -713,6 +1064,40 @@ public class PStyledText extends PNode {
         return true;
     }
 
+    /**
+     * Lines of the text of this node and the size of the text.
+     */
+    private static final class Layout {
+        /** Lines of text. */
+        private final LineInfo[] lines;
+
+        /** Width of the text. */
+        private final double textWidth;
+
+        /** Height of the text. */
+        private final double textHeight;
+
+        /** Layouts of the paragraphs of the text, or null for a single paragraph. */
+        private final List paragraphLayouts;
+
+        /**
+         * Create a new layout.
+         * 
+         * @param lines lines of text
+         * @param textWidth width of the text
+         * @param textHeight height of the text
+         * @param paragraphLayouts layouts of the paragraphs of the text, or
+         *            null for a single paragraph
+         */
+        Layout(final LineInfo[] lines, final double textWidth, final double textHeight,
+                final List paragraphLayouts) {
+            this.lines = lines;
+            this.textWidth = textWidth;
+            this.textHeight = textHeight;
+            this.paragraphLayouts = paragraphLayouts;
+        }
+    }
+
     /**
      * Simple class to represent an range within the document.
      */
@@ -757,7 +1142,20 @@ public class PStyledText extends PNode {
         public int getEndIndex() {
             return endIndex;
         }
-        
+
+        /**
+         * Returns whether this run is the specified run shifted by the
+         * specified offset.
+         * 
+         * @param run run to compare with
+         * @param delta offset by which the run is shifted
+         * @return true if this run is the specified run shifted by
+         *         <code>delta</code>
+         */
+        boolean isShiftedFrom(final RunInfo run, final int delta) {
+            return startIndex == run.startIndex + delta && endIndex == run.endIndex + delta;
+        }
+
     }
 
     /**
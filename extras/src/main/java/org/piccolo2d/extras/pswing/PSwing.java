@@ -42,6 +42,7 @@ import java.awt.Component;
 import java.awt.Container;
 import java.awt.Font;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.Stroke;
@@ -49,6 +50,7 @@ import java.awt.event.ContainerAdapter;
 import java.awt.event.ContainerEvent;
 import java.awt.event.ContainerListener;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
@@ -223,7 +225,19 @@ public class PSwing extends PNode implements Serializable, PropertyChangeListene
     private boolean useBufferedPainting = false;
 
     /** Used when buffered painting is enabled. */
-    private BufferedImage buffer;
+    private transient BufferedImage buffer;
+
+    /** Atlas in which the buffer is packed when small enough, or null. */
+    private transient PSwingBufferAtlas bufferAtlas;
+
+    /** Region of the atlas holding the buffer, or null. */
+    private transient PSwingBufferAtlas.Region bufferRegion;
+
+    /** Area of the buffer to render again, in component coordinates, or null if none. */
+    private transient Rectangle bufferDirtyBounds;
+
+    /** Render quality of the paint context the buffer was last painted with. */
+    private transient int bufferRenderQuality = PPaintContext.HIGH_QUALITY_RENDERING;
 
     /** Minimum font size. */
     private double minFontSize = Double.MAX_VALUE;
@@ -344,18 +358,83 @@ public class PSwing extends PNode implements Serializable, PropertyChangeListene
      * graphics context. On some platforms (such as Mac OS X) rendering {@link JComponent}s to
      * a transformed context is slow. Enabling buffered painting gives a significant performance
      * boost on these platforms; however, at the expense of a lower-quality drawing result at larger
-     * scales.
+     * scales. Only the regions of the buffer repainted by the component since the last paint are
+     * rendered again, see {@link #invalidateBuffer()}.
      * @since 1.3.1
      * @param useBufferedPainting true if this {@link PSwing} should use buffered painting
      */
     public void setUseBufferedPainting(final boolean useBufferedPainting) {
         this.useBufferedPainting = useBufferedPainting;
+        if (!useBufferedPainting) {
+            releaseBuffer();
+        }
     }
 
     public boolean isUseBufferedPainting() {
         return this.useBufferedPainting;
     }
 
+    /**
+     * Set the atlas in which the buffer of this node is packed when buffered
+     * painting is enabled and the component is small enough. Sharing an atlas
+     * between many nodes bounds the memory used by their buffers.
+     *
+     * @since 4.0
+     * @param bufferAtlas atlas in which the buffer is packed, or
+     *            <code>null</code> for a buffer of its own
+     */
+    public void setBufferAtlas(final PSwingBufferAtlas bufferAtlas) {
+        if (bufferAtlas != this.bufferAtlas) {
+            releaseBuffer();
+            this.bufferAtlas = bufferAtlas;
+        }
+    }
+
+    /**
+     * Return the atlas in which the buffer of this node is packed, or
+     * <code>null</code> if it has a buffer of its own.
+     *
+     * @since 4.0
+     * @return the atlas in which the buffer is packed, or <code>null</code>
+     */
+    public PSwingBufferAtlas getBufferAtlas() {
+        return bufferAtlas;
+    }
+
+    /**
+     * Mark the whole buffer of this node as needing to be rendered again.
+     * Repaints of the component through the {@link PSwingRepaintManager}
+     * mark the buffer on their own; this is only needed when the component
+     * is changed in a way that does not repaint it.
+     *
+     * @since 4.0
+     */
+    public void invalidateBuffer() {
+        addBufferDirtyRegion(0, 0, component.getWidth(), component.getHeight());
+    }
+
+    /**
+     * Mark the specified area of the buffer of this node as needing to be
+     * rendered again. Does nothing unless buffered painting is enabled, the
+     * buffer being rendered in full when it is next allocated.
+     *
+     * @param x x coordinate of the area in the component
+     * @param y y coordinate of the area in the component
+     * @param width width of the area
+     * @param height height of the area
+     */
+    void addBufferDirtyRegion(final int x, final int y, final int width, final int height) {
+        if (!useBufferedPainting || width <= 0 || height <= 0) {
+            return;
+        }
+        if (bufferDirtyBounds == null) {
+            bufferDirtyBounds = new Rectangle(x, y, width, height);
+        }
+        else {
+            bufferDirtyBounds.add(new Rectangle(x, y, width, height));
+        }
+    }
+
     /**
      * Ensures the bounds of the underlying component are accurate, and sets the
      * bounds of this PNode.
@@ -416,6 +495,12 @@ public class PSwing extends PNode implements Serializable, PropertyChangeListene
         g2.setStroke(defaultStroke);
         g2.setFont(DEFAULT_FONT);
         
+        // the buffer is rendered with the hints of the paint context, which depend on its quality
+        if (useBufferedPainting && renderContext.getRenderQuality() != bufferRenderQuality) {
+            bufferRenderQuality = renderContext.getRenderQuality();
+            invalidateBuffer();
+        }
+
         if (shouldRenderGreek(renderContext)) {
             paintAsGreek(g2);
         }
@@ -428,6 +513,16 @@ public class PSwing extends PNode implements Serializable, PropertyChangeListene
         g2.setFont(originalFont);
     }
 
+    /**
+     * Returns false, the paint of this node is not used to fill its bounds.
+     * 
+     * @param boundary boundary to check and see if this node covers completely
+     * @return false
+     */
+    public boolean isOpaque(final Rectangle2D boundary) {
+        return false;
+    }
+
     /**
      * Return true if this Swing node should render as greek given the specified
      * paint context.
@@ -503,9 +598,15 @@ public class PSwing extends PNode implements Serializable, PropertyChangeListene
         final RenderingHints oldHints = g2.getRenderingHints();
 
         if (useBufferedPainting) {
-            Graphics2D bufferedGraphics = getBufferedGraphics(g2);
-            component.paint(bufferedGraphics);
-            g2.drawRenderedImage(buffer, IDENTITY_TRANSFORM);
+            final BufferedImage image = getBuffer();
+            if (canvas == null || !component.isDisplayable()) {
+                // repaints of components outside of a displayed canvas are not captured
+                invalidateBuffer();
+            }
+            if (bufferDirtyBounds != null) {
+                renderBuffer(image, g2);
+            }
+            g2.drawRenderedImage(image, IDENTITY_TRANSFORM);
         } else {
             g2.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_OFF);
             component.paint(g2);
@@ -516,23 +617,62 @@ public class PSwing extends PNode implements Serializable, PropertyChangeListene
         manager.unlockRepaint(component);
     }
 
-    private Graphics2D getBufferedGraphics(Graphics2D source) {
-        final Graphics2D bufferedGraphics;
-        if(!isBufferValid()) {
-            // Get the graphics context associated with a new buffered image.
-            // Use TYPE_INT_ARGB_PRE so that transparent components look good on Windows.
-            buffer = new BufferedImage(component.getWidth(), component.getHeight(), BufferedImage.TYPE_INT_ARGB_PRE);
-            bufferedGraphics = buffer.createGraphics();
+    /**
+     * Returns the buffer for the image of the Swing component, allocating a
+     * new one, entirely dirty, if the current one is no longer valid.
+     *
+     * @return the buffer for the image of the Swing component
+     */
+    private BufferedImage getBuffer() {
+        final int width = component.getWidth();
+        final int height = component.getHeight();
+        if (bufferAtlas != null && !isBufferRegionValid()
+                && (bufferRegion != null || isPackable(width, height))) {
+            releaseBuffer();
+            bufferRegion = bufferAtlas.allocate(width, height);
+            if (bufferRegion != null) {
+                invalidateBuffer();
+            }
         }
-        else {
-            // Use the graphics context associated with the existing buffered image
-            bufferedGraphics = buffer.createGraphics();
-            // Clear the buffered image to prevent artifacts on Macintosh
-            bufferedGraphics.setBackground(BUFFER_BACKGROUND_COLOR);
-            bufferedGraphics.clearRect(0, 0, component.getWidth(), component.getHeight());
+        if (bufferRegion != null) {
+            return bufferRegion.getImage();
+        }
+        if (!isBufferValid()) {
+            // Use TYPE_INT_ARGB_PRE so that transparent components look good on Windows.
+            buffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+            invalidateBuffer();
         }
+        return buffer;
+    }
+
+    /**
+     * Tells whether a buffer of the specified size is packed in the atlas.
+     *
+     * @param width width of the buffer
+     * @param height height of the buffer
+     * @return true if a buffer of the specified size is packed in the atlas
+     */
+    private boolean isPackable(final int width, final int height) {
+        return width <= bufferAtlas.getMaxRegionSize() && height <= bufferAtlas.getMaxRegionSize();
+    }
+
+    /**
+     * Renders the dirty area of the buffer again.
+     *
+     * @param image buffer for the image of the Swing component
+     * @param source graphics context whose rendering hints are used
+     */
+    private void renderBuffer(final BufferedImage image, final Graphics2D source) {
+        final Graphics2D bufferedGraphics = image.createGraphics();
         bufferedGraphics.setRenderingHints(source.getRenderingHints());
-        return bufferedGraphics;
+        bufferedGraphics.clip(bufferDirtyBounds);
+        // Clear the buffered image to prevent artifacts on Macintosh
+        bufferedGraphics.setBackground(BUFFER_BACKGROUND_COLOR);
+        bufferedGraphics.clearRect(bufferDirtyBounds.x, bufferDirtyBounds.y, bufferDirtyBounds.width,
+                bufferDirtyBounds.height);
+        component.paint(bufferedGraphics);
+        bufferedGraphics.dispose();
+        bufferDirtyBounds = null;
     }
 
     /**
@@ -545,6 +685,30 @@ public class PSwing extends PNode implements Serializable, PropertyChangeListene
         return !(buffer == null || buffer.getWidth() != component.getWidth() || buffer.getHeight() != component.getHeight());
     }
 
+    /**
+     * Tells whether the region of the atlas holding the buffer for the image
+     * of the Swing component is currently valid.
+     *
+     * @return true if the region of the atlas is currently valid
+     */
+    private boolean isBufferRegionValid() {
+        return bufferRegion != null && bufferRegion.isValid() && bufferRegion.getWidth() == component.getWidth()
+                && bufferRegion.getHeight() == component.getHeight();
+    }
+
+    /**
+     * Releases the buffer for the image of the Swing component, returning its
+     * region to the atlas if any.
+     */
+    private void releaseBuffer() {
+        if (bufferRegion != null) {
+            bufferAtlas.release(bufferRegion);
+            bufferRegion = null;
+        }
+        buffer = null;
+        bufferDirtyBounds = null;
+    }
+
     /**
      * Repaints the specified portion of this visual component. Note that the
      * input parameter may be modified as a result of this call.
@@ -702,6 +866,7 @@ public class PSwing extends PNode implements Serializable, PropertyChangeListene
 
         if (newCanvas == null) {
             canvas = null;
+            releaseBuffer();
         }
         else {
             canvas = newCanvas;
@@ -0,0 +1,496 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.extras.pswing;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <b>PSwingBufferAtlas</b> packs the buffers of small buffered PSwing nodes
+ * into shared pages, bounding the memory they use as a whole.
+ * <p>
+ * Buffers are packed on shelves of square pages. The space of released
+ * buffers is reused: new buffers fill the first gap wide enough on a shelf,
+ * and shelves left empty are merged with their empty neighbours and split
+ * again to fit new buffers. When a buffer does not fit in the existing pages
+ * and allocating another page would exceed the memory budget, the least
+ * recently painted page is evicted: the buffers it holds are no longer valid
+ * and their nodes allocate and render them again when they are next painted.
+ * Buffers larger than the largest region size are not packed; nodes keep a
+ * buffer of their own for them.
+ * </p>
+ * <p>
+ * An atlas is meant to be shared by the PSwing nodes of an application, see
+ * {@link PSwing#setBufferAtlas(PSwingBufferAtlas)}, and must only be used on
+ * the event dispatch thread.
+ * </p>
+ *
+ * @since 4.0
+ */
+public class PSwingBufferAtlas {
+
+    /** Default size of the pages, <code>1024</code> pixels. */
+    public static final int DEFAULT_PAGE_SIZE = 1024;
+
+    /** Default largest width and height of the regions, <code>256</code> pixels. */
+    public static final int DEFAULT_MAX_REGION_SIZE = 256;
+
+    /** Default memory budget, <code>64</code> MB. */
+    public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024L * 1024L;
+
+    /** Bytes per pixel of the pages. */
+    private static final int BYTES_PER_PIXEL = 4;
+
+    /** Pixels left between regions so that they do not bleed into each other when scaled. */
+    private static final int REGION_PADDING = 1;
+
+    /** Width and height of the pages. */
+    private final int pageSize;
+
+    /** Largest width and height of the regions. */
+    private final int maxRegionSize;
+
+    /** Largest number of bytes used by the pages. */
+    private final long memoryBudget;
+
+    /** Pages of this atlas. */
+    private final List pages = new ArrayList();
+
+    /** Number of times regions of this atlas have been used, to order pages by their last use. */
+    private long useCount;
+
+    /**
+     * Create a new atlas with the default page size, largest region size and
+     * memory budget.
+     */
+    public PSwingBufferAtlas() {
+        this(DEFAULT_PAGE_SIZE, DEFAULT_MAX_REGION_SIZE, DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * Create a new atlas with the specified page size, largest region size and
+     * memory budget.
+     *
+     * @param pageSize width and height of the pages, at least one
+     * @param maxRegionSize largest width and height of the regions, between
+     *            one and <code>pageSize</code>
+     * @param memoryBudget largest number of bytes used by the pages, at least
+     *            the size of one page
+     */
+    public PSwingBufferAtlas(final int pageSize, final int maxRegionSize, final long memoryBudget) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be at least one, was " + pageSize);
+        }
+        if (maxRegionSize < 1 || maxRegionSize > pageSize) {
+            throw new IllegalArgumentException("maxRegionSize must be between one and " + pageSize + ", was "
+                    + maxRegionSize);
+        }
+        if (memoryBudget < getPageMemory(pageSize)) {
+            throw new IllegalArgumentException("memoryBudget must be at least " + getPageMemory(pageSize) + ", was "
+                    + memoryBudget);
+        }
+        this.pageSize = pageSize;
+        this.maxRegionSize = maxRegionSize;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Return the width and height of the pages of this atlas.
+     *
+     * @return the width and height of the pages
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Return the largest width and height of the regions of this atlas.
+     *
+     * @return the largest width and height of the regions
+     */
+    public int getMaxRegionSize() {
+        return maxRegionSize;
+    }
+
+    /**
+     * Return the largest number of bytes used by the pages of this atlas.
+     *
+     * @return the memory budget in bytes
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Return the number of bytes used by the pages of this atlas.
+     *
+     * @return the number of bytes used by the pages
+     */
+    public long getMemoryUsage() {
+        return pages.size() * getPageMemory(pageSize);
+    }
+
+    /**
+     * Return the number of pages of this atlas.
+     *
+     * @return the number of pages
+     */
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * Allocate a region of the specified size, evicting the least recently
+     * used page if needed. The content of a new region is undefined.
+     *
+     * @param width width of the region, at least one
+     * @param height height of the region, at least one
+     * @return a new region, or <code>null</code> if the specified size is
+     *         larger than the largest region size
+     */
+    public Region allocate(final int width, final int height) {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("width and height must be at least one, were " + width + " and "
+                    + height);
+        }
+        if (width > maxRegionSize || height > maxRegionSize) {
+            return null;
+        }
+
+        for (int i = 0; i < pages.size(); i++) {
+            final Region region = ((Page) pages.get(i)).allocate(width, height);
+            if (region != null) {
+                return region;
+            }
+        }
+
+        final Page page;
+        if (getMemoryUsage() + getPageMemory(pageSize) <= memoryBudget) {
+            page = new Page();
+            pages.add(page);
+        }
+        else {
+            page = getLeastRecentlyUsedPage();
+            page.evict();
+        }
+        return page.allocate(width, height);
+    }
+
+    /**
+     * Release the specified region so that its space may be reused. Pages
+     * holding no region any more are discarded.
+     *
+     * @param region region to release
+     */
+    public void release(final Region region) {
+        if (region.atlas != this) {
+            throw new IllegalArgumentException("region must belong to this atlas");
+        }
+        if (!region.valid) {
+            return;
+        }
+        region.valid = false;
+        final Page page = region.page;
+        page.regions.remove(region);
+        if (page.regions.isEmpty()) {
+            pages.remove(page);
+        }
+        else {
+            page.release(region);
+        }
+    }
+
+    /**
+     * Return the page used the least recently.
+     *
+     * @return the page used the least recently
+     */
+    private Page getLeastRecentlyUsedPage() {
+        Page leastRecentlyUsed = (Page) pages.get(0);
+        for (int i = 1; i < pages.size(); i++) {
+            final Page page = (Page) pages.get(i);
+            if (page.lastUse < leastRecentlyUsed.lastUse) {
+                leastRecentlyUsed = page;
+            }
+        }
+        return leastRecentlyUsed;
+    }
+
+    /**
+     * Return the number of bytes used by a page of the specified size.
+     *
+     * @param pageSize width and height of the page
+     * @return the number of bytes used by the page
+     */
+    private static long getPageMemory(final int pageSize) {
+        return (long) pageSize * pageSize * BYTES_PER_PIXEL;
+    }
+
+    /**
+     * Region of a page of an atlas holding the buffer of a node.
+     */
+    public static final class Region {
+
+        /** Atlas of this region. */
+        private final PSwingBufferAtlas atlas;
+
+        /** Page of this region. */
+        private final Page page;
+
+        /** Shelf of this region. */
+        private final Shelf shelf;
+
+        /** Left of this region on its shelf. */
+        private final int x;
+
+        /** Image of this region, sharing the pixels of its page. */
+        private final BufferedImage image;
+
+        /** Whether this region still holds its part of its page. */
+        private boolean valid = true;
+
+        /**
+         * Create a new region.
+         *
+         * @param atlas atlas of the region
+         * @param page page of the region
+         * @param shelf shelf of the region
+         * @param x left of the region on its shelf
+         * @param image image of the region
+         */
+        Region(final PSwingBufferAtlas atlas, final Page page, final Shelf shelf, final int x,
+                final BufferedImage image) {
+            this.atlas = atlas;
+            this.page = page;
+            this.shelf = shelf;
+            this.x = x;
+            this.image = image;
+        }
+
+        /**
+         * Return the width of this region.
+         *
+         * @return the width of this region
+         */
+        public int getWidth() {
+            return image.getWidth();
+        }
+
+        /**
+         * Return the height of this region.
+         *
+         * @return the height of this region
+         */
+        public int getHeight() {
+            return image.getHeight();
+        }
+
+        /**
+         * Return whether this region may still be used. A region is no longer
+         * valid once it is released or its page is evicted.
+         *
+         * @return true if this region may still be used
+         */
+        public boolean isValid() {
+            return valid;
+        }
+
+        /**
+         * Return the image of this region, sharing the pixels of its page, and
+         * mark its page as used.
+         *
+         * @return the image of this region
+         */
+        public BufferedImage getImage() {
+            if (!valid) {
+                throw new IllegalStateException("region is no longer valid");
+            }
+            page.lastUse = ++atlas.useCount;
+            return image;
+        }
+    }
+
+    /**
+     * Page of an atlas, on which regions are packed in shelves.
+     */
+    private final class Page {
+
+        /** Pixels of this page. */
+        private final BufferedImage image = new BufferedImage(pageSize, pageSize, BufferedImage.TYPE_INT_ARGB_PRE);
+
+        /** Regions allocated on this page. */
+        private final List regions = new ArrayList();
+
+        /** Shelves of this page, top to bottom. */
+        private final List shelves = new ArrayList();
+
+        /** Top of the free space below the shelves of this page. */
+        private int freeTop;
+
+        /** Use count of the atlas when this page was last used. */
+        private long lastUse;
+
+        /**
+         * Allocate a region of the specified size on this page.
+         *
+         * @param width width of the region
+         * @param height height of the region
+         * @return a new region, or <code>null</code> if it does not fit on
+         *         this page
+         */
+        Region allocate(final int width, final int height) {
+            for (int i = 0; i < shelves.size(); i++) {
+                final Shelf shelf = (Shelf) shelves.get(i);
+                if (height > shelf.height) {
+                    continue;
+                }
+                if (shelf.regions.isEmpty()) {
+                    if (shelf.height - height > REGION_PADDING) {
+                        final int top = shelf.top + height + REGION_PADDING;
+                        shelves.add(i + 1, new Shelf(top, shelf.top + shelf.height - top));
+                        shelf.height = height;
+                    }
+                    return createRegion(shelf, 0, 0, width, height);
+                }
+                int left = 0;
+                for (int j = 0; j < shelf.regions.size(); j++) {
+                    final Region region = (Region) shelf.regions.get(j);
+                    if (left + width + REGION_PADDING <= region.x) {
+                        return createRegion(shelf, j, left, width, height);
+                    }
+                    left = region.x + region.getWidth() + REGION_PADDING;
+                }
+                if (left + width <= pageSize) {
+                    return createRegion(shelf, shelf.regions.size(), left, width, height);
+                }
+            }
+            if (freeTop + height > pageSize) {
+                return null;
+            }
+            final Shelf shelf = new Shelf(freeTop, height);
+            shelves.add(shelf);
+            freeTop = shelf.top + height + REGION_PADDING;
+            return createRegion(shelf, 0, 0, width, height);
+        }
+
+        /**
+         * Free the space of the specified region of this page. A shelf left
+         * empty is merged with its empty neighbours, and given back to the
+         * free space below the shelves if it is the last one.
+         *
+         * @param region region released
+         */
+        void release(final Region region) {
+            final Shelf shelf = region.shelf;
+            shelf.regions.remove(region);
+            if (!shelf.regions.isEmpty()) {
+                return;
+            }
+            int index = shelves.indexOf(shelf);
+            if (index + 1 < shelves.size()) {
+                final Shelf next = (Shelf) shelves.get(index + 1);
+                if (next.regions.isEmpty()) {
+                    shelf.height = next.top + next.height - shelf.top;
+                    shelves.remove(index + 1);
+                }
+            }
+            if (index > 0) {
+                final Shelf previous = (Shelf) shelves.get(index - 1);
+                if (previous.regions.isEmpty()) {
+                    previous.height = shelf.top + shelf.height - previous.top;
+                    shelves.remove(index);
+                    index--;
+                }
+            }
+            if (index == shelves.size() - 1) {
+                freeTop = ((Shelf) shelves.remove(index)).top;
+            }
+        }
+
+        /**
+         * Invalidate the regions of this page and make all of its space free.
+         */
+        void evict() {
+            for (int i = 0; i < regions.size(); i++) {
+                ((Region) regions.get(i)).valid = false;
+            }
+            regions.clear();
+            shelves.clear();
+            freeTop = 0;
+        }
+
+        /**
+         * Create a region of this page on the specified shelf.
+         *
+         * @param shelf shelf of the region
+         * @param index index of the region among the regions of the shelf
+         * @param x left of the region
+         * @param width width of the region
+         * @param height height of the region
+         * @return a new region
+         */
+        private Region createRegion(final Shelf shelf, final int index, final int x, final int width,
+                final int height) {
+            final Region region = new Region(PSwingBufferAtlas.this, this, shelf, x, image.getSubimage(x, shelf.top,
+                    width, height));
+            shelf.regions.add(index, region);
+            regions.add(region);
+            lastUse = ++useCount;
+            return region;
+        }
+    }
+
+    /**
+     * Row of regions of a page, as high as the first region allocated on it
+     * while it was empty.
+     */
+    private static final class Shelf {
+
+        /** Top of this shelf. */
+        private final int top;
+
+        /** Height of this shelf, which changes only while it is empty. */
+        private int height;
+
+        /** Regions of this shelf, from left to right. */
+        private final List regions = new ArrayList();
+
+        /**
+         * Create a new empty shelf.
+         *
+         * @param top top of the shelf
+         * @param height height of the shelf
+         */
+        Shelf(final int top, final int height) {
+            this.top = top;
+            this.height = height;
+        }
+    }
+}
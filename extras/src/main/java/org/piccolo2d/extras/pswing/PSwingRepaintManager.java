@@ -57,6 +57,10 @@ import org.piccolo2d.util.PBounds;
  * to reshape the corresponding PSwing.
  * </p>
  * <p>
+ * Also marks the dirty regions of the buffers of the PSwings using buffered
+ * painting, so that only those regions are rendered again.
+ * </p>
+ * <p>
  * Also keeps a list of PSwings that are painting. This disables repaint until
  * the component has finished painting. This is to address a problem introduced
  * by Swing's CellRendererPane which is itself a work-around. The problem is
@@ -147,8 +151,10 @@ public class PSwingRepaintManager extends RepaintManager {
                 final double repaintW = Math.min(childComponent.getWidth() - captureX, width);
                 final double repaintH = Math.min(childComponent.getHeight() - captureY, height);
 
-                //Schedule a repaint for the dirty part of the PSwing
-                getPSwing(childComponent).repaint( new PBounds( captureX, captureY, repaintW, repaintH ) );
+                //Render the dirty part of the buffer again and schedule a repaint for the dirty part of the PSwing
+                final PSwing pSwing = getPSwing(childComponent);
+                pSwing.addBufferDirtyRegion(captureX, captureY, (int) repaintW, (int) repaintH);
+                pSwing.repaint( new PBounds( captureX, captureY, repaintW, repaintH ) );
             }
         }
         else {
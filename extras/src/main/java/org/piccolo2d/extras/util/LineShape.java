@@ -151,7 +151,12 @@ public class LineShape implements Shape, MutablePoints {
      */
     public void addPoint(final int pointIndex, final double x, final double y) {
         points.addPoint(pointIndex, x, y);
-        updateBounds();
+        if (points.getPointCount() == 1) {
+            updateBounds();
+        }
+        else {
+            bounds.add(x, y);
+        }
     }
 
     /**
@@ -490,15 +495,6 @@ public class LineShape implements Shape, MutablePoints {
             i++;
         }
 
-        private final Point2D tempPoint = new Point2D.Double();
-
-        private void currentSegment() {
-            tempPoint.setLocation(points.getX(i), points.getY(i));
-            if (trans != null) {
-                trans.transform(tempPoint, tempPoint);
-            }
-        }
-
         /**
          * Populates the given array with the current segment and returns the
          * type of segment.
@@ -508,9 +504,11 @@ public class LineShape implements Shape, MutablePoints {
          * @return type of segment SEG_MOVETO or SEG_LINETO
          */
         public int currentSegment(final float[] coords) {
-            currentSegment();
-            coords[0] = (float) tempPoint.getX();
-            coords[1] = (float) tempPoint.getY();
+            coords[0] = (float) points.getX(i);
+            coords[1] = (float) points.getY(i);
+            if (trans != null) {
+                trans.transform(coords, 0, coords, 0, 1);
+            }
             if (i == 0) {
                 return PathIterator.SEG_MOVETO;
             }
@@ -528,9 +526,11 @@ public class LineShape implements Shape, MutablePoints {
          * @return type of segment SEG_MOVETO or SEG_LINETO
          */
         public int currentSegment(final double[] coords) {
-            currentSegment();
-            coords[0] = tempPoint.getX();
-            coords[1] = tempPoint.getY();
+            coords[0] = points.getX(i);
+            coords[1] = points.getY(i);
+            if (trans != null) {
+                trans.transform(coords, 0, coords, 0, 1);
+            }
             if (i == 0) {
                 return PathIterator.SEG_MOVETO;
             }
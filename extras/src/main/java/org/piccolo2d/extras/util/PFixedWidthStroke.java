@@ -38,9 +38,9 @@ import java.io.Serializable;
  * PFixedWidthStroke has a fixed width on the screen so that even when the
  * canvas view is zooming its width stays the same in canvas coordinates.
  * <p>
- * {@link #createStrokedShape(Shape)} checks if the scale has changed since the
- * last usage and if that's the case calls {@link #newStroke(float)} to get a
- * new {@link Stroke} instance to delegate to.
+ * {@link #createStrokedShape(Shape)} looks up the {@link Stroke} instance to
+ * delegate to for the current scale, calling {@link #newStroke(float)} to get a
+ * new one if none is cached for a similar scale.
  * <p>
  * <b>CAUTION!</b> this implementation falls short for large scaling factors -
  * the effective miterlimit might drop below 1.0 which isn't permitted by
@@ -69,9 +69,6 @@ public class PFixedWidthStroke extends PSemanticStroke implements Serializable {
     // avoid repeated cloning:
     private final transient float[] dash;
 
-    // avoid repeated instantiations:
-    private final transient float[] tmpDash;
-
     /**
      * Constructs a simple PFixedWidthStroke with the default stroke.
      */
@@ -89,12 +86,6 @@ public class PFixedWidthStroke extends PSemanticStroke implements Serializable {
     private PFixedWidthStroke(final BasicStroke stroke) {
         super(stroke);
         dash = stroke.getDashArray();
-        if (dash == null) {
-            tmpDash = null;
-        }
-        else {
-            tmpDash = new float[dash.length];
-        }
     }
 
     /**
@@ -228,9 +219,12 @@ public class PFixedWidthStroke extends PSemanticStroke implements Serializable {
      * @return scaled stroke
      */
     protected Stroke newStroke(final float activeScale) {
-        if (tmpDash != null) {
+        // strokes may be derived on several threads at once
+        float[] scaledDash = null;
+        if (dash != null) {
+            scaledDash = new float[dash.length];
             for (int i = dash.length - 1; i >= 0; i--) {
-                tmpDash[i] = dash[i] / activeScale;
+                scaledDash[i] = dash[i] / activeScale;
             }
         }
         final float ml = getMiterLimit() / activeScale;
@@ -242,8 +236,8 @@ public class PFixedWidthStroke extends PSemanticStroke implements Serializable {
             sanitizedMiterLimit = ml;
         }
 
-        return new BasicStroke(getLineWidth() / activeScale, getEndCap(), getLineJoin(), sanitizedMiterLimit, tmpDash,
-                getDashPhase() / activeScale);
+        return new BasicStroke(getLineWidth() / activeScale, getEndCap(), getLineJoin(), sanitizedMiterLimit,
+                scaledDash, getDashPhase() / activeScale);
     }
 
     /**
@@ -0,0 +1,450 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.extras.util;
+
+import java.awt.geom.Path2D;
+
+/**
+ * <b>PLineDecimator</b> draws polylines of many points, sorted by x, with no
+ * more vertices than needed at the scale they are viewed at.
+ * <p>
+ * The points are grouped once into a pyramid of blocks of
+ * {@link #BLOCK_SIZE}, {@link #BLOCK_SIZE}<sup>2</sup>, ... consecutive
+ * points, each recording the indices of its lowest and highest points. Only
+ * the points within the visible x range are appended to a path, found by
+ * binary search; when there are many of them per column of the given width,
+ * the coarsest blocks giving several blocks per column are merged into
+ * columns, splitting the few blocks spanning two columns into smaller ones,
+ * and each column appends its first, lowest, highest and last points. The
+ * columns are laid out from x = 0 and the range is widened to whole columns,
+ * so that a column always holds the same points whatever the range. The
+ * polyline drawn is then the same, to the pixel, as the full one when the
+ * columns are one device pixel wide, with at most four vertices per column,
+ * and the polylines drawn for neighbouring ranges join without seams.
+ * </p>
+ * <p>
+ * The decimator reads the coordinates of the points from the points it was
+ * created with, but a new decimator must be created whenever points are
+ * added, removed or moved.
+ * </p>
+ *
+ * @see org.piccolo2d.extras.nodes.PLine#setDecimated(boolean)
+ * @since 4.0
+ */
+public class PLineDecimator {
+
+    /** Number of blocks, or points, grouped into each block of the next level. */
+    public static final int BLOCK_SIZE = 4;
+
+    /** Points of the polyline. */
+    private final Points points;
+
+    /** Number of points of the polyline. */
+    private final int pointCount;
+
+    /** Indices of the lowest point of each block, per level. */
+    private final int[][] minIndices;
+
+    /** Indices of the highest point of each block, per level. */
+    private final int[][] maxIndices;
+
+    /**
+     * Create a new decimator for the specified points.
+     *
+     * @param points points of the polyline, sorted by non-decreasing x
+     */
+    public PLineDecimator(final Points points) {
+        if (points == null) {
+            throw new IllegalArgumentException("points must not be null");
+        }
+        if (!isSorted(points)) {
+            throw new IllegalArgumentException("points must be sorted by non-decreasing x");
+        }
+        this.points = points;
+        pointCount = points.getPointCount();
+
+        int levelCount = 0;
+        for (long blockSize = BLOCK_SIZE; blockSize < pointCount; blockSize *= BLOCK_SIZE) {
+            levelCount++;
+        }
+        minIndices = new int[levelCount][];
+        maxIndices = new int[levelCount][];
+        for (int level = 0; level < levelCount; level++) {
+            buildLevel(level);
+        }
+    }
+
+    /**
+     * Return true if the specified points are sorted by non-decreasing x.
+     *
+     * @param points points to check
+     * @return true if the points are sorted by non-decreasing x
+     */
+    public static boolean isSorted(final Points points) {
+        final int count = points.getPointCount();
+        for (int i = 1; i < count; i++) {
+            if (points.getX(i) < points.getX(i - 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the number of points of the polyline.
+     *
+     * @return the number of points of the polyline
+     */
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    /**
+     * Return the number of levels of blocks of points.
+     *
+     * @return the number of levels of blocks of points
+     */
+    public int getLevelCount() {
+        return minIndices.length;
+    }
+
+    /**
+     * Return the index of the first point whose x is at least the specified
+     * x, or the number of points if there is none.
+     *
+     * @param x x to search for
+     * @return the index of the first point whose x is at least <code>x</code>
+     */
+    public int findIndex(final double x) {
+        int low = 0;
+        int high = pointCount;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (points.getX(middle) < x) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Append the polyline between <code>minX</code> and <code>maxX</code> to
+     * the specified path, with at most four vertices per column of
+     * <code>columnWidth</code>. Columns start at multiples of
+     * <code>columnWidth</code> from x = 0, and the range is widened to the
+     * columns it overlaps. The points just outside the range are appended
+     * too, so that the polyline reaches its edges.
+     *
+     * @param path path to append the polyline to
+     * @param minX left edge of the visible range
+     * @param maxX right edge of the visible range
+     * @param columnWidth width of a column, usually one device pixel in local
+     *            units; zero appends every point in the range
+     * @return the number of vertices appended
+     */
+    public int appendTo(final Path2D path, final double minX, final double maxX, final double columnWidth) {
+        if (pointCount == 0 || maxX < minX) {
+            return 0;
+        }
+        double left = minX;
+        double right = Math.nextUp(maxX);
+        double columns = Double.POSITIVE_INFINITY;
+        if (columnWidth > 0.0d) {
+            final double firstColumn = Math.floor(minX / columnWidth);
+            final double lastColumn = Math.floor(maxX / columnWidth);
+            left = firstColumn * columnWidth;
+            right = (lastColumn + 1.0d) * columnWidth;
+            columns = lastColumn - firstColumn + 1.0d;
+        }
+        final int start = Math.max(0, findIndex(left) - 1);
+        final int end = Math.min(pointCount - 1, findIndex(right));
+        final int count = end - start + 1;
+        if (count <= BLOCK_SIZE * columns) {
+            for (int i = start; i <= end; i++) {
+                appendPoint(path, i, i == start);
+            }
+            return count;
+        }
+
+        int level = -1;
+        long blockSize = 1;
+        while (level + 1 < minIndices.length && blockSize * BLOCK_SIZE * BLOCK_SIZE * columns <= count) {
+            level++;
+            blockSize *= BLOCK_SIZE;
+        }
+        final Columns columnsAppended = new Columns(path, columnWidth);
+        appendBlocks(columnsAppended, level, (int) blockSize, start / (int) blockSize, end / (int) blockSize, start,
+                end);
+        return columnsAppended.finish();
+    }
+
+    /**
+     * Append the blocks of the specified level overlapping the points from
+     * <code>start</code> to <code>end</code> to the specified columns. Blocks
+     * only partly within these points, or spanning several columns, are
+     * appended as their blocks of the level below.
+     *
+     * @param columns columns to append the blocks to
+     * @param level level of the blocks, or -1 for single points
+     * @param blockSize number of points per block at the level
+     * @param firstBlock index of the first block to append
+     * @param lastBlock index of the last block to append
+     * @param start index of the first point to append
+     * @param end index of the last point to append
+     */
+    private void appendBlocks(final Columns columns, final int level, final int blockSize, final int firstBlock,
+            final int lastBlock, final int start, final int end) {
+        for (int block = firstBlock; block <= lastBlock; block++) {
+            final int blockFirst = block * blockSize;
+            final int blockLast = Math.min(pointCount - 1, blockFirst + blockSize - 1);
+            if (blockLast < start || blockFirst > end) {
+                continue;
+            }
+            if (level < 0) {
+                columns.add(block, block, block, block);
+            }
+            else if (blockFirst < start || blockLast > end || columns.getColumn(blockFirst) != columns
+                    .getColumn(blockLast)) {
+                final int childSize = blockSize / BLOCK_SIZE;
+                final int firstChild = block * BLOCK_SIZE;
+                final int lastChild = Math.min((pointCount - 1) / childSize, firstChild + BLOCK_SIZE - 1);
+                appendBlocks(columns, level - 1, childSize, firstChild, lastChild, start, end);
+            }
+            else {
+                columns.add(blockFirst, blockLast, minIndices[level][block], maxIndices[level][block]);
+            }
+        }
+    }
+
+    /**
+     * Append the point at the specified index to the specified path.
+     *
+     * @param path path to append the point to
+     * @param i index of the point
+     * @param move true to move to the point, false to draw a line to it
+     */
+    private void appendPoint(final Path2D path, final int i, final boolean move) {
+        if (move) {
+            path.moveTo(points.getX(i), points.getY(i));
+        }
+        else {
+            path.lineTo(points.getX(i), points.getY(i));
+        }
+    }
+
+    /**
+     * Build the blocks of the specified level from the blocks of the level
+     * below, or from the points for the first level.
+     *
+     * @param level level to build
+     */
+    private void buildLevel(final int level) {
+        final int below;
+        if (level == 0) {
+            below = pointCount;
+        }
+        else {
+            below = minIndices[level - 1].length;
+        }
+        final int blockCount = (below + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        final int[] levelMin = new int[blockCount];
+        final int[] levelMax = new int[blockCount];
+        for (int block = 0; block < blockCount; block++) {
+            final int firstChild = block * BLOCK_SIZE;
+            final int lastChild = Math.min(below, firstChild + BLOCK_SIZE) - 1;
+            int min = childMin(level, firstChild);
+            int max = childMax(level, firstChild);
+            for (int child = firstChild + 1; child <= lastChild; child++) {
+                final int childMin = childMin(level, child);
+                final int childMax = childMax(level, child);
+                if (points.getY(childMin) < points.getY(min)) {
+                    min = childMin;
+                }
+                if (points.getY(childMax) > points.getY(max)) {
+                    max = childMax;
+                }
+            }
+            levelMin[block] = min;
+            levelMax[block] = max;
+        }
+        minIndices[level] = levelMin;
+        maxIndices[level] = levelMax;
+    }
+
+    /**
+     * Return the index of the lowest point of the specified child of a block
+     * of the specified level.
+     *
+     * @param level level of the block
+     * @param child index of the child in the level below
+     * @return the index of the lowest point of the child
+     */
+    private int childMin(final int level, final int child) {
+        if (level == 0) {
+            return child;
+        }
+        return minIndices[level - 1][child];
+    }
+
+    /**
+     * Return the index of the highest point of the specified child of a block
+     * of the specified level.
+     *
+     * @param level level of the block
+     * @param child index of the child in the level below
+     * @return the index of the highest point of the child
+     */
+    private int childMax(final int level, final int child) {
+        if (level == 0) {
+            return child;
+        }
+        return maxIndices[level - 1][child];
+    }
+
+    /**
+     * Columns appending their first, lowest, highest and last points to a
+     * path, in order and without repeating points.
+     */
+    private final class Columns {
+
+        /** Path to append the points to. */
+        private final Path2D path;
+
+        /** Width of a column. */
+        private final double columnWidth;
+
+        /** Indices of the points of the current column, sorted. */
+        private final int[] indices = new int[4];
+
+        /** Number of vertices appended. */
+        private int appended;
+
+        /** Index of the last point appended, or -1 if none. */
+        private int previous = -1;
+
+        /** Current column, or <code>Long.MIN_VALUE</code> if none. */
+        private long column = Long.MIN_VALUE;
+
+        /** Index of the first point of the current column. */
+        private int first;
+
+        /** Index of the last point of the current column. */
+        private int last;
+
+        /** Index of the lowest point of the current column. */
+        private int min;
+
+        /** Index of the highest point of the current column. */
+        private int max;
+
+        /**
+         * Create new columns.
+         *
+         * @param path path to append the points to
+         * @param columnWidth width of a column
+         */
+        Columns(final Path2D path, final double columnWidth) {
+            this.path = path;
+            this.columnWidth = columnWidth;
+        }
+
+        /**
+         * Return the column of the point at the specified index, counted from
+         * x = 0 so that it does not depend on the range appended.
+         *
+         * @param i index of the point
+         * @return the column of the point
+         */
+        long getColumn(final int i) {
+            return (long) Math.floor(points.getX(i) / columnWidth);
+        }
+
+        /**
+         * Add the specified points, all in the same column and following the
+         * points already added.
+         *
+         * @param addedFirst index of the first point added
+         * @param addedLast index of the last point added
+         * @param addedMin index of the lowest point added
+         * @param addedMax index of the highest point added
+         */
+        void add(final int addedFirst, final int addedLast, final int addedMin, final int addedMax) {
+            final long addedColumn = getColumn(addedFirst);
+            if (addedColumn != column) {
+                flush();
+                column = addedColumn;
+                first = addedFirst;
+                min = addedMin;
+                max = addedMax;
+            }
+            else {
+                if (points.getY(addedMin) < points.getY(min)) {
+                    min = addedMin;
+                }
+                if (points.getY(addedMax) > points.getY(max)) {
+                    max = addedMax;
+                }
+            }
+            last = addedLast;
+        }
+
+        /**
+         * Append the points of the last column.
+         *
+         * @return the number of vertices appended
+         */
+        int finish() {
+            flush();
+            return appended;
+        }
+
+        /**
+         * Append the points of the current column, if any.
+         */
+        private void flush() {
+            if (column == Long.MIN_VALUE) {
+                return;
+            }
+            indices[0] = first;
+            indices[1] = Math.min(min, max);
+            indices[2] = Math.max(min, max);
+            indices[3] = last;
+            for (int i = 0; i < indices.length; i++) {
+                if (indices[i] > previous) {
+                    appendPoint(path, indices[i], previous < 0);
+                    previous = indices[i];
+                    appended++;
+                }
+            }
+        }
+    }
+}
@@ -83,9 +83,10 @@ public class POcclusionDetection {
         }
 
         if (nodeOccludesParents(node, pickPath)) {
-            final PNode parent = node.getParent();
+            PNode parent = node.getParent();
             while (parent != null && !parent.getOccluded()) {
                 parent.setOccluded(true);
+                parent = parent.getParent();
             }
         }
 
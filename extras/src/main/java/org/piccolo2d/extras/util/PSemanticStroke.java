@@ -30,10 +30,21 @@ package org.piccolo2d.extras.util;
 import java.awt.Shape;
 import java.awt.Stroke;
 
+import org.piccolo2d.util.PPaintContext;
 import org.piccolo2d.util.PPickPath;
 
 
 /**
+ * Stroke delegating to a stroke derived from the scale it is used at.
+ * <p>
+ * Derived strokes are cached per stroke for a few scale buckets, each
+ * {@value #BUCKETS_PER_OCTAVE}th of an octave wide, so that strokes used at
+ * several scales at once, such as by cameras at different zoom levels, do not
+ * derive a new stroke at each use. When the cache is full the stroke derived
+ * first is evicted, whether or not it is still used, which keeps cache hits
+ * free of writes. The cache is replaced rather than modified, so strokes may
+ * be used by several threads at once.
+ * </p>
  * 
  * @see org.piccolo2d.nodes.PPath
  * @see Stroke
@@ -43,14 +54,19 @@ import org.piccolo2d.util.PPickPath;
 abstract class PSemanticStroke implements Stroke {
     protected static final double THRESHOLD = 1e-6;
 
-    private transient float recentScale;
-    private transient Stroke recentStroke;
+    /** Number of scale buckets per octave, doubling of the scale. */
+    static final int BUCKETS_PER_OCTAVE = 64;
+
+    /** Maximum number of derived strokes cached per stroke. */
+    static final int MAX_CACHED_STROKES = 8;
+
+    /** Derived strokes, most recently derived first; replaced, never modified. */
+    private transient volatile CachedStroke[] cachedStrokes;
+
     protected final Stroke stroke;
 
     protected PSemanticStroke(final Stroke stroke) {
         this.stroke = stroke;
-        recentStroke = stroke;
-        recentScale = 1.0F;
     }
 
     /**
@@ -60,12 +76,66 @@ abstract class PSemanticStroke implements Stroke {
      * @param s shape
      */
     public Shape createStrokedShape(final Shape s) {
-        final float currentScale = getActiveScale();
-        if (Math.abs(currentScale - recentScale) > THRESHOLD) {
-            recentScale = currentScale;
-            recentStroke = newStroke(recentScale);
+        return getStroke(getActiveScale()).createStrokedShape(s);
+    }
+
+    /**
+     * Return the stroke derived for the bucket of the specified scale,
+     * deriving it with {@link #newStroke(float)} if it is not cached.
+     * 
+     * @param scale scale the stroke is used at
+     * @return the stroke derived for the bucket of the specified scale
+     */
+    Stroke getStroke(final float scale) {
+        if (Math.abs(scale - 1.0f) <= THRESHOLD) {
+            return stroke;
+        }
+        if (!(scale > 0.0f) || Float.isInfinite(scale)) {
+            return newStroke(scale);
+        }
+
+        final int bucket = (int) Math.round(Math.log(scale) / Math.log(2.0d) * BUCKETS_PER_OCTAVE);
+        if (bucket == 0) {
+            return stroke;
+        }
+        final CachedStroke[] cache = cachedStrokes;
+        if (cache != null) {
+            for (int i = 0; i < cache.length; i++) {
+                if (cache[i].bucket == bucket) {
+                    return cache[i].stroke;
+                }
+            }
+        }
+
+        final Stroke derived = newStroke((float) Math.pow(2.0d, (double) bucket / BUCKETS_PER_OCTAVE));
+        final int cachedCount;
+        if (cache == null) {
+            cachedCount = 0;
+        }
+        else {
+            cachedCount = Math.min(cache.length, MAX_CACHED_STROKES - 1);
         }
-        return recentStroke.createStrokedShape(s);
+        final CachedStroke[] newCache = new CachedStroke[cachedCount + 1];
+        newCache[0] = new CachedStroke(bucket, derived);
+        if (cachedCount > 0) {
+            System.arraycopy(cache, 0, newCache, 1, cachedCount);
+        }
+        // concurrent misses may drop each other's strokes, which are derived again
+        cachedStrokes = newCache;
+        return derived;
+    }
+
+    /**
+     * Return the number of derived strokes cached.
+     * 
+     * @return the number of derived strokes cached
+     */
+    int getCachedStrokeCount() {
+        final CachedStroke[] cache = cachedStrokes;
+        if (cache == null) {
+            return 0;
+        }
+        return cache.length;
     }
 
     /**
@@ -97,12 +167,17 @@ abstract class PSemanticStroke implements Stroke {
     }
 
     /**
-     * Detect the current scale. Made protected to enable custom
-     * re-implementations.
+     * Detect the current scale: the scale of the paint context painting on
+     * the calling thread if any, else the scale of the current pick path. Made
+     * protected to enable custom re-implementations.
      *
      * @return the current scale
      */
     protected float getActiveScale() {
+        final PPaintContext paintContext = PPaintContext.getCurrentPaintContext();
+        if (paintContext != null) {
+            return (float) paintContext.getScale();
+        }
         if (PPickPath.CURRENT_PICK_PATH != null) {
             return (float) PPickPath.CURRENT_PICK_PATH.getScale();
         }
@@ -133,4 +208,26 @@ abstract class PSemanticStroke implements Stroke {
     public String toString() {
         return stroke.toString();
     }
+
+    /**
+     * Stroke derived for a scale bucket.
+     */
+    private static final class CachedStroke {
+        /** Scale bucket. */
+        private final int bucket;
+
+        /** Stroke derived for the scale bucket. */
+        private final Stroke stroke;
+
+        /**
+         * Create a new cached stroke.
+         * 
+         * @param bucket scale bucket
+         * @param stroke stroke derived for the scale bucket
+         */
+        CachedStroke(final int bucket, final Stroke stroke) {
+            this.bucket = bucket;
+            this.stroke = stroke;
+        }
+    }
 }
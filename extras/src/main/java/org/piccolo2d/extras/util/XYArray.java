@@ -244,6 +244,23 @@ public class XYArray implements MutablePoints, Cloneable {
         }
     }
 
+    /**
+     * Grows the coordinates array, if needed, to hold n points. The capacity is
+     * at least doubled, so that appending points one at a time takes constant
+     * amortized time.
+     * 
+     * @param n number of points to hold
+     */
+    private void ensureCapacity(final int n) {
+        if (points == null || n * 2 > points.length) {
+            int capacity = 0;
+            if (points != null) {
+                capacity = points.length;
+            }
+            points = initPoints(points, Math.max(n, capacity), points);
+        }
+    }
+
     /**
      * Adds a subsequence of the points provided at the given position.
      * 
@@ -261,7 +278,7 @@ public class XYArray implements MutablePoints, Cloneable {
             sanitizedEnd = end;
         }
         final int n = numPoints + sanitizedEnd - start;
-        points = initPoints(points, n, points);
+        ensureCapacity(n);
         final int pos1 = index * 2;
         final int pos2 = (index + sanitizedEnd - start) * 2;
         final int len = (numPoints - index) * 2;
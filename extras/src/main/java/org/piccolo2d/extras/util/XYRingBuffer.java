@@ -0,0 +1,365 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.extras.util;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Represents a sequence of points stored in a ring buffer, to which points are
+ * appended and from which the oldest points are removed in constant amortized
+ * time.
+ * <p>
+ * The buffer grows as points are appended until it holds its maximum number
+ * of points; appending further points then evicts the oldest ones, keeping a
+ * sliding window of the latest points. The bounds of the points are
+ * maintained incrementally, with a monotonic queue of the candidate extreme
+ * points along each axis, so they are known without iterating the points.
+ * </p>
+ *
+ * @see org.piccolo2d.extras.nodes.PStreamingLine
+ * @since 4.0
+ */
+public class XYRingBuffer implements Points {
+
+    /** Number of points the buffer holds before growing for the first time. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Maximum number of points held. */
+    private final int maxPointCount;
+
+    /** Coordinates of the points, x and y interleaved, starting at the oldest point. */
+    private double[] coordinates;
+
+    /** Index of the oldest point in the coordinates. */
+    private int head;
+
+    /** Number of points held. */
+    private int pointCount;
+
+    /** Sequence number of the oldest point; points are numbered in the order they are appended. */
+    private long firstSequence;
+
+    /** Candidate lowest x coordinates. */
+    private final Extremum minX = new Extremum(0, false);
+
+    /** Candidate highest x coordinates. */
+    private final Extremum maxX = new Extremum(0, true);
+
+    /** Candidate lowest y coordinates. */
+    private final Extremum minY = new Extremum(1, false);
+
+    /** Candidate highest y coordinates. */
+    private final Extremum maxY = new Extremum(1, true);
+
+    /**
+     * Constructs an empty ring buffer holding any number of points.
+     */
+    public XYRingBuffer() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructs an empty ring buffer holding at most the given number of
+     * points.
+     *
+     * @param maxPointCount maximum number of points held, at least one
+     */
+    public XYRingBuffer(final int maxPointCount) {
+        if (maxPointCount < 1) {
+            throw new IllegalArgumentException("maxPointCount must be at least one, was " + maxPointCount);
+        }
+        this.maxPointCount = maxPointCount;
+        coordinates = new double[Math.min(maxPointCount, INITIAL_CAPACITY) * 2];
+    }
+
+    /**
+     * Returns the maximum number of points held.
+     *
+     * @return maximum number of points held
+     */
+    public int getMaxPointCount() {
+        return maxPointCount;
+    }
+
+    /**
+     * Returns the number of points held.
+     *
+     * @return number of points held
+     */
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    /**
+     * Returns the x component of the point at the given index, the oldest
+     * point being at index zero.
+     *
+     * @param i index of point
+     * @return x component of point at given index
+     */
+    public double getX(final int i) {
+        return coordinates[slot(i) * 2];
+    }
+
+    /**
+     * Returns the y component of the point at the given index, the oldest
+     * point being at index zero.
+     *
+     * @param i index of point
+     * @return y component of point at given index
+     */
+    public double getY(final int i) {
+        return coordinates[slot(i) * 2 + 1];
+    }
+
+    /**
+     * Returns a point representation of the coordinates at the given index.
+     *
+     * @param i index of desired point
+     * @param dst point to populate, or null to create a new one
+     * @return a point representation of the coordinates at the given index
+     */
+    public Point2D getPoint(final int i, final Point2D dst) {
+        final Point2D result;
+        if (dst == null) {
+            result = new Point2D.Double();
+        }
+        else {
+            result = dst;
+        }
+        final int slot = slot(i);
+        result.setLocation(coordinates[slot * 2], coordinates[slot * 2 + 1]);
+        return result;
+    }
+
+    /**
+     * Sets dst to the bounds of the points held, without iterating them. The
+     * bounds are empty if no points are held.
+     *
+     * @param dst rectangle to populate with the bounds
+     * @return dst
+     */
+    public Rectangle2D getBounds(final Rectangle2D dst) {
+        if (pointCount == 0) {
+            dst.setRect(0.0d, 0.0d, 0.0d, 0.0d);
+        }
+        else {
+            final double x = minX.getValue();
+            final double y = minY.getValue();
+            dst.setRect(x, y, maxX.getValue() - x, maxY.getValue() - y);
+        }
+        return dst;
+    }
+
+    /**
+     * Appends a point, evicting the oldest point if the maximum number of
+     * points is held.
+     *
+     * @param x x component of new point
+     * @param y y component of new point
+     */
+    public void appendPoint(final double x, final double y) {
+        if (pointCount == maxPointCount) {
+            removeOldestPoints(1);
+        }
+        else if (pointCount * 2 == coordinates.length) {
+            grow();
+        }
+        final int slot = (head + pointCount) % (coordinates.length / 2);
+        coordinates[slot * 2] = x;
+        coordinates[slot * 2 + 1] = y;
+        pointCount++;
+
+        final long sequence = firstSequence + pointCount - 1;
+        minX.add(sequence, x);
+        maxX.add(sequence, x);
+        minY.add(sequence, y);
+        maxY.add(sequence, y);
+    }
+
+    /**
+     * Appends the points whose coordinates are given interleaved in an array,
+     * evicting the oldest points as needed.
+     *
+     * @param points array of x and y coordinates of the points to append
+     * @param offset index in the array of the x component of the first point
+     * @param count number of points to append
+     */
+    public void appendPoints(final double[] points, final int offset, final int count) {
+        for (int i = 0; i < count; i++) {
+            appendPoint(points[offset + i * 2], points[offset + i * 2 + 1]);
+        }
+    }
+
+    /**
+     * Removes the given number of oldest points.
+     *
+     * @param count number of points to remove, at most the number of points
+     *            held
+     */
+    public void removeOldestPoints(final int count) {
+        if (count < 0 || count > pointCount) {
+            throw new IllegalArgumentException("count must be between 0 and " + pointCount + ", was " + count);
+        }
+        head = (head + count) % (coordinates.length / 2);
+        pointCount -= count;
+        firstSequence += count;
+        minX.evict();
+        maxX.evict();
+        minY.evict();
+        maxY.evict();
+    }
+
+    /**
+     * Removes all the points.
+     */
+    public void removeAllPoints() {
+        removeOldestPoints(pointCount);
+    }
+
+    /**
+     * Returns the slot in the coordinates of the point at the given index.
+     *
+     * @param i index of point
+     * @return slot of the point
+     */
+    private int slot(final int i) {
+        if (i < 0 || i >= pointCount) {
+            throw new IllegalArgumentException("The point index " + i + " is not below " + pointCount);
+        }
+        return (head + i) % (coordinates.length / 2);
+    }
+
+    /**
+     * Doubles the capacity of the buffer, up to its maximum number of points,
+     * moving the oldest point to the start of the coordinates.
+     */
+    private void grow() {
+        final int capacity = coordinates.length / 2;
+        final int newCapacity = (int) Math.min(maxPointCount, capacity * 2L);
+        final double[] newCoordinates = new double[newCapacity * 2];
+        final int firstPart = Math.min(pointCount, capacity - head);
+        System.arraycopy(coordinates, head * 2, newCoordinates, 0, firstPart * 2);
+        System.arraycopy(coordinates, 0, newCoordinates, firstPart * 2, (pointCount - firstPart) * 2);
+        coordinates = newCoordinates;
+        head = 0;
+    }
+
+    /**
+     * Monotonic queue of the sequence numbers of the points that are, or may
+     * become once older points are evicted, the extreme point along an axis.
+     */
+    private final class Extremum {
+
+        /** Axis of the coordinate, 0 for x and 1 for y. */
+        private final int axis;
+
+        /** True for the highest coordinate, false for the lowest. */
+        private final boolean highest;
+
+        /** Sequence numbers of the candidates, oldest first. */
+        private long[] sequences = new long[INITIAL_CAPACITY];
+
+        /** Index of the oldest candidate. */
+        private int first;
+
+        /** Number of candidates. */
+        private int size;
+
+        /**
+         * Create a new extremum.
+         *
+         * @param axis axis of the coordinate, 0 for x and 1 for y
+         * @param highest true for the highest coordinate, false for the lowest
+         */
+        Extremum(final int axis, final boolean highest) {
+            this.axis = axis;
+            this.highest = highest;
+        }
+
+        /**
+         * Return the extreme coordinate of the points held.
+         *
+         * @return the extreme coordinate
+         */
+        double getValue() {
+            return getCoordinate(sequences[first]);
+        }
+
+        /**
+         * Add the point with the specified sequence number and coordinate,
+         * dropping the candidates it supersedes.
+         *
+         * @param sequence sequence number of the point
+         * @param value coordinate of the point along the axis
+         */
+        void add(final long sequence, final double value) {
+            while (size > 0) {
+                final double last = getCoordinate(sequences[(first + size - 1) % sequences.length]);
+                if (highest && last > value || !highest && last < value) {
+                    break;
+                }
+                size--;
+            }
+            if (size == sequences.length) {
+                final long[] newSequences = new long[sequences.length * 2];
+                final int firstPart = sequences.length - first;
+                System.arraycopy(sequences, first, newSequences, 0, firstPart);
+                System.arraycopy(sequences, 0, newSequences, firstPart, first);
+                sequences = newSequences;
+                first = 0;
+            }
+            sequences[(first + size) % sequences.length] = sequence;
+            size++;
+        }
+
+        /**
+         * Drop the candidates that are no longer held.
+         */
+        void evict() {
+            while (size > 0 && sequences[first] < firstSequence) {
+                first = (first + 1) % sequences.length;
+                size--;
+            }
+        }
+
+        /**
+         * Return the coordinate along the axis of the point with the specified
+         * sequence number.
+         *
+         * @param sequence sequence number of a point held
+         * @return the coordinate of the point
+         */
+        private double getCoordinate(final long sequence) {
+            final int slot = (int) ((head + (sequence - firstSequence)) % (coordinates.length / 2));
+            return coordinates[slot * 2 + axis];
+        }
+    }
+}
@@ -28,7 +28,18 @@
  */
 package org.piccolo2d.extras.nodes;
 
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+import org.piccolo2d.PCamera;
+import org.piccolo2d.PLayer;
+import org.piccolo2d.PRoot;
 import org.piccolo2d.extras.nodes.PClip;
+import org.piccolo2d.nodes.PPath;
+import org.piccolo2d.util.PPaintContext;
 
 import junit.framework.TestCase;
 
@@ -41,4 +52,47 @@ public class PClipTest extends TestCase {
         PClip cloned = (PClip) clip.clone();
         assertNotNull(cloned);      
     }
+
+    public void testUnclippedDescendantBoundsOfRectangularClip() {
+        final PClip clip = new PClip();
+        clip.append(new Rectangle2D.Double(10, 20, 30, 40), false);
+        assertEquals(new Rectangle2D.Double(10, 20, 30, 40), clip.getUnclippedDescendantBounds());
+    }
+
+    public void testUnclippedDescendantBoundsOfNonRectangularClipIsEmpty() {
+        final PClip clip = new PClip();
+        clip.append(new Ellipse2D.Double(10, 20, 30, 40), false);
+        assertTrue(clip.getUnclippedDescendantBounds().isEmpty());
+    }
+
+    public void testClippedOpaqueChildDoesNotHideNodesOutsideOfClip() {
+        final PLayer layer = new PLayer();
+        final PPath background = PPath.createRectangle(100, 100, 80, 80);
+        background.setPaint(Color.RED);
+        background.setStroke(null);
+        final PClip clip = new PClip();
+        clip.append(new Rectangle2D.Double(0, 0, 50, 50), false);
+        final PPath child = PPath.createRectangle(0, 0, 200, 200);
+        child.setPaint(Color.BLACK);
+        child.setStroke(null);
+        clip.addChild(child);
+        layer.addChild(background);
+        layer.addChild(clip);
+
+        final PRoot root = new PRoot();
+        final PCamera camera = new PCamera();
+        camera.setBounds(0, 0, 200, 200);
+        root.addChild(layer);
+        root.addChild(camera);
+        camera.addLayer(layer);
+        camera.setOcclusionCulling(true);
+
+        final BufferedImage image = new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g2 = image.createGraphics();
+        camera.fullPaint(new PPaintContext(g2));
+        g2.dispose();
+
+        assertEquals(Color.RED.getRGB(), image.getRGB(150, 150));
+        assertEquals(Color.BLACK.getRGB(), image.getRGB(25, 25));
+    }
 }
@@ -28,9 +28,16 @@
  */
 package org.piccolo2d.extras.nodes;
 
+import java.awt.BasicStroke;
 import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 
 import org.piccolo2d.extras.nodes.PLine;
+import org.piccolo2d.util.PPaintContext;
 
 import junit.framework.TestCase;
 
@@ -46,4 +53,81 @@ public class PLineTest extends TestCase {
         assertEquals(Color.RED, cloned.getStrokePaint());
         assertNotSame(line.getLineReference(), cloned.getLineReference());
     }
+
+    public void testHairline() {
+        PLine line = new PLine();
+        line.setStroke(new BasicStroke(10.0f));
+        line.addPoint(0, 0.0d, 0.0d);
+        line.addPoint(1, 100.0d, 0.0d);
+        assertEquals(-5.0d, line.getY(), 0.0001d);
+        assertTrue(line.intersects(new Rectangle2D.Double(50.0d, 3.0d, 1.0d, 1.0d)));
+
+        line.setHairlineWidth(1.0f);
+        assertEquals(1.0f, line.getHairlineWidth(), 0.0f);
+        assertEquals(-0.5d, line.getY(), 0.0001d);
+        assertFalse(line.intersects(new Rectangle2D.Double(50.0d, 3.0d, 1.0d, 1.0d)));
+        assertTrue(line.intersects(new Rectangle2D.Double(50.0d, 0.3d, 1.0d, 1.0d)));
+    }
+
+    public void testHairlineWidthOutOfRange() {
+        PLine line = new PLine();
+        try {
+            line.setHairlineWidth(-1.0f);
+            fail("setHairlineWidth(-1.0f) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testDecimatedBoundProperty() {
+        PLine line = new PLine();
+        final int[] changes = new int[1];
+        line.addPropertyChangeListener("decimated", new PropertyChangeListener() {
+            public void propertyChange(final PropertyChangeEvent event) {
+                changes[0]++;
+            }
+        });
+        assertFalse(line.isDecimated());
+        line.setDecimated(true);
+        assertTrue(line.isDecimated());
+        assertEquals(1, changes[0]);
+    }
+
+    public void testPaintDecimatedKeepsExtremes() {
+        PLine line = new PLine(null, new BasicStroke(0.0f));
+        for (int i = 0; i < 10000; i++) {
+            line.addPoint(i, i / 1000.0d, i % 2 == 0 ? 1.0d : (i == 5001 ? 19.0d : 9.0d));
+        }
+        line.setDecimated(true);
+        BufferedImage image = paint(line);
+        assertEquals(Color.BLACK.getRGB(), image.getRGB(50, 19));
+        assertEquals(0, image.getRGB(49, 19));
+        assertEquals(Color.BLACK.getRGB(), image.getRGB(20, 5));
+    }
+
+    public void testPaintDecimatedUnsortedLine() {
+        PLine line = new PLine(null, new BasicStroke(0.0f));
+        line.addPoint(0, 10.0d, 0.0d);
+        line.addPoint(1, 0.0d, 20.0d);
+        line.setDecimated(true);
+        BufferedImage image = paint(line);
+        int painted = 0;
+        for (int y = 0; y < 20; y++) {
+            if (image.getRGB(50, y) == Color.BLACK.getRGB()) {
+                painted++;
+            }
+        }
+        assertTrue(painted > 0);
+    }
+
+    private static BufferedImage paint(final PLine line) {
+        BufferedImage image = new BufferedImage(100, 20, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setClip(0, 0, 100, 20);
+        graphics.scale(10.0d, 1.0d);
+        line.fullPaint(new PPaintContext(graphics));
+        graphics.dispose();
+        return image;
+    }
 }
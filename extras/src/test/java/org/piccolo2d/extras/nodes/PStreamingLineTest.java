@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.extras.nodes;
+
+import java.awt.BasicStroke;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.piccolo2d.PCamera;
+import org.piccolo2d.PLayer;
+import org.piccolo2d.PNode;
+import org.piccolo2d.PRoot;
+import org.piccolo2d.util.PBounds;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for PStreamingLine.
+ */
+public class PStreamingLineTest extends TestCase {
+
+    private List repaints;
+    private PStreamingLine line;
+
+    protected void setUp() {
+        repaints = new ArrayList();
+        final PRoot root = new PRoot();
+        final PLayer layer = new PLayer() {
+            public void repaintFrom(final PBounds localBounds, final PNode childOrThis) {
+                repaints.add(new PBounds(localBounds));
+            }
+        };
+        root.addChild(layer);
+        final PCamera camera = new PCamera();
+        camera.addLayer(layer);
+        line = new PStreamingLine(100);
+        line.setStroke(new BasicStroke(2.0f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_ROUND));
+        layer.addChild(line);
+    }
+
+    public void testAppendUpdatesBounds() {
+        line.appendPoint(0.0d, 0.0d);
+        line.appendPoint(10.0d, 20.0d);
+        assertEquals(new PBounds(-1.0d, -1.0d, 12.0d, 22.0d), line.getBounds());
+        assertEquals(2, line.getPointCount());
+    }
+
+    public void testAppendRepaintsOnlyAppendedSegment() {
+        for (int i = 0; i <= 50; i++) {
+            line.appendPoint(i, i % 2);
+        }
+        line.getRoot().validateFullPaint();
+        repaints.clear();
+
+        line.appendPoint(51.0d, 1.0d);
+        line.getRoot().validateFullPaint();
+        assertEquals(1, repaints.size());
+        assertEquals(new PBounds(49.0d, -1.0d, 3.0d, 3.0d), repaints.get(0));
+    }
+
+    public void testEvictionRepaintsEvictedSegments() {
+        for (int i = 0; i < 100; i++) {
+            line.appendPoint(i, 0.0d);
+        }
+        line.getRoot().validateFullPaint();
+        repaints.clear();
+
+        line.appendPoint(100.0d, 0.0d);
+        assertEquals(100, line.getPointCount());
+        assertEquals(1.0d, line.getPoint(0, null).getX(), 0.0d);
+        assertEquals(1, repaints.size());
+        final PBounds repainted = (PBounds) repaints.get(0);
+        assertEquals(-1.0d, repainted.getMinX(), 0.0d);
+        assertEquals(101.0d, repainted.getMaxX(), 0.0d);
+    }
+
+    public void testRemovePointsBefore() {
+        line.appendPoints(new double[] { 0.0d, 0.0d, 1.0d, 0.0d, 2.0d, 0.0d, 3.0d, 0.0d }, 0, 4);
+        line.removePointsBefore(2.0d);
+        assertEquals(2, line.getPointCount());
+        assertEquals(1.0d, line.getBounds().getMinX(), 0.0d);
+        line.removeAllPoints();
+        assertTrue(line.getBounds().isEmpty());
+    }
+
+    public void testIntersects() {
+        line.appendPoint(0.0d, 0.0d);
+        line.appendPoint(100.0d, 100.0d);
+        assertTrue(line.intersects(new Rectangle2D.Double(50.0d, 50.0d, 1.0d, 1.0d)));
+        assertTrue(line.intersects(new Rectangle2D.Double(50.5d, 49.5d, 0.1d, 0.1d)));
+        assertFalse(line.intersects(new Rectangle2D.Double(60.0d, 40.0d, 1.0d, 1.0d)));
+    }
+
+    public void testSetBoundsIgnored() {
+        line.appendPoint(0.0d, 0.0d);
+        line.appendPoint(10.0d, 10.0d);
+        assertFalse(line.setBounds(0.0d, 0.0d, 100.0d, 100.0d));
+        assertEquals(10.0d, line.getPoint(1, null).getX(), 0.0d);
+    }
+
+    public void testClone() {
+        line.appendPoint(0.0d, 0.0d);
+        line.appendPoint(10.0d, 10.0d);
+        final PStreamingLine cloned = (PStreamingLine) line.clone();
+        assertEquals(2, cloned.getPointCount());
+        assertEquals(100, cloned.getPointsReference().getMaxPointCount());
+        assertEquals(line.getStroke(), cloned.getStroke());
+    }
+}
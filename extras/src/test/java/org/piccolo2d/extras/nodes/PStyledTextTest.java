@@ -28,7 +28,20 @@
  */
 package org.piccolo2d.extras.nodes;
 
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.Executor;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
+
+import org.piccolo2d.SwingTestUtil;
 import org.piccolo2d.extras.nodes.PStyledText;
+import org.piccolo2d.util.PLayoutExecutor;
+import org.piccolo2d.util.PPaintContext;
 
 import junit.framework.TestCase;
 
@@ -36,9 +49,141 @@ import junit.framework.TestCase;
  * Unit test for PStyledText.
  */
 public final class PStyledTextTest extends TestCase {
+
+    public void tearDown() {
+        PLayoutExecutor.setExecutor(null);
+    }
+
+    private static PStyledText createText(final String text) throws BadLocationException {
+        final DefaultStyledDocument document = new DefaultStyledDocument();
+        document.insertString(0, text, null);
+        final PStyledText styledText = new PStyledText();
+        styledText.setDocument(document);
+        return styledText;
+    }
+
+    private static DocumentEvent[] recordEvents(final PStyledText text) {
+        final DocumentEvent[] events = new DocumentEvent[1];
+        text.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(final DocumentEvent event) {
+                events[0] = event;
+            }
+
+            public void removeUpdate(final DocumentEvent event) {
+                events[0] = event;
+            }
+
+            public void changedUpdate(final DocumentEvent event) {
+                events[0] = event;
+            }
+        });
+        return events;
+    }
+
     public void testClone() {
         PStyledText text = new PStyledText();
         PStyledText clone = (PStyledText) text.clone();
         assertNotNull(clone);
     }
-}
+
+    public void testIncrementalSyncReusesUntouchedParagraphs() throws Exception {
+        final PStyledText text = createText("first\nsecond\nthird");
+        final DocumentEvent[] events = recordEvents(text);
+        final int lineCount = text.lines.length;
+        final Object firstLine = text.lines[0];
+        final Object lastLine = text.lines[lineCount - 1];
+
+        text.getDocument().insertString(8, "!!", null);
+        text.syncWithDocument(events[0]);
+
+        assertEquals(lineCount, text.lines.length);
+        assertSame(firstLine, text.lines[0]);
+        assertSame(lastLine, text.lines[lineCount - 1]);
+    }
+
+    public void testIncrementalSyncMatchesFullSync() throws Exception {
+        final PStyledText text = createText("first\nsecond\nthird");
+        final DocumentEvent[] events = recordEvents(text);
+
+        text.getDocument().insertString(8, " and a much longer line\nnew", null);
+        text.syncWithDocument(events[0]);
+        text.getDocument().remove(0, 3);
+        text.syncWithDocument(events[0]);
+
+        final PStyledText expected = createText("st\nse and a much longer line\nnewcond\nthird");
+        assertEquals(expected.lines.length, text.lines.length);
+        assertEquals(expected.getWidth(), text.getWidth(), 0.0d);
+        assertEquals(expected.getHeight(), text.getHeight(), 0.0d);
+    }
+
+    public void testIncrementalSyncWithoutEventSyncsFully() throws Exception {
+        final PStyledText text = createText("first");
+        text.getDocument().insertString(5, "\nsecond", null);
+        text.syncWithDocument(null);
+
+        assertEquals(createText("first\nsecond").lines.length, text.lines.length);
+    }
+
+    public void testPaintSkipsLinesOutsideOfClip() throws Exception {
+        final PStyledText text = createText("first\nsecond\nthird");
+        final int lineHeight = (int) (text.lines[0].maxAscent + text.lines[0].maxDescent + text.lines[0].leading);
+        final BufferedImage image = new BufferedImage((int) Math.ceil(text.getWidth()), (int) Math
+                .ceil(text.getHeight()), BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D g2 = image.createGraphics();
+        final PPaintContext paintContext = new PPaintContext(g2);
+        paintContext.pushClip(new Rectangle2D.Double(0, 0, image.getWidth(), lineHeight / 2));
+        // only the clip of the paint context culls the other lines
+        g2.setClip(null);
+
+        text.paint(paintContext);
+        g2.dispose();
+
+        assertTrue(hasPaintedPixel(image, 0, lineHeight));
+        assertFalse(hasPaintedPixel(image, lineHeight + 1, image.getHeight()));
+    }
+
+    private static boolean hasPaintedPixel(final BufferedImage image, final int minY, final int maxY) {
+        for (int y = minY; y < maxY; y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                if (image.getRGB(x, y) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public void testLayoutIsNotAsynchronousByDefault() {
+        final PStyledText text = new PStyledText();
+        assertFalse(text.isLayoutAsynchronous());
+        assertFalse(text.isLayoutPending());
+    }
+
+    public void testAsynchronousLayoutUpdatesBoundsOnEventDispatchThread() throws Exception {
+        PLayoutExecutor.setExecutor(new Executor() {
+            public void execute(final Runnable command) {
+                command.run();
+            }
+        });
+        final PStyledText text = createText("short");
+        final double width = text.getWidth();
+        text.setLayoutAsynchronous(true);
+
+        text.getDocument().insertString(5, " and a much longer text", null);
+
+        SwingTestUtil.onEventDispatchThread(new Runnable() {
+            public void run() {
+                text.syncWithDocument();
+                assertTrue(text.isLayoutPending());
+                assertEquals(width, text.getWidth(), 0.0d);
+            }
+        });
+
+        SwingTestUtil.onEventDispatchThread(new Runnable() {
+            public void run() {
+                assertFalse(text.isLayoutPending());
+                assertTrue(text.getWidth() > width);
+            }
+        });
+    }
+}
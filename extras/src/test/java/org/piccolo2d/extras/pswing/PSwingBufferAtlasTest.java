@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.extras.pswing;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for PSwingBufferAtlas.
+ */
+public class PSwingBufferAtlasTest extends TestCase {
+
+    private static final long PAGE_MEMORY = 100 * 100 * 4;
+
+    public void testDefaultConstructor() {
+        final PSwingBufferAtlas atlas = new PSwingBufferAtlas();
+        assertEquals(PSwingBufferAtlas.DEFAULT_PAGE_SIZE, atlas.getPageSize());
+        assertEquals(PSwingBufferAtlas.DEFAULT_MAX_REGION_SIZE, atlas.getMaxRegionSize());
+        assertEquals(PSwingBufferAtlas.DEFAULT_MEMORY_BUDGET, atlas.getMemoryBudget());
+        assertEquals(0, atlas.getPageCount());
+        assertEquals(0L, atlas.getMemoryUsage());
+    }
+
+    public void testConstructorRejectsInvalidArguments() {
+        try {
+            new PSwingBufferAtlas(0, 1, PAGE_MEMORY);
+            fail("pageSize 0 expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new PSwingBufferAtlas(100, 101, PAGE_MEMORY);
+            fail("maxRegionSize larger than pageSize expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new PSwingBufferAtlas(100, 50, PAGE_MEMORY - 1);
+            fail("memoryBudget smaller than a page expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testAllocateReturnsRegionOfRequestedSize() {
+        final PSwingBufferAtlas atlas = new PSwingBufferAtlas(100, 50, PAGE_MEMORY);
+        final PSwingBufferAtlas.Region region = atlas.allocate(30, 20);
+        assertTrue(region.isValid());
+        assertEquals(30, region.getWidth());
+        assertEquals(20, region.getHeight());
+        assertEquals(30, region.getImage().getWidth());
+        assertEquals(20, region.getImage().getHeight());
+        assertEquals(1, atlas.getPageCount());
+        assertEquals(PAGE_MEMORY, atlas.getMemoryUsage());
+    }
+
+    public void testAllocateReturnsNullForRegionTooLarge() {
+        final PSwingBufferAtlas atlas = new PSwingBufferAtlas(100, 50, PAGE_MEMORY);
+        assertNull(atlas.allocate(51, 10));
+        assertNull(atlas.allocate(10, 51));
+        assertEquals(0, atlas.getPageCount());
+    }
+
+    public void testAllocateRejectsEmptySize() {
+        final PSwingBufferAtlas atlas = new PSwingBufferAtlas(100, 50, PAGE_MEMORY);
+        try {
+            atlas.allocate(0, 10);
+            fail("width 0 expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testRegionsDoNotOverlap() {
+        final PSwingBufferAtlas atlas = new PSwingBufferAtlas(100, 50, PAGE_MEMORY);
+        final PSwingBufferAtlas.Region[] regions = new PSwingBufferAtlas.Region[6];
+        for (int i = 0; i < regions.length; i++) {
+            regions[i] = atlas.allocate(40, 30);
+            regions[i].getImage().setRGB(0, 0, 0xFF000000 | (i + 1));
+            regions[i].getImage().setRGB(39, 29, 0xFF000000 | (i + 1));
+        }
+        assertEquals(1, atlas.getPageCount());
+        for (int i = 0; i < regions.length; i++) {
+            assertEquals(i + 1, regions[i].getImage().getRGB(0, 0) & 0xFFFFFF);
+            assertEquals(i + 1, regions[i].getImage().getRGB(39, 29) & 0xFFFFFF);
+        }
+    }
+
+    public void testAllocateAddsPagesWithinBudget() {
+        final PSwingBufferAtlas atlas = new PSwingBufferAtlas(100, 50, 2 * PAGE_MEMORY);
+        for (int i = 0; i < 8; i++) {
+            assertNotNull(atlas.allocate(40, 40));
+        }
+        assertEquals(2, atlas.getPageCount());
+        assertEquals(2 * PAGE_MEMORY, atlas.getMemoryUsage());
+    }
+
+    public void testAllocateEvictsLeastRecentlyUsedPageOverBudget() {
+        final PSwingBufferAtlas atlas = new PSwingBufferAtlas(100, 50, 2 * PAGE_MEMORY);
+        final PSwingBufferAtlas.Region[] regions = new PSwingBufferAtlas.Region[8];
+        for (int i = 0; i < regions.length; i++) {
+            regions[i] = atlas.allocate(40, 40);
+        }
+        assertEquals(2, atlas.getPageCount());
+        regions[0].getImage();
+
+        // both pages are full and the second one is the least recently used
+        final PSwingBufferAtlas.Region region = atlas.allocate(40, 40);
+        assertTrue(region.isValid());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(regions[i].isValid());
+            assertFalse(regions[i + 4].isValid());
+        }
+        assertEquals(2, atlas.getPageCount());
+        assertEquals(2 * PAGE_MEMORY, atlas.getMemoryUsage());
+    }
+
+    public void testReleaseDiscardsEmptyPages() {
+        final PSwingBufferAtlas atlas = new PSwingBufferAtlas(100, 50, PAGE_MEMORY);
+        final PSwingBufferAtlas.Region first = atlas.allocate(40, 40);
+        final PSwingBufferAtlas.Region second = atlas.allocate(40, 40);
+
+        atlas.release(first);
+        assertFalse(first.isValid());
+        assertEquals(1, atlas.getPageCount());
+        atlas.release(second);
+        assertEquals(0, atlas.getPageCount());
+        atlas.release(second);
+    }
+
+    public void testReleasedSpaceIsReused() {
+        final PSwingBufferAtlas atlas = new PSwingBufferAtlas(100, 50, 2 * PAGE_MEMORY);
+        final PSwingBufferAtlas.Region[] regions = new PSwingBufferAtlas.Region[9];
+        for (int i = 0; i < regions.length; i++) {
+            regions[i] = atlas.allocate(30, 30);
+        }
+        assertEquals(1, atlas.getPageCount());
+
+        atlas.release(regions[4]);
+        assertNotNull(atlas.allocate(30, 30));
+        assertEquals(1, atlas.getPageCount());
+    }
+
+    public void testResizingRegionsKeepsPageCountBounded() {
+        final PSwingBufferAtlas atlas = new PSwingBufferAtlas(100, 50, 4 * PAGE_MEMORY);
+        final PSwingBufferAtlas.Region fixed = atlas.allocate(20, 20);
+        PSwingBufferAtlas.Region first = atlas.allocate(5, 5);
+        PSwingBufferAtlas.Region second = atlas.allocate(5, 5);
+        for (int i = 0; i < 1000; i++) {
+            final PSwingBufferAtlas.Region resizedFirst = atlas.allocate(5 + i % 40, 5 + i % 40);
+            atlas.release(first);
+            first = resizedFirst;
+            final PSwingBufferAtlas.Region resizedSecond = atlas.allocate(5 + i * 7 % 40, 5 + i * 3 % 40);
+            atlas.release(second);
+            second = resizedSecond;
+            assertTrue(atlas.getPageCount() <= 2);
+        }
+        assertTrue(fixed.isValid());
+    }
+
+    public void testReleaseRejectsRegionOfOtherAtlas() {
+        final PSwingBufferAtlas atlas = new PSwingBufferAtlas(100, 50, PAGE_MEMORY);
+        final PSwingBufferAtlas.Region region = new PSwingBufferAtlas(100, 50, PAGE_MEMORY).allocate(10, 10);
+        try {
+            atlas.release(region);
+            fail("region of other atlas expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testInvalidRegionImageIsNotAvailable() {
+        final PSwingBufferAtlas atlas = new PSwingBufferAtlas(100, 50, PAGE_MEMORY);
+        final PSwingBufferAtlas.Region region = atlas.allocate(10, 10);
+        atlas.release(region);
+        try {
+            region.getImage();
+            fail("image of released region expected IllegalStateException");
+        }
+        catch (final IllegalStateException e) {
+            // expected
+        }
+    }
+}
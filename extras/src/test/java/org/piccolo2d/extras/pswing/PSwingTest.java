@@ -38,7 +38,10 @@ import javax.swing.JPanel;
 import javax.swing.RepaintManager;
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
@@ -293,6 +296,132 @@ public class PSwingTest extends TestCase {
         assertEquals(1, canvas.getSwingWrapper().getComponentCount());
     }
 
+    public void testBufferedPaintingOnlyRendersComponentWhenDirty() {
+        final CountingPanel panel = new DisplayableCountingPanel();
+        final PSwing pSwing = new PSwing(panel);
+        pSwing.setUseBufferedPainting(true);
+        new PSwingCanvas().getLayer().addChild(pSwing);
+
+        paintIntoImage(pSwing);
+        paintIntoImage(pSwing);
+        assertEquals(1, panel.paintCount);
+
+        // headless components are not lightweight, so their repaints are not captured
+        pSwing.addBufferDirtyRegion(10, 20, 5, 5);
+        assertEquals(Color.RED.getRGB(), paintIntoImage(pSwing).getRGB(50, 50));
+        assertEquals(2, panel.paintCount);
+        assertEquals(new Rectangle(10, 20, 5, 5), panel.paintClip);
+    }
+
+    public void testBufferedPaintingRendersComponentOutsideOfCanvasOnEveryPaint() {
+        final CountingPanel panel = new CountingPanel();
+        final PSwing pSwing = new PSwing(panel);
+        pSwing.setUseBufferedPainting(true);
+
+        paintIntoImage(pSwing);
+        paintIntoImage(pSwing);
+        assertEquals(2, panel.paintCount);
+    }
+
+    public void testInvalidateBufferRendersWholeComponent() {
+        final CountingPanel panel = new DisplayableCountingPanel();
+        final PSwing pSwing = new PSwing(panel);
+        pSwing.setUseBufferedPainting(true);
+        new PSwingCanvas().getLayer().addChild(pSwing);
+        paintIntoImage(pSwing);
+
+        pSwing.invalidateBuffer();
+        paintIntoImage(pSwing);
+        assertEquals(2, panel.paintCount);
+        assertEquals(new Rectangle(0, 0, 100, 100), panel.paintClip);
+    }
+
+    public void testBufferedPaintingRendersComponentAgainWhenRenderQualityChanges() {
+        final CountingPanel panel = new DisplayableCountingPanel();
+        final PSwing pSwing = new PSwing(panel);
+        pSwing.setUseBufferedPainting(true);
+        new PSwingCanvas().getLayer().addChild(pSwing);
+
+        paintIntoImage(pSwing, PPaintContext.LOW_QUALITY_RENDERING);
+        paintIntoImage(pSwing, PPaintContext.LOW_QUALITY_RENDERING);
+        assertEquals(1, panel.paintCount);
+
+        paintIntoImage(pSwing, PPaintContext.HIGH_QUALITY_RENDERING);
+        assertEquals(2, panel.paintCount);
+        assertEquals(new Rectangle(0, 0, 100, 100), panel.paintClip);
+        assertEquals(RenderingHints.VALUE_TEXT_ANTIALIAS_ON, panel.textAntialiasing);
+    }
+
+    public void testBufferedPaintingPacksBufferInAtlas() {
+        final CountingPanel panel = new CountingPanel();
+        final PSwing pSwing = new PSwing(panel);
+        final PSwingBufferAtlas atlas = new PSwingBufferAtlas(256, 128, 256 * 256 * 4);
+        pSwing.setUseBufferedPainting(true);
+        pSwing.setBufferAtlas(atlas);
+        assertSame(atlas, pSwing.getBufferAtlas());
+        final PSwingCanvas canvas = new PSwingCanvas();
+        canvas.getLayer().addChild(pSwing);
+
+        assertEquals(Color.RED.getRGB(), paintIntoImage(pSwing).getRGB(50, 50));
+        assertEquals(1, atlas.getPageCount());
+
+        pSwing.removeFromParent();
+        assertEquals(0, atlas.getPageCount());
+    }
+
+    public void testBufferedPaintingKeepsOwnBufferForComponentTooLargeForAtlas() {
+        final CountingPanel panel = new DisplayableCountingPanel();
+        final PSwing pSwing = new PSwing(panel);
+        final PSwingBufferAtlas atlas = new PSwingBufferAtlas(64, 64, 64 * 64 * 4);
+        pSwing.setUseBufferedPainting(true);
+        pSwing.setBufferAtlas(atlas);
+        new PSwingCanvas().getLayer().addChild(pSwing);
+
+        assertEquals(Color.RED.getRGB(), paintIntoImage(pSwing).getRGB(50, 50));
+        paintIntoImage(pSwing);
+        assertEquals(0, atlas.getPageCount());
+        assertEquals(1, panel.paintCount);
+    }
+
+    private static BufferedImage paintIntoImage(final PSwing pSwing) {
+        return paintIntoImage(pSwing, PPaintContext.HIGH_QUALITY_RENDERING);
+    }
+
+    private static BufferedImage paintIntoImage(final PSwing pSwing, final int renderQuality) {
+        final BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D graphics = image.createGraphics();
+        final PPaintContext paintContext = new PPaintContext(graphics);
+        paintContext.setRenderQuality(renderQuality);
+        pSwing.paint(paintContext);
+        graphics.dispose();
+        return image;
+    }
+
+    private static class CountingPanel extends JPanel {
+        private int paintCount;
+        private Rectangle paintClip;
+        private Object textAntialiasing;
+
+        CountingPanel() {
+            setBackground(Color.RED);
+            setPreferredSize(new Dimension(100, 100));
+        }
+
+        protected void paintComponent(final Graphics g) {
+            super.paintComponent(g);
+            paintCount++;
+            paintClip = g.getClipBounds();
+            textAntialiasing = ((Graphics2D) g).getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+        }
+    }
+
+    /** Panel taken as displayable, as if its canvas were shown in a window. */
+    private static class DisplayableCountingPanel extends CountingPanel {
+        public boolean isDisplayable() {
+            return true;
+        }
+    }
+
     public class MockPaintingPSwing extends PSwing {
         private boolean paintedGreek;
         private boolean paintedComponent;
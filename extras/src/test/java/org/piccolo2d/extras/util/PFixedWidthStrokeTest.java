@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.extras.util;
+
+import java.awt.BasicStroke;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+import junit.framework.TestCase;
+
+import org.piccolo2d.PNode;
+import org.piccolo2d.util.PPaintContext;
+
+/**
+ * Unit test for PFixedWidthStroke.
+ */
+public class PFixedWidthStrokeTest extends TestCase {
+
+    public PFixedWidthStrokeTest(final String name) {
+        super(name);
+    }
+
+    public void testStrokeAtUnitScaleIsNotCached() {
+        final PFixedWidthStroke stroke = new PFixedWidthStroke(2.0f);
+        final BasicStroke derived = (BasicStroke) stroke.getStroke(1.0f);
+        assertEquals(2.0f, derived.getLineWidth(), 0.0f);
+        assertEquals(0, stroke.getCachedStrokeCount());
+    }
+
+    public void testStrokeKeepsScreenWidth() {
+        final PFixedWidthStroke stroke = new PFixedWidthStroke(2.0f);
+        assertEquals(1.0f, ((BasicStroke) stroke.getStroke(2.0f)).getLineWidth(), 0.0f);
+        assertEquals(4.0f, ((BasicStroke) stroke.getStroke(0.5f)).getLineWidth(), 0.0f);
+    }
+
+    public void testSimilarScalesShareStroke() {
+        final PFixedWidthStroke stroke = new PFixedWidthStroke(2.0f);
+        final BasicStroke derived = (BasicStroke) stroke.getStroke(3.0f);
+        assertSame(derived, stroke.getStroke(3.001f));
+        assertEquals(2.0f / 3.0f, derived.getLineWidth(), 0.01f);
+        assertEquals(1, stroke.getCachedStrokeCount());
+    }
+
+    public void testAlternatingScalesAreBothCached() {
+        final PFixedWidthStroke stroke = new PFixedWidthStroke(2.0f);
+        final BasicStroke first = (BasicStroke) stroke.getStroke(4.0f);
+        final BasicStroke second = (BasicStroke) stroke.getStroke(0.25f);
+        assertSame(first, stroke.getStroke(4.0f));
+        assertSame(second, stroke.getStroke(0.25f));
+        assertEquals(2, stroke.getCachedStrokeCount());
+    }
+
+    public void testCacheIsBounded() {
+        final PFixedWidthStroke stroke = new PFixedWidthStroke(2.0f);
+        for (int i = 1; i <= 2 * PSemanticStroke.MAX_CACHED_STROKES; i++) {
+            stroke.getStroke(1.0f + i);
+        }
+        assertEquals(PSemanticStroke.MAX_CACHED_STROKES, stroke.getCachedStrokeCount());
+    }
+
+    public void testDashIsScaled() {
+        final PFixedWidthStroke stroke = new PFixedWidthStroke(1.0f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER,
+                10.0f, new float[] { 4.0f, 2.0f }, 0.0f);
+        final float[] dash = ((BasicStroke) stroke.getStroke(2.0f)).getDashArray();
+        assertEquals(2.0f, dash[0], 0.0f);
+        assertEquals(1.0f, dash[1], 0.0f);
+        assertEquals(4.0f, stroke.getDashArray()[0], 0.0f);
+    }
+
+    public void testActiveScaleIsPaintScale() {
+        final PFixedWidthStroke stroke = new PFixedWidthStroke(2.0f);
+        final float[] scale = new float[1];
+        final PNode node = new PNode() {
+            protected void paint(final PPaintContext paintContext) {
+                scale[0] = stroke.getActiveScale();
+            }
+        };
+        node.setBounds(0, 0, 10, 10);
+
+        final BufferedImage image = new BufferedImage(40, 40, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D g2 = image.createGraphics();
+        g2.setTransform(AffineTransform.getScaleInstance(3.0d, 3.0d));
+        node.fullPaint(new PPaintContext(g2));
+        g2.dispose();
+
+        assertEquals(3.0f, scale[0], 1.0e-6f);
+    }
+}
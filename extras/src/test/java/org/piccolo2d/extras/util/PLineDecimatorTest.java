@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.extras.util;
+
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for PLineDecimator.
+ */
+public class PLineDecimatorTest extends TestCase {
+
+    private static XYArray createSeries(final int count) {
+        final Random random = new Random(42L);
+        final double[] coordinates = new double[count * 2];
+        double y = 0.0d;
+        for (int i = 0; i < count; i++) {
+            y += random.nextGaussian();
+            coordinates[i * 2] = i * 0.01d;
+            coordinates[i * 2 + 1] = y;
+        }
+        return new XYArray(coordinates);
+    }
+
+    private static double[] getVertices(final Path2D path, final int count) {
+        final double[] vertices = new double[count * 2];
+        final double[] coords = new double[6];
+        int i = 0;
+        for (PathIterator iterator = path.getPathIterator(null); !iterator.isDone(); iterator.next()) {
+            iterator.currentSegment(coords);
+            vertices[i++] = coords[0];
+            vertices[i++] = coords[1];
+        }
+        assertEquals(count * 2, i);
+        return vertices;
+    }
+
+    public void testUnsortedPointsRejected() {
+        try {
+            new PLineDecimator(new XYArray(new double[] { 0.0d, 0.0d, 2.0d, 1.0d, 1.0d, 2.0d }));
+            fail("new PLineDecimator(unsorted points) expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testLevelCount() {
+        assertEquals(0, new PLineDecimator(createSeries(4)).getLevelCount());
+        assertEquals(1, new PLineDecimator(createSeries(5)).getLevelCount());
+        assertEquals(4, new PLineDecimator(createSeries(1000)).getLevelCount());
+    }
+
+    public void testFindIndex() {
+        final PLineDecimator decimator = new PLineDecimator(createSeries(1000));
+        assertEquals(0, decimator.findIndex(-1.0d));
+        assertEquals(100, decimator.findIndex(0.995d));
+        assertEquals(1000, decimator.findIndex(20.0d));
+    }
+
+    public void testFewPointsAppendedInFull() {
+        final PLineDecimator decimator = new PLineDecimator(createSeries(100));
+        final Path2D path = new Path2D.Double();
+        assertEquals(100, decimator.appendTo(path, 0.0d, 1.0d, 0.01d));
+        assertEquals(0.0d, path.getCurrentPoint().getX() - 0.99d, 0.000001d);
+    }
+
+    public void testVisibleRangeAppended() {
+        final PLineDecimator decimator = new PLineDecimator(createSeries(1000));
+        final Path2D path = new Path2D.Double();
+        assertEquals(12, decimator.appendTo(path, 1.0d, 1.095d, 0.0d));
+        final double[] vertices = getVertices(path, 12);
+        assertEquals(0.99d, vertices[0], 0.000001d);
+        assertEquals(1.10d, vertices[22], 0.000001d);
+    }
+
+    public void testColumnsKeepExtremes() {
+        final XYArray points = createSeries(200000);
+        final PLineDecimator decimator = new PLineDecimator(points);
+        final double columnWidth = 7.0d;
+        final int columns = (int) Math.ceil(2000.0d / columnWidth);
+        final Path2D path = new Path2D.Double();
+        final int count = decimator.appendTo(path, 0.0d, 2000.0d, columnWidth);
+        assertTrue(count <= 4 * (columns + 1));
+        final double[] vertices = getVertices(path, count);
+
+        final double[] rawMin = new double[columns];
+        final double[] rawMax = new double[columns];
+        final double[] min = new double[columns];
+        final double[] max = new double[columns];
+        java.util.Arrays.fill(rawMin, Double.POSITIVE_INFINITY);
+        java.util.Arrays.fill(rawMax, Double.NEGATIVE_INFINITY);
+        java.util.Arrays.fill(min, Double.POSITIVE_INFINITY);
+        java.util.Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        for (int i = 0; i < points.getPointCount(); i++) {
+            final int column = (int) Math.floor(points.getX(i) / columnWidth);
+            rawMin[column] = Math.min(rawMin[column], points.getY(i));
+            rawMax[column] = Math.max(rawMax[column], points.getY(i));
+        }
+        for (int i = 0; i < count; i++) {
+            final int column = (int) Math.floor(vertices[i * 2] / columnWidth);
+            assertTrue(i == 0 || vertices[i * 2] >= vertices[i * 2 - 2]);
+            min[column] = Math.min(min[column], vertices[i * 2 + 1]);
+            max[column] = Math.max(max[column], vertices[i * 2 + 1]);
+        }
+        for (int column = 0; column < columns; column++) {
+            assertEquals(rawMin[column], min[column], 0.0d);
+            assertEquals(rawMax[column], max[column], 0.0d);
+        }
+    }
+
+    public void testOverlappingRangesAppendSameColumns() {
+        final PLineDecimator decimator = new PLineDecimator(createSeries(200000));
+        final double columnWidth = 7.0d;
+        final Path2D left = new Path2D.Double();
+        final double[] leftVertices = getVertices(left, decimator.appendTo(left, 0.0d, 1000.0d, columnWidth));
+        final Path2D right = new Path2D.Double();
+        final double[] rightVertices = getVertices(right, decimator.appendTo(right, 500.5d, 2000.0d, columnWidth));
+
+        int i = 0;
+        while (leftVertices[i] < 504.0d) {
+            i += 2;
+        }
+        int j = 0;
+        while (rightVertices[j] < 504.0d) {
+            j += 2;
+        }
+        int compared = 0;
+        while (leftVertices[i] < 994.0d) {
+            assertEquals(leftVertices[i], rightVertices[j], 0.0d);
+            assertEquals(leftVertices[i + 1], rightVertices[j + 1], 0.0d);
+            i += 2;
+            j += 2;
+            compared++;
+        }
+        assertTrue(compared > 70);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2008-2019, Piccolo2D project, http://piccolo2d.org
+ * Copyright (c) 1998-2008, University of Maryland
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided
+ * that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this list of conditions
+ * and the following disclaimer in the documentation and/or other materials provided with the
+ * distribution.
+ *
+ * None of the name of the University of Maryland, the name of the Piccolo2D project, or the names of its
+ * contributors may be used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.piccolo2d.extras.util;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for XYRingBuffer.
+ */
+public class XYRingBufferTest extends TestCase {
+
+    public void testMaxPointCountMustBePositive() {
+        try {
+            new XYRingBuffer(0);
+            fail("new XYRingBuffer(0) expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testAppendGrows() {
+        final XYRingBuffer buffer = new XYRingBuffer();
+        for (int i = 0; i < 100; i++) {
+            buffer.appendPoint(i, -i);
+        }
+        assertEquals(100, buffer.getPointCount());
+        assertEquals(0.0d, buffer.getX(0), 0.0d);
+        assertEquals(-99.0d, buffer.getY(99), 0.0d);
+    }
+
+    public void testAppendEvictsOldestPoints() {
+        final XYRingBuffer buffer = new XYRingBuffer(10);
+        for (int i = 0; i < 25; i++) {
+            buffer.appendPoint(i, i * 2);
+        }
+        assertEquals(10, buffer.getPointCount());
+        assertEquals(15.0d, buffer.getX(0), 0.0d);
+        assertEquals(48.0d, buffer.getY(9), 0.0d);
+    }
+
+    public void testRemoveOldestPoints() {
+        final XYRingBuffer buffer = new XYRingBuffer();
+        buffer.appendPoints(new double[] { 0.0d, 0.0d, 1.0d, 1.0d, 2.0d, 2.0d }, 0, 3);
+        buffer.removeOldestPoints(2);
+        assertEquals(1, buffer.getPointCount());
+        assertEquals(2.0d, buffer.getX(0), 0.0d);
+        try {
+            buffer.removeOldestPoints(2);
+            fail("removeOldestPoints(2) expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testIndexOutOfRange() {
+        final XYRingBuffer buffer = new XYRingBuffer();
+        buffer.appendPoint(1.0d, 1.0d);
+        try {
+            buffer.getX(1);
+            fail("getX(1) expected IllegalArgumentException");
+        }
+        catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testBoundsFollowSlidingWindow() {
+        final Random random = new Random(7L);
+        final XYRingBuffer buffer = new XYRingBuffer(50);
+        final Rectangle2D bounds = new Rectangle2D.Double();
+        for (int i = 0; i < 1000; i++) {
+            buffer.appendPoint(random.nextGaussian(), random.nextGaussian());
+            if (i % 97 == 0) {
+                buffer.removeOldestPoints(buffer.getPointCount() / 3);
+            }
+
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for (int j = 0; j < buffer.getPointCount(); j++) {
+                minX = Math.min(minX, buffer.getX(j));
+                minY = Math.min(minY, buffer.getY(j));
+                maxX = Math.max(maxX, buffer.getX(j));
+                maxY = Math.max(maxY, buffer.getY(j));
+            }
+            buffer.getBounds(bounds);
+            assertEquals(minX, bounds.getMinX(), 0.0d);
+            assertEquals(minY, bounds.getMinY(), 0.0d);
+            assertEquals(maxX, bounds.getMaxX(), 1.0e-12d);
+            assertEquals(maxY, bounds.getMaxY(), 1.0e-12d);
+        }
+    }
+
+    public void testBoundsEmptyWithoutPoints() {
+        final XYRingBuffer buffer = new XYRingBuffer();
+        buffer.appendPoint(5.0d, 5.0d);
+        buffer.removeAllPoints();
+        assertTrue(buffer.getBounds(new Rectangle2D.Double()).isEmpty());
+    }
+}